@@ -0,0 +1,75 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.build.jmh;
+
+import java.io.File;
+import java.util.Arrays;
+
+import me.champeau.gradle.JMHPlugin;
+import me.champeau.gradle.JMHPluginExtension;
+import org.gradle.api.Plugin;
+import org.gradle.api.Project;
+import org.gradle.api.file.DuplicatesStrategy;
+import org.gradle.api.plugins.JavaPlugin;
+
+/**
+ * {@link Plugin} that applies the {@code "jmh-gradle-plugin"} to a Spring Framework
+ * module and configures the conventions for its microbenchmarks.
+ * <p>Benchmarks live in the {@code src/jmh/java} source set of the module and are run
+ * with {@code "./gradlew :spring-core:jmh"}. Results are written as JSON to
+ * {@code "build/reports/jmh/results.json"} so that they can be compared between builds.
+ * One can restrict the benchmarks to run with a dedicated property on the CLI:
+ * {@code "./gradlew :spring-core:jmh -PjmhIncludes=ConcurrentReferenceHashMapBenchmark"}.
+ *
+ * @author Sen Hu
+ */
+public class JmhConventionsPlugin implements Plugin<Project> {
+
+	/**
+	 * The project property that can be used to select the benchmarks to run,
+	 * as a comma-separated list of regular expressions.
+	 */
+	public static final String JMH_INCLUDES_PROPERTY = "jmhIncludes";
+
+	public static final String JMH_VERSION = "1.23";
+
+	private static final String JMH_CONFIGURATION_NAME = "jmh";
+
+	private static final String JMH_RESULT_FORMAT = "JSON";
+
+	@Override
+	public void apply(Project project) {
+		project.getPlugins().withType(JavaPlugin.class, javaPlugin -> {
+			project.getPluginManager().apply(JMHPlugin.class);
+			applyJmhConventions(project);
+		});
+	}
+
+	private void applyJmhConventions(Project project) {
+		JMHPluginExtension jmh = project.getExtensions().getByType(JMHPluginExtension.class);
+		jmh.setJmhVersion(JMH_VERSION);
+		jmh.setDuplicateClassesStrategy(DuplicatesStrategy.EXCLUDE);
+		jmh.setResultFormat(JMH_RESULT_FORMAT);
+		jmh.setResultsFile(new File(project.getBuildDir(), "reports/jmh/results.json"));
+		if (project.hasProperty(JMH_INCLUDES_PROPERTY)) {
+			String includes = project.property(JMH_INCLUDES_PROPERTY).toString();
+			jmh.setInclude(Arrays.asList(includes.split(",")));
+		}
+		project.getDependencies().add(JMH_CONFIGURATION_NAME, "net.sf.jopt-simple:jopt-simple");
+	}
+
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for {@link BeanWrapperImpl#setPropertyValue} and
+ * {@link BeanWrapperImpl#getPropertyValue}, with and without type conversion
+ * and for nested property paths, as used by data binding.
+ *
+ * @author Sen Hu
+ */
+@BenchmarkMode(Mode.Throughput)
+public class BeanWrapperBenchmark {
+
+	@Benchmark
+	public void setSimpleProperty(BeanWrapperData data, Blackhole bh) {
+		data.beanWrapper.setPropertyValue("name", "Spring");
+		bh.consume(data.bean);
+	}
+
+	@Benchmark
+	public void setPropertyWithConversion(BeanWrapperData data, Blackhole bh) {
+		data.beanWrapper.setPropertyValue("age", "42");
+		bh.consume(data.bean);
+	}
+
+	@Benchmark
+	public void setNestedProperty(BeanWrapperData data, Blackhole bh) {
+		data.beanWrapper.setPropertyValue("address.city", "Linz");
+		bh.consume(data.bean);
+	}
+
+	@Benchmark
+	public void getSimpleProperty(BeanWrapperData data, Blackhole bh) {
+		bh.consume(data.beanWrapper.getPropertyValue("name"));
+	}
+
+	@Benchmark
+	public void newBeanWrapperSetProperty(BeanWrapperData data, Blackhole bh) {
+		BeanWrapper beanWrapper = new BeanWrapperImpl(data.bean);
+		beanWrapper.setPropertyValue("age", "42");
+		bh.consume(beanWrapper);
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BeanWrapperData {
+
+		public Person bean;
+
+		public BeanWrapper beanWrapper;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.bean = new Person();
+			this.bean.setAddress(new Address());
+			this.beanWrapper = new BeanWrapperImpl(this.bean);
+		}
+	}
+
+
+	public static class Person {
+
+		private String name;
+
+		private int age;
+
+		private Address address;
+
+		public String getName() {
+			return this.name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public int getAge() {
+			return this.age;
+		}
+
+		public void setAge(int age) {
+			this.age = age;
+		}
+
+		public Address getAddress() {
+			return this.address;
+		}
+
+		public void setAddress(Address address) {
+			this.address = address;
+		}
+	}
+
+
+	public static class Address {
+
+		private String city;
+
+		public String getCity() {
+			return this.city;
+		}
+
+		public void setCity(String city) {
+			this.city = city;
+		}
+	}
+
+}
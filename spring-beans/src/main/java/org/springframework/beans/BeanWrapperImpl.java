@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -25,6 +25,7 @@ import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
 
 import org.springframework.core.ResolvableType;
+import org.springframework.core.SpringProperties;
 import org.springframework.core.convert.Property;
 import org.springframework.core.convert.TypeDescriptor;
 import org.springframework.lang.Nullable;
@@ -62,6 +63,23 @@ import org.springframework.util.ReflectionUtils;
  */
 public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements BeanWrapper {
 
+	/**
+	 * System property that instructs Spring to use compiled property accessors
+	 * by default: "spring.beanwrapper.compile", with a value of "true" generating
+	 * a bytecode accessor per bean class instead of invoking read and write
+	 * methods reflectively.
+	 * <p>The default is "false". Consider switching this flag to "true" for
+	 * applications that bind large numbers of objects of the same classes,
+	 * e.g. through data binding or {@code BeanPropertyRowMapper}.
+	 * @since 5.2.7
+	 * @see #setCompiledAccessors
+	 */
+	public static final String COMPILE_ACCESSORS_PROPERTY_NAME = "spring.beanwrapper.compile";
+
+	private static final boolean defaultCompiledAccessors =
+			SpringProperties.getFlag(COMPILE_ACCESSORS_PROPERTY_NAME);
+
+
 	/**
 	 * Cached introspections results for this object, to prevent encountering
 	 * the cost of JavaBeans introspection every time.
@@ -75,6 +93,8 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 	@Nullable
 	private AccessControlContext acc;
 
+	private boolean compiledAccessors = defaultCompiledAccessors;
+
 
 	/**
 	 * Create a new empty BeanWrapperImpl. Wrapped instance needs to be set afterwards.
@@ -132,6 +152,7 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 	private BeanWrapperImpl(Object object, String nestedPath, BeanWrapperImpl parent) {
 		super(object, nestedPath, parent);
 		setSecurityContext(parent.acc);
+		setCompiledAccessors(parent.compiledAccessors);
 	}
 
 
@@ -194,6 +215,29 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 	}
 
 
+	/**
+	 * Set whether to read and write properties through a generated accessor
+	 * class per bean class, avoiding reflective method invocations. Also
+	 * applies to nested property accessors created from this instance.
+	 * <p>Default is "false", unless the {@link #COMPILE_ACCESSORS_PROPERTY_NAME}
+	 * system property has been set to "true". Properties whose methods cannot
+	 * be invoked directly (e.g. on non-public classes) are still accessed
+	 * reflectively, as are all properties when running under a SecurityManager.
+	 * @since 5.2.7
+	 */
+	public void setCompiledAccessors(boolean compiledAccessors) {
+		this.compiledAccessors = compiledAccessors;
+	}
+
+	/**
+	 * Return whether properties are accessed through generated accessor classes.
+	 * @since 5.2.7
+	 */
+	public boolean isCompiledAccessors() {
+		return this.compiledAccessors;
+	}
+
+
 	/**
 	 * Convert the given value for the specified property to the latter's type.
 	 * <p>This method is only intended for optimizations in a BeanFactory.
@@ -212,11 +256,15 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 			throw new InvalidPropertyException(getRootClass(), getNestedPath() + propertyName,
 					"No property '" + propertyName + "' found");
 		}
+		return convertForProperty(propertyName, null, value, getTypeDescriptor(cachedIntrospectionResults, pd));
+	}
+
+	private TypeDescriptor getTypeDescriptor(CachedIntrospectionResults cachedIntrospectionResults, PropertyDescriptor pd) {
 		TypeDescriptor td = cachedIntrospectionResults.getTypeDescriptor(pd);
 		if (td == null) {
 			td = cachedIntrospectionResults.addTypeDescriptor(pd, new TypeDescriptor(property(pd)));
 		}
-		return convertForProperty(propertyName, null, value, td);
+		return td;
 	}
 
 	private Property property(PropertyDescriptor pd) {
@@ -227,8 +275,15 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 	@Override
 	@Nullable
 	protected BeanPropertyHandler getLocalPropertyHandler(String propertyName) {
-		PropertyDescriptor pd = getCachedIntrospectionResults().getPropertyDescriptor(propertyName);
-		return (pd != null ? new BeanPropertyHandler(pd) : null);
+		CachedIntrospectionResults cachedIntrospectionResults = getCachedIntrospectionResults();
+		PropertyDescriptor pd = cachedIntrospectionResults.getPropertyDescriptor(propertyName);
+		if (pd == null) {
+			return null;
+		}
+		PropertyAccessorCompiler.CompiledProperty compiledProperty =
+				(this.compiledAccessors && System.getSecurityManager() == null ?
+						cachedIntrospectionResults.getCompiledProperty(pd) : null);
+		return new BeanPropertyHandler(pd, cachedIntrospectionResults, compiledProperty);
 	}
 
 	@Override
@@ -265,9 +320,18 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 
 		private final PropertyDescriptor pd;
 
-		public BeanPropertyHandler(PropertyDescriptor pd) {
+		private final CachedIntrospectionResults cachedIntrospectionResults;
+
+		@Nullable
+		private final PropertyAccessorCompiler.CompiledProperty compiledProperty;
+
+		public BeanPropertyHandler(PropertyDescriptor pd, CachedIntrospectionResults cachedIntrospectionResults,
+				@Nullable PropertyAccessorCompiler.CompiledProperty compiledProperty) {
+
 			super(pd.getPropertyType(), pd.getReadMethod() != null, pd.getWriteMethod() != null);
 			this.pd = pd;
+			this.cachedIntrospectionResults = cachedIntrospectionResults;
+			this.compiledProperty = compiledProperty;
 		}
 
 		@Override
@@ -277,7 +341,7 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 
 		@Override
 		public TypeDescriptor toTypeDescriptor() {
-			return new TypeDescriptor(property(this.pd));
+			return getTypeDescriptor(this.cachedIntrospectionResults, this.pd);
 		}
 
 		@Override
@@ -289,6 +353,9 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 		@Override
 		@Nullable
 		public Object getValue() throws Exception {
+			if (this.compiledProperty != null && this.compiledProperty.isReadable()) {
+				return this.compiledProperty.getValue(getWrappedInstance());
+			}
 			final Method readMethod = this.pd.getReadMethod();
 			if (System.getSecurityManager() != null) {
 				AccessController.doPrivileged((PrivilegedAction<Object>) () -> {
@@ -311,6 +378,10 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 
 		@Override
 		public void setValue(final @Nullable Object value) throws Exception {
+			if (this.compiledProperty != null && this.compiledProperty.isWritable(value)) {
+				this.compiledProperty.setValue(getWrappedInstance(), value);
+				return;
+			}
 			final Method writeMethod = (this.pd instanceof GenericTypeAwarePropertyDescriptor ?
 					((GenericTypeAwarePropertyDescriptor) this.pd).getWriteMethodForActualAccess() :
 					this.pd.getWriteMethod());
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -144,8 +144,9 @@ public final class CachedIntrospectionResults {
 
 	/**
 	 * Clear the introspection cache for the given ClassLoader, removing the
-	 * introspection results for all classes underneath that ClassLoader, and
-	 * removing the ClassLoader (and its children) from the acceptance list.
+	 * introspection results and compiled property accessors for all classes
+	 * underneath that ClassLoader, and removing the ClassLoader (and its
+	 * children) from the acceptance list.
 	 * @param classLoader the ClassLoader to clear the cache for
 	 */
 	public static void clearClassLoader(@Nullable ClassLoader classLoader) {
@@ -155,6 +156,7 @@ public final class CachedIntrospectionResults {
 				isUnderneathClassLoader(beanClass.getClassLoader(), classLoader));
 		softClassCache.keySet().removeIf(beanClass ->
 				isUnderneathClassLoader(beanClass.getClassLoader(), classLoader));
+		PropertyAccessorCompiler.clearClassLoader(classLoader);
 	}
 
 	/**
@@ -213,7 +215,7 @@ public final class CachedIntrospectionResults {
 	 * @param candidate the candidate ClassLoader to check
 	 * @param parent the parent ClassLoader to check for
 	 */
-	private static boolean isUnderneathClassLoader(@Nullable ClassLoader candidate, @Nullable ClassLoader parent) {
+	static boolean isUnderneathClassLoader(@Nullable ClassLoader candidate, @Nullable ClassLoader parent) {
 		if (candidate == parent) {
 			return true;
 		}
@@ -258,6 +260,10 @@ public final class CachedIntrospectionResults {
 	/** TypeDescriptor objects keyed by PropertyDescriptor. */
 	private final ConcurrentMap<PropertyDescriptor, TypeDescriptor> typeDescriptorCache;
 
+	/** Compiled properties keyed by property name String, generated on first access. */
+	@Nullable
+	private volatile Map<String, PropertyAccessorCompiler.CompiledProperty> compiledProperties;
+
 
 	/**
 	 * Create a new CachedIntrospectionResults instance for the given class.
@@ -381,4 +387,28 @@ public final class CachedIntrospectionResults {
 		return this.typeDescriptorCache.get(pd);
 	}
 
+	/**
+	 * Return the compiled accessor for the given property, generating
+	 * the accessor class for the bean class on first access.
+	 * @param pd the property descriptor as obtained from this instance
+	 * @return the compiled property, or {@code null} if neither the read nor
+	 * the write method of the given property could be compiled
+	 * @since 5.2.7
+	 * @see PropertyAccessorCompiler
+	 */
+	@Nullable
+	PropertyAccessorCompiler.CompiledProperty getCompiledProperty(PropertyDescriptor pd) {
+		Map<String, PropertyAccessorCompiler.CompiledProperty> compiled = this.compiledProperties;
+		if (compiled == null) {
+			synchronized (this.propertyDescriptorCache) {
+				compiled = this.compiledProperties;
+				if (compiled == null) {
+					compiled = PropertyAccessorCompiler.compile(getBeanClass(), this.propertyDescriptorCache.values());
+					this.compiledProperties = compiled;
+				}
+			}
+		}
+		return compiled.get(pd.getName());
+	}
+
 }
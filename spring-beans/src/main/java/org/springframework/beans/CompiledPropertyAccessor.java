@@ -0,0 +1,67 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Base class for generated accessors that read and write the properties of a
+ * specific bean class through direct method invocations instead of reflection.
+ * Each property of the bean class is identified by its index in the generated
+ * class; the bytecode is produced by {@code PropertyAccessorCompiler}.
+ *
+ * <p><b>NOTE:</b> This is an internal class. It is just public in order to
+ * allow generated subclasses in a child ClassLoader to extend it.
+ *
+ * @author Sen Hu
+ * @since 5.2.7
+ * @see BeanWrapperImpl#setCompiledAccessors
+ */
+public abstract class CompiledPropertyAccessor {
+
+	/**
+	 * Invoke the read method of the property with the given index.
+	 * @param target the bean instance (of the exact class that this
+	 * accessor has been generated for)
+	 * @param index the index of the property
+	 * @return the current value of the property, with primitives boxed
+	 * @throws Throwable anything thrown by the read method itself
+	 */
+	@Nullable
+	public abstract Object getValue(Object target, int index) throws Throwable;
+
+	/**
+	 * Invoke the write method of the property with the given index.
+	 * @param target the bean instance (of the exact class that this
+	 * accessor has been generated for)
+	 * @param index the index of the property
+	 * @param value the new value, assignable to the write method's parameter
+	 * @throws Throwable anything thrown by the write method itself
+	 */
+	public abstract void setValue(Object target, int index, @Nullable Object value) throws Throwable;
+
+
+	/**
+	 * Create the exception to throw for an index that does not denote an
+	 * accessible read or write method in the generated class.
+	 * @param index the index that has been requested
+	 */
+	protected static IllegalArgumentException invalidIndex(int index) {
+		return new IllegalArgumentException("No compiled accessor for property index " + index);
+	}
+
+}
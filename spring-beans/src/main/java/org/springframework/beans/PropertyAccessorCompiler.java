@@ -0,0 +1,364 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.Label;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Generates a {@link CompiledPropertyAccessor} subclass per bean class, invoking
+ * the read and write methods of its properties directly. The generated classes
+ * are defined in a child of the bean class's ClassLoader, analogous to
+ * compiled SpEL expressions.
+ *
+ * <p>Only public read and write methods on a public bean class are compiled,
+ * with public parameter types for write methods. Properties that do not
+ * qualify are simply not included, leaving them to reflective access.
+ *
+ * @author Sen Hu
+ * @since 5.2.7
+ * @see CachedIntrospectionResults#getCompiledProperty
+ */
+final class PropertyAccessorCompiler implements Opcodes {
+
+	private static final Log logger = LogFactory.getLog(PropertyAccessorCompiler.class);
+
+	private static final String ACCESSOR_NAME = Type.getInternalName(CompiledPropertyAccessor.class);
+
+	// A child ClassLoader is created for each bean ClassLoader and used to load the generated accessors.
+	static final Map<ClassLoader, ChildClassLoader> childClassLoaders = new ConcurrentReferenceHashMap<>();
+
+	// Counter suffix for generated classes
+	private static final AtomicInteger suffixId = new AtomicInteger();
+
+
+	private PropertyAccessorCompiler() {
+	}
+
+
+	/**
+	 * Generate an accessor for the given properties of the given bean class.
+	 * @param beanClass the bean class to generate an accessor for
+	 * @param pds the property descriptors of the bean class
+	 * @return the compiled properties keyed by property name (never {@code null},
+	 * but empty if the bean class does not qualify for compilation at all)
+	 */
+	static Map<String, CompiledProperty> compile(Class<?> beanClass, Collection<PropertyDescriptor> pds) {
+		ClassLoader classLoader = beanClass.getClassLoader();
+		if (classLoader == null || !isAccessible(beanClass) ||
+				!ClassUtils.isVisible(CompiledPropertyAccessor.class, classLoader)) {
+			return Collections.emptyMap();
+		}
+
+		List<String> names = new ArrayList<>(pds.size());
+		List<Method> readMethods = new ArrayList<>(pds.size());
+		List<Method> writeMethods = new ArrayList<>(pds.size());
+		for (PropertyDescriptor pd : pds) {
+			Method readMethod = pd.getReadMethod();
+			Method writeMethod = (pd.getWriteMethod() != null && pd instanceof GenericTypeAwarePropertyDescriptor ?
+					((GenericTypeAwarePropertyDescriptor) pd).getWriteMethodForActualAccess() :
+					pd.getWriteMethod());
+			readMethod = (readMethod != null && isAccessible(readMethod) ? readMethod : null);
+			writeMethod = (writeMethod != null && isAccessible(writeMethod) &&
+					isAccessible(writeMethod.getParameterTypes()[0]) ? writeMethod : null);
+			if (readMethod != null || writeMethod != null) {
+				names.add(pd.getName());
+				readMethods.add(readMethod);
+				writeMethods.add(writeMethod);
+			}
+		}
+		if (names.isEmpty()) {
+			return Collections.emptyMap();
+		}
+
+		CompiledPropertyAccessor accessor;
+		try {
+			ChildClassLoader childClassLoader = childClassLoaders.computeIfAbsent(classLoader, ChildClassLoader::new);
+			String className = "org/springframework/beans/generated/PropertyAccessor" + suffixId.incrementAndGet();
+			byte[] bytes = generateAccessorClass(className, beanClass, readMethods, writeMethods, childClassLoader);
+			Class<?> accessorClass = childClassLoader.defineClass(className.replace('/', '.'), bytes);
+			accessor = (CompiledPropertyAccessor) ReflectionUtils.accessibleConstructor(accessorClass).newInstance();
+		}
+		catch (Throwable ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Failed to compile property accessor for class [" + beanClass.getName() + "]", ex);
+			}
+			return Collections.emptyMap();
+		}
+
+		Map<String, CompiledProperty> compiledProperties = new HashMap<>(names.size());
+		for (int i = 0; i < names.size(); i++) {
+			Method writeMethod = writeMethods.get(i);
+			compiledProperties.put(names.get(i), new CompiledProperty(accessor, i, readMethods.get(i) != null,
+					(writeMethod != null ? writeMethod.getParameterTypes()[0] : null)));
+		}
+		if (logger.isTraceEnabled()) {
+			logger.trace("Compiled property accessor for class [" + beanClass.getName() + "]: " + names);
+		}
+		return compiledProperties;
+	}
+
+	/**
+	 * Release the child ClassLoaders, and therefore the generated accessor
+	 * classes, for all bean ClassLoaders underneath the given ClassLoader.
+	 * @param classLoader the ClassLoader to clear the child ClassLoaders for
+	 * @see CachedIntrospectionResults#clearClassLoader
+	 */
+	static void clearClassLoader(@Nullable ClassLoader classLoader) {
+		childClassLoaders.keySet().removeIf(beanClassLoader ->
+				CachedIntrospectionResults.isUnderneathClassLoader(beanClassLoader, classLoader));
+	}
+
+	private static byte[] generateAccessorClass(String className, Class<?> beanClass,
+			List<Method> readMethods, List<Method> writeMethods, ClassLoader classLoader) {
+
+		ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS | ClassWriter.COMPUTE_FRAMES) {
+			@Override
+			protected ClassLoader getClassLoader() {
+				return classLoader;
+			}
+		};
+		cw.visit(V1_8, ACC_PUBLIC | ACC_FINAL | ACC_SUPER, className, null, ACCESSOR_NAME, null);
+
+		MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+		mv.visitCode();
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitMethodInsn(INVOKESPECIAL, ACCESSOR_NAME, "<init>", "()V", false);
+		mv.visitInsn(RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		String beanName = Type.getInternalName(beanClass);
+
+		// public Object getValue(Object target, int index)
+		mv = cw.visitMethod(ACC_PUBLIC, "getValue", "(Ljava/lang/Object;I)Ljava/lang/Object;", null, null);
+		mv.visitCode();
+		Label invalidIndex = new Label();
+		Label[] labels = createLabels(readMethods, invalidIndex);
+		mv.visitVarInsn(ILOAD, 2);
+		mv.visitTableSwitchInsn(0, labels.length - 1, invalidIndex, labels);
+		for (int i = 0; i < labels.length; i++) {
+			Method readMethod = readMethods.get(i);
+			if (readMethod != null) {
+				mv.visitLabel(labels[i]);
+				mv.visitVarInsn(ALOAD, 1);
+				mv.visitTypeInsn(CHECKCAST, beanName);
+				mv.visitMethodInsn(INVOKEVIRTUAL, beanName, readMethod.getName(),
+						Type.getMethodDescriptor(readMethod), false);
+				insertBoxIfNecessary(mv, readMethod.getReturnType());
+				mv.visitInsn(ARETURN);
+			}
+		}
+		insertInvalidIndex(mv, invalidIndex);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		// public void setValue(Object target, int index, Object value)
+		mv = cw.visitMethod(ACC_PUBLIC, "setValue", "(Ljava/lang/Object;ILjava/lang/Object;)V", null, null);
+		mv.visitCode();
+		invalidIndex = new Label();
+		labels = createLabels(writeMethods, invalidIndex);
+		mv.visitVarInsn(ILOAD, 2);
+		mv.visitTableSwitchInsn(0, labels.length - 1, invalidIndex, labels);
+		for (int i = 0; i < labels.length; i++) {
+			Method writeMethod = writeMethods.get(i);
+			if (writeMethod != null) {
+				mv.visitLabel(labels[i]);
+				mv.visitVarInsn(ALOAD, 1);
+				mv.visitTypeInsn(CHECKCAST, beanName);
+				mv.visitVarInsn(ALOAD, 3);
+				insertUnboxOrCast(mv, writeMethod.getParameterTypes()[0]);
+				mv.visitMethodInsn(INVOKEVIRTUAL, beanName, writeMethod.getName(),
+						Type.getMethodDescriptor(writeMethod), false);
+				// Discard the result of fluent setters
+				Type returnType = Type.getReturnType(writeMethod);
+				if (returnType.getSize() == 2) {
+					mv.visitInsn(POP2);
+				}
+				else if (returnType.getSize() == 1) {
+					mv.visitInsn(POP);
+				}
+				mv.visitInsn(RETURN);
+			}
+		}
+		insertInvalidIndex(mv, invalidIndex);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		cw.visitEnd();
+		return cw.toByteArray();
+	}
+
+	private static Label[] createLabels(List<Method> methods, Label invalidIndex) {
+		Label[] labels = new Label[methods.size()];
+		for (int i = 0; i < labels.length; i++) {
+			labels[i] = (methods.get(i) != null ? new Label() : invalidIndex);
+		}
+		return labels;
+	}
+
+	private static void insertInvalidIndex(MethodVisitor mv, Label invalidIndex) {
+		mv.visitLabel(invalidIndex);
+		mv.visitVarInsn(ILOAD, 2);
+		mv.visitMethodInsn(INVOKESTATIC, ACCESSOR_NAME, "invalidIndex",
+				"(I)Ljava/lang/IllegalArgumentException;", false);
+		mv.visitInsn(ATHROW);
+	}
+
+	private static void insertBoxIfNecessary(MethodVisitor mv, Class<?> type) {
+		if (type.isPrimitive()) {
+			Class<?> wrapperType = ClassUtils.resolvePrimitiveIfNecessary(type);
+			mv.visitMethodInsn(INVOKESTATIC, Type.getInternalName(wrapperType), "valueOf",
+					"(" + Type.getDescriptor(type) + ")" + Type.getDescriptor(wrapperType), false);
+		}
+	}
+
+	private static void insertUnboxOrCast(MethodVisitor mv, Class<?> type) {
+		if (type.isPrimitive()) {
+			String wrapperName = Type.getInternalName(ClassUtils.resolvePrimitiveIfNecessary(type));
+			mv.visitTypeInsn(CHECKCAST, wrapperName);
+			mv.visitMethodInsn(INVOKEVIRTUAL, wrapperName, type.getName() + "Value",
+					"()" + Type.getDescriptor(type), false);
+		}
+		else if (type != Object.class) {
+			mv.visitTypeInsn(CHECKCAST, Type.getInternalName(type));
+		}
+	}
+
+	private static boolean isAccessible(Method method) {
+		return (Modifier.isPublic(method.getModifiers()) && !Modifier.isStatic(method.getModifiers()));
+	}
+
+	private static boolean isAccessible(Class<?> type) {
+		Class<?> typeToCheck = type;
+		while (typeToCheck.isArray()) {
+			typeToCheck = typeToCheck.getComponentType();
+		}
+		while (typeToCheck != null) {
+			if (!typeToCheck.isPrimitive() && !Modifier.isPublic(typeToCheck.getModifiers())) {
+				return false;
+			}
+			typeToCheck = typeToCheck.getDeclaringClass();
+		}
+		return true;
+	}
+
+
+	/**
+	 * A property of a bean class with a compiled read and/or write method.
+	 */
+	static final class CompiledProperty {
+
+		private final CompiledPropertyAccessor accessor;
+
+		private final int index;
+
+		private final boolean readable;
+
+		@Nullable
+		private final Class<?> writeType;
+
+		CompiledProperty(CompiledPropertyAccessor accessor, int index, boolean readable,
+				@Nullable Class<?> writeType) {
+
+			this.accessor = accessor;
+			this.index = index;
+			this.readable = readable;
+			this.writeType = writeType;
+		}
+
+		/**
+		 * Return whether the read method of this property has been compiled.
+		 */
+		public boolean isReadable() {
+			return this.readable;
+		}
+
+		/**
+		 * Return whether the write method of this property has been compiled
+		 * and accepts the given value as-is.
+		 */
+		public boolean isWritable(@Nullable Object value) {
+			return (this.writeType != null && ClassUtils.isAssignableValue(this.writeType, value));
+		}
+
+		/**
+		 * Invoke the compiled read method.
+		 * @throws InvocationTargetException wrapping anything thrown by the read method
+		 */
+		@Nullable
+		public Object getValue(Object target) throws InvocationTargetException {
+			try {
+				return this.accessor.getValue(target, this.index);
+			}
+			catch (Throwable ex) {
+				throw new InvocationTargetException(ex);
+			}
+		}
+
+		/**
+		 * Invoke the compiled write method.
+		 * @throws InvocationTargetException wrapping anything thrown by the write method
+		 */
+		public void setValue(Object target, @Nullable Object value) throws InvocationTargetException {
+			try {
+				this.accessor.setValue(target, this.index, value);
+			}
+			catch (Throwable ex) {
+				throw new InvocationTargetException(ex);
+			}
+		}
+	}
+
+
+	/**
+	 * ClassLoader for the generated accessor classes.
+	 */
+	private static class ChildClassLoader extends ClassLoader {
+
+		public ChildClassLoader(ClassLoader parent) {
+			super(parent);
+		}
+
+		public Class<?> defineClass(String name, byte[] bytes) {
+			return super.defineClass(name, bytes, 0, bytes.length);
+		}
+	}
+
+}
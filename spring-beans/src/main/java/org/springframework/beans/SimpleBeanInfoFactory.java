@@ -0,0 +1,193 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import java.beans.BeanDescriptor;
+import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.beans.SimpleBeanInfo;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.core.Ordered;
+import org.springframework.lang.Nullable;
+
+/**
+ * {@link BeanInfoFactory} implementation that derives bean properties directly
+ * from the public methods of a bean class, bypassing the JavaBeans
+ * {@link Introspector} with its internal synchronization and caching.
+ *
+ * <p>Properties are determined according to the JavaBeans naming conventions:
+ * {@code getXxx()} and {@code isXxx()} read methods (the latter for
+ * {@code boolean} only) and single-argument {@code setXxx} write methods,
+ * including non-void returning ("fluent") and static setters as supported by
+ * {@code ExtendedBeanInfo}. In contrast to standard introspection, explicit
+ * {@link BeanInfo} classes are not considered, and indexed read and write
+ * methods are not exposed as {@link java.beans.IndexedPropertyDescriptor
+ * IndexedPropertyDescriptors}; indexed access through bean property paths
+ * is not affected by the latter.
+ *
+ * <p>Not registered by default. To use it for all bean classes, declare it in a
+ * {@code META-INF/spring.factories} file of the application:
+ * <pre class="code">
+ * org.springframework.beans.BeanInfoFactory=org.springframework.beans.SimpleBeanInfoFactory
+ * </pre>
+ * It is ordered right before {@link ExtendedBeanInfoFactory}, which it
+ * supersedes, and after any other user-defined {@link BeanInfoFactory} types.
+ *
+ * @author Sen Hu
+ * @since 5.2.7
+ * @see CachedIntrospectionResults
+ */
+public class SimpleBeanInfoFactory implements BeanInfoFactory, Ordered {
+
+	@Override
+	public BeanInfo getBeanInfo(Class<?> beanClass) throws IntrospectionException {
+		PropertyDescriptor[] pds = determineBasicProperties(beanClass);
+		return new SimpleBeanInfo() {
+			@Override
+			public BeanDescriptor getBeanDescriptor() {
+				return new BeanDescriptor(beanClass);
+			}
+			@Override
+			public PropertyDescriptor[] getPropertyDescriptors() {
+				return pds;
+			}
+		};
+	}
+
+	@Override
+	public int getOrder() {
+		return Ordered.LOWEST_PRECEDENCE - 1;
+	}
+
+
+	/**
+	 * Determine the basic (non-indexed) properties of the given bean class,
+	 * sorted by property name like the ones from the JavaBeans Introspector.
+	 */
+	private static PropertyDescriptor[] determineBasicProperties(Class<?> beanClass) throws IntrospectionException {
+		Map<String, PropertyMethods> methodsByProperty = new TreeMap<>();
+		for (Method method : beanClass.getMethods()) {
+			String methodName = method.getName();
+			int nParams = method.getParameterCount();
+			boolean isStatic = Modifier.isStatic(method.getModifiers());
+			boolean setter = false;
+			int prefixLength;
+			if (methodName.startsWith("get") && nParams == 0 && !isStatic && method.getReturnType() != void.class) {
+				prefixLength = 3;
+			}
+			else if (methodName.startsWith("is") && nParams == 0 && !isStatic && method.getReturnType() == boolean.class) {
+				prefixLength = 2;
+			}
+			else if (methodName.startsWith("set") && nParams == 1) {
+				prefixLength = 3;
+				setter = true;
+			}
+			else {
+				continue;
+			}
+			if (methodName.length() == prefixLength) {
+				continue;
+			}
+			String propertyName = Introspector.decapitalize(methodName.substring(prefixLength));
+			PropertyMethods methods = methodsByProperty.computeIfAbsent(propertyName, name -> new PropertyMethods());
+			if (setter) {
+				methods.writeMethods.add(method);
+			}
+			else {
+				methods.addReadMethod(method);
+			}
+		}
+
+		List<PropertyDescriptor> pds = new ArrayList<>(methodsByProperty.size());
+		for (Map.Entry<String, PropertyMethods> entry : methodsByProperty.entrySet()) {
+			PropertyMethods methods = entry.getValue();
+			Method writeMethod = methods.determineWriteMethod();
+			if (methods.readMethod != null || writeMethod != null) {
+				pds.add(new ExtendedBeanInfo.SimplePropertyDescriptor(entry.getKey(), methods.readMethod, writeMethod));
+			}
+		}
+		return pds.toArray(new PropertyDescriptor[0]);
+	}
+
+
+	/**
+	 * Candidate read and write methods for a property.
+	 */
+	private static class PropertyMethods {
+
+		@Nullable
+		Method readMethod;
+
+		final List<Method> writeMethods = new ArrayList<>(1);
+
+		void addReadMethod(Method method) {
+			if (this.readMethod == null || (this.readMethod.isBridge() && !method.isBridge())) {
+				this.readMethod = method;
+			}
+			else if (method.isBridge()) {
+				// Covariant return type bridge, or public bridge for a method in a non-public
+				// superclass: only used if no regular method is available
+			}
+			else if (method.getName().startsWith("is") && method.getReturnType() == boolean.class) {
+				// Like the Introspector, prefer isXxx() over getXxx() for boolean properties
+				this.readMethod = method;
+			}
+			else if (!this.readMethod.getName().startsWith("is") &&
+					this.readMethod.getReturnType().isAssignableFrom(method.getReturnType())) {
+				// More specific return type, e.g. from a default method
+				this.readMethod = method;
+			}
+		}
+
+		@Nullable
+		Method determineWriteMethod() {
+			if (this.writeMethods.isEmpty()) {
+				return null;
+			}
+			if (this.writeMethods.size() > 1 && !this.writeMethods.stream().allMatch(Method::isBridge)) {
+				this.writeMethods.removeIf(Method::isBridge);
+			}
+			// Sort for a deterministic choice between overloaded write methods
+			this.writeMethods.sort((m1, m2) -> m2.toString().compareTo(m1.toString()));
+			if (this.readMethod == null) {
+				return this.writeMethods.get(0);
+			}
+			Class<?> propertyType = this.readMethod.getReturnType();
+			Method compatibleMethod = null;
+			for (Method writeMethod : this.writeMethods) {
+				Class<?> paramType = writeMethod.getParameterTypes()[0];
+				if (paramType == propertyType) {
+					return writeMethod;
+				}
+				if (compatibleMethod == null &&
+						(paramType.isAssignableFrom(propertyType) || propertyType.isAssignableFrom(paramType))) {
+					compatibleMethod = writeMethod;
+				}
+			}
+			return compatibleMethod;
+		}
+	}
+
+}
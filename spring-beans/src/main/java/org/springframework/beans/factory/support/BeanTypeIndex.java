@@ -0,0 +1,237 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Incrementally maintained index from raw types (classes and interfaces)
+ * to the names of the bean definitions that may match them, used by
+ * {@link DefaultListableBeanFactory} as a pre-filter for by-type lookups.
+ *
+ * <p>Bean definitions are resolved lazily: registered and invalidated
+ * names are marked as pending and indexed on the next lookup. Beans whose
+ * type cannot be reliably determined upfront are never excluded from a
+ * lookup, leaving the decision to regular type matching.
+ *
+ * <p>Note that this currently applies to all beans created through a factory
+ * method, including {@code @Bean} methods, as well as to FactoryBeans,
+ * non-singletons and decorated definitions. Such beans are matched against
+ * every by-type lookup as before, so the index only speeds up lookups among
+ * singletons with a plain bean class, e.g. from component scanning.
+ *
+ * @author Sen Hu
+ * @since 5.2.7
+ * @see DefaultListableBeanFactory#setIndexBeanTypes
+ */
+final class BeanTypeIndex {
+
+	/** Indexed bean definition names, mapped to all types that they are assignable to. */
+	private final Map<String, Set<Class<?>>> typesByBeanName = new HashMap<>(256);
+
+	/** Indexed bean definition names, keyed by every type that they are assignable to. */
+	private final Map<Class<?>, Set<String>> beanNamesByType = new HashMap<>(256);
+
+	/** Names of bean definitions which need to be resolved before the next lookup. */
+	private final Set<String> pendingBeanNames = new LinkedHashSet<>(256);
+
+	/** Names of bean definitions without reliably determinable type. */
+	private final Set<String> unindexedBeanNames = new HashSet<>(64);
+
+	/** Registration order of bean definition names. */
+	private final Map<String, Long> registrationOrder = new HashMap<>(256);
+
+	private long registrationCount;
+
+	private long modificationCount;
+
+
+	/**
+	 * Create a new index for the given bean definition names.
+	 * @param beanNames the currently registered names, in registration order
+	 */
+	BeanTypeIndex(Collection<String> beanNames) {
+		for (String beanName : beanNames) {
+			register(beanName);
+		}
+	}
+
+
+	/**
+	 * Register the given bean definition name, keeping the position of
+	 * a previously registered definition with the same name.
+	 */
+	synchronized void register(String beanName) {
+		if (!this.registrationOrder.containsKey(beanName)) {
+			this.registrationOrder.put(beanName, this.registrationCount++);
+		}
+		invalidate(beanName);
+	}
+
+	/**
+	 * Remove the given bean definition name from the index.
+	 */
+	synchronized void remove(String beanName) {
+		invalidate(beanName);
+		this.pendingBeanNames.remove(beanName);
+		this.registrationOrder.remove(beanName);
+	}
+
+	/**
+	 * Mark the given bean definition name for re-resolution on the next lookup.
+	 */
+	synchronized void invalidate(String beanName) {
+		if (!this.registrationOrder.containsKey(beanName)) {
+			return;
+		}
+		Set<Class<?>> types = this.typesByBeanName.remove(beanName);
+		if (types != null) {
+			for (Class<?> type : types) {
+				Set<String> beanNames = this.beanNamesByType.get(type);
+				if (beanNames != null) {
+					beanNames.remove(beanName);
+					if (beanNames.isEmpty()) {
+						this.beanNamesByType.remove(type);
+					}
+				}
+			}
+		}
+		this.unindexedBeanNames.remove(beanName);
+		this.pendingBeanNames.add(beanName);
+		this.modificationCount++;
+	}
+
+	/**
+	 * Mark all bean definition names for re-resolution on the next lookup.
+	 */
+	synchronized void invalidateAll() {
+		this.typesByBeanName.clear();
+		this.beanNamesByType.clear();
+		this.unindexedBeanNames.clear();
+		this.pendingBeanNames.addAll(this.registrationOrder.keySet());
+		this.modificationCount++;
+	}
+
+	/**
+	 * Determine the names of all bean definitions that may match the given type,
+	 * in registration order.
+	 * @param type the raw type to match
+	 * @param typeResolver resolver for the type of a pending bean definition,
+	 * returning {@code null} if its type cannot be reliably determined upfront;
+	 * invoked without holding the index lock
+	 * @return the candidate bean names
+	 */
+	List<String> getCandidateNames(Class<?> type, Function<String, Class<?>[]> typeResolver) {
+		Map<String, Set<Class<?>>> resolved = Collections.emptyMap();
+		String[] pending;
+		long expectedModificationCount;
+		synchronized (this) {
+			pending = this.pendingBeanNames.toArray(new String[0]);
+			expectedModificationCount = this.modificationCount;
+		}
+		if (pending.length > 0) {
+			resolved = new LinkedHashMap<>(pending.length);
+			for (String beanName : pending) {
+				Class<?>[] beanTypes = typeResolver.apply(beanName);
+				resolved.put(beanName, (beanTypes != null ? collectAssignableTypes(beanTypes) : null));
+			}
+		}
+
+		Set<String> candidates = new HashSet<>();
+		synchronized (this) {
+			if (!resolved.isEmpty()) {
+				if (this.modificationCount == expectedModificationCount) {
+					resolved.forEach(this::index);
+					this.modificationCount++;
+				}
+				else {
+					// Concurrently modified: match freshly resolved names without storing them.
+					resolved.forEach((beanName, types) -> {
+						if (types == null || types.contains(type)) {
+							candidates.add(beanName);
+						}
+					});
+					candidates.addAll(this.pendingBeanNames);
+				}
+			}
+			Set<String> beanNames = this.beanNamesByType.get(type);
+			if (beanNames != null) {
+				candidates.addAll(beanNames);
+			}
+			candidates.addAll(this.unindexedBeanNames);
+			candidates.retainAll(this.registrationOrder.keySet());
+			List<String> result = new ArrayList<>(candidates);
+			result.sort((name1, name2) -> Long.compare(
+					this.registrationOrder.get(name1), this.registrationOrder.get(name2)));
+			return result;
+		}
+	}
+
+	private void index(String beanName, @Nullable Set<Class<?>> types) {
+		this.pendingBeanNames.remove(beanName);
+		if (types == null) {
+			this.unindexedBeanNames.add(beanName);
+			return;
+		}
+		this.typesByBeanName.put(beanName, types);
+		for (Class<?> type : types) {
+			this.beanNamesByType.computeIfAbsent(type, key -> new HashSet<>()).add(beanName);
+		}
+	}
+
+	/**
+	 * Collect the given types with all of their superclasses and interfaces,
+	 * or return {@code null} for array types (not indexed).
+	 */
+	@Nullable
+	private static Set<Class<?>> collectAssignableTypes(Class<?>[] beanTypes) {
+		Set<Class<?>> types = new HashSet<>();
+		for (Class<?> beanType : beanTypes) {
+			if (beanType.isArray()) {
+				return null;
+			}
+			Class<?> current = beanType;
+			while (current != null) {
+				collectInterfaces(current, types);
+				current = current.getSuperclass();
+			}
+		}
+		types.add(Object.class);
+		return types;
+	}
+
+	private static void collectInterfaces(Class<?> type, Set<Class<?>> types) {
+		if (types.add(type)) {
+			for (Class<?> ifc : type.getInterfaces()) {
+				collectInterfaces(ifc, types);
+			}
+		}
+	}
+
+}
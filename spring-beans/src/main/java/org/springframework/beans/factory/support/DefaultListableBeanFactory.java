@@ -16,6 +16,7 @@
 
 package org.springframework.beans.factory.support;
 
+import java.beans.PropertyDescriptor;
 import java.io.IOException;
 import java.io.NotSerializableException;
 import java.io.ObjectInputStream;
@@ -24,13 +25,21 @@ import java.io.Serializable;
 import java.lang.annotation.Annotation;
 import java.lang.ref.Reference;
 import java.lang.ref.WeakReference;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
 import java.lang.reflect.Method;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -39,15 +48,20 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 import javax.inject.Provider;
 
+import org.springframework.beans.BeanMetadataElement;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.PropertyValue;
 import org.springframework.beans.TypeConverter;
 import org.springframework.beans.factory.BeanCreationException;
 import org.springframework.beans.factory.BeanCurrentlyInCreationException;
@@ -69,21 +83,27 @@ import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.BeanDefinitionHolder;
 import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.BeanReference;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
 import org.springframework.beans.factory.config.DependencyDescriptor;
 import org.springframework.beans.factory.config.NamedBeanHolder;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.core.MethodParameter;
 import org.springframework.core.OrderComparator;
 import org.springframework.core.ResolvableType;
 import org.springframework.core.annotation.MergedAnnotation;
 import org.springframework.core.annotation.MergedAnnotations;
 import org.springframework.core.annotation.MergedAnnotations.SearchStrategy;
 import org.springframework.core.log.LogMessage;
+import org.springframework.core.metrics.ApplicationStartup;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.CompositeIterator;
 import org.springframework.util.ObjectUtils;
+import org.springframework.util.ReflectionUtils;
 import org.springframework.util.StringUtils;
 
 /**
@@ -152,6 +172,10 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	/** Whether to allow eager class loading even for lazy-init beans. */
 	private boolean allowEagerClassLoading = true;
 
+	/** Optional Executor for pre-instantiating independent singletons concurrently. */
+	@Nullable
+	private Executor bootstrapExecutor;
+
 	/** Optional OrderComparator for dependency Lists and arrays. */
 	@Nullable
 	private Comparator<Object> dependencyComparator;
@@ -174,6 +198,10 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	/** Map of singleton-only bean names, keyed by dependency type. */
 	private final Map<Class<?>, String[]> singletonBeanNamesByType = new ConcurrentHashMap<>(64);
 
+	/** Optional incremental index from raw types to bean definition names. */
+	@Nullable
+	private volatile BeanTypeIndex beanTypeIndex;
+
 	/** List of bean definition names, in registration order. */
 	private volatile List<String> beanDefinitionNames = new ArrayList<>(256);
 
@@ -271,6 +299,69 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		return this.allowEagerClassLoading;
 	}
 
+	/**
+	 * Set an {@link Executor} for pre-instantiating non-lazy singletons
+	 * concurrently in {@link #preInstantiateSingletons()}.
+	 * <p>Default is none, creating all singletons on the calling thread in
+	 * registration order. If specified, a dependency graph is derived upfront
+	 * from the bean definitions (depends-on, factory beans, bean references in
+	 * property values and constructor arguments) and from the types of
+	 * constructor and factory method parameters and of members registered for
+	 * injection by {@link MergedBeanDefinitionPostProcessor MergedBeanDefinitionPostProcessors},
+	 * e.g. {@code @Autowired} fields and methods. Singletons with circular
+	 * dependencies are created together on one thread, and each group of
+	 * singletons is created once all of its dependencies are available.
+	 * Singletons are then guarded by a per-bean creation claim instead of the
+	 * global singleton lock.
+	 * <p>Dependencies that are not visible upfront, such as beans retrieved
+	 * programmatically, are not taken into account: if these form a circular
+	 * reference across threads, pre-instantiation fails and the dependency
+	 * needs to be declared through "depends-on".
+	 * @since 5.2.7
+	 * @see #preInstantiateSingletons()
+	 */
+	public void setBootstrapExecutor(@Nullable Executor bootstrapExecutor) {
+		this.bootstrapExecutor = bootstrapExecutor;
+	}
+
+	/**
+	 * Return the Executor for concurrent singleton pre-instantiation, if any.
+	 * @since 5.2.7
+	 */
+	@Nullable
+	public Executor getBootstrapExecutor() {
+		return this.bootstrapExecutor;
+	}
+
+	/**
+	 * Set whether to maintain an incremental index from raw types to bean
+	 * definition names, consulted by by-type lookups before type matching.
+	 * <p>Default is "false", matching every bean definition against the
+	 * requested type. Switch this flag on to only match the bean definitions
+	 * indexed under the requested raw type (as well as definitions whose type
+	 * cannot be determined upfront, such as factory beans, factory methods and
+	 * non-singletons), even before the configuration is frozen. The index is
+	 * updated on registration and removal of bean definitions and singletons.
+	 * <p>Type predictions of post-processors are taken into account at the time
+	 * of indexing; a {@link org.springframework.beans.factory.config.SmartInstantiationAwareBeanPostProcessor}
+	 * changing its prediction for a bean before its creation is not supported
+	 * in this mode.
+	 * @since 5.2.7
+	 * @see #getBeanNamesForType(ResolvableType, boolean, boolean)
+	 */
+	public void setIndexBeanTypes(boolean indexBeanTypes) {
+		this.beanTypeIndex = (indexBeanTypes ? new BeanTypeIndex(this.beanDefinitionNames) : null);
+	}
+
+	/**
+	 * Return whether to maintain an incremental index from raw types
+	 * to bean definition names.
+	 * @since 5.2.7
+	 */
+	public boolean isIndexBeanTypes() {
+		return (this.beanTypeIndex != null);
+	}
+
 	/**
 	 * Set a {@link java.util.Comparator} for dependency Lists and arrays.
 	 * @since 4.0
@@ -326,6 +417,10 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			DefaultListableBeanFactory otherListableFactory = (DefaultListableBeanFactory) otherFactory;
 			this.allowBeanDefinitionOverriding = otherListableFactory.allowBeanDefinitionOverriding;
 			this.allowEagerClassLoading = otherListableFactory.allowEagerClassLoading;
+			this.bootstrapExecutor = otherListableFactory.bootstrapExecutor;
+			setDestructionExecutor(otherListableFactory.getDestructionExecutor());
+			setDestructionTimeout(otherListableFactory.getDestructionTimeout());
+			setIndexBeanTypes(otherListableFactory.isIndexBeanTypes());
 			this.dependencyComparator = otherListableFactory.dependencyComparator;
 			// A clone of the AutowireCandidateResolver since it is potentially BeanFactoryAware...
 			setAutowireCandidateResolver(
@@ -512,8 +607,14 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	private String[] doGetBeanNamesForType(ResolvableType type, boolean includeNonSingletons, boolean allowEagerInit) {
 		List<String> result = new ArrayList<>();
 
-		// Check all bean definitions.
-		for (String beanName : this.beanDefinitionNames) {
+		// Check all bean definitions, or the ones that may match the raw type if indexed.
+		Collection<String> beanDefinitionNames = this.beanDefinitionNames;
+		BeanTypeIndex beanTypeIndex = this.beanTypeIndex;
+		Class<?> rawType = type.resolve();
+		if (beanTypeIndex != null && rawType != null) {
+			beanDefinitionNames = beanTypeIndex.getCandidateNames(rawType, this::determineIndexedBeanTypes);
+		}
+		for (String beanName : beanDefinitionNames) {
 			// Only consider bean as eligible if the bean name
 			// is not defined as alias for some other bean.
 			if (!isAlias(beanName)) {
@@ -591,6 +692,41 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		return StringUtils.toStringArray(result);
 	}
 
+	/**
+	 * Determine the types to index the given bean definition under: its
+	 * predicted type, as well as the type of its singleton instance if created.
+	 * @param beanName the name of the bean
+	 * @return the bean types, or {@code null} if the type cannot be reliably
+	 * determined without matching against the requested type itself
+	 * @see #setIndexBeanTypes
+	 */
+	@Nullable
+	private Class<?>[] determineIndexedBeanTypes(String beanName) {
+		try {
+			RootBeanDefinition mbd = getMergedLocalBeanDefinition(beanName);
+			if (mbd.isAbstract() || !mbd.isSingleton() || !mbd.hasBeanClass() ||
+					mbd.getFactoryMethodName() != null || mbd.getDecoratedDefinition() != null) {
+				return null;
+			}
+			Class<?> predictedType = predictBeanType(beanName, mbd);
+			if (predictedType == null || FactoryBean.class.isAssignableFrom(predictedType)) {
+				return null;
+			}
+			Object beanInstance = getSingleton(beanName, false);
+			if (beanInstance == null) {
+				return new Class<?>[] {predictedType};
+			}
+			if (beanInstance instanceof FactoryBean || beanInstance.getClass() == NullBean.class) {
+				return null;
+			}
+			return new Class<?>[] {predictedType, beanInstance.getClass()};
+		}
+		catch (BeansException | LinkageError ex) {
+			// Leave it to regular type matching to handle or report.
+			return null;
+		}
+	}
+
 	private boolean isSingleton(String beanName, RootBeanDefinition mbd, @Nullable BeanDefinitionHolder dbd) {
 		return (dbd != null ? mbd.isSingleton() : isSingleton(beanName));
 	}
@@ -828,6 +964,10 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	protected void clearMergedBeanDefinition(String beanName) {
 		super.clearMergedBeanDefinition(beanName);
 		this.mergedBeanDefinitionHolders.remove(beanName);
+		BeanTypeIndex beanTypeIndex = this.beanTypeIndex;
+		if (beanTypeIndex != null) {
+			beanTypeIndex.invalidate(beanName);
+		}
 	}
 
 	@Override
@@ -835,6 +975,10 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		super.clearMetadataCache();
 		this.mergedBeanDefinitionHolders.clear();
 		clearByTypeCache();
+		BeanTypeIndex beanTypeIndex = this.beanTypeIndex;
+		if (beanTypeIndex != null) {
+			beanTypeIndex.invalidateAll();
+		}
 	}
 
 	@Override
@@ -869,34 +1013,13 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		List<String> beanNames = new ArrayList<>(this.beanDefinitionNames);
 
 		// Trigger initialization of all non-lazy singleton beans...
-		for (String beanName : beanNames) {
-			// 这行代码不重要，合并父BeanDefinition
-			RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
-			if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
-				if (isFactoryBean(beanName)) {
-					Object bean = getBean(FACTORY_BEAN_PREFIX + beanName);
-					if (bean instanceof FactoryBean) {
-						final FactoryBean<?> factory = (FactoryBean<?>) bean;
-						boolean isEagerInit;
-						if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
-							isEagerInit = AccessController.doPrivileged((PrivilegedAction<Boolean>)
-											((SmartFactoryBean<?>) factory)::isEagerInit,
-									getAccessControlContext());
-						}
-						else {
-							isEagerInit = (factory instanceof SmartFactoryBean &&
-									((SmartFactoryBean<?>) factory).isEagerInit());
-						}
-						// 急切初始化
-						if (isEagerInit) {
-							getBean(beanName);
-						}
-					}
-				}
-				else {
-					// 常规bean走这里
-					getBean(beanName);
-				}
+		Executor executor = this.bootstrapExecutor;
+		if (executor != null) {
+			preInstantiateSingletonsConcurrently(beanNames, executor);
+		}
+		else {
+			for (String beanName : beanNames) {
+				preInstantiateSingleton(beanName);
 			}
 		}
 
@@ -920,6 +1043,251 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	}
 
 
+	/**
+	 * Trigger initialization of the given bean if it is a non-lazy singleton.
+	 * @param beanName the name of the bean
+	 */
+	private void preInstantiateSingleton(String beanName) {
+		// 这行代码不重要，合并父BeanDefinition
+		RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
+		if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
+			if (isFactoryBean(beanName)) {
+				Object bean = getBean(FACTORY_BEAN_PREFIX + beanName);
+				if (bean instanceof FactoryBean) {
+					final FactoryBean<?> factory = (FactoryBean<?>) bean;
+					boolean isEagerInit;
+					if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
+						isEagerInit = AccessController.doPrivileged((PrivilegedAction<Boolean>)
+										((SmartFactoryBean<?>) factory)::isEagerInit,
+								getAccessControlContext());
+					}
+					else {
+						isEagerInit = (factory instanceof SmartFactoryBean &&
+								((SmartFactoryBean<?>) factory).isEagerInit());
+					}
+					// 急切初始化
+					if (isEagerInit) {
+						getBean(beanName);
+					}
+				}
+			}
+			else {
+				// 常规bean走这里
+				getBean(beanName);
+			}
+		}
+	}
+
+	/**
+	 * Trigger initialization of the given non-lazy singletons on the given
+	 * Executor. Singletons that may depend on each other, directly or through
+	 * other beans, are grouped upfront and created together on one thread;
+	 * each group starts once the groups it may depend on are complete.
+	 * @param beanNames the names of all beans, in registration order
+	 * @param executor the Executor to create the singletons on
+	 * @see #setBootstrapExecutor
+	 */
+	private void preInstantiateSingletonsConcurrently(List<String> beanNames, Executor executor) {
+		Map<String, RootBeanDefinition> candidates = new LinkedHashMap<>();
+		for (String beanName : beanNames) {
+			RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
+			if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
+				candidates.put(beanName, bd);
+			}
+		}
+
+		// Determine the dependency graph before creating any singleton
+		DependencyCollector collector = new DependencyCollector(candidates.keySet());
+		Map<String, Set<String>> dependencyGraph = new LinkedHashMap<>();
+		for (String beanName : candidates.keySet()) {
+			dependencyGraph.put(beanName, collector.getDependencies(beanName));
+		}
+		List<List<String>> groups = getStronglyConnectedComponents(dependencyGraph);
+		if (logger.isTraceEnabled()) {
+			logger.trace("Pre-instantiating " + candidates.size() + " singletons concurrently in " +
+					groups.size() + " groups in " + this);
+		}
+
+		ApplicationStartup applicationStartup = getApplicationStartup();
+		Map<String, CompletableFuture<Void>> futures = new HashMap<>();
+		setConcurrentSingletonCreation(true);
+		try {
+			for (List<String> group : groups) {
+				if (group.size() > 1 && logger.isDebugEnabled()) {
+					logger.debug("Creating singletons with circular dependencies on one thread: " + group);
+				}
+				List<CompletableFuture<Void>> dependencies = new ArrayList<>();
+				for (String beanName : group) {
+					for (String dependency : dependencyGraph.get(beanName)) {
+						CompletableFuture<Void> future = futures.get(dependency);
+						if (future != null) {
+							dependencies.add(future);
+						}
+					}
+				}
+				CompletableFuture<Void> future = CompletableFuture
+						.allOf(dependencies.toArray(new CompletableFuture<?>[0]))
+						.thenRunAsync(applicationStartup.decorateTask(
+								() -> group.forEach(this::preInstantiateSingleton)), executor);
+				for (String beanName : group) {
+					futures.put(beanName, future);
+				}
+			}
+			CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0]))
+					.handle((result, ex) -> null).join();
+		}
+		finally {
+			setConcurrentSingletonCreation(false);
+		}
+
+		for (String beanName : candidates.keySet()) {
+			Throwable ex = futures.get(beanName).handle((result, failure) -> failure).join();
+			while (ex instanceof CompletionException && ex.getCause() != null) {
+				ex = ex.getCause();
+			}
+			if (ex instanceof RuntimeException) {
+				throw (RuntimeException) ex;
+			}
+			if (ex instanceof Error) {
+				throw (Error) ex;
+			}
+			if (ex != null) {
+				throw new BeanCreationException(beanName, "Concurrent pre-instantiation failed", ex);
+			}
+		}
+	}
+
+	/**
+	 * Partition the given dependency graph into its strongly connected components,
+	 * each in registration order, with every component following the components
+	 * that it depends on.
+	 * @param graph bean names mapped to the names of the beans they depend on
+	 * @return the list of components
+	 */
+	private static List<List<String>> getStronglyConnectedComponents(Map<String, Set<String>> graph) {
+		Map<String, Integer> index = new HashMap<>();
+		Map<String, Integer> lowLink = new HashMap<>();
+		Deque<String> stack = new ArrayDeque<>();
+		Set<String> onStack = new HashSet<>();
+		List<List<String>> components = new ArrayList<>();
+		// Explicit path instead of recursion, so that long dependency chains cannot overflow the stack
+		Deque<String> path = new ArrayDeque<>();
+		Deque<Iterator<String>> pathDependencies = new ArrayDeque<>();
+		for (String root : graph.keySet()) {
+			if (index.containsKey(root)) {
+				continue;
+			}
+			visit(root, graph, index, lowLink, stack, onStack, path, pathDependencies);
+			while (!path.isEmpty()) {
+				String beanName = path.peek();
+				Iterator<String> dependencies = pathDependencies.peek();
+				if (dependencies.hasNext()) {
+					String dependency = dependencies.next();
+					if (!index.containsKey(dependency)) {
+						visit(dependency, graph, index, lowLink, stack, onStack, path, pathDependencies);
+					}
+					else if (onStack.contains(dependency)) {
+						lowLink.put(beanName, Math.min(lowLink.get(beanName), index.get(dependency)));
+					}
+					continue;
+				}
+				path.pop();
+				pathDependencies.pop();
+				String dependent = path.peek();
+				if (dependent != null) {
+					lowLink.put(dependent, Math.min(lowLink.get(dependent), lowLink.get(beanName)));
+				}
+				if (lowLink.get(beanName).equals(index.get(beanName))) {
+					List<String> component = new ArrayList<>();
+					String member;
+					do {
+						member = stack.pop();
+						onStack.remove(member);
+						component.add(member);
+					}
+					while (!member.equals(beanName));
+					components.add(component);
+				}
+			}
+		}
+		List<String> order = new ArrayList<>(graph.keySet());
+		for (List<String> component : components) {
+			if (component.size() > 1) {
+				component.sort(Comparator.comparingInt(order::indexOf));
+			}
+		}
+		return components;
+	}
+
+	private static void visit(String beanName, Map<String, Set<String>> graph, Map<String, Integer> index,
+			Map<String, Integer> lowLink, Deque<String> stack, Set<String> onStack,
+			Deque<String> path, Deque<Iterator<String>> pathDependencies) {
+
+		index.put(beanName, index.size());
+		lowLink.put(beanName, index.get(beanName));
+		stack.push(beanName);
+		onStack.add(beanName);
+		path.push(beanName);
+		pathDependencies.push(graph.get(beanName).iterator());
+	}
+
+	/**
+	 * Collect the canonical names of the beans that the given bean definition
+	 * declares a dependency on: depends-on, factory bean and bean references in
+	 * property values and constructor arguments, including inner beans.
+	 */
+	private void collectDeclaredDependencies(BeanDefinition bd, Set<String> dependencies) {
+		String[] dependsOn = bd.getDependsOn();
+		if (dependsOn != null) {
+			for (String dependency : dependsOn) {
+				dependencies.add(canonicalName(BeanFactoryUtils.transformedBeanName(dependency)));
+			}
+		}
+		if (bd.getFactoryBeanName() != null) {
+			dependencies.add(canonicalName(BeanFactoryUtils.transformedBeanName(bd.getFactoryBeanName())));
+		}
+		if (bd.hasPropertyValues()) {
+			for (PropertyValue pv : bd.getPropertyValues().getPropertyValues()) {
+				collectDeclaredDependencies(pv.getValue(), dependencies);
+			}
+		}
+		if (bd.hasConstructorArgumentValues()) {
+			ConstructorArgumentValues cargs = bd.getConstructorArgumentValues();
+			for (ConstructorArgumentValues.ValueHolder valueHolder : cargs.getIndexedArgumentValues().values()) {
+				collectDeclaredDependencies(valueHolder.getValue(), dependencies);
+			}
+			for (ConstructorArgumentValues.ValueHolder valueHolder : cargs.getGenericArgumentValues()) {
+				collectDeclaredDependencies(valueHolder.getValue(), dependencies);
+			}
+		}
+	}
+
+	private void collectDeclaredDependencies(@Nullable Object value, Set<String> dependencies) {
+		if (value instanceof BeanReference) {
+			if (!(value instanceof RuntimeBeanReference) || ((RuntimeBeanReference) value).getBeanType() == null) {
+				dependencies.add(canonicalName(BeanFactoryUtils.transformedBeanName(
+						((BeanReference) value).getBeanName())));
+			}
+		}
+		else if (value instanceof BeanDefinitionHolder) {
+			collectDeclaredDependencies(((BeanDefinitionHolder) value).getBeanDefinition(), dependencies);
+		}
+		else if (value instanceof BeanDefinition) {
+			collectDeclaredDependencies((BeanDefinition) value, dependencies);
+		}
+		else if (value instanceof Collection && value instanceof BeanMetadataElement) {
+			for (Object element : (Collection<?>) value) {
+				collectDeclaredDependencies(element, dependencies);
+			}
+		}
+		else if (value instanceof Map && value instanceof BeanMetadataElement) {
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				collectDeclaredDependencies(entry.getKey(), dependencies);
+				collectDeclaredDependencies(entry.getValue(), dependencies);
+			}
+		}
+	}
+
 	//---------------------------------------------------------------------
 	// Implementation of BeanDefinitionRegistry interface
 	//---------------------------------------------------------------------
@@ -991,6 +1359,11 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			this.frozenBeanDefinitionNames = null;
 		}
 
+		BeanTypeIndex beanTypeIndex = this.beanTypeIndex;
+		if (beanTypeIndex != null) {
+			beanTypeIndex.register(beanName);
+		}
+
 		if (existingDefinition != null || containsSingleton(beanName)) {
 			resetBeanDefinition(beanName);
 		}
@@ -1025,6 +1398,11 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		}
 		this.frozenBeanDefinitionNames = null;
 
+		BeanTypeIndex beanTypeIndex = this.beanTypeIndex;
+		if (beanTypeIndex != null) {
+			beanTypeIndex.remove(beanName);
+		}
+
 		resetBeanDefinition(beanName);
 	}
 
@@ -1076,6 +1454,25 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		return isAllowBeanDefinitionOverriding();
 	}
 
+	@Override
+	public void addBeanPostProcessor(BeanPostProcessor beanPostProcessor) {
+		super.addBeanPostProcessor(beanPostProcessor);
+		// Type predictions may have changed...
+		BeanTypeIndex beanTypeIndex = this.beanTypeIndex;
+		if (beanTypeIndex != null) {
+			beanTypeIndex.invalidateAll();
+		}
+	}
+
+	@Override
+	protected void addSingleton(String beanName, Object singletonObject) {
+		super.addSingleton(beanName, singletonObject);
+		BeanTypeIndex beanTypeIndex = this.beanTypeIndex;
+		if (beanTypeIndex != null) {
+			beanTypeIndex.invalidate(beanName);
+		}
+	}
+
 	@Override
 	public void registerSingleton(String beanName, Object singletonObject) throws IllegalStateException {
 		super.registerSingleton(beanName, singletonObject);
@@ -1088,13 +1485,24 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		super.destroySingletons();
 		updateManualSingletonNames(Set::clear, set -> !set.isEmpty());
 		clearByTypeCache();
+		BeanTypeIndex beanTypeIndex = this.beanTypeIndex;
+		if (beanTypeIndex != null) {
+			beanTypeIndex.invalidateAll();
+		}
 	}
 
 	@Override
 	public void destroySingleton(String beanName) {
 		super.destroySingleton(beanName);
-		removeManualSingletonName(beanName);
+		if (!isDestroyingSingletons()) {
+			// Otherwise cleared at once in destroySingletons(), which may destroy beans concurrently
+			removeManualSingletonName(beanName);
+		}
 		clearByTypeCache();
+		BeanTypeIndex beanTypeIndex = this.beanTypeIndex;
+		if (beanTypeIndex != null) {
+			beanTypeIndex.invalidate(beanName);
+		}
 	}
 
 	private void removeManualSingletonName(String beanName) {
@@ -2066,4 +2474,156 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		}
 	}
 
+
+	/**
+	 * Determines the singletons that a bean may depend on at creation time,
+	 * without creating any bean: declared bean references as well as beans
+	 * matching the types of constructor and factory method parameters and of
+	 * injected fields and methods, following dependencies on other beans than
+	 * the given singletons transitively.
+	 */
+	private class DependencyCollector {
+
+		private final Set<String> singletonNames;
+
+		private final Map<String, Set<String>> dependencies = new HashMap<>();
+
+		private final Map<Class<?>, String[]> beanNamesByType = new HashMap<>();
+
+		DependencyCollector(Set<String> singletonNames) {
+			this.singletonNames = singletonNames;
+		}
+
+		/**
+		 * Return the names of the given singletons that the given bean may depend on.
+		 */
+		Set<String> getDependencies(String beanName) {
+			Set<String> result = this.dependencies.get(beanName);
+			if (result != null) {
+				return result;
+			}
+			result = new LinkedHashSet<>();
+			this.dependencies.put(beanName, result);
+			for (String dependency : getDirectDependencies(beanName)) {
+				if (this.singletonNames.contains(dependency)) {
+					result.add(dependency);
+				}
+				else if (containsBeanDefinition(dependency)) {
+					result.addAll(getDependencies(dependency));
+				}
+			}
+			result.remove(beanName);
+			return result;
+		}
+
+		private Set<String> getDirectDependencies(String beanName) {
+			RootBeanDefinition mbd = getMergedLocalBeanDefinition(beanName);
+			Set<String> result = new LinkedHashSet<>();
+			collectDeclaredDependencies(mbd, result);
+			try {
+				collectInjectionDependencies(beanName, mbd, result);
+			}
+			catch (BeansException | LinkageError ex) {
+				// Left to fail on actual creation, if at all.
+				if (logger.isTraceEnabled()) {
+					logger.trace("Failed to determine injected dependencies of bean '" + beanName + "'", ex);
+				}
+			}
+			return result;
+		}
+
+		private void collectInjectionDependencies(String beanName, RootBeanDefinition mbd, Set<String> result) {
+			if (mbd.getFactoryMethodName() != null) {
+				Class<?> factoryClass = (mbd.getFactoryBeanName() != null ?
+						getType(mbd.getFactoryBeanName(), false) : resolveBeanClass(mbd, beanName));
+				if (factoryClass != null) {
+					for (Method method : ReflectionUtils.getUniqueDeclaredMethods(factoryClass)) {
+						if (mbd.isFactoryMethod(method)) {
+							collectParameterDependencies(method, result);
+						}
+					}
+				}
+				return;
+			}
+			Class<?> beanClass = resolveBeanClass(mbd, beanName);
+			if (beanClass == null) {
+				return;
+			}
+			for (Constructor<?> constructor : beanClass.getDeclaredConstructors()) {
+				collectParameterDependencies(constructor, result);
+			}
+			if (mbd.getInstanceSupplier() == null) {
+				// Let post-processors register injected members upfront, as on creation
+				synchronized (mbd.postProcessingLock) {
+					if (!mbd.postProcessed) {
+						applyMergedBeanDefinitionPostProcessors(mbd, beanClass, beanName);
+						mbd.postProcessed = true;
+					}
+				}
+			}
+			for (Member member : mbd.getExternallyManagedConfigMembers()) {
+				if (member instanceof Field) {
+					collectTypeDependencies(ResolvableType.forField((Field) member, beanClass), result, 0);
+					collectNamedDependency(member.getName(), result);
+				}
+				else if (member instanceof Method) {
+					collectParameterDependencies((Method) member, result);
+					PropertyDescriptor pd = BeanUtils.findPropertyForMethod((Method) member, beanClass);
+					if (pd != null) {
+						collectNamedDependency(pd.getName(), result);
+					}
+				}
+			}
+			int autowireMode = mbd.getResolvedAutowireMode();
+			if (autowireMode == AUTOWIRE_BY_NAME || autowireMode == AUTOWIRE_BY_TYPE) {
+				for (PropertyDescriptor pd : BeanUtils.getPropertyDescriptors(beanClass)) {
+					if (pd.getWriteMethod() != null && !BeanUtils.isSimpleProperty(pd.getPropertyType())) {
+						if (autowireMode == AUTOWIRE_BY_NAME) {
+							collectNamedDependency(pd.getName(), result);
+						}
+						else {
+							collectParameterDependencies(pd.getWriteMethod(), result);
+						}
+					}
+				}
+			}
+		}
+
+		private void collectParameterDependencies(Executable executable, Set<String> result) {
+			for (int i = 0; i < executable.getParameterCount(); i++) {
+				collectTypeDependencies(ResolvableType.forMethodParameter(
+						MethodParameter.forExecutable(executable, i)), result, 0);
+			}
+		}
+
+		/**
+		 * Collect the beans matching the given type or, for collections,
+		 * maps, providers and the like, its generic or component types.
+		 */
+		private void collectTypeDependencies(ResolvableType type, Set<String> result, int nestingLevel) {
+			Class<?> clazz = type.resolve();
+			if (clazz != null && clazz != Object.class && !BeanUtils.isSimpleValueType(clazz)) {
+				String[] beanNames = this.beanNamesByType.computeIfAbsent(clazz,
+						key -> getBeanNamesForType(key, true, false));
+				for (String beanName : beanNames) {
+					result.add(canonicalName(BeanFactoryUtils.transformedBeanName(beanName)));
+				}
+			}
+			if (nestingLevel < 2) {
+				if (type.isArray()) {
+					collectTypeDependencies(type.getComponentType(), result, nestingLevel + 1);
+				}
+				for (ResolvableType generic : type.getGenerics()) {
+					collectTypeDependencies(generic, result, nestingLevel + 1);
+				}
+			}
+		}
+
+		private void collectNamedDependency(String beanName, Set<String> result) {
+			if (containsBeanDefinition(beanName)) {
+				result.add(beanName);
+			}
+		}
+	}
+
 }
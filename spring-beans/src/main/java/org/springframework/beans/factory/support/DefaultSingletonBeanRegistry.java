@@ -16,15 +16,24 @@
 
 package org.springframework.beans.factory.support;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.springframework.beans.factory.BeanCreationException;
 import org.springframework.beans.factory.BeanCreationNotAllowedException;
@@ -101,6 +110,18 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	/** Flag that indicates whether we're currently within destroySingletons. */
 	private boolean singletonsCurrentlyInDestruction = false;
 
+	/** Whether singletons may currently be created by several threads at once. */
+	private volatile boolean concurrentSingletonCreation = false;
+
+	/** Threads creating singletons in concurrent mode: bean name to creating thread. */
+	private final Map<String, Thread> singletonCreationThreads = new ConcurrentHashMap<>(16);
+
+	/** Threads waiting for a singleton in concurrent mode: thread to awaited bean name. */
+	private final Map<Thread, String> singletonWaitingThreads = new HashMap<>(16);
+
+	/** Monitor for claiming singleton creation in concurrent mode. */
+	private final Object singletonCreationMonitor = new Object();
+
 	/** Disposable bean instances: bean name to disposable instance. */
 	private final Map<String, Object> disposableBeans = new LinkedHashMap<>();
 
@@ -113,6 +134,17 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	/** Map between depending bean names: bean name to Set of bean names for the bean's dependencies. */
 	private final Map<String, Set<String>> dependenciesForBeanMap = new ConcurrentHashMap<>(64);
 
+	/** Optional Executor for destroying independent disposable beans concurrently. */
+	@Nullable
+	private volatile Executor destructionExecutor;
+
+	/** Overall timeout for concurrent destruction, in milliseconds. */
+	private volatile long destructionTimeout = Long.MAX_VALUE;
+
+	/** Destruction tasks still running after a timeout, if any. */
+	@Nullable
+	private CompletableFuture<Void> pendingDestruction;
+
 
 	@Override
 	public void registerSingleton(String beanName, Object singletonObject) throws IllegalStateException {
@@ -189,6 +221,10 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		// 先尝试从早期单例集合中获取获取不成功的话则从缓存的singletonFactory中获取。我们直到在创建A的时候均把这自己和自己的单例工厂缓存了。所以可以取得到。
 		// 这时候B就获取到了A以至于可以填充A属性，这时候B就可以顺利初始化完成，A也得到了B进行自动注入。这样就可以进行循环依赖了。
 		if (singletonObject == null && isSingletonCurrentlyInCreation(beanName)) {
+			if (this.concurrentSingletonCreation && isSingletonCreatedByOtherThread(beanName)) {
+				// Never hand out a half-initialized instance to a different thread.
+				return null;
+			}
 			// 实例在创建之前会记录在singletonsCurrentlyInCreation集合中，表示正在创建
 			// 实例在创建之后会从singletonsCurrentlyInCreation集合中移除，表示创建结束
 			synchronized (this.singletonObjects) {
@@ -222,6 +258,9 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 */
 	public Object getSingleton(String beanName, ObjectFactory<?> singletonFactory) {
 		Assert.notNull(beanName, "Bean name must not be null");
+		if (this.concurrentSingletonCreation) {
+			return getSingletonConcurrently(beanName, singletonFactory);
+		}
 		synchronized (this.singletonObjects) {
 			Object singletonObject = this.singletonObjects.get(beanName);
 			if (singletonObject == null) {
@@ -287,6 +326,188 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		}
 	}
 
+	/**
+	 * Variant of {@link #getSingleton(String, ObjectFactory)} for concurrent mode:
+	 * claims the given bean for the current thread instead of holding the
+	 * global singleton lock during creation, waiting for another thread's
+	 * claim on the same bean to be released.
+	 * @param beanName the name of the bean
+	 * @param singletonFactory the ObjectFactory to lazily create the singleton
+	 * with, if necessary
+	 * @return the registered singleton object
+	 * @see #setConcurrentSingletonCreation
+	 */
+	private Object getSingletonConcurrently(String beanName, ObjectFactory<?> singletonFactory) {
+		Object singletonObject = this.singletonObjects.get(beanName);
+		if (singletonObject != null) {
+			return singletonObject;
+		}
+		boolean claimed = claimSingletonCreation(beanName);
+		try {
+			synchronized (this.singletonObjects) {
+				singletonObject = this.singletonObjects.get(beanName);
+				if (singletonObject != null) {
+					return singletonObject;
+				}
+				if (this.singletonsCurrentlyInDestruction) {
+					throw new BeanCreationNotAllowedException(beanName,
+							"Singleton bean creation not allowed while singletons of this factory are in destruction " +
+							"(Do not request a bean from a BeanFactory in a destroy method implementation!)");
+				}
+				if (logger.isDebugEnabled()) {
+					logger.debug("Creating shared instance of singleton bean '" + beanName + "' on thread '" +
+							Thread.currentThread().getName() + "'");
+				}
+				beforeSingletonCreation(beanName);
+			}
+			boolean newSingleton = false;
+			try {
+				singletonObject = singletonFactory.getObject();
+				newSingleton = true;
+			}
+			catch (IllegalStateException ex) {
+				singletonObject = this.singletonObjects.get(beanName);
+				if (singletonObject == null) {
+					throw ex;
+				}
+			}
+			finally {
+				afterSingletonCreation(beanName);
+			}
+			if (newSingleton) {
+				addSingleton(beanName, singletonObject);
+			}
+			return singletonObject;
+		}
+		finally {
+			if (claimed) {
+				releaseSingletonCreation(beanName);
+			}
+		}
+	}
+
+	/**
+	 * Claim the creation of the given singleton for the current thread,
+	 * waiting while another thread holds the claim.
+	 * <p>Only to be used in concurrent mode, and never while holding the
+	 * {@linkplain #getSingletonMutex() singleton mutex}: the creating thread
+	 * may need it in order to complete, so waiting would deadlock.
+	 * @param beanName the name of the bean, or any other key to create
+	 * something exclusively for, e.g. a FactoryBean's object
+	 * @return {@code true} if a new claim was taken, {@code false} if the
+	 * current thread already holds it or the singleton is available by now
+	 * @throws BeanCurrentlyInCreationException if waiting would deadlock
+	 * @see #releaseSingletonCreation(String)
+	 */
+	boolean claimSingletonCreation(String beanName) {
+		Thread currentThread = Thread.currentThread();
+		synchronized (this.singletonCreationMonitor) {
+			while (true) {
+				if (this.singletonObjects.containsKey(beanName)) {
+					return false;
+				}
+				Thread creatingThread = this.singletonCreationThreads.putIfAbsent(beanName, currentThread);
+				if (creatingThread == null) {
+					return true;
+				}
+				if (creatingThread == currentThread) {
+					// Re-entrant request: regular in-creation checks apply.
+					return false;
+				}
+				if (Thread.holdsLock(this.singletonObjects) || isWaitingFor(creatingThread, currentThread)) {
+					throw new BeanCurrentlyInCreationException(beanName, "Singleton bean '" + beanName +
+							"' is currently in creation on thread '" + creatingThread.getName() +
+							"': waiting for it would deadlock");
+				}
+				this.singletonWaitingThreads.put(currentThread, beanName);
+				try {
+					this.singletonCreationMonitor.wait();
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					throw new BeanCreationException(beanName,
+							"Interrupted while waiting for concurrent creation of singleton bean");
+				}
+				finally {
+					this.singletonWaitingThreads.remove(currentThread);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Determine whether the given thread is - directly or transitively -
+	 * waiting for a singleton claimed by the target thread.
+	 * <p>To be called while holding the singleton creation monitor.
+	 */
+	private boolean isWaitingFor(Thread thread, Thread targetThread) {
+		Thread current = thread;
+		for (int i = 0; i <= this.singletonWaitingThreads.size(); i++) {
+			String awaitedBean = this.singletonWaitingThreads.get(current);
+			if (awaitedBean == null) {
+				return false;
+			}
+			current = this.singletonCreationThreads.get(awaitedBean);
+			if (current == null) {
+				return false;
+			}
+			if (current == targetThread) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Release a claim taken through {@link #claimSingletonCreation(String)}.
+	 * @param beanName the name of the bean, or other key that was claimed
+	 */
+	void releaseSingletonCreation(String beanName) {
+		synchronized (this.singletonCreationMonitor) {
+			this.singletonCreationThreads.remove(beanName);
+			this.singletonCreationMonitor.notifyAll();
+		}
+	}
+
+	/**
+	 * Determine whether the given singleton is currently being created by a
+	 * thread other than the current one, in concurrent mode.
+	 * @param beanName the name of the bean
+	 * @since 5.2.7
+	 * @see #setConcurrentSingletonCreation
+	 */
+	protected boolean isSingletonCreatedByOtherThread(String beanName) {
+		Thread creatingThread = this.singletonCreationThreads.get(beanName);
+		return (creatingThread != null && creatingThread != Thread.currentThread());
+	}
+
+	/**
+	 * Specify whether singletons may be created by several threads at once.
+	 * <p>In concurrent mode, the creation of each singleton is guarded by a
+	 * per-bean claim instead of the global singleton lock: a thread requesting
+	 * a singleton that another thread is creating waits for that creation to
+	 * complete, unless waiting would deadlock, in which case a
+	 * {@link BeanCurrentlyInCreationException} is thrown. Early references to
+	 * singletons in creation are only exposed to the creating thread. The
+	 * singleton mutex is not held while calling into user code, so that
+	 * beans requested from there can be waited for.
+	 * <p>Only meant to be switched on for a bounded bootstrap phase, with
+	 * no creation in progress when switching.
+	 * @param concurrentSingletonCreation whether to enable concurrent mode
+	 * @since 5.2.7
+	 */
+	protected void setConcurrentSingletonCreation(boolean concurrentSingletonCreation) {
+		this.concurrentSingletonCreation = concurrentSingletonCreation;
+	}
+
+	/**
+	 * Return whether singletons may currently be created by several threads at once.
+	 * @since 5.2.7
+	 */
+	protected boolean isConcurrentSingletonCreation() {
+		return this.concurrentSingletonCreation;
+	}
+
 	/**
 	 * Register an exception that happened to get suppressed during the creation of a
 	 * singleton bean instance, e.g. a temporary circular reference resolution problem.
@@ -527,6 +748,55 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		}
 	}
 
+	/**
+	 * Set an {@link Executor} for destroying disposable singletons concurrently
+	 * in {@link #destroySingletons()}.
+	 * <p>Default is none, destroying all disposable beans on the calling thread
+	 * in reverse registration order. If specified, beans are destroyed in waves:
+	 * all beans without remaining dependent (or containing) beans are destroyed
+	 * in parallel, and the beans that they depend on are destroyed in the next
+	 * wave once the current wave is complete. If the Executor rejects a bean,
+	 * e.g. since it has been shut down itself, that bean is destroyed on the
+	 * calling thread.
+	 * @since 5.2.7
+	 * @see #setDestructionTimeout
+	 */
+	public void setDestructionExecutor(@Nullable Executor destructionExecutor) {
+		this.destructionExecutor = destructionExecutor;
+	}
+
+	/**
+	 * Return the Executor for concurrent destruction of singletons, if any.
+	 * @since 5.2.7
+	 */
+	@Nullable
+	public Executor getDestructionExecutor() {
+		return this.destructionExecutor;
+	}
+
+	/**
+	 * Specify the overall timeout for destroying singletons concurrently,
+	 * in milliseconds.
+	 * <p>Default is none. If the timeout elapses, the beans still in destruction
+	 * are left to complete in the background, and the beans not destroyed yet
+	 * are released without invoking their destroy callbacks. Both are logged.
+	 * Singleton creation remains disallowed until the remaining destruction
+	 * callbacks have completed.
+	 * @since 5.2.7
+	 * @see #setDestructionExecutor
+	 */
+	public void setDestructionTimeout(long destructionTimeout) {
+		this.destructionTimeout = destructionTimeout;
+	}
+
+	/**
+	 * Return the overall timeout for destroying singletons concurrently.
+	 * @since 5.2.7
+	 */
+	public long getDestructionTimeout() {
+		return this.destructionTimeout;
+	}
+
 	public void destroySingletons() {
 		if (logger.isTraceEnabled()) {
 			logger.trace("Destroying singletons in " + this);
@@ -539,8 +809,14 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		synchronized (this.disposableBeans) {
 			disposableBeanNames = StringUtils.toStringArray(this.disposableBeans.keySet());
 		}
-		for (int i = disposableBeanNames.length - 1; i >= 0; i--) {
-			destroySingleton(disposableBeanNames[i]);
+		Executor executor = this.destructionExecutor;
+		if (executor != null) {
+			destroySingletonsConcurrently(disposableBeanNames, executor);
+		}
+		else {
+			for (int i = disposableBeanNames.length - 1; i >= 0; i--) {
+				destroySingleton(disposableBeanNames[i]);
+			}
 		}
 
 		this.containedBeanMap.clear();
@@ -550,6 +826,185 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		clearSingletonCache();
 	}
 
+	/**
+	 * Return whether {@link #destroySingletons()} is in progress, including
+	 * destruction callbacks that still run after a destruction timeout.
+	 * @since 5.2.7
+	 */
+	boolean isDestroyingSingletons() {
+		synchronized (this.singletonObjects) {
+			return this.singletonsCurrentlyInDestruction;
+		}
+	}
+
+	/**
+	 * Destroy the given disposable beans on the given Executor in waves,
+	 * each wave comprising the beans without remaining dependent beans.
+	 * @param disposableBeanNames the names of the disposable beans, in registration order
+	 * @param executor the Executor to destroy the beans on
+	 * @see #setDestructionExecutor
+	 */
+	private void destroySingletonsConcurrently(String[] disposableBeanNames, Executor executor) {
+		long startTime = System.nanoTime();
+		DestructionProgress progress = new DestructionProgress();
+		long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(this.destructionTimeout);
+
+		// Bean name to the names of the beans to destroy before it, in reverse registration order
+		Map<String, Set<String>> beansToAwait = new LinkedHashMap<>();
+		for (int i = disposableBeanNames.length - 1; i >= 0; i--) {
+			collectForDestruction(disposableBeanNames[i], beansToAwait);
+		}
+		synchronized (this.containedBeanMap) {
+			this.containedBeanMap.forEach((containingBeanName, containedBeans) -> {
+				if (beansToAwait.containsKey(containingBeanName)) {
+					for (String containedBeanName : containedBeans) {
+						Set<String> beanNames = beansToAwait.get(containedBeanName);
+						if (beanNames != null) {
+							beanNames.add(containingBeanName);
+						}
+					}
+				}
+			});
+		}
+
+		int waveCount = 0;
+		while (!beansToAwait.isEmpty()) {
+			List<String> wave = new ArrayList<>();
+			beansToAwait.forEach((beanName, beanNames) -> {
+				if (beanNames.isEmpty()) {
+					wave.add(beanName);
+				}
+			});
+			if (wave.isEmpty()) {
+				// Circular dependencies: destroy the remaining beans in regular mode.
+				if (logger.isDebugEnabled()) {
+					logger.debug("Destroying singletons with circular dependencies on calling thread: " +
+							beansToAwait.keySet());
+				}
+				for (String beanName : beansToAwait.keySet()) {
+					destroySingletonTimed(beanName);
+				}
+				break;
+			}
+
+			Map<String, CompletableFuture<Void>> futures = new LinkedHashMap<>();
+			for (String beanName : wave) {
+				beansToAwait.remove(beanName);
+				try {
+					futures.put(beanName, CompletableFuture.runAsync(() -> {
+						if (progress.start(beanName)) {
+							destroySingletonTimed(beanName);
+						}
+					}, executor));
+				}
+				catch (RejectedExecutionException ex) {
+					destroySingletonTimed(beanName);
+				}
+			}
+			for (Set<String> beanNames : beansToAwait.values()) {
+				beanNames.removeAll(wave);
+			}
+			waveCount++;
+
+			try {
+				long remainingNanos = timeoutNanos - (System.nanoTime() - startTime);
+				CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0]))
+						.get(Math.max(remainingNanos, 0), TimeUnit.NANOSECONDS);
+			}
+			catch (TimeoutException | InterruptedException ex) {
+				if (ex instanceof InterruptedException) {
+					Thread.currentThread().interrupt();
+				}
+				// Tasks not started yet turn into no-ops; running ones are left to complete.
+				Set<String> startedBeanNames = progress.abort();
+				List<String> pendingBeanNames = new ArrayList<>();
+				Set<String> skippedBeanNames = new LinkedHashSet<>();
+				futures.forEach((beanName, future) -> {
+					if (!startedBeanNames.contains(beanName)) {
+						skippedBeanNames.add(beanName);
+					}
+					else if (!future.isDone()) {
+						pendingBeanNames.add(beanName);
+					}
+				});
+				skippedBeanNames.addAll(beansToAwait.keySet());
+				synchronized (this.disposableBeans) {
+					this.disposableBeans.keySet().removeAll(skippedBeanNames);
+				}
+				if (logger.isWarnEnabled()) {
+					logger.warn("Failed to destroy singletons within timeout of " + this.destructionTimeout +
+							"ms" + (ex instanceof InterruptedException ? " (interrupted)" : "") +
+							": still in destruction " + pendingBeanNames + ", not destroyed " + skippedBeanNames);
+				}
+				awaitPendingDestruction(CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0])));
+				return;
+			}
+			catch (ExecutionException ex) {
+				// Not expected: failures are logged per bean in destroySingletonTimed.
+				logger.warn("Concurrent destruction of singletons failed", ex);
+			}
+		}
+
+		if (logger.isDebugEnabled()) {
+			logger.debug("Destroyed singletons concurrently in " + waveCount + " waves within " +
+					TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) + "ms");
+		}
+	}
+
+	/**
+	 * Keep singleton destruction in progress until the given destruction tasks
+	 * have completed, even after the singleton caches have been cleared.
+	 */
+	private void awaitPendingDestruction(CompletableFuture<Void> pendingDestruction) {
+		synchronized (this.singletonObjects) {
+			this.pendingDestruction = pendingDestruction;
+		}
+		pendingDestruction.whenComplete((result, ex) -> {
+			synchronized (this.singletonObjects) {
+				if (this.pendingDestruction == pendingDestruction) {
+					this.pendingDestruction = null;
+					this.singletonsCurrentlyInDestruction = false;
+				}
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Completed destruction of singletons after timeout");
+			}
+		});
+	}
+
+	/**
+	 * Collect the given bean and, recursively, the beans that depend on it.
+	 */
+	private void collectForDestruction(String beanName, Map<String, Set<String>> beansToAwait) {
+		if (beansToAwait.containsKey(beanName)) {
+			return;
+		}
+		Set<String> dependentBeans = new LinkedHashSet<>(Arrays.asList(getDependentBeans(beanName)));
+		beansToAwait.put(beanName, dependentBeans);
+		for (String dependentBeanName : dependentBeans) {
+			collectForDestruction(dependentBeanName, beansToAwait);
+		}
+	}
+
+	/**
+	 * Destroy the given bean, logging its destruction time and any failure.
+	 */
+	private void destroySingletonTimed(String beanName) {
+		long startTime = System.nanoTime();
+		try {
+			destroySingleton(beanName);
+		}
+		catch (Throwable ex) {
+			if (logger.isWarnEnabled()) {
+				logger.warn("Destruction of singleton '" + beanName + "' failed", ex);
+			}
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Destroyed singleton '" + beanName + "' in " +
+					TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) + "ms");
+		}
+	}
+
 	/**
 	 * Clear all cached singleton instances in this registry.
 	 * @since 4.3.15
@@ -560,7 +1015,7 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 			this.singletonFactories.clear();
 			this.earlySingletonObjects.clear();
 			this.registeredSingletons.clear();
-			this.singletonsCurrentlyInDestruction = false;
+			this.singletonsCurrentlyInDestruction = (this.pendingDestruction != null);
 		}
 	}
 
@@ -663,4 +1118,29 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		return this.singletonObjects;
 	}
 
+
+	/**
+	 * Tracks which beans a concurrent destruction has started on, allowing
+	 * tasks that have not started yet to be skipped after a timeout.
+	 */
+	private static class DestructionProgress {
+
+		private final Set<String> startedBeanNames = new LinkedHashSet<>();
+
+		private boolean aborted;
+
+		synchronized boolean start(String beanName) {
+			if (this.aborted) {
+				return false;
+			}
+			this.startedBeanNames.add(beanName);
+			return true;
+		}
+
+		synchronized Set<String> abort() {
+			this.aborted = true;
+			return new LinkedHashSet<>(this.startedBeanNames);
+		}
+	}
+
 }
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.testfixture.beans.TestBean;
+import org.springframework.core.OverridingClassLoader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Runs the {@link BeanWrapperTests} with compiled property accessors,
+ * plus specific tests for the generated accessor classes.
+ *
+ * @author Sen Hu
+ */
+public class CompiledBeanWrapperTests extends BeanWrapperTests {
+
+	@Override
+	protected BeanWrapperImpl createAccessor(Object target) {
+		BeanWrapperImpl accessor = new BeanWrapperImpl(target);
+		accessor.setCompiledAccessors(true);
+		return accessor;
+	}
+
+
+	@Test
+	public void compiledAccessorIsGeneratedForPublicProperties() {
+		CachedIntrospectionResults results = CachedIntrospectionResults.forClass(TestBean.class);
+		PropertyAccessorCompiler.CompiledProperty age = results.getCompiledProperty(results.getPropertyDescriptor("age"));
+		assertThat(age).isNotNull();
+		assertThat(age.isReadable()).isTrue();
+		assertThat(age.isWritable(42)).isTrue();
+		assertThat(age.isWritable(null)).isFalse();
+		assertThat(age.isWritable("42")).isFalse();
+		assertThat(results.getCompiledProperty(results.getPropertyDescriptor("age"))).isSameAs(age);
+	}
+
+	@Test
+	public void compiledAccessorHandlesPrimitivesAndFluentSetters() {
+		PrimitiveBean target = new PrimitiveBean();
+		BeanWrapperImpl accessor = createAccessor(target);
+		accessor.setPropertyValue("flag", true);
+		accessor.setPropertyValue("count", "12");
+		accessor.setPropertyValue("amount", 1.5d);
+		accessor.setPropertyValue("name", "fluent");
+		assertThat(target.isFlag()).isTrue();
+		assertThat(target.getCount()).isEqualTo(12L);
+		assertThat(target.getAmount()).isEqualTo(1.5d);
+		assertThat(target.getName()).isEqualTo("fluent");
+		assertThat(accessor.getPropertyValue("flag")).isEqualTo(true);
+		assertThat(accessor.getPropertyValue("count")).isEqualTo(12L);
+		assertThat(accessor.getPropertyValue("amount")).isEqualTo(1.5d);
+		assertThat(accessor.getPropertyValue("name")).isEqualTo("fluent");
+
+		CachedIntrospectionResults results = CachedIntrospectionResults.forClass(PrimitiveBean.class);
+		assertThat(results.getCompiledProperty(results.getPropertyDescriptor("count"))).isNotNull();
+	}
+
+	@Test
+	public void compiledAccessorPropagatesExceptionsFromAccessorMethods() {
+		BeanWrapperImpl accessor = createAccessor(new PrimitiveBean());
+		assertThatExceptionOfType(MethodInvocationException.class).isThrownBy(() ->
+				accessor.setPropertyValue("failing", "value"))
+			.withCauseInstanceOf(IllegalStateException.class);
+		assertThatExceptionOfType(InvalidPropertyException.class).isThrownBy(() ->
+				accessor.getPropertyValue("failing"))
+			.withRootCauseInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	public void clearClassLoaderReleasesCompiledAccessors() throws Exception {
+		OverridingClassLoader child = new OverridingClassLoader(getClass().getClassLoader());
+		child.excludeClass(CompiledPropertyAccessor.class.getName());
+		Class<?> tbClass = child.loadClass(TestBean.class.getName());
+		BeanWrapperImpl accessor = createAccessor(BeanUtils.instantiateClass(tbClass));
+		accessor.setPropertyValue("age", 42);
+		assertThat(accessor.getPropertyValue("age")).isEqualTo(42);
+		assertThat(PropertyAccessorCompiler.childClassLoaders.containsKey(child)).isTrue();
+
+		CachedIntrospectionResults.clearClassLoader(child);
+		assertThat(PropertyAccessorCompiler.childClassLoaders.containsKey(child)).isFalse();
+	}
+
+	@Test
+	public void nonPublicBeanClassFallsBackToReflection() {
+		NonPublicBean target = new NonPublicBean();
+		BeanWrapperImpl accessor = createAccessor(target);
+		accessor.setPropertyValue("name", "reflective");
+		assertThat(accessor.getPropertyValue("name")).isEqualTo("reflective");
+
+		CachedIntrospectionResults results = CachedIntrospectionResults.forClass(NonPublicBean.class);
+		assertThat(results.getCompiledProperty(results.getPropertyDescriptor("name"))).isNull();
+	}
+
+
+	public static class PrimitiveBean {
+
+		private boolean flag;
+
+		private long count;
+
+		private double amount;
+
+		private String name;
+
+		public boolean isFlag() {
+			return this.flag;
+		}
+
+		public void setFlag(boolean flag) {
+			this.flag = flag;
+		}
+
+		public long getCount() {
+			return this.count;
+		}
+
+		public void setCount(long count) {
+			this.count = count;
+		}
+
+		public double getAmount() {
+			return this.amount;
+		}
+
+		public void setAmount(double amount) {
+			this.amount = amount;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		public PrimitiveBean setName(String name) {
+			this.name = name;
+			return this;
+		}
+
+		public String getFailing() {
+			throw new IllegalStateException("read");
+		}
+
+		public void setFailing(String value) {
+			throw new IllegalStateException("write");
+		}
+	}
+
+
+	static class NonPublicBean {
+
+		private String name;
+
+		public String getName() {
+			return this.name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+	}
+
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import java.beans.IndexedPropertyDescriptor;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.support.DerivedFromProtectedBaseBean;
+import org.springframework.beans.testfixture.beans.BooleanTestBean;
+import org.springframework.beans.testfixture.beans.DerivedTestBean;
+import org.springframework.beans.testfixture.beans.GenericBean;
+import org.springframework.beans.testfixture.beans.NumberTestBean;
+import org.springframework.beans.testfixture.beans.TestBean;
+import org.springframework.core.Ordered;
+import org.springframework.util.ReflectionUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link SimpleBeanInfoFactory}.
+ *
+ * @author Sen Hu
+ */
+public class SimpleBeanInfoFactoryTests {
+
+	private final SimpleBeanInfoFactory factory = new SimpleBeanInfoFactory();
+
+
+	@Test
+	public void shouldMatchStandardIntrospectionForRegularBeans() throws IntrospectionException {
+		for (Class<?> beanClass : new Class<?>[] {TestBean.class, DerivedTestBean.class,
+				BooleanTestBean.class, NumberTestBean.class, GenericBean.class, DerivedFromProtectedBaseBean.class}) {
+			assertThat(describe(factory.getBeanInfo(beanClass).getPropertyDescriptors()))
+					.as(beanClass.getName())
+					.isEqualTo(describe(Introspector.getBeanInfo(beanClass).getPropertyDescriptors()));
+			assertThat(factory.getBeanInfo(beanClass).getBeanDescriptor().getBeanClass()).isEqualTo(beanClass);
+		}
+	}
+
+	@Test
+	public void shouldExposeNonVoidReturningSetters() throws IntrospectionException {
+		PropertyDescriptor[] pds = factory.getBeanInfo(FluentBean.class).getPropertyDescriptors();
+		assertThat(describe(pds)).containsKeys("class", "name", "enabled");
+		assertThat(describe(pds).get("name")).isEqualTo(
+				"getName/" + method(FluentBean.class, "setName", String.class).toString());
+	}
+
+	@Test
+	public void shouldExposeStaticSetters() throws IntrospectionException {
+		PropertyDescriptor[] pds = factory.getBeanInfo(FluentBean.class).getPropertyDescriptors();
+		assertThat(describe(pds).get("defaultName")).isEqualTo(
+				"-/" + method(FluentBean.class, "setDefaultName", String.class).toString());
+	}
+
+	@Test
+	public void shouldPreferIsReadMethodForBooleanProperty() throws IntrospectionException {
+		PropertyDescriptor[] pds = factory.getBeanInfo(FluentBean.class).getPropertyDescriptors();
+		PropertyDescriptor enabled = Arrays.stream(pds).filter(pd -> pd.getName().equals("enabled")).findFirst().get();
+		assertThat(enabled.getReadMethod().getName()).isEqualTo("isEnabled");
+		assertThat(enabled.getPropertyType()).isEqualTo(boolean.class);
+	}
+
+	@Test
+	public void shouldMatchOverloadedWriteMethodAgainstReadMethod() throws IntrospectionException {
+		PropertyDescriptor[] pds = factory.getBeanInfo(OverloadedBean.class).getPropertyDescriptors();
+		PropertyDescriptor value = Arrays.stream(pds).filter(pd -> pd.getName().equals("value")).findFirst().get();
+		assertThat(value.getWriteMethod()).isEqualTo(method(OverloadedBean.class, "setValue", Integer.class));
+		assertThat(value.getPropertyType()).isEqualTo(Integer.class);
+	}
+
+	@Test
+	public void shouldResolveMostSpecificReadMethod() throws IntrospectionException {
+		PropertyDescriptor[] pds = factory.getBeanInfo(CovariantBean.class).getPropertyDescriptors();
+		PropertyDescriptor value = Arrays.stream(pds).filter(pd -> pd.getName().equals("value")).findFirst().get();
+		assertThat(value.getReadMethod().isBridge()).isFalse();
+		assertThat(value.getPropertyType()).isEqualTo(String.class);
+		assertThat(value.getWriteMethod()).isEqualTo(method(CovariantBean.class, "setValue", String.class));
+	}
+
+	@Test
+	public void shouldBeOrderedBeforeExtendedBeanInfoFactory() {
+		assertThat(factory.getOrder()).isLessThan(new ExtendedBeanInfoFactory().getOrder());
+		assertThat(factory.getOrder()).isGreaterThan(Ordered.HIGHEST_PRECEDENCE);
+	}
+
+
+	private static Map<String, String> describe(PropertyDescriptor[] pds) {
+		Map<String, String> result = new LinkedHashMap<>();
+		for (PropertyDescriptor pd : pds) {
+			if (pd instanceof IndexedPropertyDescriptor && pd.getReadMethod() == null && pd.getWriteMethod() == null) {
+				continue;
+			}
+			result.put(pd.getName(), (pd.getReadMethod() != null ? pd.getReadMethod().getName() : "-") + "/" +
+					(pd.getWriteMethod() != null ? pd.getWriteMethod().toString() : "-"));
+		}
+		return result;
+	}
+
+	private static Method method(Class<?> clazz, String name, Class<?>... paramTypes) {
+		return ReflectionUtils.findMethod(clazz, name, paramTypes);
+	}
+
+
+	public static class FluentBean {
+
+		static String defaultName;
+
+		private String name;
+
+		private boolean enabled;
+
+		public String getName() {
+			return this.name;
+		}
+
+		public FluentBean setName(String name) {
+			this.name = name;
+			return this;
+		}
+
+		public boolean getEnabled() {
+			return this.enabled;
+		}
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public FluentBean setEnabled(boolean enabled) {
+			this.enabled = enabled;
+			return this;
+		}
+
+		public static void setDefaultName(String defaultName) {
+			FluentBean.defaultName = defaultName;
+		}
+	}
+
+
+	public static class OverloadedBean {
+
+		private Integer value;
+
+		public Integer getValue() {
+			return this.value;
+		}
+
+		public void setValue(String value) {
+			this.value = Integer.valueOf(value);
+		}
+
+		public void setValue(Integer value) {
+			this.value = value;
+		}
+	}
+
+
+	public interface ValueHolder {
+
+		Object getValue();
+	}
+
+
+	public static class CovariantBean implements ValueHolder {
+
+		private String value;
+
+		@Override
+		public String getValue() {
+			return this.value;
+		}
+
+		public void setValue(String value) {
+			this.value = value;
+		}
+	}
+
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.io.Serializable;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.config.SmartInstantiationAwareBeanPostProcessor;
+import org.springframework.beans.testfixture.beans.DerivedTestBean;
+import org.springframework.beans.testfixture.beans.IOther;
+import org.springframework.beans.testfixture.beans.ITestBean;
+import org.springframework.beans.testfixture.beans.NestedTestBean;
+import org.springframework.beans.testfixture.beans.TestBean;
+import org.springframework.beans.testfixture.beans.factory.DummyFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for by-type lookups in {@link DefaultListableBeanFactory}
+ * with {@link DefaultListableBeanFactory#setIndexBeanTypes bean type indexing}.
+ *
+ * @author Sen Hu
+ * @since 5.2.7
+ */
+class BeanTypeIndexTests {
+
+	private final DefaultListableBeanFactory factory = new DefaultListableBeanFactory();
+
+
+	@BeforeEach
+	void setup() {
+		this.factory.registerBeanDefinition("test", new RootBeanDefinition(TestBean.class));
+		this.factory.setIndexBeanTypes(true);
+		this.factory.registerBeanDefinition("nested", new RootBeanDefinition(NestedTestBean.class));
+		this.factory.registerBeanDefinition("derived", new RootBeanDefinition(DerivedTestBean.class));
+	}
+
+
+	@Test
+	void lookupByClassAndInterfaces() {
+		assertThat(this.factory.isIndexBeanTypes()).isTrue();
+		assertThat(this.factory.getBeanNamesForType(TestBean.class)).containsExactly("test", "derived");
+		assertThat(this.factory.getBeanNamesForType(ITestBean.class)).containsExactly("test", "derived");
+		assertThat(this.factory.getBeanNamesForType(IOther.class)).containsExactly("test", "derived");
+		assertThat(this.factory.getBeanNamesForType(Serializable.class)).containsExactly("derived");
+		assertThat(this.factory.getBeanNamesForType(NestedTestBean.class)).containsExactly("nested");
+		assertThat(this.factory.getBeanNamesForType(Object.class)).containsExactly("test", "nested", "derived");
+		assertThat(this.factory.getBeanNamesForType(String.class)).isEmpty();
+	}
+
+	@Test
+	void lookupAfterRegistrationChanges() {
+		assertThat(this.factory.getBeanNamesForType(ITestBean.class)).containsExactly("test", "derived");
+
+		this.factory.removeBeanDefinition("test");
+		assertThat(this.factory.getBeanNamesForType(ITestBean.class)).containsExactly("derived");
+
+		this.factory.registerBeanDefinition("nested", new RootBeanDefinition(TestBean.class));
+		assertThat(this.factory.getBeanNamesForType(ITestBean.class)).containsExactly("nested", "derived");
+		assertThat(this.factory.getBeanNamesForType(NestedTestBean.class)).isEmpty();
+
+		this.factory.registerBeanDefinition("test", new RootBeanDefinition(TestBean.class));
+		assertThat(this.factory.getBeanNamesForType(ITestBean.class)).containsExactly("nested", "derived", "test");
+	}
+
+	@Test
+	void lookupIncludesFactoryBeansAndFactoryMethods() {
+		this.factory.registerBeanDefinition("factory", new RootBeanDefinition(DummyFactory.class));
+		RootBeanDefinition factoryMethod = new RootBeanDefinition(BeanTypeIndexTests.class);
+		factoryMethod.setFactoryMethodName("createTestBean");
+		this.factory.registerBeanDefinition("factoryMethod", factoryMethod);
+
+		assertThat(this.factory.getBeanNamesForType(ITestBean.class))
+				.containsExactly("test", "derived", "factory", "factoryMethod");
+		assertThat(this.factory.getBeanNamesForType(DummyFactory.class)).containsExactly("&factory");
+	}
+
+	@Test
+	void lookupIncludesManualSingletons() {
+		this.factory.registerSingleton("manual", new TestBean());
+
+		assertThat(this.factory.getBeanNamesForType(ITestBean.class)).containsExactly("test", "derived", "manual");
+	}
+
+	@Test
+	void lookupConsidersSingletonInstanceType() {
+		this.factory.registerBeanDefinition("replaced", BeanDefinitionBuilder.genericBeanDefinition(
+				ITestBean.class, ReplacingTestBean::new).getBeanDefinition());
+		assertThat(this.factory.getBeanNamesForType(Runnable.class)).isEmpty();
+
+		this.factory.getBean("replaced");
+		assertThat(this.factory.getBeanNamesForType(Runnable.class)).containsExactly("replaced");
+	}
+
+	@Test
+	void lookupConsidersPredictedTypeOfPostProcessor() {
+		assertThat(this.factory.getBeanNamesForType(Runnable.class)).isEmpty();
+
+		this.factory.addBeanPostProcessor(new SmartInstantiationAwareBeanPostProcessor() {
+			@Override
+			public Class<?> predictBeanType(Class<?> beanClass, String beanName) {
+				return ("nested".equals(beanName) ? ReplacingTestBean.class : null);
+			}
+		});
+		assertThat(this.factory.getBeanNamesForType(Runnable.class)).containsExactly("nested");
+	}
+
+
+	public static TestBean createTestBean() {
+		return new TestBean();
+	}
+
+
+	static class ReplacingTestBean extends TestBean implements Runnable {
+
+		@Override
+		public void run() {
+		}
+	}
+
+}
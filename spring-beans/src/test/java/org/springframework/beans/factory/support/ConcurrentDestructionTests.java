@@ -0,0 +1,201 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.BeanCreationNotAllowedException;
+import org.springframework.beans.factory.DisposableBean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Tests for concurrent destruction of disposable singletons in
+ * {@link DefaultSingletonBeanRegistry}.
+ *
+ * @author Sen Hu
+ * @since 5.2.7
+ */
+class ConcurrentDestructionTests {
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+	private final DefaultListableBeanFactory factory = new DefaultListableBeanFactory();
+
+	private final List<String> destroyedBeans = new CopyOnWriteArrayList<>();
+
+
+	@AfterEach
+	void shutdown() {
+		this.executor.shutdownNow();
+	}
+
+
+	@Test
+	void independentSingletonsAreDestroyedConcurrently() {
+		for (int i = 0; i < 4; i++) {
+			registerDisposableBean("bean" + i, SlowDisposableBean.DELAY);
+		}
+		this.factory.setDestructionExecutor(this.executor);
+
+		long start = System.nanoTime();
+		this.factory.destroySingletons();
+		long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		assertThat(this.destroyedBeans).containsExactlyInAnyOrder("bean0", "bean1", "bean2", "bean3");
+		assertThat(elapsed).isLessThan(4 * SlowDisposableBean.DELAY);
+		assertThat(this.factory.getSingletonCount()).isEqualTo(0);
+	}
+
+	@Test
+	void dependentSingletonsAreDestroyedFirst() {
+		registerDisposableBean("pool", 0);
+		registerDisposableBean("client", SlowDisposableBean.DELAY);
+		registerDisposableBean("service", 0);
+		registerDisposableBean("other", 0);
+		this.factory.registerDependentBean("pool", "client");
+		this.factory.registerDependentBean("client", "service");
+		this.factory.setDestructionExecutor(this.executor);
+
+		this.factory.destroySingletons();
+
+		assertThat(this.destroyedBeans).containsExactlyInAnyOrder("pool", "client", "service", "other");
+		assertThat(this.destroyedBeans.indexOf("service")).isLessThan(this.destroyedBeans.indexOf("client"));
+		assertThat(this.destroyedBeans.indexOf("client")).isLessThan(this.destroyedBeans.indexOf("pool"));
+	}
+
+	@Test
+	void circularDependenciesAreDestroyed() {
+		registerDisposableBean("bean1", 0);
+		registerDisposableBean("bean2", 0);
+		this.factory.registerDependentBean("bean1", "bean2");
+		this.factory.registerDependentBean("bean2", "bean1");
+		this.factory.setDestructionExecutor(this.executor);
+
+		this.factory.destroySingletons();
+
+		assertThat(this.destroyedBeans).containsExactlyInAnyOrder("bean1", "bean2");
+	}
+
+	@Test
+	void destructionTimeoutSkipsRemainingSingletons() {
+		registerDisposableBean("pool", 0);
+		registerDisposableBean("client", 10 * SlowDisposableBean.DELAY);
+		this.factory.registerDependentBean("pool", "client");
+		this.factory.setDestructionExecutor(this.executor);
+		this.factory.setDestructionTimeout(SlowDisposableBean.DELAY);
+
+		long start = System.nanoTime();
+		this.factory.destroySingletons();
+		long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		assertThat(elapsed).isLessThan(10 * SlowDisposableBean.DELAY);
+		assertThat(this.destroyedBeans).doesNotContain("pool");
+		assertThat(this.factory.getSingletonCount()).isEqualTo(0);
+	}
+
+	@Test
+	void destructionRemainsInProgressUntilCallbacksCompleteAfterTimeout() throws InterruptedException {
+		registerDisposableBean("bean", 5 * SlowDisposableBean.DELAY);
+		this.factory.setDestructionExecutor(this.executor);
+		this.factory.setDestructionTimeout(SlowDisposableBean.DELAY);
+
+		this.factory.destroySingletons();
+
+		assertThat(this.factory.isDestroyingSingletons()).isTrue();
+		assertThatExceptionOfType(BeanCreationNotAllowedException.class).isThrownBy(() ->
+				this.factory.getSingleton("other", Object::new));
+		long deadline = System.currentTimeMillis() + 10 * SlowDisposableBean.DELAY;
+		while (this.factory.isDestroyingSingletons() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(this.factory.isDestroyingSingletons()).isFalse();
+		assertThat(this.destroyedBeans).containsExactly("bean");
+	}
+
+	@Test
+	void destructionNotStartedBeforeTimeoutIsSkipped() throws InterruptedException {
+		ExecutorService singleThreadExecutor = Executors.newSingleThreadExecutor();
+		registerDisposableBean("bean1", 3 * SlowDisposableBean.DELAY);
+		registerDisposableBean("bean2", 3 * SlowDisposableBean.DELAY);
+		this.factory.setDestructionExecutor(singleThreadExecutor);
+		this.factory.setDestructionTimeout(SlowDisposableBean.DELAY);
+
+		this.factory.destroySingletons();
+		singleThreadExecutor.shutdown();
+		assertThat(singleThreadExecutor.awaitTermination(
+				10 * SlowDisposableBean.DELAY, TimeUnit.MILLISECONDS)).isTrue();
+		this.factory.destroySingletons();
+
+		assertThat(this.destroyedBeans).containsExactly("bean2");
+	}
+
+	@Test
+	void manualSingletonsAreRemovedAfterConcurrentDestruction() {
+		for (int i = 0; i < 16; i++) {
+			registerDisposableBean("bean" + i, 0);
+		}
+		this.factory.registerBeanDefinition("regular", new RootBeanDefinition(Object.class));
+		this.factory.getBean("regular");
+		this.factory.setDestructionExecutor(this.executor);
+
+		this.factory.destroySingletons();
+
+		assertThat(this.destroyedBeans).hasSize(16);
+		assertThat(this.factory.getBeanNamesForType(SlowDisposableBean.class)).isEmpty();
+		assertThat(this.factory.getSingletonNames()).isEmpty();
+	}
+
+	private void registerDisposableBean(String beanName, long delay) {
+		SlowDisposableBean bean = new SlowDisposableBean(beanName, delay, this.destroyedBeans);
+		this.factory.registerSingleton(beanName, bean);
+		this.factory.registerDisposableBean(beanName, bean);
+	}
+
+
+	static class SlowDisposableBean implements DisposableBean {
+
+		static final long DELAY = 200;
+
+		private final String name;
+
+		private final long delay;
+
+		private final List<String> destroyedBeans;
+
+		SlowDisposableBean(String name, long delay, List<String> destroyedBeans) {
+			this.name = name;
+			this.delay = delay;
+			this.destroyedBeans = destroyedBeans;
+		}
+
+		@Override
+		public void destroy() throws InterruptedException {
+			Thread.sleep(this.delay);
+			this.destroyedBeans.add(this.name);
+		}
+	}
+
+}
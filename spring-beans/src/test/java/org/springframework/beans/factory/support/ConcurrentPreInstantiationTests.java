@@ -0,0 +1,320 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.FactoryBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.AutowiredAnnotationBeanPostProcessor;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.testfixture.beans.TestBean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Tests for concurrent singleton pre-instantiation in
+ * {@link DefaultListableBeanFactory}.
+ *
+ * @since 5.2.7
+ */
+class ConcurrentPreInstantiationTests {
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+	private final DefaultListableBeanFactory factory = new DefaultListableBeanFactory();
+
+
+	@AfterEach
+	void shutdown() {
+		this.executor.shutdownNow();
+		CycleBean.creations.clear();
+	}
+
+
+	@Test
+	void independentSingletonsAreCreatedConcurrently() throws Exception {
+		Map<String, Thread> creatingThreads = new ConcurrentHashMap<>();
+		for (int i = 0; i < 4; i++) {
+			String beanName = "bean" + i;
+			this.factory.registerBeanDefinition(beanName, BeanDefinitionBuilder.genericBeanDefinition(
+					SlowBean.class, () -> new SlowBean(beanName, creatingThreads)).getBeanDefinition());
+		}
+		this.factory.setBootstrapExecutor(this.executor);
+
+		long start = System.nanoTime();
+		this.factory.preInstantiateSingletons();
+		long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+		assertThat(creatingThreads).hasSize(4);
+		assertThat(creatingThreads.values()).doesNotContain(Thread.currentThread());
+		assertThat(elapsed).isLessThan(4 * SlowBean.DELAY);
+		assertThat(this.factory.isConcurrentSingletonCreation()).isFalse();
+	}
+
+	@Test
+	void declaredDependenciesAreCreatedFirst() {
+		RootBeanDefinition spouse = new RootBeanDefinition(TestBean.class);
+		spouse.getPropertyValues().add("name", "spouse");
+		RootBeanDefinition bean = new RootBeanDefinition(TestBean.class);
+		bean.getPropertyValues().add("spouse", new RuntimeBeanReference("spouse"));
+		this.factory.registerBeanDefinition("bean", bean);
+		this.factory.registerBeanDefinition("spouse", spouse);
+		this.factory.setBootstrapExecutor(this.executor);
+
+		this.factory.preInstantiateSingletons();
+
+		assertThat(this.factory.getBean("bean", TestBean.class).getSpouse())
+				.isSameAs(this.factory.getBean("spouse"));
+	}
+
+	@Test
+	void circularReferencesAreResolved() {
+		RootBeanDefinition bean1 = new RootBeanDefinition(TestBean.class);
+		bean1.getPropertyValues().add("spouse", new RuntimeBeanReference("bean2"));
+		RootBeanDefinition bean2 = new RootBeanDefinition(TestBean.class);
+		bean2.getPropertyValues().add("spouse", new RuntimeBeanReference("bean1"));
+		this.factory.registerBeanDefinition("bean1", bean1);
+		this.factory.registerBeanDefinition("bean2", bean2);
+		this.factory.setBootstrapExecutor(this.executor);
+
+		this.factory.preInstantiateSingletons();
+
+		TestBean tb1 = this.factory.getBean("bean1", TestBean.class);
+		TestBean tb2 = this.factory.getBean("bean2", TestBean.class);
+		assertThat(tb1.getSpouse()).isSameAs(tb2);
+		assertThat(tb2.getSpouse()).isSameAs(tb1);
+	}
+
+	@Test
+	void autowiredCircularReferencesAreCreatedOnceOnOneThread() {
+		AutowiredAnnotationBeanPostProcessor bpp = new AutowiredAnnotationBeanPostProcessor();
+		bpp.setBeanFactory(this.factory);
+		this.factory.addBeanPostProcessor(bpp);
+		this.factory.registerBeanDefinition("bean1", new RootBeanDefinition(AutowiredBean1.class));
+		this.factory.registerBeanDefinition("bean2", new RootBeanDefinition(AutowiredBean2.class));
+		this.factory.setBootstrapExecutor(this.executor);
+
+		this.factory.preInstantiateSingletons();
+
+		AutowiredBean1 bean1 = this.factory.getBean("bean1", AutowiredBean1.class);
+		AutowiredBean2 bean2 = this.factory.getBean("bean2", AutowiredBean2.class);
+		assertThat(bean1.other).isSameAs(bean2);
+		assertThat(bean2.other).isSameAs(bean1);
+		assertThat(CycleBean.creations.get(AutowiredBean1.class)).hasSize(1);
+		assertThat(CycleBean.creations.get(AutowiredBean2.class)).hasSize(1);
+		assertThat(CycleBean.creations.get(AutowiredBean1.class))
+				.isEqualTo(CycleBean.creations.get(AutowiredBean2.class));
+	}
+
+	@Test
+	void circularReferencesThroughFactoryMethodParametersAreCreatedOnceOnOneThread() {
+		AutowiredAnnotationBeanPostProcessor bpp = new AutowiredAnnotationBeanPostProcessor();
+		bpp.setBeanFactory(this.factory);
+		this.factory.addBeanPostProcessor(bpp);
+		RootBeanDefinition factoryMethodBean = new RootBeanDefinition(FactoryMethodBean.class);
+		factoryMethodBean.setFactoryMethodName("create");
+		factoryMethodBean.setAutowireMode(AutowireCapableBeanFactory.AUTOWIRE_CONSTRUCTOR);
+		this.factory.registerBeanDefinition("bean1", new RootBeanDefinition(AutowiredBean1.class));
+		this.factory.registerBeanDefinition("bean2", factoryMethodBean);
+		this.factory.setBootstrapExecutor(this.executor);
+
+		this.factory.preInstantiateSingletons();
+
+		AutowiredBean1 bean1 = this.factory.getBean("bean1", AutowiredBean1.class);
+		FactoryMethodBean bean2 = this.factory.getBean("bean2", FactoryMethodBean.class);
+		assertThat(bean2.other).isSameAs(bean1);
+		assertThat(CycleBean.creations.get(AutowiredBean1.class)).hasSize(1);
+		assertThat(CycleBean.creations.get(FactoryMethodBean.class)).hasSize(1);
+		assertThat(CycleBean.creations.get(AutowiredBean1.class))
+				.isEqualTo(CycleBean.creations.get(FactoryMethodBean.class));
+	}
+
+	@Test
+	void factoryBeanObjectWaitsForBeanCreatedByOtherThread() {
+		CountDownLatch slowBeanStarted = new CountDownLatch(1);
+		Map<String, Thread> creatingThreads = new ConcurrentHashMap<>();
+		this.factory.registerBeanDefinition("slow", BeanDefinitionBuilder.genericBeanDefinition(SlowBean.class,
+				() -> {
+					slowBeanStarted.countDown();
+					return new SlowBean("slow", creatingThreads);
+				}).getBeanDefinition());
+		// Retrieves "slow" programmatically, i.e. not visible as a dependency upfront
+		this.factory.registerBeanDefinition("factoryBean", BeanDefinitionBuilder.genericBeanDefinition(
+				SlowBeanFactoryBean.class, () -> new SlowBeanFactoryBean(this.factory, slowBeanStarted))
+				.getBeanDefinition());
+		RootBeanDefinition consumer = new RootBeanDefinition(TestBean.class);
+		consumer.getPropertyValues().add("someMap", new RuntimeBeanReference("factoryBean"));
+		this.factory.registerBeanDefinition("consumer", consumer);
+		this.factory.setBootstrapExecutor(this.executor);
+
+		this.factory.preInstantiateSingletons();
+
+		assertThat(this.factory.getBean("consumer", TestBean.class).getSomeMap())
+				.containsKey("slow");
+		assertThat(this.factory.getBean("factoryBean")).isSameAs(this.factory.getBean("factoryBean"));
+	}
+
+	@Test
+	void longDependencyChainIsScheduled() throws Exception {
+		int length = 20000;
+		for (int i = 0; i < length; i++) {
+			RootBeanDefinition bd = new RootBeanDefinition(Object.class);
+			if (i < length - 1) {
+				bd.setDependsOn("bean" + (i + 1));
+			}
+			this.factory.registerBeanDefinition("bean" + i, bd);
+		}
+		this.factory.setBootstrapExecutor(this.executor);
+
+		// Small stack: a recursive graph traversal would overflow it
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		Thread thread = new Thread(null, () -> {
+			try {
+				this.factory.preInstantiateSingletons();
+			}
+			catch (Throwable ex) {
+				failure.set(ex);
+			}
+		}, "bootstrap", 256 * 1024);
+		thread.start();
+		thread.join();
+
+		assertThat(failure.get()).isNull();
+		assertThat(this.factory.getSingletonCount()).isEqualTo(length);
+	}
+
+	@Test
+	void creationFailureIsPropagated() {
+		this.factory.registerBeanDefinition("bean", BeanDefinitionBuilder.genericBeanDefinition(
+				TestBean.class, () -> {
+					throw new IllegalArgumentException("boom");
+				}).getBeanDefinition());
+		this.factory.setBootstrapExecutor(this.executor);
+
+		assertThatExceptionOfType(BeanCreationException.class)
+				.isThrownBy(this.factory::preInstantiateSingletons)
+				.withRootCauseInstanceOf(IllegalArgumentException.class);
+		assertThat(this.factory.isConcurrentSingletonCreation()).isFalse();
+	}
+
+
+	static class SlowBean {
+
+		static final long DELAY = 200;
+
+		SlowBean(String name, Map<String, Thread> creatingThreads) {
+			creatingThreads.put(name, Thread.currentThread());
+			try {
+				Thread.sleep(DELAY);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+
+	static class SlowBeanFactoryBean implements FactoryBean<Map<String, Object>> {
+
+		private final BeanFactory beanFactory;
+
+		private final CountDownLatch slowBeanStarted;
+
+		SlowBeanFactoryBean(BeanFactory beanFactory, CountDownLatch slowBeanStarted) {
+			this.beanFactory = beanFactory;
+			this.slowBeanStarted = slowBeanStarted;
+		}
+
+		@Override
+		public Map<String, Object> getObject() throws Exception {
+			this.slowBeanStarted.await(5, TimeUnit.SECONDS);
+			return Collections.singletonMap("slow", this.beanFactory.getBean("slow"));
+		}
+
+		@Override
+		public Class<?> getObjectType() {
+			return Map.class;
+		}
+	}
+
+
+	static class CycleBean {
+
+		static final Map<Class<?>, List<Thread>> creations = new ConcurrentHashMap<>();
+
+		CycleBean() {
+			creations.computeIfAbsent(getClass(), key -> new CopyOnWriteArrayList<>()).add(Thread.currentThread());
+			try {
+				// Give other threads the chance to pick up a bean of the same cycle
+				Thread.sleep(SlowBean.DELAY / 4);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+
+	interface Partner {
+	}
+
+
+	static class AutowiredBean1 extends CycleBean {
+
+		@Autowired
+		Partner other;
+	}
+
+
+	static class AutowiredBean2 extends CycleBean implements Partner {
+
+		@Autowired
+		AutowiredBean1 other;
+	}
+
+
+	static class FactoryMethodBean extends CycleBean implements Partner {
+
+		final AutowiredBean1 other;
+
+		FactoryMethodBean(AutowiredBean1 other) {
+			this.other = other;
+		}
+
+		static FactoryMethodBean create(AutowiredBean1 other) {
+			return new FactoryMethodBean(other);
+		}
+	}
+
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index.processor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import javax.annotation.processing.Completion;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.Processor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.tools.StandardLocation;
+
+/**
+ * Annotation {@link Processor} that writes an index of the annotation types
+ * used by each compiled class to {@value #INDEX_PATH}, allowing
+ * {@code MergedAnnotations} to rule out annotations without reflection.
+ *
+ * <p>The entry for a class lists every annotation type that is present or
+ * meta-present on the class, on its fields, methods, constructors and
+ * parameters, across its superclass and interface hierarchy, plus annotation
+ * types nested as attribute values. Annotation types with
+ * {@link java.lang.annotation.RetentionPolicy#SOURCE source} retention are
+ * omitted. Classes that are not part of the current compilation get no
+ * entry and are introspected as usual at runtime.
+ *
+ * <p>The index is opt-in: nothing is written unless the processor is invoked
+ * with the {@code -A}{@value #INDEX_OPTION}{@code =true} compiler option.
+ * In order to detect stale entries at runtime, classes that extend or
+ * implement types from outside the current compilation (other than JDK
+ * types) get no entry, and the runtime-visible meta-annotation types of
+ * annotation types from outside the current compilation are recorded
+ * under keys prefixed with {@code @}.
+ *
+ * @author Sen Hu
+ * @since 5.2.7
+ */
+public class AnnotationIndexer implements Processor {
+
+	static final String INDEX_PATH = "META-INF/spring.annotations";
+
+	/**
+	 * The compiler option that enables the annotation index.
+	 */
+	static final String INDEX_OPTION = "spring.index.annotations";
+
+	private static final String RETENTION_TYPE = "java.lang.annotation.Retention";
+
+	private ProcessingEnvironment environment;
+
+	private Elements elements;
+
+	private boolean enabled;
+
+	/** Binary names of the types in the current compilation. */
+	private final Set<String> compiledTypes = new HashSet<>();
+
+	/** Indexed type to the annotation types that it uses. */
+	private final Map<String, Set<String>> index = new TreeMap<>();
+
+	/** Indexed type to the other types of its hierarchy. */
+	private final Map<String, Set<String>> hierarchies = new HashMap<>();
+
+	/** Annotation type to its runtime-visible meta-annotation types. */
+	private final Map<String, Set<String>> metaAnnotations = new HashMap<>();
+
+
+	@Override
+	public Set<String> getSupportedOptions() {
+		return Collections.singleton(INDEX_OPTION);
+	}
+
+	@Override
+	public Set<String> getSupportedAnnotationTypes() {
+		return Collections.singleton("*");
+	}
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latest();
+	}
+
+	@Override
+	public synchronized void init(ProcessingEnvironment env) {
+		this.environment = env;
+		this.elements = env.getElementUtils();
+		this.enabled = Boolean.parseBoolean(env.getOptions().get(INDEX_OPTION));
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		if (!this.enabled) {
+			return false;
+		}
+		roundEnv.getRootElements().forEach(this::processElement);
+		if (roundEnv.processingOver()) {
+			writeIndex();
+		}
+		return false;
+	}
+
+	@Override
+	public Iterable<? extends Completion> getCompletions(
+			Element element, AnnotationMirror annotation, ExecutableElement member, String userText) {
+
+		return Collections.emptyList();
+	}
+
+
+	private void processElement(Element element) {
+		if (element instanceof TypeElement) {
+			TypeElement type = (TypeElement) element;
+			String typeName = this.elements.getBinaryName(type).toString();
+			Set<String> annotationTypes = new TreeSet<>();
+			Set<String> hierarchy = new HashSet<>();
+			collectFromHierarchy(type, annotationTypes, hierarchy);
+			hierarchy.remove(typeName);
+			this.compiledTypes.add(typeName);
+			this.index.put(typeName, annotationTypes);
+			this.hierarchies.put(typeName, hierarchy);
+			for (Element enclosed : type.getEnclosedElements()) {
+				processElement(enclosed);
+			}
+		}
+	}
+
+	private void collectFromHierarchy(TypeElement type, Set<String> annotationTypes, Set<String> visitedTypes) {
+		if (!visitedTypes.add(this.elements.getBinaryName(type).toString())) {
+			return;
+		}
+		collectFromElement(type, annotationTypes);
+		for (Element enclosed : type.getEnclosedElements()) {
+			ElementKind kind = enclosed.getKind();
+			if (kind == ElementKind.METHOD || kind == ElementKind.CONSTRUCTOR) {
+				collectFromElement(enclosed, annotationTypes);
+				for (VariableElement parameter : ((ExecutableElement) enclosed).getParameters()) {
+					collectFromElement(parameter, annotationTypes);
+				}
+			}
+			else if (kind == ElementKind.FIELD || kind == ElementKind.ENUM_CONSTANT) {
+				collectFromElement(enclosed, annotationTypes);
+			}
+		}
+		collectFromSupertype(type.getSuperclass(), annotationTypes, visitedTypes);
+		for (TypeMirror ifc : type.getInterfaces()) {
+			collectFromSupertype(ifc, annotationTypes, visitedTypes);
+		}
+	}
+
+	private void collectFromSupertype(TypeMirror supertype, Set<String> annotationTypes, Set<String> visitedTypes) {
+		if (supertype.getKind() == TypeKind.DECLARED) {
+			Element element = ((DeclaredType) supertype).asElement();
+			if (element instanceof TypeElement) {
+				collectFromHierarchy((TypeElement) element, annotationTypes, visitedTypes);
+			}
+		}
+		else if (supertype.getKind() == TypeKind.ERROR) {
+			// Unresolved supertype: never part of the current compilation
+			visitedTypes.add(supertype.toString());
+		}
+	}
+
+	private void collectFromElement(Element element, Set<String> annotationTypes) {
+		for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+			collectFromAnnotation(annotation, annotationTypes);
+		}
+	}
+
+	private void collectFromAnnotation(AnnotationMirror annotation, Set<String> annotationTypes) {
+		TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+		if ("SOURCE".equals(getRetention(annotationType))) {
+			return;
+		}
+		String annotationName = this.elements.getBinaryName(annotationType).toString();
+		if (annotationTypes.add(annotationName)) {
+			collectFromElement(annotationType, annotationTypes);
+		}
+		if (!this.metaAnnotations.containsKey(annotationName)) {
+			Set<String> metaAnnotationTypes = new TreeSet<>();
+			this.metaAnnotations.put(annotationName, metaAnnotationTypes);
+			collectMetaAnnotationTypes(annotationType, metaAnnotationTypes);
+		}
+		for (AnnotationValue value : annotation.getElementValues().values()) {
+			collectFromValue(value.getValue(), annotationTypes);
+		}
+	}
+
+	private void collectFromValue(Object value, Set<String> annotationTypes) {
+		if (value instanceof AnnotationMirror) {
+			collectFromAnnotation((AnnotationMirror) value, annotationTypes);
+		}
+		else if (value instanceof List) {
+			for (Object element : (List<?>) value) {
+				collectFromValue(((AnnotationValue) element).getValue(), annotationTypes);
+			}
+		}
+	}
+
+	/**
+	 * Collect the meta-annotation types of the given annotation type that are
+	 * visible through reflection at runtime, i.e. with runtime retention.
+	 */
+	private void collectMetaAnnotationTypes(TypeElement annotationType, Set<String> metaAnnotationTypes) {
+		for (AnnotationMirror annotation : annotationType.getAnnotationMirrors()) {
+			TypeElement type = (TypeElement) annotation.getAnnotationType().asElement();
+			if ("RUNTIME".equals(getRetention(type)) &&
+					metaAnnotationTypes.add(this.elements.getBinaryName(type).toString())) {
+				collectMetaAnnotationTypes(type, metaAnnotationTypes);
+			}
+		}
+	}
+
+	private String getRetention(TypeElement annotationType) {
+		for (AnnotationMirror annotation : annotationType.getAnnotationMirrors()) {
+			TypeElement type = (TypeElement) annotation.getAnnotationType().asElement();
+			if (RETENTION_TYPE.equals(type.getQualifiedName().toString())) {
+				Collection<? extends AnnotationValue> values = annotation.getElementValues().values();
+				return (!values.isEmpty() ? values.iterator().next().getValue().toString() : "CLASS");
+			}
+		}
+		return "CLASS";
+	}
+
+	private boolean isExternal(String typeName) {
+		return (!this.compiledTypes.contains(typeName) &&
+				!typeName.startsWith("java.") && !typeName.startsWith("jdk."));
+	}
+
+	private void writeIndex() {
+		Properties props = new SortedProperties(true);
+		Set<String> externalAnnotationTypes = new TreeSet<>();
+		this.index.forEach((type, annotationTypes) -> {
+			// Hierarchy may change independently of this module: leave it to introspection
+			if (this.hierarchies.get(type).stream().noneMatch(this::isExternal)) {
+				props.put(type, String.join(",", annotationTypes));
+				annotationTypes.stream().filter(this::isExternal).forEach(externalAnnotationTypes::add);
+			}
+		});
+		if (props.isEmpty()) {
+			return;
+		}
+		for (String annotationType : externalAnnotationTypes) {
+			props.put("@" + annotationType, String.join(",", this.metaAnnotations.get(annotationType)));
+		}
+		try (OutputStream out = this.environment.getFiler()
+				.createResource(StandardLocation.CLASS_OUTPUT, "", INDEX_PATH).openOutputStream()) {
+			props.store(out, null);
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException("Failed to write annotation index", ex);
+		}
+	}
+
+}
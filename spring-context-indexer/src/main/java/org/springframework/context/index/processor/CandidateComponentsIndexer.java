@@ -55,6 +55,8 @@ public class CandidateComponentsIndexer implements Processor {
 
 	private TypeHelper typeHelper;
 
+	private ConfigurationStereotypesProvider configurationStereotypesProvider;
+
 	private List<StereotypesProvider> stereotypesProviders;
 
 
@@ -84,6 +86,7 @@ public class CandidateComponentsIndexer implements Processor {
 	@Override
 	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
 		this.metadataCollector.processing(roundEnv);
+		this.configurationStereotypesProvider.processing(roundEnv);
 		roundEnv.getRootElements().forEach(this::processElement);
 		if (roundEnv.processingOver()) {
 			writeMetaData();
@@ -105,6 +108,8 @@ public class CandidateComponentsIndexer implements Processor {
 		result.add(new IndexedStereotypesProvider(typeHelper));
 		result.add(new StandardStereotypesProvider(typeHelper));
 		result.add(new PackageInfoStereotypesProvider());
+		this.configurationStereotypesProvider = new ConfigurationStereotypesProvider(typeHelper);
+		result.add(this.configurationStereotypesProvider);
 		return result;
 	}
 
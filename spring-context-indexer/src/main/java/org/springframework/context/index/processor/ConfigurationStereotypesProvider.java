@@ -0,0 +1,180 @@
+/*
+ * Copyright 2002-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index.processor;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+
+/**
+ * A {@link StereotypesProvider} implementation that describes {@value CONFIGURATION_ANNOTATION}
+ * classes through additional pseudo-stereotypes: the signatures of their {@code @Bean}
+ * methods in declaration order and their {@code @Import} targets.
+ *
+ * <p>Each pseudo-stereotype is a prefix followed by {@value #SEPARATOR}-separated
+ * values. The configuration class parser uses the {@code @Bean} method order instead
+ * of reading the class file of a configuration class registered through reflection,
+ * and the {@code @Import} targets instead of traversing meta-annotations. It still
+ * introspects {@code @Bean} methods and conditions at runtime, so neither is indexed
+ * beyond that. Imports are only resolved through meta-annotations that are
+ * compiled along with the configuration class: any other annotation may change
+ * independently of the index, and is therefore recorded as such, prefixed with
+ * {@value #ANNOTATION_PREFIX}, for its imports to be determined at runtime.
+ *
+ * @author Sen Hu
+ * @since 5.2.7
+ */
+class ConfigurationStereotypesProvider implements StereotypesProvider {
+
+	static final String BEAN_METHODS_PREFIX = "beanMethods:";
+
+	static final String IMPORTS_PREFIX = "imports:";
+
+	static final String ANNOTATION_PREFIX = "@";
+
+	static final String SEPARATOR = "|";
+
+	private static final String CONFIGURATION_ANNOTATION = "org.springframework.context.annotation.Configuration";
+
+	private static final String BEAN_ANNOTATION = "org.springframework.context.annotation.Bean";
+
+	private static final String IMPORT_ANNOTATION = "org.springframework.context.annotation.Import";
+
+	private final TypeHelper typeHelper;
+
+	private final Set<String> compiledTypes = new HashSet<>();
+
+
+	ConfigurationStereotypesProvider(TypeHelper typeHelper) {
+		this.typeHelper = typeHelper;
+	}
+
+
+	/**
+	 * Register the types compiled in the given round.
+	 */
+	void processing(RoundEnvironment roundEnv) {
+		registerCompiledTypes(roundEnv.getRootElements());
+	}
+
+	private void registerCompiledTypes(Iterable<? extends Element> elements) {
+		for (TypeElement type : ElementFilter.typesIn(elements)) {
+			this.compiledTypes.add(this.typeHelper.getType(type));
+			registerCompiledTypes(type.getEnclosedElements());
+		}
+	}
+
+	@Override
+	public Set<String> getStereotypes(Element element) {
+		Set<String> stereotypes = new LinkedHashSet<>();
+		if (element.getKind() != ElementKind.CLASS || !isAnnotated(element, CONFIGURATION_ANNOTATION)) {
+			return stereotypes;
+		}
+
+		List<String> beanMethods = new ArrayList<>();
+		for (ExecutableElement method : ElementFilter.methodsIn(element.getEnclosedElements())) {
+			if (isAnnotated(method, BEAN_ANNOTATION)) {
+				List<String> parameterTypes = new ArrayList<>();
+				for (VariableElement parameter : method.getParameters()) {
+					parameterTypes.add(this.typeHelper.getErasedType(parameter.asType()));
+				}
+				beanMethods.add(method.getSimpleName() + "(" + String.join(";", parameterTypes) + ")");
+			}
+		}
+		stereotypes.add(BEAN_METHODS_PREFIX + String.join(SEPARATOR, beanMethods));
+
+		Set<String> imports = new LinkedHashSet<>();
+		collectImports(element, new HashSet<>(), imports);
+		stereotypes.add(IMPORTS_PREFIX + String.join(SEPARATOR, imports));
+		return stereotypes;
+	}
+
+	/**
+	 * Collect all {@code @Import} values, visiting meta-annotations first and
+	 * skipping the annotations that the configuration class parser skips as well.
+	 * Annotations that are not compiled along with the given element are not
+	 * visited but recorded for introspection at runtime.
+	 */
+	private void collectImports(Element element, Set<Element> visited, Set<String> imports) {
+		if (!visited.add(element)) {
+			return;
+		}
+		for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+			String type = this.typeHelper.getType(annotation);
+			if (!IMPORT_ANNOTATION.equals(type) && isCandidateAnnotation(type)) {
+				Element annotationElement = annotation.getAnnotationType().asElement();
+				if (this.compiledTypes.contains(type)) {
+					collectImports(annotationElement, visited, imports);
+				}
+				else if (visited.add(annotationElement)) {
+					imports.add(ANNOTATION_PREFIX + this.typeHelper.getBinaryName(annotation.getAnnotationType()));
+				}
+			}
+		}
+		for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+			if (IMPORT_ANNOTATION.equals(this.typeHelper.getType(annotation))) {
+				for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
+						annotation.getElementValues().entrySet()) {
+					if (entry.getKey().getSimpleName().contentEquals("value")) {
+						for (Object value : (List<?>) entry.getValue().getValue()) {
+							imports.add(this.typeHelper.getBinaryName(
+									(TypeMirror) ((AnnotationValue) value).getValue()));
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private boolean isAnnotated(Element element, String annotationType) {
+		return isAnnotated(element, annotationType, new HashSet<>());
+	}
+
+	private boolean isAnnotated(Element element, String annotationType, Set<Element> visited) {
+		for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+			String type = this.typeHelper.getType(annotation);
+			if (annotationType.equals(type)) {
+				return true;
+			}
+			Element annotationElement = annotation.getAnnotationType().asElement();
+			if (isCandidateAnnotation(type) && visited.add(annotationElement) &&
+					isAnnotated(annotationElement, annotationType, visited)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean isCandidateAnnotation(String type) {
+		return !type.startsWith("java") && !type.startsWith("org.springframework.stereotype.");
+	}
+
+}
@@ -73,6 +73,28 @@ class TypeHelper {
 		return type.toString();
 	}
 
+	/**
+	 * Return the name of the erasure of the specified {@link TypeMirror},
+	 * i.e. without any type arguments.
+	 * @since 5.2.7
+	 */
+	public String getErasedType(TypeMirror type) {
+		return getType(this.types.erasure(type));
+	}
+
+	/**
+	 * Return the binary name of the specified {@link TypeMirror}, as expected
+	 * by {@link Class#forName(String)}.
+	 * @since 5.2.7
+	 */
+	public String getBinaryName(TypeMirror type) {
+		Element element = this.types.asElement(type);
+		if (element instanceof TypeElement) {
+			return this.env.getElementUtils().getBinaryName((TypeElement) element).toString();
+		}
+		return getType(type);
+	}
+
 	private String getQualifiedName(Element element) {
 		if (element instanceof QualifiedNameable) {
 			return ((QualifiedNameable) element).getQualifiedName().toString();
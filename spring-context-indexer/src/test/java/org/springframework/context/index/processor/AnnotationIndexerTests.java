@@ -0,0 +1,130 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index.processor;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Properties;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.index.sample.SampleAnnotatedMembers;
+import org.springframework.context.index.sample.SampleController;
+import org.springframework.context.index.sample.SampleEmbedded;
+import org.springframework.context.index.sample.type.AbstractRepo;
+import org.springframework.context.index.sample.type.Repo;
+import org.springframework.context.index.sample.type.SampleRepo;
+import org.springframework.context.index.test.TestCompiler;
+import org.springframework.stereotype.Component;
+import org.springframework.stereotype.Controller;
+import org.springframework.stereotype.Indexed;
+import org.springframework.util.StringUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link AnnotationIndexer}.
+ *
+ * @author Sen Hu
+ */
+class AnnotationIndexerTests {
+
+	private TestCompiler compiler;
+
+
+	@BeforeEach
+	void createCompiler(@TempDir Path tempDir) throws IOException {
+		this.compiler = new TestCompiler(tempDir);
+	}
+
+	@Test
+	void typeAnnotationsIncludeMetaAnnotations() {
+		Properties index = compile(SampleController.class);
+		assertThat(annotationTypes(index, SampleController.class)).contains(
+				Controller.class.getName(), Component.class.getName(), Indexed.class.getName());
+	}
+
+	@Test
+	void hierarchyAnnotationsAreIncluded() {
+		Properties index = compile(SampleRepo.class, AbstractRepo.class, Repo.class);
+		assertThat(annotationTypes(index, SampleRepo.class)).contains(Indexed.class.getName());
+	}
+
+	@Test
+	void typeWithHierarchyOutsideCompilationHasNoEntry() {
+		Properties index = compile(SampleRepo.class, SampleController.class);
+		assertThat(index).doesNotContainKey(SampleRepo.class.getName());
+		assertThat(index).containsKey(SampleController.class.getName());
+	}
+
+	@Test
+	void metaAnnotationsOfAnnotationsOutsideCompilationAreRecorded() {
+		Properties index = compile(SampleController.class);
+		assertThat(index.getProperty("@" + Controller.class.getName()).split(","))
+				.contains(Component.class.getName(), Indexed.class.getName());
+		assertThat(index.getProperty("@" + Component.class.getName()).split(","))
+				.contains(Indexed.class.getName()).doesNotContain(Controller.class.getName());
+	}
+
+	@Test
+	void indexIsNotWrittenWithoutOption() {
+		this.compiler.getTask(SampleController.class).call(new AnnotationIndexer());
+		assertThat(new File(this.compiler.getOutputLocation(), AnnotationIndexer.INDEX_PATH)).doesNotExist();
+	}
+
+	@Test
+	void memberAnnotationsAreIncludedExceptSourceRetention() {
+		Properties index = compile(SampleAnnotatedMembers.class);
+		assertThat(annotationTypes(index, SampleAnnotatedMembers.class))
+				.contains(Qualifier.class.getName()).doesNotContain(Override.class.getName());
+	}
+
+	@Test
+	void unannotatedTypeHasEmptyEntry() {
+		Properties index = compile(SampleEmbedded.class);
+		assertThat(index).containsEntry(SampleEmbedded.class.getName(), "");
+		assertThat(annotationTypes(index, SampleEmbedded.PublicCandidate.class)).contains(Component.class.getName());
+		assertThat(annotationTypes(index, SampleEmbedded.Another.AnotherPublicCandidate.class))
+				.contains(Component.class.getName());
+	}
+
+	private String[] annotationTypes(Properties index, Class<?> type) {
+		assertThat(index).containsKey(type.getName());
+		return StringUtils.commaDelimitedListToStringArray(index.getProperty(type.getName()));
+	}
+
+	private Properties compile(Class<?>... types) {
+		this.compiler.getTask(Collections.singletonList("-A" + AnnotationIndexer.INDEX_OPTION + "=true"), types)
+				.call(new AnnotationIndexer());
+		File indexFile = new File(this.compiler.getOutputLocation(), AnnotationIndexer.INDEX_PATH);
+		Properties index = new Properties();
+		try (FileInputStream fileInputStream = new FileInputStream(indexFile)) {
+			index.load(fileInputStream);
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException("Failed to read index from disk", ex);
+		}
+		return index;
+	}
+
+}
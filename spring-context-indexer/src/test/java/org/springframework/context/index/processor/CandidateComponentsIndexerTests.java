@@ -20,6 +20,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.Map;
 
 import javax.annotation.ManagedBean;
 import javax.inject.Named;
@@ -33,11 +34,15 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.context.index.sample.AbstractController;
 import org.springframework.context.index.sample.MetaControllerIndexed;
 import org.springframework.context.index.sample.SampleComponent;
+import org.springframework.context.index.sample.SampleConfiguration;
 import org.springframework.context.index.sample.SampleController;
 import org.springframework.context.index.sample.SampleEmbedded;
+import org.springframework.context.index.sample.SampleEnableRepository;
 import org.springframework.context.index.sample.SampleMetaController;
 import org.springframework.context.index.sample.SampleMetaIndexedController;
 import org.springframework.context.index.sample.SampleNonStaticEmbedded;
@@ -218,6 +223,32 @@ class CandidateComponentsIndexerTests {
 		assertThat(metadata.getItems()).hasSize(0);
 	}
 
+	@Test
+	void configurationClassMetadata() {
+		CandidateComponentsMetadata metadata = compile(SampleConfiguration.class, SampleEnableRepository.class);
+		assertThat(metadata).has(Metadata.of(SampleConfiguration.class.getName(),
+				Component.class.getName(),
+				"beanMethods:sampleService()|sampleController(" + SampleService.class.getName() + ";int[];" +
+						Map.class.getName() + "[])",
+				"imports:@" + Configuration.class.getName() + "|@" + Profile.class.getName() + "|" +
+						SampleRepository.class.getName() + "|" + SampleComponent.class.getName() + "|" +
+						SampleEmbedded.PublicCandidate.class.getName()));
+		assertThat(metadata.getItems()).hasSize(1);
+	}
+
+	@Test
+	void configurationClassMetadataWithMetaAnnotationFromOtherModule() {
+		CandidateComponentsMetadata metadata = compile(SampleConfiguration.class);
+		assertThat(metadata).has(Metadata.of(SampleConfiguration.class.getName(),
+				Component.class.getName(),
+				"beanMethods:sampleService()|sampleController(" + SampleService.class.getName() + ";int[];" +
+						Map.class.getName() + "[])",
+				"imports:@" + Configuration.class.getName() + "|@" + Profile.class.getName() + "|@" +
+						SampleEnableRepository.class.getName() + "|" + SampleComponent.class.getName() + "|" +
+						SampleEmbedded.PublicCandidate.class.getName()));
+		assertThat(metadata.getItems()).hasSize(1);
+	}
+
 	private void testComponent(Class<?>... classes) {
 		CandidateComponentsMetadata metadata = compile(classes);
 		for (Class<?> c : classes) {
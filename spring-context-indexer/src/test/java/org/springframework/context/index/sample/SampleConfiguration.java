@@ -0,0 +1,48 @@
+/*
+ * Copyright 2002-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index.sample;
+
+import java.util.Map;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Test candidate for {@link Configuration}, with {@code @Bean} methods,
+ * direct imports and imports through meta-annotations.
+ *
+ * @author Sen Hu
+ */
+@Configuration
+@Import({SampleComponent.class, SampleEmbedded.PublicCandidate.class})
+@Profile("sample")
+@SampleEnableRepository
+public class SampleConfiguration {
+
+	@Bean
+	public SampleService sampleService() {
+		return new SampleService();
+	}
+
+	@Bean
+	public SampleController sampleController(SampleService service, int[] values, Map<String, Integer>[] maps) {
+		return new SampleController();
+	}
+
+}
@@ -16,13 +16,16 @@
 
 package org.springframework.context.annotation;
 
+import java.io.IOException;
 import java.util.function.Supplier;
 
+import org.springframework.beans.factory.BeanDefinitionStoreException;
 import org.springframework.beans.factory.config.BeanDefinitionCustomizer;
 import org.springframework.beans.factory.support.BeanNameGenerator;
 import org.springframework.beans.factory.support.DefaultListableBeanFactory;
 import org.springframework.context.support.GenericApplicationContext;
 import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.io.Resource;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 
@@ -190,6 +193,46 @@ public class AnnotationConfigApplicationContext extends GenericApplicationContex
 		this.scanner.scan(basePackages);
 	}
 
+	/**
+	 * Register the bean definitions of a {@link BeanDefinitionSnapshot} captured
+	 * at build time, as a replacement for {@link #register} calls with the component
+	 * classes that the snapshot was captured from.
+	 * <p>The snapshot is only applied if it exists and is still up to date for the
+	 * current classpath and environment. Otherwise nothing gets registered, and the
+	 * caller is expected to fall back to regular registration:
+	 * <pre class="code">
+	 * if (!context.registerSnapshot(new ClassPathResource("META-INF/app.snapshot"))) {
+	 *     context.register(AppConfig.class);
+	 * }
+	 * context.refresh();</pre>
+	 * @param snapshotResource the resource holding the snapshot
+	 * @return whether the snapshot has been applied
+	 * @since 5.2.7
+	 * @see BeanDefinitionSnapshot#capture
+	 */
+	public boolean registerSnapshot(Resource snapshotResource) {
+		if (!snapshotResource.exists()) {
+			return false;
+		}
+		BeanDefinitionSnapshot snapshot;
+		try {
+			snapshot = BeanDefinitionSnapshot.load(snapshotResource);
+		}
+		catch (IOException ex) {
+			throw new BeanDefinitionStoreException(
+					"Failed to read bean definition snapshot from " + snapshotResource, ex);
+		}
+		if (!snapshot.isUpToDate(getEnvironment(), this)) {
+			if (logger.isInfoEnabled()) {
+				logger.info("Bean definition snapshot " + snapshotResource +
+						" is out of date - parsing component classes instead");
+			}
+			return false;
+		}
+		snapshot.registerBeanDefinitions(getDefaultListableBeanFactory(), getClassLoader());
+		return true;
+	}
+
 
 	//---------------------------------------------------------------------
 	// Adapt superclass registerBean calls to AnnotatedBeanDefinitionReader
@@ -0,0 +1,909 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.annotation;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.config.SingletonBeanRegistry;
+import org.springframework.beans.factory.config.TypedStringValue;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.GenericBeanDefinition;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.index.CandidateComponentsIndexLoader;
+import org.springframework.core.annotation.AnnotationAttributes;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.ClassMetadata;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.core.type.classreading.CachingMetadataReaderFactory;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.NumberUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.util.SystemPropertyUtils;
+
+/**
+ * Snapshot of the bean definitions derived from a set of component classes
+ * through {@link ConfigurationClassPostProcessor}, captured at build time and
+ * registered at runtime without parsing the configuration classes again.
+ *
+ * <p>A snapshot is typically written as part of the build, e.g. via
+ * {@link #main}, and applied through
+ * {@link AnnotationConfigApplicationContext#registerSnapshot}. It carries
+ * a fingerprint of the class files that it was derived from: all classes
+ * referenced by the captured bean definitions and all classes in the base
+ * packages of {@link ComponentScan @ComponentScan} declarations, along with
+ * any component index files, the resolved values of placeholders in base
+ * packages and the active and default profiles. A snapshot whose fingerprint
+ * does not match the runtime classpath and environment is considered out of
+ * date and not applied.
+ *
+ * <p>Conditions and imports are evaluated at capture time only, so the only
+ * supported conditions are {@link Profile @Profile} declarations, whose outcome
+ * follows from the tracked classes and profiles. Configuration that depends on
+ * other conditions, on {@link ImportSelector} or {@link ImportBeanDefinitionRegistrar}
+ * imports, on custom component scan filters or on {@link PropertySource @PropertySource}
+ * or {@link ImportResource @ImportResource} declarations may read properties
+ * or resources that the fingerprint does not cover. It is therefore rejected
+ * at capture time with an {@link IllegalStateException}, as are bean
+ * definitions that cannot be represented in a snapshot (instance suppliers,
+ * qualifiers, method overrides, decorated definitions such as scoped proxies,
+ * inner beans or collection values).
+ *
+ * @author Sen Hu
+ * @since 5.2.7
+ * @see AnnotationConfigApplicationContext#registerSnapshot
+ */
+public final class BeanDefinitionSnapshot {
+
+	private static final String VERSION = "3";
+
+	private static final String VERSION_KEY = "snapshot.version";
+
+	private static final String FINGERPRINT_KEY = "snapshot.fingerprint";
+
+	private static final String CLASSES_KEY = "snapshot.classes";
+
+	private static final String PACKAGES_KEY = "snapshot.packages";
+
+	private static final String PLACEHOLDER_PREFIX = "placeholder.";
+
+	private static final String IMPORT_PREFIX = "import.";
+
+	private static final String BEAN_PREFIX = "bean.";
+
+	private static final String REFERENCE_PREFIX = "ref:";
+
+	private static final String VALUE_PREFIX = "value:";
+
+	private static final String BOOLEAN_PREFIX = "boolean:";
+
+	private static final String CHARACTER_PREFIX = "char:";
+
+	private static final String NUMBER_PREFIX = "number:";
+
+	private static final String CLASS_PREFIX = "class:";
+
+	private static final String ENUM_PREFIX = "enum:";
+
+	private static final String NULL_VALUE = "null";
+
+	private static final String UNIQUE_BEAN_METHOD = "unique";
+
+	private static final String OVERLOADED_BEAN_METHOD = "overloaded";
+
+	private static final Log logger = LogFactory.getLog(BeanDefinitionSnapshot.class);
+
+
+	private final Properties properties;
+
+
+	private BeanDefinitionSnapshot(Properties properties) {
+		this.properties = properties;
+	}
+
+
+	/**
+	 * Return the fingerprint of the classpath that this snapshot was captured from.
+	 */
+	public String getFingerprint() {
+		return this.properties.getProperty(FINGERPRINT_KEY, "");
+	}
+
+	/**
+	 * Return the names of all bean definitions in this snapshot, in registration order.
+	 */
+	public List<String> getBeanDefinitionNames() {
+		List<String> beanNames = new ArrayList<>();
+		for (int i = 0; this.properties.containsKey(BEAN_PREFIX + i + ".name"); i++) {
+			beanNames.add(this.properties.getProperty(BEAN_PREFIX + i + ".name"));
+		}
+		return beanNames;
+	}
+
+	/**
+	 * Determine whether this snapshot still matches the given runtime environment,
+	 * i.e. whether all tracked class files, placeholder values and profiles are unchanged.
+	 * @param environment the runtime environment
+	 * @param resourcePatternResolver the resolver to load class files with
+	 * @return {@code true} if the snapshot can be applied, {@code false} if the
+	 * component classes need to be parsed again
+	 */
+	public boolean isUpToDate(Environment environment, ResourcePatternResolver resourcePatternResolver) {
+		if (!VERSION.equals(this.properties.getProperty(VERSION_KEY))) {
+			return false;
+		}
+		try {
+			String fingerprint = computeFingerprint(environment, resourcePatternResolver,
+					StringUtils.commaDelimitedListToSet(this.properties.getProperty(CLASSES_KEY, "")),
+					StringUtils.commaDelimitedListToSet(this.properties.getProperty(PACKAGES_KEY, "")),
+					getPlaceholders());
+			return fingerprint.equals(getFingerprint());
+		}
+		catch (IOException ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Failed to compute fingerprint of bean definition snapshot", ex);
+			}
+			return false;
+		}
+	}
+
+	private List<String> getPlaceholders() {
+		List<String> placeholders = new ArrayList<>();
+		for (int i = 0; this.properties.containsKey(PLACEHOLDER_PREFIX + i); i++) {
+			placeholders.add(this.properties.getProperty(PLACEHOLDER_PREFIX + i));
+		}
+		return placeholders;
+	}
+
+	/**
+	 * Register the bean definitions of this snapshot with the given registry,
+	 * leaving existing bean definitions of the same name untouched.
+	 * <p>Configuration classes are registered as already processed, so that
+	 * {@link ConfigurationClassPostProcessor} only enhances them. If the given
+	 * registry is a {@link SingletonBeanRegistry}, the import relationships
+	 * captured for {@link ImportAware} beans get registered as well.
+	 * @param registry the registry to register the bean definitions with
+	 * @param classLoader the ClassLoader to read metadata of importing classes with
+	 */
+	public void registerBeanDefinitions(BeanDefinitionRegistry registry, @Nullable ClassLoader classLoader) {
+		List<String> beanNames = getBeanDefinitionNames();
+		for (int i = 0; i < beanNames.size(); i++) {
+			String beanName = beanNames.get(i);
+			if (registry.containsBeanDefinition(beanName)) {
+				continue;
+			}
+			String prefix = BEAN_PREFIX + i + ".";
+			registry.registerBeanDefinition(beanName, readBeanDefinition(prefix, classLoader));
+			for (String alias : StringUtils.commaDelimitedListToStringArray(getProperty(prefix + "aliases"))) {
+				registry.registerAlias(beanName, alias);
+			}
+		}
+
+		if (registry instanceof SingletonBeanRegistry) {
+			SingletonBeanRegistry sbr = (SingletonBeanRegistry) registry;
+			if (!sbr.containsSingleton(ConfigurationClassPostProcessor.IMPORT_REGISTRY_BEAN_NAME)) {
+				Map<String, String> importingClasses = new ConcurrentHashMap<>();
+				for (String key : this.properties.stringPropertyNames()) {
+					if (key.startsWith(IMPORT_PREFIX)) {
+						importingClasses.put(key.substring(IMPORT_PREFIX.length()), this.properties.getProperty(key));
+					}
+				}
+				sbr.registerSingleton(ConfigurationClassPostProcessor.IMPORT_REGISTRY_BEAN_NAME,
+						new SnapshotImportRegistry(importingClasses, new CachingMetadataReaderFactory(classLoader)));
+			}
+		}
+	}
+
+	/**
+	 * Write this snapshot to the given stream, leaving the stream open.
+	 */
+	public void writeTo(OutputStream out) throws IOException {
+		this.properties.store(out, "Bean definition snapshot");
+	}
+
+	private AbstractBeanDefinition readBeanDefinition(String prefix, @Nullable ClassLoader classLoader) {
+		AbstractBeanDefinition bd;
+		String beanMethod = getProperty(prefix + "beanMethod");
+		String factoryMethodName = getProperty(prefix + "factoryMethod");
+		if (beanMethod != null && factoryMethodName != null) {
+			BeanMethodDefinition bmd = new BeanMethodDefinition();
+			if (UNIQUE_BEAN_METHOD.equals(beanMethod)) {
+				bmd.setUniqueFactoryMethodName(factoryMethodName);
+			}
+			else {
+				bmd.setNonUniqueFactoryMethodName(factoryMethodName);
+			}
+			bd = bmd;
+		}
+		else {
+			GenericBeanDefinition gbd = new GenericBeanDefinition();
+			gbd.setParentName(getProperty(prefix + "parent"));
+			gbd.setFactoryMethodName(factoryMethodName);
+			bd = gbd;
+		}
+		bd.setBeanClassName(getProperty(prefix + "class"));
+		bd.setFactoryBeanName(getProperty(prefix + "factoryBean"));
+		bd.setScope(getProperty(prefix + "scope"));
+		bd.setAbstract(getBoolean(prefix + "abstract"));
+		String lazyInit = getProperty(prefix + "lazyInit");
+		if (lazyInit != null) {
+			bd.setLazyInit(Boolean.parseBoolean(lazyInit));
+		}
+		bd.setAutowireMode(Integer.parseInt(this.properties.getProperty(prefix + "autowireMode", "0")));
+		bd.setDependencyCheck(Integer.parseInt(this.properties.getProperty(prefix + "dependencyCheck", "0")));
+		String dependsOn = getProperty(prefix + "dependsOn");
+		if (dependsOn != null) {
+			bd.setDependsOn(StringUtils.commaDelimitedListToStringArray(dependsOn));
+		}
+		bd.setAutowireCandidate(getBoolean(prefix + "autowireCandidate"));
+		bd.setPrimary(getBoolean(prefix + "primary"));
+		bd.setNonPublicAccessAllowed(getBoolean(prefix + "nonPublicAccessAllowed"));
+		bd.setLenientConstructorResolution(getBoolean(prefix + "lenientConstructorResolution"));
+		bd.setInitMethodName(getProperty(prefix + "initMethod"));
+		bd.setEnforceInitMethod(getBoolean(prefix + "enforceInitMethod"));
+		bd.setDestroyMethodName(getProperty(prefix + "destroyMethod"));
+		bd.setEnforceDestroyMethod(getBoolean(prefix + "enforceDestroyMethod"));
+		bd.setSynthetic(getBoolean(prefix + "synthetic"));
+		bd.setRole(Integer.parseInt(this.properties.getProperty(prefix + "role", "0")));
+		bd.setDescription(getProperty(prefix + "description"));
+		bd.setResourceDescription(getProperty(prefix + "resource"));
+
+		Map<Integer, String> indexedArgs = new TreeMap<>();
+		Map<Integer, String> genericArgs = new TreeMap<>();
+		for (String key : this.properties.stringPropertyNames()) {
+			if (!key.startsWith(prefix)) {
+				continue;
+			}
+			String name = key.substring(prefix.length());
+			String value = this.properties.getProperty(key);
+			if (name.startsWith("attribute.")) {
+				bd.setAttribute(name.substring("attribute.".length()), decodeSimpleValue(value, classLoader));
+			}
+			else if (name.startsWith("property.")) {
+				bd.getPropertyValues().add(name.substring("property.".length()), decodeValue(value, classLoader));
+			}
+			else if (name.startsWith("arg.")) {
+				indexedArgs.put(Integer.parseInt(name.substring("arg.".length())), value);
+			}
+			else if (name.startsWith("genericArg.")) {
+				genericArgs.put(Integer.parseInt(name.substring("genericArg.".length())), value);
+			}
+		}
+		ConstructorArgumentValues args = bd.getConstructorArgumentValues();
+		indexedArgs.forEach((index, value) -> args.addIndexedArgumentValue(index, decodeValue(value, classLoader)));
+		genericArgs.values().forEach(value -> args.addGenericArgumentValue(decodeValue(value, classLoader)));
+		return bd;
+	}
+
+	@Nullable
+	private String getProperty(String key) {
+		return this.properties.getProperty(key);
+	}
+
+	private boolean getBoolean(String key) {
+		return Boolean.parseBoolean(this.properties.getProperty(key));
+	}
+
+
+	/**
+	 * Capture a snapshot of the bean definitions that the given context
+	 * derives from its registered component classes.
+	 * <p>The context must not have been refreshed: configuration class
+	 * processing is applied to its bean factory right here, without
+	 * invoking any other post-processors or instantiating any beans.
+	 * @param context the context with registered component classes
+	 * @return the captured snapshot
+	 * @throws IllegalStateException if a bean definition cannot be captured, or if
+	 * the configuration depends on conditions other than profiles, on import selectors or
+	 * registrars, on custom component scan filters or on property sources or imported resources
+	 */
+	public static BeanDefinitionSnapshot capture(AnnotationConfigApplicationContext context) {
+		Assert.state(!context.isActive(), "Cannot capture bean definition snapshot of active context");
+		DefaultListableBeanFactory beanFactory = context.getDefaultListableBeanFactory();
+		ConfigurationClassPostProcessor postProcessor = new ConfigurationClassPostProcessor();
+		postProcessor.setEnvironment(context.getEnvironment());
+		postProcessor.setResourceLoader(context);
+		postProcessor.setBeanClassLoader(context.getClassLoader());
+		ConditionTracker conditionTracker = new ConditionTracker();
+		postProcessor.setConditionListener(conditionTracker);
+		postProcessor.postProcessBeanDefinitionRegistry(beanFactory);
+
+		ImportRegistry importRegistry = (ImportRegistry) beanFactory.getSingleton(
+				ConfigurationClassPostProcessor.IMPORT_REGISTRY_BEAN_NAME);
+		MetadataReaderFactory metadataReaderFactory = new CachingMetadataReaderFactory(context);
+		Properties properties = new Properties();
+		Set<String> classNames = new TreeSet<>();
+		Set<String> basePackages = new TreeSet<>();
+		Set<String> placeholders = new TreeSet<>();
+		String[] beanNames = beanFactory.getBeanDefinitionNames();
+		try {
+			for (int i = 0; i < beanNames.length; i++) {
+				String beanName = beanNames[i];
+				BeanDefinition bd = beanFactory.getBeanDefinition(beanName);
+				String prefix = BEAN_PREFIX + i + ".";
+				writeBeanDefinition(beanName, bd, prefix, properties);
+				String[] aliases = beanFactory.getAliases(beanName);
+				if (aliases.length > 0) {
+					properties.setProperty(prefix + "aliases", StringUtils.arrayToCommaDelimitedString(aliases));
+				}
+				String className = bd.getBeanClassName();
+				if (className != null) {
+					classNames.add(className);
+					if (importRegistry != null) {
+						AnnotationMetadata importingClass = importRegistry.getImportingClassFor(className);
+						if (importingClass != null) {
+							properties.setProperty(IMPORT_PREFIX + className, importingClass.getClassName());
+							classNames.add(importingClass.getClassName());
+						}
+					}
+				}
+				if (bd instanceof AnnotatedBeanDefinition) {
+					AnnotatedBeanDefinition abd = (AnnotatedBeanDefinition) bd;
+					// Component classes have been registered before the tracker was in place
+					conditionTracker.conditionsEvaluated(abd.getMetadata());
+					if (abd.getFactoryMethodMetadata() != null) {
+						conditionTracker.conditionsEvaluated(abd.getFactoryMethodMetadata());
+					}
+					if (bd.getAttribute(ConfigurationClassUtils.CONFIGURATION_CLASS_ATTRIBUTE) != null) {
+						collectBasePackages(abd.getMetadata(), context.getEnvironment(), basePackages, placeholders);
+						checkConfigurationClass(abd.getMetadata(), metadataReaderFactory,
+								context.getClassLoader(), classNames);
+					}
+				}
+			}
+			if (!conditionTracker.unsupportedConditions.isEmpty()) {
+				throw new IllegalStateException("Cannot capture bean definition snapshot: conditions other than " +
+						"@Profile are not re-evaluated from a snapshot but declared on " +
+						conditionTracker.unsupportedConditions);
+			}
+			classNames.addAll(conditionTracker.classNames);
+
+			properties.setProperty(VERSION_KEY, VERSION);
+			properties.setProperty(CLASSES_KEY, StringUtils.collectionToCommaDelimitedString(classNames));
+			properties.setProperty(PACKAGES_KEY, StringUtils.collectionToCommaDelimitedString(basePackages));
+			int index = 0;
+			for (String placeholder : placeholders) {
+				properties.setProperty(PLACEHOLDER_PREFIX + index++, placeholder);
+			}
+			properties.setProperty(FINGERPRINT_KEY, computeFingerprint(
+					context.getEnvironment(), context, classNames, basePackages, placeholders));
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException("Failed to capture bean definition snapshot", ex);
+		}
+		return new BeanDefinitionSnapshot(properties);
+	}
+
+	/**
+	 * Load a snapshot from the given resource.
+	 * @param resource the resource to load from
+	 * @return the loaded snapshot
+	 * @throws IOException if the resource could not be read
+	 */
+	public static BeanDefinitionSnapshot load(Resource resource) throws IOException {
+		Properties properties = new Properties();
+		try (InputStream is = resource.getInputStream()) {
+			properties.load(is);
+		}
+		return new BeanDefinitionSnapshot(properties);
+	}
+
+	/**
+	 * Capture a snapshot for the given component classes and write it to a file,
+	 * for use as part of a build.
+	 * <p>Expects the output file as first argument, followed by the fully
+	 * qualified names of the component classes. Active profiles may be
+	 * specified through the regular {@code spring.profiles.active} property.
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length < 2) {
+			throw new IllegalArgumentException(
+					"Usage: BeanDefinitionSnapshot <output file> <component class> [<component class>...]");
+		}
+		try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+			for (int i = 1; i < args.length; i++) {
+				context.register(ClassUtils.forName(args[i], context.getClassLoader()));
+			}
+			BeanDefinitionSnapshot snapshot = capture(context);
+			File file = new File(args[0]);
+			File parent = file.getParentFile();
+			if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+				throw new IOException("Failed to create directory " + parent);
+			}
+			try (OutputStream out = new FileOutputStream(file)) {
+				snapshot.writeTo(out);
+			}
+		}
+	}
+
+	private static void writeBeanDefinition(String beanName, BeanDefinition bd, String prefix, Properties props) {
+		if (!(bd instanceof AbstractBeanDefinition)) {
+			throw unsupported(beanName, "unsupported bean definition type [" + bd.getClass().getName() + "]");
+		}
+		AbstractBeanDefinition abd = (AbstractBeanDefinition) bd;
+		if (abd.getInstanceSupplier() != null) {
+			throw unsupported(beanName, "instance supplier");
+		}
+		if (!abd.getQualifiers().isEmpty()) {
+			throw unsupported(beanName, "qualifiers");
+		}
+		if (!abd.getMethodOverrides().isEmpty()) {
+			throw unsupported(beanName, "method overrides");
+		}
+		if (abd instanceof RootBeanDefinition && ((RootBeanDefinition) abd).getDecoratedDefinition() != null) {
+			throw unsupported(beanName, "decorated bean definition");
+		}
+
+		props.setProperty(prefix + "name", beanName);
+		setIfNotNull(props, prefix + "parent", abd.getParentName());
+		setIfNotNull(props, prefix + "class", abd.getBeanClassName());
+		setIfNotNull(props, prefix + "factoryBean", abd.getFactoryBeanName());
+		setIfNotNull(props, prefix + "factoryMethod", abd.getFactoryMethodName());
+		if (abd instanceof AnnotatedBeanDefinition && abd.getFactoryMethodName() != null) {
+			AnnotatedBeanDefinition annbd = (AnnotatedBeanDefinition) abd;
+			if (annbd.getFactoryMethodMetadata() != null) {
+				int count = 0;
+				for (MethodMetadata method : annbd.getMetadata().getAnnotatedMethods(Bean.class.getName())) {
+					if (method.getMethodName().equals(abd.getFactoryMethodName())) {
+						count++;
+					}
+				}
+				props.setProperty(prefix + "beanMethod", (count > 1 ? OVERLOADED_BEAN_METHOD : UNIQUE_BEAN_METHOD));
+			}
+		}
+		setIfNotNull(props, prefix + "scope", StringUtils.hasLength(abd.getScope()) ? abd.getScope() : null);
+		props.setProperty(prefix + "abstract", String.valueOf(abd.isAbstract()));
+		if (abd.getLazyInit() != null) {
+			props.setProperty(prefix + "lazyInit", String.valueOf(abd.getLazyInit()));
+		}
+		props.setProperty(prefix + "autowireMode", String.valueOf(abd.getAutowireMode()));
+		props.setProperty(prefix + "dependencyCheck", String.valueOf(abd.getDependencyCheck()));
+		if (abd.getDependsOn() != null) {
+			props.setProperty(prefix + "dependsOn", StringUtils.arrayToCommaDelimitedString(abd.getDependsOn()));
+		}
+		props.setProperty(prefix + "autowireCandidate", String.valueOf(abd.isAutowireCandidate()));
+		props.setProperty(prefix + "primary", String.valueOf(abd.isPrimary()));
+		props.setProperty(prefix + "nonPublicAccessAllowed", String.valueOf(abd.isNonPublicAccessAllowed()));
+		props.setProperty(prefix + "lenientConstructorResolution",
+				String.valueOf(abd.isLenientConstructorResolution()));
+		setIfNotNull(props, prefix + "initMethod", abd.getInitMethodName());
+		props.setProperty(prefix + "enforceInitMethod", String.valueOf(abd.isEnforceInitMethod()));
+		setIfNotNull(props, prefix + "destroyMethod", abd.getDestroyMethodName());
+		props.setProperty(prefix + "enforceDestroyMethod", String.valueOf(abd.isEnforceDestroyMethod()));
+		props.setProperty(prefix + "synthetic", String.valueOf(abd.isSynthetic()));
+		props.setProperty(prefix + "role", String.valueOf(abd.getRole()));
+		setIfNotNull(props, prefix + "description", abd.getDescription());
+		setIfNotNull(props, prefix + "resource", abd.getResourceDescription());
+
+		for (String attributeName : abd.attributeNames()) {
+			props.setProperty(prefix + "attribute." + attributeName,
+					encodeAttribute(beanName, attributeName, abd.getAttribute(attributeName)));
+		}
+		for (PropertyValue pv : abd.getPropertyValues().getPropertyValues()) {
+			props.setProperty(prefix + "property." + pv.getName(), encodeValue(beanName, pv.getValue()));
+		}
+		ConstructorArgumentValues args = abd.getConstructorArgumentValues();
+		args.getIndexedArgumentValues().forEach((index, holder) ->
+				props.setProperty(prefix + "arg." + index, encodeArgument(beanName, holder)));
+		List<ConstructorArgumentValues.ValueHolder> genericArgs = args.getGenericArgumentValues();
+		for (int i = 0; i < genericArgs.size(); i++) {
+			props.setProperty(prefix + "genericArg." + i, encodeArgument(beanName, genericArgs.get(i)));
+		}
+	}
+
+	private static void setIfNotNull(Properties props, String key, @Nullable String value) {
+		if (value != null) {
+			props.setProperty(key, value);
+		}
+	}
+
+	private static String encodeAttribute(String beanName, String attributeName, @Nullable Object value) {
+		String encoded = (value != null ? encodeSimpleValue(value) : null);
+		if (encoded == null) {
+			throw unsupported(beanName, "value of attribute '" + attributeName + "'");
+		}
+		return encoded;
+	}
+
+	private static String encodeArgument(String beanName, ConstructorArgumentValues.ValueHolder holder) {
+		if (holder.getType() != null || holder.getName() != null) {
+			throw unsupported(beanName, "typed or named constructor argument");
+		}
+		return encodeValue(beanName, holder.getValue());
+	}
+
+	/**
+	 * Encode the given property or constructor argument value.
+	 */
+	private static String encodeValue(String beanName, @Nullable Object value) {
+		if (value == null) {
+			return NULL_VALUE;
+		}
+		else if (value instanceof RuntimeBeanReference && !((RuntimeBeanReference) value).isToParent()) {
+			return REFERENCE_PREFIX + ((RuntimeBeanReference) value).getBeanName();
+		}
+		else if (value instanceof TypedStringValue && !((TypedStringValue) value).hasTargetType() &&
+				((TypedStringValue) value).getTargetTypeName() == null) {
+			String stringValue = ((TypedStringValue) value).getValue();
+			return (stringValue != null ? VALUE_PREFIX + stringValue : NULL_VALUE);
+		}
+		String encoded = encodeSimpleValue(value);
+		if (encoded == null) {
+			throw unsupported(beanName, "value of type [" + value.getClass().getName() + "]");
+		}
+		return encoded;
+	}
+
+	/**
+	 * Encode the given simple value along with its type, or return {@code null}
+	 * if the value is not of a supported type.
+	 */
+	@Nullable
+	private static String encodeSimpleValue(Object value) {
+		if (value instanceof String) {
+			return VALUE_PREFIX + value;
+		}
+		else if (value instanceof Boolean) {
+			return BOOLEAN_PREFIX + value;
+		}
+		else if (value instanceof Character) {
+			return CHARACTER_PREFIX + value;
+		}
+		else if (value instanceof Number && NumberUtils.STANDARD_NUMBER_TYPES.contains(value.getClass())) {
+			return NUMBER_PREFIX + value.getClass().getName() + ":" + value;
+		}
+		else if (value instanceof Class) {
+			return CLASS_PREFIX + ((Class<?>) value).getName();
+		}
+		else if (value instanceof Enum) {
+			Enum<?> enumValue = (Enum<?>) value;
+			return ENUM_PREFIX + enumValue.getDeclaringClass().getName() + "." + enumValue.name();
+		}
+		return null;
+	}
+
+	@Nullable
+	private static Object decodeValue(String value, @Nullable ClassLoader classLoader) {
+		if (NULL_VALUE.equals(value)) {
+			return null;
+		}
+		else if (value.startsWith(REFERENCE_PREFIX)) {
+			return new RuntimeBeanReference(value.substring(REFERENCE_PREFIX.length()));
+		}
+		return decodeSimpleValue(value, classLoader);
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static Object decodeSimpleValue(String value, @Nullable ClassLoader classLoader) {
+		try {
+			if (value.startsWith(VALUE_PREFIX)) {
+				return value.substring(VALUE_PREFIX.length());
+			}
+			else if (value.startsWith(BOOLEAN_PREFIX)) {
+				return Boolean.valueOf(value.substring(BOOLEAN_PREFIX.length()));
+			}
+			else if (value.startsWith(CHARACTER_PREFIX) && value.length() == CHARACTER_PREFIX.length() + 1) {
+				return value.charAt(CHARACTER_PREFIX.length());
+			}
+			else if (value.startsWith(NUMBER_PREFIX)) {
+				String number = value.substring(NUMBER_PREFIX.length());
+				int separator = number.indexOf(':');
+				Class<?> numberType = ClassUtils.forName(number.substring(0, separator), classLoader);
+				return NumberUtils.parseNumber(number.substring(separator + 1), (Class<Number>) numberType);
+			}
+			else if (value.startsWith(CLASS_PREFIX)) {
+				return ClassUtils.forName(value.substring(CLASS_PREFIX.length()), classLoader);
+			}
+			else if (value.startsWith(ENUM_PREFIX)) {
+				String enumValue = value.substring(ENUM_PREFIX.length());
+				int separator = enumValue.lastIndexOf('.');
+				Class<?> enumType = ClassUtils.forName(enumValue.substring(0, separator), classLoader);
+				return Enum.valueOf((Class<Enum>) enumType, enumValue.substring(separator + 1));
+			}
+		}
+		catch (ClassNotFoundException | RuntimeException ex) {
+			throw new IllegalStateException("Invalid value in bean definition snapshot: " + value, ex);
+		}
+		throw new IllegalStateException("Invalid value in bean definition snapshot: " + value);
+	}
+
+	private static IllegalStateException unsupported(String beanName, String feature) {
+		return new IllegalStateException("Bean definition '" + beanName +
+				"' cannot be captured in a snapshot: " + feature + " not supported");
+	}
+
+	/**
+	 * Check the given configuration class and its superclasses for property
+	 * sources and imported resources, which are not captured, as well as for
+	 * imports whose outcome is not tracked, and track the superclasses.
+	 */
+	private static void checkConfigurationClass(AnnotationMetadata metadata,
+			MetadataReaderFactory metadataReaderFactory, @Nullable ClassLoader classLoader, Set<String> classNames)
+			throws IOException {
+
+		AnnotationMetadata current = metadata;
+		while (true) {
+			if (!AnnotationConfigUtils.attributesForRepeatable(current, PropertySources.class,
+					PropertySource.class).isEmpty()) {
+				throw new IllegalStateException("Cannot capture bean definition snapshot: @PropertySource " +
+						"declared on [" + current.getClassName() + "] is not registered from a snapshot");
+			}
+			if (current.isAnnotated(ImportResource.class.getName())) {
+				throw new IllegalStateException("Cannot capture bean definition snapshot: @ImportResource " +
+						"declared on [" + current.getClassName() + "] is not tracked by a snapshot");
+			}
+			checkImports(current, classLoader);
+			String superclass = current.getSuperClassName();
+			if (superclass == null || superclass.startsWith("java")) {
+				return;
+			}
+			classNames.add(superclass);
+			current = metadataReaderFactory.getMetadataReader(superclass).getAnnotationMetadata();
+		}
+	}
+
+	/**
+	 * Reject import selectors and registrars declared through {@link Import @Import}
+	 * on the given class, since their outcome may depend on the environment or on
+	 * other classpath resources such as {@code spring.factories}.
+	 */
+	private static void checkImports(AnnotationMetadata metadata, @Nullable ClassLoader classLoader) {
+		MultiValueMap<String, Object> imports = metadata.getAllAnnotationAttributes(Import.class.getName(), true);
+		if (imports == null) {
+			return;
+		}
+		for (Object importedClasses : imports.get("value")) {
+			for (String importedClass : (String[]) importedClasses) {
+				Class<?> candidate = ClassUtils.resolveClassName(importedClass, classLoader);
+				if (ImportSelector.class.isAssignableFrom(candidate) ||
+						ImportBeanDefinitionRegistrar.class.isAssignableFrom(candidate)) {
+					throw new IllegalStateException("Cannot capture bean definition snapshot: [" + importedClass +
+							"] imported by [" + metadata.getClassName() + "] is not re-evaluated from a snapshot");
+				}
+			}
+		}
+	}
+
+	/**
+	 * Collect the base packages of all component scans on the given class,
+	 * along with the declared base packages that contain placeholders.
+	 */
+	private static void collectBasePackages(AnnotationMetadata metadata, Environment environment,
+			Set<String> result, Set<String> placeholders) {
+
+		Set<AnnotationAttributes> componentScans = AnnotationConfigUtils.attributesForRepeatable(
+				metadata, ComponentScans.class, ComponentScan.class);
+		for (AnnotationAttributes componentScan : componentScans) {
+			checkFilters(metadata, componentScan.getAnnotationArray("includeFilters"));
+			checkFilters(metadata, componentScan.getAnnotationArray("excludeFilters"));
+			Set<String> basePackages = new TreeSet<>();
+			for (String pkg : componentScan.getStringArray("basePackages")) {
+				if (pkg.contains(SystemPropertyUtils.PLACEHOLDER_PREFIX)) {
+					placeholders.add(pkg);
+				}
+				Collections.addAll(basePackages, StringUtils.tokenizeToStringArray(environment.resolvePlaceholders(pkg),
+						ConfigurableApplicationContext.CONFIG_LOCATION_DELIMITERS));
+			}
+			for (Class<?> clazz : componentScan.getClassArray("basePackageClasses")) {
+				basePackages.add(ClassUtils.getPackageName(clazz));
+			}
+			if (basePackages.isEmpty()) {
+				basePackages.add(ClassUtils.getPackageName(metadata.getClassName()));
+			}
+			result.addAll(basePackages);
+		}
+	}
+
+	private static void checkFilters(AnnotationMetadata metadata, AnnotationAttributes[] filters) {
+		for (AnnotationAttributes filter : filters) {
+			if (filter.getEnum("type") == FilterType.CUSTOM) {
+				throw new IllegalStateException("Cannot capture bean definition snapshot: custom filter in " +
+						"@ComponentScan on [" + metadata.getClassName() + "] is not re-evaluated from a snapshot");
+			}
+		}
+	}
+
+	/**
+	 * Compute a fingerprint over the profiles of the given environment, the
+	 * resolved values of the given placeholders, the class files of the given
+	 * classes and all class files in the given packages, as well as over all
+	 * component index files if there are any packages to scan.
+	 * Class files in packages and index files are identified by content only,
+	 * independent of their location on the classpath.
+	 */
+	private static String computeFingerprint(Environment environment, ResourcePatternResolver resolver,
+			Set<String> classNames, Set<String> basePackages, Collection<String> placeholders) throws IOException {
+
+		StringBuilder content = new StringBuilder();
+		content.append("active:").append(Arrays.toString(environment.getActiveProfiles())).append('\n');
+		content.append("default:").append(Arrays.toString(environment.getDefaultProfiles())).append('\n');
+		for (String placeholder : new TreeSet<>(placeholders)) {
+			content.append(placeholder).append('=').append(environment.resolvePlaceholders(placeholder)).append('\n');
+		}
+		for (String className : new TreeSet<>(classNames)) {
+			Resource resource = resolver.getResource(ResourcePatternResolver.CLASSPATH_URL_PREFIX +
+					ClassUtils.convertClassNameToResourcePath(className) + ClassUtils.CLASS_FILE_SUFFIX);
+			content.append(className).append('=').append(digest(resource)).append('\n');
+		}
+		for (String basePackage : new TreeSet<>(basePackages)) {
+			Set<String> digests = new TreeSet<>();
+			for (Resource resource : resolver.getResources(ResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX +
+					ClassUtils.convertClassNameToResourcePath(basePackage) + "/**/*.class")) {
+				digests.add(digest(resource));
+			}
+			content.append(basePackage).append('=').append(digests).append('\n');
+		}
+		if (!basePackages.isEmpty()) {
+			Set<String> digests = new TreeSet<>();
+			for (Resource resource : resolver.getResources(ResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX +
+					CandidateComponentsIndexLoader.COMPONENTS_RESOURCE_LOCATION)) {
+				digests.add(digest(resource));
+			}
+			content.append("index=").append(digests).append('\n');
+		}
+		return DigestUtils.md5DigestAsHex(content.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String digest(Resource resource) throws IOException {
+		if (!resource.exists()) {
+			return "<missing>";
+		}
+		try (InputStream is = resource.getInputStream()) {
+			return DigestUtils.md5DigestAsHex(is);
+		}
+	}
+
+
+	/**
+	 * Bean definition restored from a {@link Bean @Bean} method, only matching
+	 * annotated factory methods in case of overloading.
+	 */
+	@SuppressWarnings("serial")
+	private static class BeanMethodDefinition extends RootBeanDefinition {
+
+		BeanMethodDefinition() {
+		}
+
+		BeanMethodDefinition(BeanMethodDefinition original) {
+			super(original);
+		}
+
+		@Override
+		public boolean isFactoryMethod(Method candidate) {
+			return (super.isFactoryMethod(candidate) && BeanAnnotationHelper.isBeanAnnotated(candidate));
+		}
+
+		@Override
+		public BeanMethodDefinition cloneBeanDefinition() {
+			return new BeanMethodDefinition(this);
+		}
+	}
+
+
+	/**
+	 * Tracks the conditions evaluated while capturing a snapshot, along with
+	 * the classes declaring them.
+	 */
+	private static class ConditionTracker implements ConditionEvaluator.ConditionListener {
+
+		final Set<String> classNames = Collections.synchronizedSet(new TreeSet<>());
+
+		final Set<String> unsupportedConditions = Collections.synchronizedSet(new TreeSet<>());
+
+		@Override
+		public void conditionsEvaluated(AnnotatedTypeMetadata metadata) {
+			MultiValueMap<String, Object> attributes =
+					metadata.getAllAnnotationAttributes(Conditional.class.getName(), true);
+			if (attributes == null) {
+				return;
+			}
+			String source;
+			if (metadata instanceof MethodMetadata) {
+				MethodMetadata methodMetadata = (MethodMetadata) metadata;
+				this.classNames.add(methodMetadata.getDeclaringClassName());
+				source = methodMetadata.getDeclaringClassName() + "." + methodMetadata.getMethodName();
+			}
+			else {
+				source = ((ClassMetadata) metadata).getClassName();
+				this.classNames.add(source);
+			}
+			for (Object conditionClasses : attributes.get("value")) {
+				for (String conditionClass : (String[]) conditionClasses) {
+					if (!ProfileCondition.class.getName().equals(conditionClass)) {
+						this.unsupportedConditions.add(source);
+					}
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * {@link ImportRegistry} backed by the import relationships of a snapshot,
+	 * reading the metadata of importing classes on demand.
+	 */
+	private static class SnapshotImportRegistry implements ImportRegistry {
+
+		private final Map<String, String> importingClasses;
+
+		private final MetadataReaderFactory metadataReaderFactory;
+
+		SnapshotImportRegistry(Map<String, String> importingClasses, MetadataReaderFactory metadataReaderFactory) {
+			this.importingClasses = importingClasses;
+			this.metadataReaderFactory = metadataReaderFactory;
+		}
+
+		@Override
+		@Nullable
+		public AnnotationMetadata getImportingClassFor(String importedClass) {
+			String importingClass = this.importingClasses.get(importedClass);
+			if (importingClass == null) {
+				return null;
+			}
+			try {
+				return this.metadataReaderFactory.getMetadataReader(importingClass).getAnnotationMetadata();
+			}
+			catch (IOException ex) {
+				throw new BeanDefinitionStoreException(
+						"Failed to read metadata of importing class [" + importingClass + "]", ex);
+			}
+		}
+
+		@Override
+		public void removeImportingClass(String importingClass) {
+			this.importingClasses.values().removeIf(importingClass::equals);
+		}
+	}
+
+}
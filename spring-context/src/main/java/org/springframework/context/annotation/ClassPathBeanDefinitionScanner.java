@@ -22,15 +22,19 @@ import java.util.Set;
 import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.beans.factory.support.AbstractBeanDefinition;
 import org.springframework.beans.factory.support.BeanDefinitionDefaults;
 import org.springframework.beans.factory.support.BeanDefinitionReaderUtils;
 import org.springframework.beans.factory.support.BeanDefinitionRegistry;
 import org.springframework.beans.factory.support.BeanNameGenerator;
+import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.core.env.Environment;
 import org.springframework.core.env.EnvironmentCapable;
 import org.springframework.core.env.StandardEnvironment;
 import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.PatternMatchUtils;
@@ -273,8 +277,11 @@ public class ClassPathBeanDefinitionScanner extends ClassPathScanningCandidateCo
 		Assert.notEmpty(basePackages, "At least one base package must be specified");
 		Set<BeanDefinitionHolder> beanDefinitions = new LinkedHashSet<>();
 		for (String basePackage : basePackages) {
+			StartupStep componentScan = getApplicationStartup().start("spring.context.component-scan")
+					.tag("packageName", basePackage);
 			// 到指定包下去找
 			Set<BeanDefinition> candidates = findCandidateComponents(basePackage);
+			componentScan.tag("candidateCount", () -> String.valueOf(candidates.size()));
 			// 遍历做一些处理
 			for (BeanDefinition candidate : candidates) {
 				// 设置scope属性
@@ -301,6 +308,7 @@ public class ClassPathBeanDefinitionScanner extends ClassPathScanningCandidateCo
 					registerBeanDefinition(definitionHolder, this.registry);
 				}
 			}
+			componentScan.end();
 		}
 		return beanDefinitions;
 	}
@@ -320,6 +328,21 @@ public class ClassPathBeanDefinitionScanner extends ClassPathScanningCandidateCo
 		}
 	}
 
+	/**
+	 * Determine the {@link ApplicationStartup} to record scanning steps with:
+	 * the one of the registry, if it is a bean factory or an application context.
+	 */
+	private ApplicationStartup getApplicationStartup() {
+		ApplicationStartup applicationStartup = null;
+		if (this.registry instanceof ConfigurableBeanFactory) {
+			applicationStartup = ((ConfigurableBeanFactory) this.registry).getApplicationStartup();
+		}
+		else if (this.registry instanceof ConfigurableApplicationContext) {
+			applicationStartup = ((ConfigurableApplicationContext) this.registry).getApplicationStartup();
+		}
+		return (applicationStartup != null ? applicationStartup : ApplicationStartup.DEFAULT);
+	}
+
 	/**
 	 * Register the specified bean with the given registry.
 	 * <p>Can be overridden in subclasses, e.g. to adapt the registration
@@ -18,11 +18,19 @@ package org.springframework.context.annotation;
 
 import java.io.IOException;
 import java.lang.annotation.Annotation;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -35,6 +43,7 @@ import org.springframework.beans.factory.support.BeanDefinitionRegistry;
 import org.springframework.context.ResourceLoaderAware;
 import org.springframework.context.index.CandidateComponentsIndex;
 import org.springframework.context.index.CandidateComponentsIndexLoader;
+import org.springframework.core.SpringProperties;
 import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.core.env.Environment;
 import org.springframework.core.env.EnvironmentCapable;
@@ -52,6 +61,7 @@ import org.springframework.core.type.filter.AnnotationTypeFilter;
 import org.springframework.core.type.filter.AssignableTypeFilter;
 import org.springframework.core.type.filter.TypeFilter;
 import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.stereotype.Controller;
 import org.springframework.stereotype.Indexed;
@@ -88,6 +98,24 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 
 	static final String DEFAULT_RESOURCE_PATTERN = "**/*.class";
 
+	/**
+	 * System property that instructs Spring to scan class path resources in
+	 * parallel by default: {@value}.
+	 * @since 5.2.7
+	 * @see #setParallelScanning
+	 */
+	public static final String PARALLEL_SCANNING_PROPERTY_NAME = "spring.scanning.parallel";
+
+	/**
+	 * Minimum number of resources for a parallel scan to pay off.
+	 */
+	private static final int PARALLEL_SCANNING_THRESHOLD = 64;
+
+	/**
+	 * Number of resources to read and evaluate per task in a parallel scan.
+	 */
+	private static final int PARALLEL_SCANNING_BATCH_SIZE = 32;
+
 
 	protected final Log logger = LogFactory.getLog(getClass());
 
@@ -100,6 +128,9 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 	@Nullable
 	private Environment environment;
 
+	@Nullable
+	private ConditionEvaluator.ConditionListener conditionListener;
+
 	@Nullable
 	private ConditionEvaluator conditionEvaluator;
 
@@ -112,6 +143,15 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 	@Nullable
 	private CandidateComponentsIndex componentsIndex;
 
+	private boolean parallelScanning = SpringProperties.getFlag(PARALLEL_SCANNING_PROPERTY_NAME);
+
+	@Nullable
+	private Executor scanningExecutor;
+
+	/** Pool for parallel scanning without a scanning executor, shared across scans. */
+	@Nullable
+	private volatile ExecutorService defaultScanningExecutor;
+
 
 	/**
 	 * Protected constructor for flexible subclass initialization.
@@ -235,6 +275,16 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 		this.conditionEvaluator = null;
 	}
 
+	/**
+	 * Set a listener to notify of all component classes whose
+	 * {@link Conditional @Conditional} declarations are evaluated.
+	 * @since 5.2.7
+	 */
+	void setConditionListener(@Nullable ConditionEvaluator.ConditionListener conditionListener) {
+		this.conditionListener = conditionListener;
+		this.conditionEvaluator = null;
+	}
+
 	@Override
 	public final Environment getEnvironment() {
 		if (this.environment == null) {
@@ -301,6 +351,67 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 		return this.metadataReaderFactory;
 	}
 
+	/**
+	 * Specify whether to read and evaluate class path resources in parallel
+	 * when scanning, using the {@link #setScanningExecutor scanning executor}
+	 * or else a thread pool that this provider creates on first use and whose
+	 * idle threads terminate after a short while.
+	 * <p>Default is "false", unless the {@value #PARALLEL_SCANNING_PROPERTY_NAME}
+	 * system property is set to "true". Candidates are returned in the same
+	 * order as with sequential scanning.
+	 * <p>Include and exclude filters, {@link Conditional @Conditional} conditions
+	 * and {@code isCandidateComponent} checks run concurrently in that mode.
+	 * Only switch this on if the {@link #setMetadataReaderFactory
+	 * MetadataReaderFactory}, all registered {@link TypeFilter TypeFilters},
+	 * all conditions on scanned classes and any overridden
+	 * {@code isCandidateComponent} methods are thread-safe, which is the case
+	 * for the framework's own implementations.
+	 * @since 5.2.7
+	 * @see #setScanningExecutor
+	 */
+	public void setParallelScanning(boolean parallelScanning) {
+		this.parallelScanning = parallelScanning;
+	}
+
+	/**
+	 * Return whether class path resources are scanned in parallel.
+	 * @since 5.2.7
+	 */
+	public boolean isParallelScanning() {
+		return this.parallelScanning;
+	}
+
+	/**
+	 * Specify an {@link Executor} for reading and evaluating class path resources
+	 * in parallel. A non-null executor switches {@link #setParallelScanning
+	 * parallel scanning} on, which can be switched off again afterwards.
+	 * <p>Tasks run with the thread context class loader of the scanning thread,
+	 * which blocks until all tasks have completed. The executor must therefore
+	 * not run its tasks on threads that may themselves be waiting for a scan,
+	 * for example a bounded pool that the scanning thread belongs to: this may
+	 * deadlock once all of its threads are blocked in a scan.
+	 * <p>The same thread-safety requirements apply as for
+	 * {@link #setParallelScanning parallel scanning} in general.
+	 * Default is none, using a thread pool that is managed by this provider.
+	 * @since 5.2.7
+	 */
+	public void setScanningExecutor(@Nullable Executor scanningExecutor) {
+		this.scanningExecutor = scanningExecutor;
+		if (scanningExecutor != null) {
+			this.parallelScanning = true;
+		}
+	}
+
+	/**
+	 * Return the {@link Executor} for reading and evaluating class path
+	 * resources in parallel, if any.
+	 * @since 5.2.7
+	 */
+	@Nullable
+	public Executor getScanningExecutor() {
+		return this.scanningExecutor;
+	}
+
 
 	/**
 	 * Scan the class path for candidate components.
@@ -420,56 +531,143 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 			String packageSearchPath = ResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX +
 					resolveBasePackage(basePackage) + '/' + this.resourcePattern;
 			Resource[] resources = getResourcePatternResolver().getResources(packageSearchPath);
-			boolean traceEnabled = logger.isTraceEnabled();
-			boolean debugEnabled = logger.isDebugEnabled();
-			for (Resource resource : resources) {
-				if (traceEnabled) {
-					logger.trace("Scanning " + resource);
+			if (isParallelScanning() && resources.length >= PARALLEL_SCANNING_THRESHOLD) {
+				scanCandidateComponentsInParallel(resources, candidates);
+			}
+			else {
+				scanCandidateComponents(resources, 0, resources.length, candidates);
+			}
+		}
+		catch (IOException ex) {
+			throw new BeanDefinitionStoreException("I/O failure during classpath scanning", ex);
+		}
+		return candidates;
+	}
+
+	private void scanCandidateComponentsInParallel(Resource[] resources, Set<BeanDefinition> candidates) {
+		// Initialize shared state up front
+		getMetadataReaderFactory();
+		getConditionEvaluator();
+		Executor executor = this.scanningExecutor;
+		if (executor == null) {
+			executor = getDefaultScanningExecutor();
+		}
+		ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+		List<CompletableFuture<Set<BeanDefinition>>> batches = new ArrayList<>();
+		for (int from = 0; from < resources.length; from += PARALLEL_SCANNING_BATCH_SIZE) {
+			int start = from;
+			int end = Math.min(from + PARALLEL_SCANNING_BATCH_SIZE, resources.length);
+			batches.add(CompletableFuture.supplyAsync(() -> {
+				Thread currentThread = Thread.currentThread();
+				ClassLoader previousClassLoader = currentThread.getContextClassLoader();
+				currentThread.setContextClassLoader(contextClassLoader);
+				try {
+					Set<BeanDefinition> batchCandidates = new LinkedHashSet<>();
+					scanCandidateComponents(resources, start, end, batchCandidates);
+					return batchCandidates;
 				}
-				if (resource.isReadable()) {
-					try {
-						MetadataReader metadataReader = getMetadataReaderFactory().getMetadataReader(resource);
-						// 是否会被过滤掉
-						if (isCandidateComponent(metadataReader)) {
-							// ScannedGenericBeanDefinition
-							ScannedGenericBeanDefinition sbd = new ScannedGenericBeanDefinition(metadataReader);
-							sbd.setSource(resource);
-							// 是Component候选人
-							if (isCandidateComponent(sbd)) {
-								if (debugEnabled) {
-									logger.debug("Identified candidate component class: " + resource);
-								}
-								// 添加候选人
-								candidates.add(sbd);
-							}
-							else {
-								if (debugEnabled) {
-									logger.debug("Ignored because not a concrete top-level class: " + resource);
-								}
-							}
-						}
-						else {
-							if (traceEnabled) {
-								logger.trace("Ignored because not matching any filter: " + resource);
-							}
+				finally {
+					currentThread.setContextClassLoader(previousClassLoader);
+				}
+			}, executor));
+		}
+		// Preserve the resource order, reporting the first failure as a sequential scan would
+		for (CompletableFuture<Set<BeanDefinition>> batch : batches) {
+			try {
+				candidates.addAll(batch.join());
+			}
+			catch (CompletionException ex) {
+				if (ex.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) ex.getCause();
+				}
+				if (ex.getCause() instanceof Error) {
+					throw (Error) ex.getCause();
+				}
+				throw ex;
+			}
+		}
+	}
+
+	/**
+	 * Return the thread pool for parallel scanning without a scanning executor,
+	 * creating it on first use. Its daemon threads terminate once idle for a
+	 * second, so that the pool does not need to be shut down.
+	 */
+	private Executor getDefaultScanningExecutor() {
+		ExecutorService executor = this.defaultScanningExecutor;
+		if (executor == null) {
+			synchronized (this) {
+				executor = this.defaultScanningExecutor;
+				if (executor == null) {
+					CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("scanning-");
+					threadFactory.setDaemon(true);
+					int poolSize = Runtime.getRuntime().availableProcessors();
+					ThreadPoolExecutor threadPool = new ThreadPoolExecutor(poolSize, poolSize,
+							1, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+					threadPool.allowCoreThreadTimeOut(true);
+					executor = threadPool;
+					this.defaultScanningExecutor = executor;
+				}
+			}
+		}
+		return executor;
+	}
+
+	private void scanCandidateComponents(Resource[] resources, int from, int to, Set<BeanDefinition> candidates) {
+		for (int i = from; i < to; i++) {
+			ScannedGenericBeanDefinition candidate = scanCandidateComponent(resources[i]);
+			if (candidate != null) {
+				candidates.add(candidate);
+			}
+		}
+	}
+
+	@Nullable
+	private ScannedGenericBeanDefinition scanCandidateComponent(Resource resource) {
+		boolean traceEnabled = logger.isTraceEnabled();
+		boolean debugEnabled = logger.isDebugEnabled();
+		if (traceEnabled) {
+			logger.trace("Scanning " + resource);
+		}
+		if (resource.isReadable()) {
+			try {
+				MetadataReader metadataReader = getMetadataReaderFactory().getMetadataReader(resource);
+				// 是否会被过滤掉
+				if (isCandidateComponent(metadataReader)) {
+					// ScannedGenericBeanDefinition
+					ScannedGenericBeanDefinition sbd = new ScannedGenericBeanDefinition(metadataReader);
+					sbd.setSource(resource);
+					// 是Component候选人
+					if (isCandidateComponent(sbd)) {
+						if (debugEnabled) {
+							logger.debug("Identified candidate component class: " + resource);
 						}
+						// 添加候选人
+						return sbd;
 					}
-					catch (Throwable ex) {
-						throw new BeanDefinitionStoreException(
-								"Failed to read candidate component class: " + resource, ex);
+					else {
+						if (debugEnabled) {
+							logger.debug("Ignored because not a concrete top-level class: " + resource);
+						}
 					}
 				}
 				else {
 					if (traceEnabled) {
-						logger.trace("Ignored because not readable: " + resource);
+						logger.trace("Ignored because not matching any filter: " + resource);
 					}
 				}
 			}
+			catch (Throwable ex) {
+				throw new BeanDefinitionStoreException(
+						"Failed to read candidate component class: " + resource, ex);
+			}
 		}
-		catch (IOException ex) {
-			throw new BeanDefinitionStoreException("I/O failure during classpath scanning", ex);
+		else {
+			if (traceEnabled) {
+				logger.trace("Ignored because not readable: " + resource);
+			}
 		}
-		return candidates;
+		return null;
 	}
 
 
@@ -512,11 +710,17 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 	 * @return whether the class qualifies as a candidate component
 	 */
 	private boolean isConditionMatch(MetadataReader metadataReader) {
-		if (this.conditionEvaluator == null) {
-			this.conditionEvaluator =
-					new ConditionEvaluator(getRegistry(), this.environment, this.resourcePatternResolver);
+		return !getConditionEvaluator().shouldSkip(metadataReader.getAnnotationMetadata());
+	}
+
+	private ConditionEvaluator getConditionEvaluator() {
+		ConditionEvaluator conditionEvaluator = this.conditionEvaluator;
+		if (conditionEvaluator == null) {
+			conditionEvaluator = new ConditionEvaluator(
+					getRegistry(), this.environment, this.resourcePatternResolver, this.conditionListener);
+			this.conditionEvaluator = conditionEvaluator;
 		}
-		return !this.conditionEvaluator.shouldSkip(metadataReader.getAnnotationMetadata());
+		return conditionEvaluator;
 	}
 
 	/**
@@ -49,6 +49,9 @@ class ConditionEvaluator {
 
 	private final ConditionContextImpl context;
 
+	@Nullable
+	private final ConditionListener listener;
+
 
 	/**
 	 * Create a new {@link ConditionEvaluator} instance.
@@ -56,7 +59,19 @@ class ConditionEvaluator {
 	public ConditionEvaluator(@Nullable BeanDefinitionRegistry registry,
 			@Nullable Environment environment, @Nullable ResourceLoader resourceLoader) {
 
+		this(registry, environment, resourceLoader, null);
+	}
+
+	/**
+	 * Create a new {@link ConditionEvaluator} instance that notifies the given
+	 * listener of all elements whose conditions are evaluated.
+	 * @since 5.2.7
+	 */
+	ConditionEvaluator(@Nullable BeanDefinitionRegistry registry, @Nullable Environment environment,
+			@Nullable ResourceLoader resourceLoader, @Nullable ConditionListener listener) {
+
 		this.context = new ConditionContextImpl(registry, environment, resourceLoader);
+		this.listener = listener;
 	}
 
 
@@ -90,6 +105,10 @@ class ConditionEvaluator {
 			return shouldSkip(metadata, ConfigurationPhase.REGISTER_BEAN);
 		}
 
+		if (this.listener != null) {
+			this.listener.conditionsEvaluated(metadata);
+		}
+
 		List<Condition> conditions = new ArrayList<>();
 		for (String[] conditionClasses : getConditionClasses(metadata)) {
 			for (String conditionClass : conditionClasses) {
@@ -126,6 +145,22 @@ class ConditionEvaluator {
 	}
 
 
+	/**
+	 * Callback interface for tracking evaluated conditions.
+	 * @since 5.2.7
+	 * @see ConfigurationClassPostProcessor#setConditionListener
+	 */
+	interface ConditionListener {
+
+		/**
+		 * Notification that the {@link Conditional @Conditional} declarations
+		 * on the given element are about to be evaluated.
+		 * @param metadata the metadata of the conditional class or method
+		 */
+		void conditionsEvaluated(AnnotatedTypeMetadata metadata);
+	}
+
+
 	/**
 	 * Implementation of a {@link ConditionContext}.
 	 */
@@ -53,6 +53,7 @@ import org.springframework.core.type.MethodMetadata;
 import org.springframework.core.type.StandardAnnotationMetadata;
 import org.springframework.core.type.StandardMethodMetadata;
 import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
 
@@ -98,7 +99,7 @@ class ConfigurationClassBeanDefinitionReader {
 	 */
 	ConfigurationClassBeanDefinitionReader(BeanDefinitionRegistry registry, SourceExtractor sourceExtractor,
 			ResourceLoader resourceLoader, Environment environment, BeanNameGenerator importBeanNameGenerator,
-			ImportRegistry importRegistry) {
+			ImportRegistry importRegistry, @Nullable ConditionEvaluator.ConditionListener conditionListener) {
 
 		this.registry = registry;
 		this.sourceExtractor = sourceExtractor;
@@ -106,7 +107,7 @@ class ConfigurationClassBeanDefinitionReader {
 		this.environment = environment;
 		this.importBeanNameGenerator = importBeanNameGenerator;
 		this.importRegistry = importRegistry;
-		this.conditionEvaluator = new ConditionEvaluator(registry, environment, resourceLoader);
+		this.conditionEvaluator = new ConditionEvaluator(registry, environment, resourceLoader, conditionListener);
 	}
 
 
@@ -53,6 +53,8 @@ import org.springframework.beans.factory.support.BeanDefinitionRegistry;
 import org.springframework.beans.factory.support.BeanNameGenerator;
 import org.springframework.context.annotation.ConfigurationCondition.ConfigurationPhase;
 import org.springframework.context.annotation.DeferredImportSelector.Group;
+import org.springframework.context.index.CandidateComponentsIndex;
+import org.springframework.context.index.CandidateComponentsIndexLoader;
 import org.springframework.core.NestedIOException;
 import org.springframework.core.OrderComparator;
 import org.springframework.core.Ordered;
@@ -134,6 +136,9 @@ class ConfigurationClassParser {
 
 	private final ConditionEvaluator conditionEvaluator;
 
+	@Nullable
+	private final CandidateComponentsIndex componentsIndex;
+
 	private final Map<ConfigurationClass, ConfigurationClass> configurationClasses = new LinkedHashMap<>();
 
 	private final Map<String, ConfigurationClass> knownSuperclasses = new HashMap<>();
@@ -155,14 +160,29 @@ class ConfigurationClassParser {
 			ProblemReporter problemReporter, Environment environment, ResourceLoader resourceLoader,
 			BeanNameGenerator componentScanBeanNameGenerator, BeanDefinitionRegistry registry) {
 
+		this(metadataReaderFactory, problemReporter, environment, resourceLoader,
+				componentScanBeanNameGenerator, registry, null);
+	}
+
+	/**
+	 * Create a new {@link ConfigurationClassParser} instance that notifies
+	 * the given listener of all evaluated conditions.
+	 * @since 5.2.7
+	 */
+	ConfigurationClassParser(MetadataReaderFactory metadataReaderFactory,
+			ProblemReporter problemReporter, Environment environment, ResourceLoader resourceLoader,
+			BeanNameGenerator componentScanBeanNameGenerator, BeanDefinitionRegistry registry,
+			@Nullable ConditionEvaluator.ConditionListener conditionListener) {
+
 		this.metadataReaderFactory = metadataReaderFactory;
 		this.problemReporter = problemReporter;
 		this.environment = environment;
 		this.resourceLoader = resourceLoader;
 		this.registry = registry;
 		this.componentScanParser = new ComponentScanAnnotationParser(
-				environment, resourceLoader, componentScanBeanNameGenerator, registry);
-		this.conditionEvaluator = new ConditionEvaluator(registry, environment, resourceLoader);
+				environment, resourceLoader, componentScanBeanNameGenerator, registry, conditionListener);
+		this.conditionEvaluator = new ConditionEvaluator(registry, environment, resourceLoader, conditionListener);
+		this.componentsIndex = CandidateComponentsIndexLoader.loadIndex(resourceLoader.getClassLoader());
 	}
 
 
@@ -438,6 +458,25 @@ class ConfigurationClassParser {
 	private Set<MethodMetadata> retrieveBeanMethodMetadata(SourceClass sourceClass) {
 		AnnotationMetadata original = sourceClass.getMetadata();
 		Set<MethodMetadata> beanMethods = original.getAnnotatedMethods(Bean.class.getName());
+		List<String> indexedBeanMethods = (this.componentsIndex != null ?
+				this.componentsIndex.getBeanMethods(original.getClassName()) : null);
+		if (beanMethods.size() > 1 && original instanceof StandardAnnotationMetadata && indexedBeanMethods != null) {
+			// Declaration order available from the index -> no need to read the class file
+			Set<MethodMetadata> selectedMethods = new LinkedHashSet<>(beanMethods.size());
+			for (String indexedBeanMethod : indexedBeanMethods) {
+				int paramsIndex = indexedBeanMethod.indexOf('(');
+				String methodName =
+						(paramsIndex != -1 ? indexedBeanMethod.substring(0, paramsIndex) : indexedBeanMethod);
+				for (MethodMetadata beanMethod : beanMethods) {
+					if (beanMethod.getMethodName().equals(methodName) && selectedMethods.add(beanMethod)) {
+						break;
+					}
+				}
+			}
+			if (selectedMethods.size() == beanMethods.size()) {
+				return selectedMethods;
+			}
+		}
 		if (beanMethods.size() > 1 && original instanceof StandardAnnotationMetadata) {
 			// Try reading the class file via ASM for deterministic declaration order...
 			// Unfortunately, the JVM's standard reflection returns methods in arbitrary
@@ -554,9 +593,35 @@ class ConfigurationClassParser {
 	 * Returns {@code @Import} class, considering all meta-annotations.
 	 */
 	private Set<SourceClass> getImports(SourceClass sourceClass) throws IOException {
+		List<String> indexedImports = (this.componentsIndex != null ?
+				this.componentsIndex.getImports(sourceClass.getMetadata().getClassName()) : null);
 		Set<SourceClass> imports = new LinkedHashSet<>();
 		Set<SourceClass> visited = new LinkedHashSet<>();
-		collectImports(sourceClass, imports, visited);
+		if (indexedImports != null) {
+			// Imports available from the index -> only introspect annotations from other modules
+			visited.add(sourceClass);
+			for (String indexedImport : indexedImports) {
+				if (indexedImport.startsWith(CandidateComponentsIndex.ANNOTATION_PREFIX)) {
+					String annName = indexedImport.substring(CandidateComponentsIndex.ANNOTATION_PREFIX.length());
+					SourceClass annotation;
+					try {
+						annotation = sourceClass.getRelated(annName);
+					}
+					catch (Throwable ex) {
+						// An annotation not present on the classpath is being ignored
+						// by the JVM's class loading -> ignore here as well.
+						continue;
+					}
+					collectImports(annotation, imports, visited);
+				}
+				else {
+					imports.add(sourceClass.getRelated(indexedImport));
+				}
+			}
+		}
+		else {
+			collectImports(sourceClass, imports, visited);
+		}
 		return imports;
 	}
 
@@ -16,16 +16,21 @@
 
 package org.springframework.context.index;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import org.springframework.lang.Nullable;
 import org.springframework.util.AntPathMatcher;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
+import org.springframework.util.StringUtils;
 
 /**
  * Provide access to the candidates that are defined in {@code META-INF/spring.components}.
@@ -43,31 +48,89 @@ import org.springframework.util.MultiValueMap;
  * not a rule. Similarly, the {@code stereotype} is usually the fully qualified name of
  * a target type but it can be any marker really.
  *
+ * <p>As of 5.2.7, {@code @Configuration} classes may additionally be described through
+ * pseudo-stereotypes listing their {@code @Bean} methods and {@code @Import} targets,
+ * see {@link #getBeanMethods} and {@link #getImports}. Those are not available as
+ * regular stereotypes. The configuration class parser only uses them as shortcuts
+ * for the declaration order of {@code @Bean} methods and for the {@code @Import}
+ * targets; the {@code @Bean} methods themselves and any conditions are still
+ * introspected from the class at runtime.
+ *
  * @author Stephane Nicoll
  * @since 5.0
  */
 public class CandidateComponentsIndex {
 
+	/**
+	 * Prefix of the pseudo-stereotype listing the {@code @Bean} method signatures
+	 * of a configuration class.
+	 * @since 5.2.7
+	 */
+	public static final String BEAN_METHODS_PREFIX = "beanMethods:";
+
+	/**
+	 * Prefix of the pseudo-stereotype listing the {@code @Import} targets
+	 * of a configuration class.
+	 * @since 5.2.7
+	 */
+	public static final String IMPORTS_PREFIX = "imports:";
+
+	/**
+	 * Prefix of {@code @Import} targets that denote an annotation whose
+	 * imports have to be determined at runtime.
+	 * @since 5.2.7
+	 * @see #getImports
+	 */
+	public static final String ANNOTATION_PREFIX = "@";
+
+	private static final String VALUE_SEPARATOR = "|";
+
 	private static final AntPathMatcher pathMatcher = new AntPathMatcher(".");
 
 	private final MultiValueMap<String, Entry> index;
 
+	private final Map<String, ConfigurationEntry> configurations;
+
 
 	CandidateComponentsIndex(List<Properties> content) {
-		this.index = parseIndex(content);
+		this.index = new LinkedMultiValueMap<>();
+		this.configurations = new HashMap<>();
+		parseIndex(content);
 	}
 
-	private static MultiValueMap<String, Entry> parseIndex(List<Properties> content) {
-		MultiValueMap<String, Entry> index = new LinkedMultiValueMap<>();
+	private void parseIndex(List<Properties> content) {
 		for (Properties entry : content) {
 			entry.forEach((type, values) -> {
 				String[] stereotypes = ((String) values).split(",");
 				for (String stereotype : stereotypes) {
-					index.add(stereotype, new Entry((String) type));
+					if (!parseConfigurationEntry((String) type, stereotype)) {
+						this.index.add(stereotype, new Entry((String) type));
+					}
 				}
 			});
 		}
-		return index;
+	}
+
+	private boolean parseConfigurationEntry(String type, String stereotype) {
+		if (stereotype.startsWith(BEAN_METHODS_PREFIX)) {
+			getConfigurationEntry(type).beanMethods = parseValues(stereotype, BEAN_METHODS_PREFIX);
+		}
+		else if (stereotype.startsWith(IMPORTS_PREFIX)) {
+			getConfigurationEntry(type).imports = parseValues(stereotype, IMPORTS_PREFIX);
+		}
+		else {
+			return false;
+		}
+		return true;
+	}
+
+	private ConfigurationEntry getConfigurationEntry(String type) {
+		return this.configurations.computeIfAbsent(type, key -> new ConfigurationEntry());
+	}
+
+	private static List<String> parseValues(String stereotype, String prefix) {
+		return Collections.unmodifiableList(Arrays.asList(
+				StringUtils.tokenizeToStringArray(stereotype.substring(prefix.length()), VALUE_SEPARATOR)));
 	}
 
 
@@ -89,6 +152,39 @@ public class CandidateComponentsIndex {
 		return Collections.emptySet();
 	}
 
+	/**
+	 * Return the signatures of the {@code @Bean} methods declared by the
+	 * specified configuration class, in declaration order.
+	 * <p>A signature consists of the method name followed by the semicolon-separated
+	 * erased parameter types in parentheses, e.g. {@code dataSource(java.lang.String;int)}.
+	 * <p>Only the order is used at runtime, replacing the class file read otherwise
+	 * needed for configuration classes that have been registered through reflection.
+	 * @param type the fully qualified name of the configuration class
+	 * @return the signatures, or {@code null} if the class has not been indexed
+	 * @since 5.2.7
+	 */
+	@Nullable
+	public List<String> getBeanMethods(String type) {
+		ConfigurationEntry entry = this.configurations.get(type);
+		return (entry != null ? entry.beanMethods : null);
+	}
+
+	/**
+	 * Return the {@code @Import} targets of the specified configuration class,
+	 * considering all meta-annotations, in processing order.
+	 * <p>Only annotations that are compiled along with the configuration class are
+	 * resolved at build time. Any other annotation is listed in place, prefixed with
+	 * {@value #ANNOTATION_PREFIX}, for its imports to be determined at runtime.
+	 * @param type the fully qualified name of the configuration class
+	 * @return the imported class names, or {@code null} if the class has not been indexed
+	 * @since 5.2.7
+	 */
+	@Nullable
+	public List<String> getImports(String type) {
+		ConfigurationEntry entry = this.configurations.get(type);
+		return (entry != null ? entry.imports : null);
+	}
+
 
 	private static class Entry {
 
@@ -111,4 +207,14 @@ public class CandidateComponentsIndex {
 		}
 	}
 
+
+	private static class ConfigurationEntry {
+
+		@Nullable
+		private List<String> beanMethods;
+
+		@Nullable
+		private List<String> imports;
+	}
+
 }
@@ -25,8 +25,15 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -40,6 +47,8 @@ import org.springframework.context.Lifecycle;
 import org.springframework.context.LifecycleProcessor;
 import org.springframework.context.Phased;
 import org.springframework.context.SmartLifecycle;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 
@@ -56,6 +65,11 @@ public class DefaultLifecycleProcessor implements LifecycleProcessor, BeanFactor
 
 	private volatile long timeoutPerShutdownPhase = 30000;
 
+	private volatile long timeoutPerStartupPhase = Long.MAX_VALUE;
+
+	@Nullable
+	private volatile Executor taskExecutor;
+
 	private volatile boolean running;
 
 	@Nullable
@@ -66,11 +80,55 @@ public class DefaultLifecycleProcessor implements LifecycleProcessor, BeanFactor
 	 * Specify the maximum time allotted in milliseconds for the shutdown of
 	 * any phase (group of SmartLifecycle beans with the same 'phase' value).
 	 * <p>The default value is 30 seconds.
+	 * <p>Note that with a {@link #setTaskExecutor task executor}, the beans of a
+	 * phase that have not begun to stop once this timeout has elapsed are stopped
+	 * right away, even if their dependents are still stopping: the guarantee that
+	 * dependents stop first does not hold beyond the timeout.
 	 */
 	public void setTimeoutPerShutdownPhase(long timeoutPerShutdownPhase) {
 		this.timeoutPerShutdownPhase = timeoutPerShutdownPhase;
 	}
 
+	/**
+	 * Specify the maximum time allotted in milliseconds for the startup of
+	 * any phase when starting beans concurrently, failing the startup with an
+	 * {@link ApplicationContextException} if exceeded.
+	 * <p>The default is to wait without time limit.
+	 * @since 5.2.7
+	 * @see #setTaskExecutor
+	 */
+	public void setTimeoutPerStartupPhase(long timeoutPerStartupPhase) {
+		this.timeoutPerStartupPhase = timeoutPerStartupPhase;
+	}
+
+	/**
+	 * Specify an {@link Executor} for starting and stopping the beans within the
+	 * same phase concurrently, for example a thread pool.
+	 * <p>Beans still start after the beans that they depend on and stop after
+	 * their dependents, and each phase completes before the next phase begins.
+	 * Once the timeout of a phase has elapsed, beans that have not begun to start
+	 * are not started anymore, and beans that have not begun to stop are stopped
+	 * right away in the calling thread, without waiting for dependents that are
+	 * still stopping.
+	 * <p>Default is {@code null}, starting and stopping all beans one at a time
+	 * in the calling thread.
+	 * @since 5.2.7
+	 * @see #setTimeoutPerStartupPhase
+	 * @see #setTimeoutPerShutdownPhase
+	 */
+	public void setTaskExecutor(@Nullable Executor taskExecutor) {
+		this.taskExecutor = taskExecutor;
+	}
+
+	/**
+	 * Return the {@link Executor} for starting and stopping beans concurrently, if any.
+	 * @since 5.2.7
+	 */
+	@Nullable
+	public Executor getTaskExecutor() {
+		return this.taskExecutor;
+	}
+
 	@Override
 	public void setBeanFactory(BeanFactory beanFactory) {
 		if (!(beanFactory instanceof ConfigurableListableBeanFactory)) {
@@ -86,6 +144,12 @@ public class DefaultLifecycleProcessor implements LifecycleProcessor, BeanFactor
 		return beanFactory;
 	}
 
+	private ApplicationStartup getApplicationStartup() {
+		ConfigurableListableBeanFactory beanFactory = this.beanFactory;
+		ApplicationStartup applicationStartup = (beanFactory != null ? beanFactory.getApplicationStartup() : null);
+		return (applicationStartup != null ? applicationStartup : ApplicationStartup.DEFAULT);
+	}
+
 
 	// Lifecycle implementation
 
@@ -145,7 +209,7 @@ public class DefaultLifecycleProcessor implements LifecycleProcessor, BeanFactor
 				int phase = getPhase(bean);
 				LifecycleGroup group = phases.get(phase);
 				if (group == null) {
-					group = new LifecycleGroup(phase, this.timeoutPerShutdownPhase, lifecycleBeans, autoStartupOnly);
+					group = new LifecycleGroup(phase, this.timeoutPerStartupPhase, lifecycleBeans, autoStartupOnly);
 					phases.put(phase, group);
 				}
 				group.add(beanName, bean);
@@ -173,21 +237,52 @@ public class DefaultLifecycleProcessor implements LifecycleProcessor, BeanFactor
 			for (String dependency : dependenciesForBean) {
 				doStart(lifecycleBeans, dependency, autoStartupOnly);
 			}
-			if (!bean.isRunning() &&
-					(!autoStartupOnly || !(bean instanceof SmartLifecycle) || ((SmartLifecycle) bean).isAutoStartup())) {
-				if (logger.isTraceEnabled()) {
-					logger.trace("Starting bean '" + beanName + "' of type [" + bean.getClass().getName() + "]");
-				}
-				try {
-					bean.start();
-				}
-				catch (Throwable ex) {
-					throw new ApplicationContextException("Failed to start bean '" + beanName + "'", ex);
-				}
-				if (logger.isDebugEnabled()) {
-					logger.debug("Successfully started bean '" + beanName + "'");
+			doStartBean(beanName, bean, autoStartupOnly);
+		}
+	}
+
+	/**
+	 * Collect the specified bean and the beans that it depends on for a concurrent
+	 * start, analogous to {@link #doStart}: beans are added to the given Map after
+	 * their dependencies, along with the names of the dependencies to wait for.
+	 */
+	private void collectForStart(Map<String, ? extends Lifecycle> lifecycleBeans, String beanName,
+			Map<String, Lifecycle> beansToStart, Map<String, Set<String>> dependencies) {
+
+		Lifecycle bean = lifecycleBeans.remove(beanName);
+		if (bean != null && bean != this) {
+			Set<String> dependenciesToAwait = new LinkedHashSet<>();
+			for (String dependency : getBeanFactory().getDependenciesForBean(beanName)) {
+				collectForStart(lifecycleBeans, dependency, beansToStart, dependencies);
+				if (beansToStart.containsKey(dependency)) {
+					dependenciesToAwait.add(dependency);
 				}
 			}
+			beansToStart.put(beanName, bean);
+			dependencies.put(beanName, dependenciesToAwait);
+		}
+	}
+
+	private void doStartBean(String beanName, Lifecycle bean, boolean autoStartupOnly) {
+		if (!bean.isRunning() &&
+				(!autoStartupOnly || !(bean instanceof SmartLifecycle) || ((SmartLifecycle) bean).isAutoStartup())) {
+			if (logger.isTraceEnabled()) {
+				logger.trace("Starting bean '" + beanName + "' of type [" + bean.getClass().getName() + "]");
+			}
+			StartupStep beanStart = getApplicationStartup().start("spring.context.lifecycle.bean-start")
+					.tag("beanName", beanName);
+			try {
+				bean.start();
+			}
+			catch (Throwable ex) {
+				throw new ApplicationContextException("Failed to start bean '" + beanName + "'", ex);
+			}
+			finally {
+				beanStart.end();
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Successfully started bean '" + beanName + "'");
+			}
 		}
 	}
 
@@ -227,46 +322,128 @@ public class DefaultLifecycleProcessor implements LifecycleProcessor, BeanFactor
 			for (String dependentBean : dependentBeans) {
 				doStop(lifecycleBeans, dependentBean, latch, countDownBeanNames);
 			}
-			try {
-				if (bean.isRunning()) {
-					if (bean instanceof SmartLifecycle) {
-						if (logger.isTraceEnabled()) {
-							logger.trace("Asking bean '" + beanName + "' of type [" +
-									bean.getClass().getName() + "] to stop");
-						}
-						countDownBeanNames.add(beanName);
-						((SmartLifecycle) bean).stop(() -> {
-							latch.countDown();
-							countDownBeanNames.remove(beanName);
-							if (logger.isDebugEnabled()) {
-								logger.debug("Bean '" + beanName + "' completed its stop procedure");
-							}
-						});
+			doStopBean(beanName, bean, latch, countDownBeanNames);
+		}
+	}
+
+	/**
+	 * Collect the specified bean and the beans that depend on it for a concurrent
+	 * stop, analogous to {@link #doStop}: beans are added to the given Map after
+	 * their dependents, along with the names of the dependents to wait for.
+	 */
+	private void collectForStop(Map<String, ? extends Lifecycle> lifecycleBeans, String beanName,
+			Map<String, Lifecycle> beansToStop, Map<String, Set<String>> dependents) {
+
+		Lifecycle bean = lifecycleBeans.remove(beanName);
+		if (bean != null) {
+			Set<String> dependentsToAwait = new LinkedHashSet<>();
+			for (String dependentBean : getBeanFactory().getDependentBeans(beanName)) {
+				collectForStop(lifecycleBeans, dependentBean, beansToStop, dependents);
+				if (beansToStop.containsKey(dependentBean)) {
+					dependentsToAwait.add(dependentBean);
+				}
+			}
+			beansToStop.put(beanName, bean);
+			dependents.put(beanName, dependentsToAwait);
+		}
+	}
+
+	private void doStopBean(String beanName, Lifecycle bean, CountDownLatch latch, Set<String> countDownBeanNames) {
+		try {
+			if (bean.isRunning()) {
+				if (bean instanceof SmartLifecycle) {
+					if (logger.isTraceEnabled()) {
+						logger.trace("Asking bean '" + beanName + "' of type [" +
+								bean.getClass().getName() + "] to stop");
 					}
-					else {
-						if (logger.isTraceEnabled()) {
-							logger.trace("Stopping bean '" + beanName + "' of type [" +
-									bean.getClass().getName() + "]");
-						}
-						bean.stop();
+					countDownBeanNames.add(beanName);
+					((SmartLifecycle) bean).stop(() -> {
+						latch.countDown();
+						countDownBeanNames.remove(beanName);
 						if (logger.isDebugEnabled()) {
-							logger.debug("Successfully stopped bean '" + beanName + "'");
+							logger.debug("Bean '" + beanName + "' completed its stop procedure");
 						}
-					}
+					});
 				}
-				else if (bean instanceof SmartLifecycle) {
-					// Don't wait for beans that aren't running...
-					latch.countDown();
+				else {
+					if (logger.isTraceEnabled()) {
+						logger.trace("Stopping bean '" + beanName + "' of type [" +
+								bean.getClass().getName() + "]");
+					}
+					bean.stop();
+					if (logger.isDebugEnabled()) {
+						logger.debug("Successfully stopped bean '" + beanName + "'");
+					}
 				}
 			}
-			catch (Throwable ex) {
-				if (logger.isWarnEnabled()) {
-					logger.warn("Failed to stop bean '" + beanName + "'", ex);
-				}
+			else if (bean instanceof SmartLifecycle) {
+				// Don't wait for beans that aren't running...
+				latch.countDown();
+			}
+		}
+		catch (Throwable ex) {
+			if (logger.isWarnEnabled()) {
+				logger.warn("Failed to stop bean '" + beanName + "'", ex);
 			}
 		}
 	}
 
+	/**
+	 * Run the given action for all given beans on the given executor, each bean
+	 * only after the action for the beans that it has to wait for completed.
+	 * @param beans a Map with bean name as key and Lifecycle instance as value,
+	 * with the beans to wait for preceding the beans that wait for them
+	 * @param beansToAwait the names of the beans to wait for, per bean name
+	 * @param claimedBeanNames the names of the beans that the action has been
+	 * claimed for, either by a task or through {@link #claimPendingBeans}
+	 * @return a Map with bean name as key and the future of its action as value
+	 */
+	private Map<String, CompletableFuture<Void>> runConcurrently(Map<String, Lifecycle> beans,
+			Map<String, Set<String>> beansToAwait, BiConsumer<String, Lifecycle> action, Executor executor,
+			Set<String> claimedBeanNames) {
+
+		ApplicationStartup applicationStartup = getApplicationStartup();
+		Map<String, CompletableFuture<Void>> futures = new LinkedHashMap<>();
+		beans.forEach((beanName, bean) -> {
+			CompletableFuture<?>[] predecessors = beansToAwait.get(beanName).stream()
+					.map(futures::get).toArray(CompletableFuture[]::new);
+			futures.put(beanName, CompletableFuture.allOf(predecessors).thenRunAsync(
+					applicationStartup.decorateTask(() -> {
+						if (claimedBeanNames.add(beanName)) {
+							action.accept(beanName, bean);
+						}
+					}), executor));
+		});
+		return futures;
+	}
+
+	/**
+	 * Claim the action for all given beans whose tasks have not started yet,
+	 * so that those tasks will not run the action anymore.
+	 * @return a Map with the claimed beans, in the order of the given beans
+	 */
+	private static Map<String, Lifecycle> claimPendingBeans(Map<String, Lifecycle> beans,
+			Set<String> claimedBeanNames) {
+
+		Map<String, Lifecycle> pendingBeans = new LinkedHashMap<>();
+		beans.forEach((beanName, bean) -> {
+			if (claimedBeanNames.add(beanName)) {
+				pendingBeans.put(beanName, bean);
+			}
+		});
+		return pendingBeans;
+	}
+
+	private static List<String> getPendingBeanNames(Map<String, CompletableFuture<Void>> futures) {
+		List<String> pendingBeanNames = new ArrayList<>();
+		futures.forEach((beanName, future) -> {
+			if (!future.isDone()) {
+				pendingBeanNames.add(beanName);
+			}
+		});
+		return pendingBeanNames;
+	}
+
 
 	// overridable hooks
 
@@ -355,9 +532,68 @@ public class DefaultLifecycleProcessor implements LifecycleProcessor, BeanFactor
 			if (logger.isDebugEnabled()) {
 				logger.debug("Starting beans in phase " + this.phase);
 			}
-			Collections.sort(this.members);
+			StartupStep phaseStart = getApplicationStartup().start("spring.context.lifecycle.start")
+					.tag("phase", String.valueOf(this.phase));
+			try {
+				Collections.sort(this.members);
+				Executor executor = getTaskExecutor();
+				if (executor != null) {
+					startConcurrently(executor);
+				}
+				else {
+					for (LifecycleGroupMember member : this.members) {
+						doStart(this.lifecycleBeans, member.name, this.autoStartupOnly);
+					}
+				}
+			}
+			finally {
+				phaseStart.end();
+			}
+		}
+
+		private void startConcurrently(Executor executor) {
+			Map<String, Lifecycle> beansToStart = new LinkedHashMap<>();
+			Map<String, Set<String>> dependencies = new HashMap<>();
 			for (LifecycleGroupMember member : this.members) {
-				doStart(this.lifecycleBeans, member.name, this.autoStartupOnly);
+				collectForStart(this.lifecycleBeans, member.name, beansToStart, dependencies);
+			}
+			Set<String> claimedBeanNames = ConcurrentHashMap.newKeySet();
+			Map<String, CompletableFuture<Void>> futures = runConcurrently(beansToStart, dependencies,
+					(beanName, bean) -> doStartBean(beanName, bean, this.autoStartupOnly), executor, claimedBeanNames);
+			try {
+				CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0]))
+						.get(this.timeout, TimeUnit.MILLISECONDS);
+			}
+			catch (ExecutionException ex) {
+				// Report the first failure in start order, as a sequential start would
+				Throwable failure = ex.getCause();
+				for (CompletableFuture<Void> future : futures.values()) {
+					if (future.isCompletedExceptionally()) {
+						try {
+							future.join();
+						}
+						catch (CompletionException cex) {
+							failure = cex.getCause();
+						}
+						break;
+					}
+				}
+				if (failure instanceof ApplicationContextException) {
+					throw (ApplicationContextException) failure;
+				}
+				throw new ApplicationContextException("Failed to start beans in phase " + this.phase, failure);
+			}
+			catch (TimeoutException ex) {
+				// Beans that have not begun to start by now are not going to be started anymore
+				List<String> pendingBeanNames = getPendingBeanNames(futures);
+				claimPendingBeans(beansToStart, claimedBeanNames);
+				throw new ApplicationContextException("Failed to start beans " + pendingBeanNames +
+						" in phase " + this.phase + " within timeout of " + this.timeout + "ms");
+			}
+			catch (InterruptedException ex) {
+				claimPendingBeans(beansToStart, claimedBeanNames);
+				Thread.currentThread().interrupt();
+				throw new ApplicationContextException("Interrupted while starting beans in phase " + this.phase, ex);
 			}
 		}
 
@@ -368,13 +604,23 @@ public class DefaultLifecycleProcessor implements LifecycleProcessor, BeanFactor
 			if (logger.isDebugEnabled()) {
 				logger.debug("Stopping beans in phase " + this.phase);
 			}
+			StartupStep phaseStop = getApplicationStartup().start("spring.context.lifecycle.stop")
+					.tag("phase", String.valueOf(this.phase));
 			this.members.sort(Collections.reverseOrder());
 			CountDownLatch latch = new CountDownLatch(this.smartMemberCount);
 			Set<String> countDownBeanNames = Collections.synchronizedSet(new LinkedHashSet<>());
 			Set<String> lifecycleBeanNames = new HashSet<>(this.lifecycleBeans.keySet());
+			Executor executor = getTaskExecutor();
+			Map<String, Lifecycle> beansToStop = new LinkedHashMap<>();
+			Map<String, Set<String>> dependents = new HashMap<>();
 			for (LifecycleGroupMember member : this.members) {
 				if (lifecycleBeanNames.contains(member.name)) {
-					doStop(this.lifecycleBeans, member.name, latch, countDownBeanNames);
+					if (executor != null) {
+						collectForStop(this.lifecycleBeans, member.name, beansToStop, dependents);
+					}
+					else {
+						doStop(this.lifecycleBeans, member.name, latch, countDownBeanNames);
+					}
 				}
 				else if (member.bean instanceof SmartLifecycle) {
 					// Already removed: must have been a dependent bean from another phase
@@ -382,7 +628,22 @@ public class DefaultLifecycleProcessor implements LifecycleProcessor, BeanFactor
 				}
 			}
 			try {
-				latch.await(this.timeout, TimeUnit.MILLISECONDS);
+				long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(this.timeout);
+				if (executor != null) {
+					long startTime = System.nanoTime();
+					Set<String> claimedBeanNames = ConcurrentHashMap.newKeySet();
+					Map<String, CompletableFuture<Void>> futures = runConcurrently(beansToStop, dependents,
+							(beanName, bean) -> doStopBean(beanName, bean, latch, countDownBeanNames),
+							executor, claimedBeanNames);
+					if (!awaitConcurrentStop(futures, timeoutNanos)) {
+						// Stop the beans whose tasks have not started yet right away,
+						// rather than leaving them to be stopped at some later point
+						claimPendingBeans(beansToStop, claimedBeanNames).forEach((beanName, bean) ->
+								doStopBean(beanName, bean, latch, countDownBeanNames));
+					}
+					timeoutNanos = Math.max(timeoutNanos - (System.nanoTime() - startTime), 0);
+				}
+				latch.await(timeoutNanos, TimeUnit.NANOSECONDS);
 				if (latch.getCount() > 0 && !countDownBeanNames.isEmpty() && logger.isInfoEnabled()) {
 					logger.info("Failed to shut down " + countDownBeanNames.size() + " bean" +
 							(countDownBeanNames.size() > 1 ? "s" : "") + " with phase value " +
@@ -392,6 +653,38 @@ public class DefaultLifecycleProcessor implements LifecycleProcessor, BeanFactor
 			catch (InterruptedException ex) {
 				Thread.currentThread().interrupt();
 			}
+			finally {
+				phaseStop.end();
+			}
+		}
+
+		/**
+		 * Wait for the given stop tasks to complete.
+		 * @return {@code true} if all tasks completed within the given timeout
+		 */
+		private boolean awaitConcurrentStop(Map<String, CompletableFuture<Void>> futures, long timeoutNanos)
+				throws InterruptedException {
+
+			try {
+				CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0]))
+						.get(timeoutNanos, TimeUnit.NANOSECONDS);
+			}
+			catch (ExecutionException ex) {
+				// Not expected: stop failures are logged per bean
+				if (logger.isWarnEnabled()) {
+					logger.warn("Failed to stop beans in phase " + this.phase, ex.getCause());
+				}
+			}
+			catch (TimeoutException ex) {
+				if (logger.isInfoEnabled()) {
+					List<String> pendingBeanNames = getPendingBeanNames(futures);
+					logger.info("Failed to shut down " + pendingBeanNames.size() + " bean" +
+							(pendingBeanNames.size() > 1 ? "s" : "") + " with phase value " +
+							this.phase + " within timeout of " + this.timeout + ": " + pendingBeanNames);
+				}
+				return false;
+			}
+			return true;
 		}
 	}
 
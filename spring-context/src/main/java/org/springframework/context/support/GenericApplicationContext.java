@@ -36,6 +36,7 @@ import org.springframework.context.ApplicationContext;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.core.metrics.ApplicationStartup;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 
@@ -181,6 +182,17 @@ public class GenericApplicationContext extends AbstractApplicationContext implem
 		this.beanFactory.setAllowCircularReferences(allowCircularReferences);
 	}
 
+	/**
+	 * Set the {@code ApplicationStartup} for this context,
+	 * also applying it to the internal BeanFactory right away.
+	 * @since 5.2.7
+	 */
+	@Override
+	public void setApplicationStartup(ApplicationStartup applicationStartup) {
+		super.setApplicationStartup(applicationStartup);
+		this.beanFactory.setApplicationStartup(applicationStartup);
+	}
+
 	/**
 	 * Set a ResourceLoader to use for this context. If set, the context will
 	 * delegate all {@code getResource} calls to the given ResourceLoader.
@@ -0,0 +1,275 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.annotation;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.GenericBeanDefinition;
+import org.springframework.beans.testfixture.beans.TestBean;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.util.ClassUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Tests for {@link BeanDefinitionSnapshot}.
+ *
+ * @author Sen Hu
+ * @since 5.2.7
+ */
+class BeanDefinitionSnapshotTests {
+
+	@Test
+	void snapshotRestoresConfigurationClasses() throws Exception {
+		Resource resource = captureSnapshot(new AnnotationConfigApplicationContext());
+
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		assertThat(context.registerSnapshot(resource)).isTrue();
+		context.refresh();
+
+		assertThat(context.getBean("testBean", TestBean.class).getName()).isEqualTo("test");
+		assertThat(context.getBean("importedBean", TestBean.class).getSpouse()).isSameAs(context.getBean("testBean"));
+		assertThat(ClassUtils.isCglibProxy(context.getBean(MainConfig.class))).isTrue();
+		assertThat(context.getBean(ImportedConfig.class).importMetadata.getClassName())
+				.isEqualTo(MainConfig.class.getName());
+		context.close();
+	}
+
+	@Test
+	void snapshotWithDifferentProfilesIsNotApplied() throws Exception {
+		AnnotationConfigApplicationContext captureContext = new AnnotationConfigApplicationContext();
+		captureContext.getEnvironment().setActiveProfiles("build");
+		Resource resource = captureSnapshot(captureContext);
+
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		assertThat(context.registerSnapshot(resource)).isFalse();
+		assertThat(context.containsBeanDefinition("testBean")).isFalse();
+	}
+
+	@Test
+	void missingSnapshotIsNotApplied() {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		assertThat(context.registerSnapshot(new ClassPathResource("missing.snapshot"))).isFalse();
+	}
+
+	@Test
+	void snapshotRetainsValueTypes() throws Exception {
+		AnnotationConfigApplicationContext captureContext = new AnnotationConfigApplicationContext();
+		GenericBeanDefinition bd = new GenericBeanDefinition();
+		bd.setBeanClass(TestBean.class);
+		bd.getPropertyValues().add("age", 42).add("jedi", true).add("someLong", 7L)
+				.add("touchy", 'x').add("type", String.class).add("unit", TimeUnit.SECONDS).add("name", "test");
+		bd.setAttribute("order", 3);
+		captureContext.registerBeanDefinition("values", bd);
+		Resource resource = captureSnapshot(captureContext);
+
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		BeanDefinitionSnapshot.load(resource).registerBeanDefinitions(beanFactory, getClass().getClassLoader());
+		BeanDefinition restored = beanFactory.getBeanDefinition("values");
+		MutablePropertyValues pvs = restored.getPropertyValues();
+		assertThat(pvs.get("age")).isEqualTo(42);
+		assertThat(pvs.get("jedi")).isEqualTo(true);
+		assertThat(pvs.get("someLong")).isEqualTo(7L);
+		assertThat(pvs.get("touchy")).isEqualTo('x');
+		assertThat(pvs.get("type")).isEqualTo(String.class);
+		assertThat(pvs.get("unit")).isEqualTo(TimeUnit.SECONDS);
+		assertThat(pvs.get("name")).isEqualTo("test");
+		assertThat(restored.getAttribute("order")).isEqualTo(3);
+	}
+
+	@Test
+	void snapshotWithInvalidValueIsRejected() throws Exception {
+		String content = "bean.0.name=test\nbean.0.class=" + TestBean.class.getName() +
+				"\nbean.0.property.age=int:42\n";
+		BeanDefinitionSnapshot snapshot = BeanDefinitionSnapshot.load(
+				new ByteArrayResource(content.getBytes(StandardCharsets.ISO_8859_1)));
+
+		assertThatIllegalStateException().isThrownBy(() ->
+				snapshot.registerBeanDefinitions(new DefaultListableBeanFactory(), getClass().getClassLoader()))
+				.withMessageContaining("int:42");
+	}
+
+	@Test
+	void snapshotTracksProfileConditions() throws Exception {
+		AnnotationConfigApplicationContext captureContext = new AnnotationConfigApplicationContext();
+		captureContext.register(ProfileConfig.class);
+		BeanDefinitionSnapshot snapshot = BeanDefinitionSnapshot.capture(captureContext);
+		assertThat(snapshot.getBeanDefinitionNames()).doesNotContain("profileBean");
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		snapshot.writeTo(out);
+
+		assertThat(out.toString("ISO-8859-1")).contains(ProfileConfig.ProfileOnlyConfig.class.getName());
+	}
+
+	@Test
+	void captureRejectsCustomConditions() {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		context.register(ConditionalConfig.class);
+
+		assertThatIllegalStateException().isThrownBy(() -> BeanDefinitionSnapshot.capture(context))
+				.withMessageContaining(ConditionalConfig.NeverConfig.class.getName());
+	}
+
+	@Test
+	void captureRejectsPropertySources() {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		context.register(PropertySourceConfig.class);
+
+		assertThatIllegalStateException().isThrownBy(() -> BeanDefinitionSnapshot.capture(context))
+				.withMessageContaining("@PropertySource");
+	}
+
+	@Test
+	void captureRejectsImportSelectors() {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		context.register(ImportSelectorConfig.class);
+
+		assertThatIllegalStateException().isThrownBy(() -> BeanDefinitionSnapshot.capture(context))
+				.withMessageContaining(MainConfigImportSelector.class.getName());
+	}
+
+	@Test
+	void snapshotWithDifferentScanPlaceholderIsNotApplied() throws Exception {
+		AnnotationConfigApplicationContext captureContext = new AnnotationConfigApplicationContext();
+		captureContext.register(PlaceholderScanConfig.class);
+		Resource resource = captureSnapshot(captureContext);
+
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		assertThat(BeanDefinitionSnapshot.load(resource).isUpToDate(context.getEnvironment(), context)).isTrue();
+		String otherPackage = "org.springframework.context.annotation.componentscan.level1";
+		context.getEnvironment().getPropertySources().addFirst(
+				new MapPropertySource("scan", Collections.singletonMap("snapshot.scan", otherPackage)));
+		assertThat(context.registerSnapshot(resource)).isFalse();
+	}
+
+	private Resource captureSnapshot(AnnotationConfigApplicationContext context) throws Exception {
+		context.register(MainConfig.class);
+		BeanDefinitionSnapshot snapshot = BeanDefinitionSnapshot.capture(context);
+		assertThat(snapshot.getBeanDefinitionNames()).contains("testBean", "importedBean");
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		snapshot.writeTo(out);
+		return new ByteArrayResource(out.toByteArray());
+	}
+
+
+	@Configuration
+	@Import(ImportedConfig.class)
+	static class MainConfig {
+
+		@Bean
+		public TestBean testBean() {
+			return new TestBean("test");
+		}
+	}
+
+
+	@Configuration
+	static class ImportedConfig implements ImportAware {
+
+		AnnotationMetadata importMetadata;
+
+		@Override
+		public void setImportMetadata(AnnotationMetadata importMetadata) {
+			this.importMetadata = importMetadata;
+		}
+
+		@Bean
+		public TestBean importedBean(TestBean testBean) {
+			TestBean bean = new TestBean("imported");
+			bean.setSpouse(testBean);
+			return bean;
+		}
+	}
+
+
+	@Configuration
+	@Import(MainConfig.class)
+	static class ProfileConfig {
+
+		@Configuration
+		@Profile("never")
+		static class ProfileOnlyConfig {
+
+			@Bean
+			public TestBean profileBean() {
+				return new TestBean();
+			}
+		}
+	}
+
+
+	@Configuration
+	@Import(MainConfig.class)
+	static class ConditionalConfig {
+
+		@Configuration
+		@Conditional(NeverCondition.class)
+		static class NeverConfig {
+		}
+	}
+
+
+	@Configuration
+	@PropertySource("classpath:org/springframework/context/annotation/p1.properties")
+	static class PropertySourceConfig {
+	}
+
+
+	@Configuration
+	@Import(MainConfigImportSelector.class)
+	static class ImportSelectorConfig {
+	}
+
+
+	@Configuration
+	@ComponentScan("${snapshot.scan:org.springframework.context.annotation.componentscan.simple}")
+	static class PlaceholderScanConfig {
+	}
+
+
+	static class MainConfigImportSelector implements ImportSelector {
+
+		@Override
+		public String[] selectImports(AnnotationMetadata importingClassMetadata) {
+			return new String[] {MainConfig.class.getName()};
+		}
+	}
+
+
+	static class NeverCondition implements Condition {
+
+		@Override
+		public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+			return false;
+		}
+	}
+
+}
@@ -18,8 +18,13 @@ package org.springframework.context.annotation;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import example.gh24375.AnnotatedComponent;
 import example.profilescan.DevComponent;
@@ -50,6 +55,7 @@ import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.core.type.filter.AnnotationTypeFilter;
 import org.springframework.core.type.filter.AssignableTypeFilter;
 import org.springframework.core.type.filter.RegexPatternTypeFilter;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.stereotype.Controller;
 import org.springframework.stereotype.Repository;
@@ -502,6 +508,67 @@ public class ClassPathScanningCandidateComponentProviderTests {
 		assertThat(components.iterator().next().getBeanClassName()).isEqualTo(AnnotatedComponent.class.getName());
 	}
 
+	@Test
+	public void parallelScanningPreservesCandidateOrder() {
+		ClassPathScanningCandidateComponentProvider provider = new ClassPathScanningCandidateComponentProvider(false);
+		provider.addIncludeFilter(new RegexPatternTypeFilter(Pattern.compile(".*Tests")));
+		List<String> sequential = beanClassNames(provider.findCandidateComponents("org.springframework.context"));
+		provider.clearCache();
+		provider.setParallelScanning(true);
+		List<String> parallel = beanClassNames(provider.findCandidateComponents("org.springframework.context"));
+		assertThat(sequential).isNotEmpty();
+		assertThat(parallel).isEqualTo(sequential);
+	}
+
+	@Test
+	public void parallelScanningRunsOnScanningExecutorWithContextClassLoader() {
+		ExecutorService executor = Executors.newFixedThreadPool(2, new CustomizableThreadFactory("test-scanning-"));
+		ClassLoader contextClassLoader = new ClassLoader(getClass().getClassLoader()) {};
+		Set<String> threadNames = ConcurrentHashMap.newKeySet();
+		Set<ClassLoader> contextClassLoaders = ConcurrentHashMap.newKeySet();
+		ClassPathScanningCandidateComponentProvider provider = new ClassPathScanningCandidateComponentProvider(false);
+		provider.addIncludeFilter((metadataReader, metadataReaderFactory) -> {
+			threadNames.add(Thread.currentThread().getName());
+			contextClassLoaders.add(Thread.currentThread().getContextClassLoader());
+			return metadataReader.getClassMetadata().getClassName().endsWith("Tests");
+		});
+		provider.setScanningExecutor(executor);
+		assertThat(provider.isParallelScanning()).isTrue();
+		Thread currentThread = Thread.currentThread();
+		ClassLoader previousClassLoader = currentThread.getContextClassLoader();
+		currentThread.setContextClassLoader(contextClassLoader);
+		try {
+			assertThat(provider.findCandidateComponents("org.springframework.context")).isNotEmpty();
+		}
+		finally {
+			currentThread.setContextClassLoader(previousClassLoader);
+			executor.shutdown();
+		}
+		assertThat(threadNames).isNotEmpty().allMatch(name -> name.startsWith("test-scanning-"));
+		assertThat(contextClassLoaders).containsExactly(contextClassLoader);
+	}
+
+	@Test
+	public void parallelScanningCanBeSwitchedOffWithScanningExecutor() {
+		ExecutorService executor = Executors.newFixedThreadPool(2, new CustomizableThreadFactory("test-scanning-"));
+		Set<Thread> threads = ConcurrentHashMap.newKeySet();
+		ClassPathScanningCandidateComponentProvider provider = new ClassPathScanningCandidateComponentProvider(false);
+		provider.addIncludeFilter((metadataReader, metadataReaderFactory) -> {
+			threads.add(Thread.currentThread());
+			return metadataReader.getClassMetadata().getClassName().endsWith("Tests");
+		});
+		provider.setScanningExecutor(executor);
+		provider.setParallelScanning(false);
+		assertThat(provider.isParallelScanning()).isFalse();
+		try {
+			assertThat(provider.findCandidateComponents("org.springframework.context")).isNotEmpty();
+		}
+		finally {
+			executor.shutdown();
+		}
+		assertThat(threads).containsExactly(Thread.currentThread());
+	}
+
 
 	private boolean containsBeanClass(Set<BeanDefinition> candidates, Class<?> beanClass) {
 		for (BeanDefinition candidate : candidates) {
@@ -512,6 +579,10 @@ public class ClassPathScanningCandidateComponentProviderTests {
 		return false;
 	}
 
+	private List<String> beanClassNames(Set<BeanDefinition> candidates) {
+		return candidates.stream().map(BeanDefinition::getBeanClassName).collect(Collectors.toList());
+	}
+
 	private void assertBeanDefinitionType(Set<BeanDefinition> candidates) {
 		candidates.forEach(c ->
 			assertThat(c).isInstanceOf(ScannedGenericBeanDefinition.class)
@@ -40,6 +40,7 @@ import org.springframework.beans.factory.BeanDefinitionStoreException;
 import org.springframework.beans.factory.FactoryBean;
 import org.springframework.beans.factory.NoSuchBeanDefinitionException;
 import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.AutowiredAnnotationBeanPostProcessor;
 import org.springframework.beans.factory.annotation.Lookup;
@@ -57,11 +58,15 @@ import org.springframework.beans.testfixture.beans.ITestBean;
 import org.springframework.beans.testfixture.beans.TestBean;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.componentscan.simple.SimpleComponent;
+import org.springframework.context.testfixture.index.CandidateComponentsTestClassLoader;
 import org.springframework.core.ResolvableType;
 import org.springframework.core.annotation.Order;
 import org.springframework.core.env.ConfigurableEnvironment;
 import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.core.io.DescriptiveResource;
+import org.springframework.core.type.StandardAnnotationMetadata;
 import org.springframework.stereotype.Component;
 import org.springframework.util.Assert;
 import org.springframework.util.ObjectUtils;
@@ -1096,6 +1101,22 @@ public class ConfigurationClassPostProcessorTests {
 		assertThat(condition).isTrue();
 	}
 
+	@Test
+	public void importsAreRetrievedFromComponentsIndex() {
+		// The index deliberately lists imports that the configuration class does not declare
+		ClassLoader classLoader = CandidateComponentsTestClassLoader.index(getClass().getClassLoader(),
+				new ClassPathResource("configurationClassIndex.components", getClass()));
+		beanFactory.registerBeanDefinition("config", new RootBeanDefinition(IndexedConfiguration.class));
+		ConfigurationClassPostProcessor pp = new ConfigurationClassPostProcessor();
+		pp.setResourceLoader(new DefaultResourceLoader(classLoader));
+		pp.postProcessBeanDefinitionRegistry(beanFactory);
+
+		assertThat(beanFactory.containsBeanDefinition(IndexedImport.class.getName())).isTrue();
+		assertThat(beanFactory.containsBeanDefinition(IndexedMetaImport.class.getName())).isTrue();
+		BeanDefinition bd = beanFactory.getBeanDefinition(IndexedImport.class.getName());
+		assertThat(((AnnotatedBeanDefinition) bd).getMetadata()).isInstanceOf(StandardAnnotationMetadata.class);
+	}
+
 
 	// -------------------------------------------------------------------------
 
@@ -1985,4 +2006,20 @@ public class ConfigurationClassPostProcessorTests {
 		}
 	}
 
+
+	@Configuration
+	static class IndexedConfiguration {
+	}
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Import(IndexedMetaImport.class)
+	@interface EnableIndexedImport {
+	}
+
+	static class IndexedImport {
+	}
+
+	static class IndexedMetaImport {
+	}
+
 }
@@ -76,6 +76,19 @@ public class CandidateComponentsIndexTests {
 				.contains("com.example.Foo");
 	}
 
+	@Test
+	public void getConfigurationMetadata() {
+		CandidateComponentsIndex index = new CandidateComponentsIndex(Collections.singletonList(createProperties(
+				"com.example.Config", "component,beanMethods:one()|two(com.example.One;int)," +
+						"imports:@com.example.Enable|com.example.Other|com.example.Another")));
+		assertThat(index.getBeanMethods("com.example.Config")).containsExactly("one()", "two(com.example.One;int)");
+		assertThat(index.getImports("com.example.Config"))
+				.containsExactly("@com.example.Enable", "com.example.Other", "com.example.Another");
+		assertThat(index.getCandidateTypes("com.example", "component")).containsExactly("com.example.Config");
+		assertThat(index.getBeanMethods("com.example.Other")).isNull();
+		assertThat(index.getImports("com.example.Other")).isNull();
+	}
+
 	private static Properties createProperties(String key, String stereotypes) {
 		Properties properties = new Properties();
 		properties.put(key, String.join(",", stereotypes));
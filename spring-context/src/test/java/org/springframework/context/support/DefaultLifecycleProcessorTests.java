@@ -17,6 +17,12 @@
 package org.springframework.context.support;
 
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.Test;
 
@@ -24,12 +30,14 @@ import org.springframework.beans.DirectFieldAccessor;
 import org.springframework.beans.factory.FactoryBean;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.ApplicationContextException;
 import org.springframework.context.Lifecycle;
 import org.springframework.context.LifecycleProcessor;
 import org.springframework.context.SmartLifecycle;
 import org.springframework.core.testfixture.EnabledForTestGroups;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.springframework.core.testfixture.TestGroup.PERFORMANCE;
 
 /**
@@ -563,12 +571,169 @@ public class DefaultLifecycleProcessorTests {
 		assertThat(getPhase(stoppedBeans.get(4))).isEqualTo(Integer.MIN_VALUE);
 	}
 
+	@Test
+	public void concurrentStartupHonorsDependenciesAndPhases() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		CopyOnWriteArrayList<Lifecycle> startedBeans = new CopyOnWriteArrayList<>();
+		TestSmartLifecycleBean bean1 = TestSmartLifecycleBean.forStartupTests(1, startedBeans);
+		TestSmartLifecycleBean bean1Dependent = TestSmartLifecycleBean.forStartupTests(1, startedBeans);
+		TestSmartLifecycleBean bean2 = TestSmartLifecycleBean.forStartupTests(2, startedBeans);
+		StaticApplicationContext context = new StaticApplicationContext();
+		context.registerBeanDefinition("lifecycleProcessor", concurrentLifecycleProcessor(executor));
+		context.getBeanFactory().registerSingleton("bean2", bean2);
+		context.getBeanFactory().registerSingleton("bean1Dependent", bean1Dependent);
+		context.getBeanFactory().registerSingleton("bean1", bean1);
+		context.getBeanFactory().registerDependentBean("bean1", "bean1Dependent");
+		context.refresh();
+		assertThat(bean1.isRunning()).isTrue();
+		assertThat(bean1Dependent.isRunning()).isTrue();
+		assertThat(bean2.isRunning()).isTrue();
+		assertThat(startedBeans).containsExactly(bean1, bean1Dependent, bean2);
+		context.close();
+		executor.shutdown();
+	}
+
+	@Test
+	public void concurrentShutdownHonorsDependenciesAndPhases() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		CopyOnWriteArrayList<Lifecycle> stoppedBeans = new CopyOnWriteArrayList<>();
+		TestSmartLifecycleBean bean1 = TestSmartLifecycleBean.forShutdownTests(1, 50, stoppedBeans);
+		TestSmartLifecycleBean bean2 = TestSmartLifecycleBean.forShutdownTests(2, 50, stoppedBeans);
+		TestSmartLifecycleBean bean2Dependent = TestSmartLifecycleBean.forShutdownTests(2, 50, stoppedBeans);
+		StaticApplicationContext context = new StaticApplicationContext();
+		context.registerBeanDefinition("lifecycleProcessor", concurrentLifecycleProcessor(executor));
+		context.getBeanFactory().registerSingleton("bean1", bean1);
+		context.getBeanFactory().registerSingleton("bean2", bean2);
+		context.getBeanFactory().registerSingleton("bean2Dependent", bean2Dependent);
+		context.getBeanFactory().registerDependentBean("bean2", "bean2Dependent");
+		context.refresh();
+		context.stop();
+		assertThat(bean1.isRunning()).isFalse();
+		assertThat(bean2.isRunning()).isFalse();
+		assertThat(bean2Dependent.isRunning()).isFalse();
+		assertThat(stoppedBeans).containsExactly(bean2Dependent, bean2, bean1);
+		context.close();
+		executor.shutdown();
+	}
+
+	@Test
+	public void concurrentStartupStartsBeansInParallel() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		// Each start only completes once both beans are starting at the same time
+		CyclicBarrier barrier = new CyclicBarrier(2);
+		ConcurrentLifecycleBean bean1 = new ConcurrentLifecycleBean(awaiting(barrier), () -> {});
+		ConcurrentLifecycleBean bean2 = new ConcurrentLifecycleBean(awaiting(barrier), () -> {});
+		StaticApplicationContext context = new StaticApplicationContext();
+		context.registerBeanDefinition("lifecycleProcessor", concurrentLifecycleProcessor(executor));
+		context.getBeanFactory().registerSingleton("bean1", bean1);
+		context.getBeanFactory().registerSingleton("bean2", bean2);
+		context.refresh();
+		assertThat(bean1.isRunning()).isTrue();
+		assertThat(bean2.isRunning()).isTrue();
+		context.close();
+		executor.shutdown();
+	}
+
+	@Test
+	public void concurrentShutdownStopsBeansInParallel() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		CyclicBarrier barrier = new CyclicBarrier(2);
+		ConcurrentLifecycleBean bean1 = new ConcurrentLifecycleBean(() -> {}, awaiting(barrier));
+		ConcurrentLifecycleBean bean2 = new ConcurrentLifecycleBean(() -> {}, awaiting(barrier));
+		StaticApplicationContext context = new StaticApplicationContext();
+		context.registerBeanDefinition("lifecycleProcessor", concurrentLifecycleProcessor(executor));
+		context.getBeanFactory().registerSingleton("bean1", bean1);
+		context.getBeanFactory().registerSingleton("bean2", bean2);
+		context.refresh();
+		context.stop();
+		assertThat(bean1.isRunning()).isFalse();
+		assertThat(bean2.isRunning()).isFalse();
+		assertThat(bean1.stoppingThread).isNotSameAs(bean2.stoppingThread);
+		context.close();
+		executor.shutdown();
+	}
+
+	@Test
+	public void concurrentStartupTimeoutDoesNotStartPendingBeansAnymore() throws Exception {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		CountDownLatch release = new CountDownLatch(1);
+		ConcurrentLifecycleBean slowBean = new ConcurrentLifecycleBean(awaiting(release), () -> {});
+		ConcurrentLifecycleBean pendingBean = new ConcurrentLifecycleBean(() -> {}, () -> {});
+		BeanDefinition lifecycleProcessor = concurrentLifecycleProcessor(executor);
+		lifecycleProcessor.getPropertyValues().addPropertyValue("timeoutPerStartupPhase", 100);
+		StaticApplicationContext context = new StaticApplicationContext();
+		context.registerBeanDefinition("lifecycleProcessor", lifecycleProcessor);
+		context.getBeanFactory().registerSingleton("slowBean", slowBean);
+		context.getBeanFactory().registerSingleton("pendingBean", pendingBean);
+		assertThatExceptionOfType(ApplicationContextException.class).isThrownBy(context::refresh)
+				.withMessageContaining("within timeout of 100ms");
+		release.countDown();
+		executor.shutdown();
+		assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(slowBean.isRunning()).isTrue();
+		assertThat(pendingBean.isRunning()).isFalse();
+	}
+
+	@Test
+	public void concurrentShutdownTimeoutStopsPendingBeansRightAway() throws Exception {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		CountDownLatch release = new CountDownLatch(1);
+		ConcurrentLifecycleBean slowBean = new ConcurrentLifecycleBean(() -> {}, awaiting(release));
+		ConcurrentLifecycleBean pendingBean = new ConcurrentLifecycleBean(() -> {}, () -> {});
+		BeanDefinition lifecycleProcessor = concurrentLifecycleProcessor(executor);
+		lifecycleProcessor.getPropertyValues().addPropertyValue("timeoutPerShutdownPhase", 100);
+		StaticApplicationContext context = new StaticApplicationContext();
+		context.registerBeanDefinition("lifecycleProcessor", lifecycleProcessor);
+		context.getBeanFactory().registerSingleton("slowBean", slowBean);
+		context.getBeanFactory().registerSingleton("pendingBean", pendingBean);
+		context.refresh();
+		context.stop();
+		assertThat(slowBean.isRunning()).isTrue();
+		assertThat(pendingBean.isRunning()).isFalse();
+		assertThat(pendingBean.stoppingThread).isSameAs(Thread.currentThread());
+		release.countDown();
+		executor.shutdown();
+		assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(slowBean.isRunning()).isFalse();
+		assertThat(pendingBean.stopCount.get()).isEqualTo(1);
+		context.close();
+	}
+
+	private static BeanDefinition concurrentLifecycleProcessor(ExecutorService executor) {
+		BeanDefinition beanDefinition = new RootBeanDefinition(DefaultLifecycleProcessor.class);
+		beanDefinition.getPropertyValues().addPropertyValue("taskExecutor", executor);
+		beanDefinition.getPropertyValues().addPropertyValue("timeoutPerStartupPhase", 10000);
+		return beanDefinition;
+	}
+
 
 	private static int getPhase(Lifecycle lifecycle) {
 		return (lifecycle instanceof SmartLifecycle) ?
 				((SmartLifecycle) lifecycle).getPhase() : 0;
 	}
 
+	private static Runnable awaiting(CountDownLatch latch) {
+		return () -> {
+			try {
+				latch.await(5, TimeUnit.SECONDS);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+		};
+	}
+
+	private static Runnable awaiting(CyclicBarrier barrier) {
+		return () -> {
+			try {
+				barrier.await(5, TimeUnit.SECONDS);
+			}
+			catch (Exception ex) {
+				throw new IllegalStateException("Not run concurrently", ex);
+			}
+		};
+	}
+
 
 	private static class TestLifecycleBean implements Lifecycle {
 
@@ -672,6 +837,44 @@ public class DefaultLifecycleProcessorTests {
 	}
 
 
+	private static class ConcurrentLifecycleBean implements SmartLifecycle {
+
+		private final Runnable startAction;
+
+		private final Runnable stopAction;
+
+		private final AtomicInteger stopCount = new AtomicInteger();
+
+		private volatile Thread stoppingThread;
+
+		private volatile boolean running;
+
+		ConcurrentLifecycleBean(Runnable startAction, Runnable stopAction) {
+			this.startAction = startAction;
+			this.stopAction = stopAction;
+		}
+
+		@Override
+		public void start() {
+			this.startAction.run();
+			this.running = true;
+		}
+
+		@Override
+		public void stop() {
+			this.stoppingThread = Thread.currentThread();
+			this.stopCount.incrementAndGet();
+			this.stopAction.run();
+			this.running = false;
+		}
+
+		@Override
+		public boolean isRunning() {
+			return this.running;
+		}
+	}
+
+
 	public static class DummySmartLifecycleBean implements SmartLifecycle {
 
 		public boolean running = false;
@@ -16,6 +16,8 @@
 
 package org.springframework.context.support;
 
+import java.util.List;
+
 import org.junit.jupiter.api.Test;
 
 import org.springframework.beans.factory.NoUniqueBeanDefinitionException;
@@ -23,6 +25,9 @@ import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.support.RootBeanDefinition;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
+import org.springframework.core.metrics.BufferingApplicationStartup;
+import org.springframework.core.metrics.BufferingApplicationStartup.BufferedStartupStep;
+import org.springframework.core.metrics.StartupStep;
 import org.springframework.util.ObjectUtils;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -185,6 +190,28 @@ public class GenericApplicationContextTests {
 		assertThat(context.getBean("b", BeanB.class).applicationContext).isSameAs(context);
 	}
 
+	@Test
+	public void applicationStartupRecordsRefreshAndBeanCreation() {
+		BufferingApplicationStartup applicationStartup = new BufferingApplicationStartup(100);
+		GenericApplicationContext context = new GenericApplicationContext();
+		context.setApplicationStartup(applicationStartup);
+		context.registerBean("b", BeanB.class, BeanB::new);
+		context.refresh();
+
+		assertThat(context.getBeanFactory().getApplicationStartup()).isSameAs(applicationStartup);
+		List<BufferedStartupStep> steps = applicationStartup.getBufferedSteps();
+		BufferedStartupStep refresh = steps.get(steps.size() - 1);
+		assertThat(refresh.getName()).isEqualTo("spring.context.refresh");
+		assertThat(steps).anySatisfy(step -> {
+			assertThat(step.getName()).isEqualTo("spring.beans.instantiate");
+			StartupStep.Tag tag = step.getTags().iterator().next();
+			assertThat(tag.getKey()).isEqualTo("beanName");
+			assertThat(tag.getValue()).isEqualTo("b");
+			assertThat(step.getParentId()).isEqualTo(refresh.getId());
+		});
+		context.close();
+	}
+
 	@Test
 	public void individualBeanWithNullReturningSupplier() {
 		GenericApplicationContext context = new GenericApplicationContext();
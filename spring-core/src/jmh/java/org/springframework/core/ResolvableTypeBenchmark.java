@@ -0,0 +1,93 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for {@link ResolvableType} creation and generics resolution.
+ *
+ * @author Sen Hu
+ */
+@BenchmarkMode(Mode.Throughput)
+public class ResolvableTypeBenchmark {
+
+	@Benchmark
+	public void forClass(Blackhole bh) {
+		bh.consume(ResolvableType.forClass(StringListMap.class));
+	}
+
+	@Benchmark
+	public void forClassAsMapResolveGenerics(Blackhole bh) {
+		ResolvableType type = ResolvableType.forClass(StringListMap.class).asMap();
+		bh.consume(type.resolveGenerics());
+	}
+
+	@Benchmark
+	public void forMethodParameter(MethodData data, Blackhole bh) {
+		bh.consume(ResolvableType.forMethodParameter(data.parameter));
+	}
+
+	@Benchmark
+	public void forMethodParameterResolveGeneric(MethodData data, Blackhole bh) {
+		bh.consume(ResolvableType.forMethodParameter(data.parameter).resolveGeneric(1, 0));
+	}
+
+	@Benchmark
+	public void forMethodReturnType(MethodData data, Blackhole bh) {
+		bh.consume(ResolvableType.forMethodReturnType(data.method));
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class MethodData {
+
+		public Method method;
+
+		public MethodParameter parameter;
+
+		@Setup(Level.Trial)
+		public void setup() throws NoSuchMethodException {
+			this.method = Handler.class.getMethod("handle", Map.class);
+			this.parameter = new MethodParameter(this.method, 0);
+		}
+	}
+
+
+	@SuppressWarnings("serial")
+	static class StringListMap extends HashMap<String, List<Integer>> {
+	}
+
+
+	interface Handler {
+
+		List<String> handle(Map<String, List<Integer>> input);
+	}
+
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.lang.reflect.Method;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.core.annotation.MergedAnnotations.SearchStrategy;
+
+/**
+ * Benchmarks for {@link MergedAnnotations#from} lookups on types and methods,
+ * including meta-annotations, {@link AliasFor @AliasFor} attributes and
+ * inherited annotations.
+ *
+ * @author Sen Hu
+ */
+@BenchmarkMode(Mode.Throughput)
+public class MergedAnnotationsBenchmark {
+
+	@Benchmark
+	public void typeDirect(Blackhole bh) {
+		MergedAnnotations annotations = MergedAnnotations.from(AnnotatedController.class);
+		bh.consume(annotations.get(Mapping.class).getString("path"));
+	}
+
+	@Benchmark
+	public void typeHierarchy(Blackhole bh) {
+		MergedAnnotations annotations = MergedAnnotations.from(AnnotatedController.class, SearchStrategy.TYPE_HIERARCHY);
+		bh.consume(annotations.isPresent(Marker.class));
+	}
+
+	@Benchmark
+	public void methodHierarchy(MethodData data, Blackhole bh) {
+		MergedAnnotations annotations = MergedAnnotations.from(data.method, SearchStrategy.TYPE_HIERARCHY);
+		bh.consume(annotations.get(Mapping.class).getString("value"));
+	}
+
+	@Benchmark
+	public void methodNotAnnotated(MethodData data, Blackhole bh) {
+		MergedAnnotations annotations = MergedAnnotations.from(data.plainMethod, SearchStrategy.TYPE_HIERARCHY);
+		bh.consume(annotations.isPresent(Mapping.class));
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class MethodData {
+
+		public Method method;
+
+		public Method plainMethod;
+
+		@Setup(Level.Trial)
+		public void setup() throws NoSuchMethodException {
+			this.method = AnnotatedController.class.getMethod("handle");
+			this.plainMethod = AnnotatedController.class.getMethod("toString");
+		}
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({ElementType.TYPE, ElementType.METHOD, ElementType.ANNOTATION_TYPE})
+	@interface Mapping {
+
+		@AliasFor("path")
+		String value() default "";
+
+		@AliasFor("value")
+		String path() default "";
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({ElementType.TYPE, ElementType.METHOD})
+	@Mapping
+	@interface GetMapping {
+
+		@AliasFor(annotation = Mapping.class)
+		String value() default "";
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target(ElementType.TYPE)
+	@interface Marker {
+	}
+
+
+	@Marker
+	interface ControllerApi {
+
+		@GetMapping("/handle")
+		String handle();
+	}
+
+
+	@Mapping(path = "/api")
+	static class AnnotatedController implements ControllerApi {
+
+		@Override
+		public String handle() {
+			return "handled";
+		}
+	}
+
+}
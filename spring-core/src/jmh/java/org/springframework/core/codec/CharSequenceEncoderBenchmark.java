@@ -0,0 +1,90 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.codec;
+
+import java.nio.charset.Charset;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.util.MimeType;
+
+/**
+ * Benchmarks for {@link CharSequenceEncoder#encodeValue} as used by
+ * text/plain and line-delimited streaming responses.
+ *
+ * @author Sen Hu
+ */
+@BenchmarkMode(Mode.Throughput)
+public class CharSequenceEncoderBenchmark {
+
+	@Benchmark
+	public void encodeValue(EncodeData data, Blackhole bh) {
+		DataBuffer buffer = data.encoder.encodeValue(data.value, data.bufferFactory,
+				data.valueType, data.mimeType, null);
+		bh.consume(buffer.readableByteCount());
+		DataBufferUtils.release(buffer);
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class EncodeData {
+
+		@Param({"UTF-8", "ISO-8859-1", "UTF-16"})
+		public String charset;
+
+		@Param({"ascii", "unicode"})
+		public String content;
+
+		@Param({"64", "4096"})
+		public int length;
+
+		public CharSequenceEncoder encoder = CharSequenceEncoder.allMimeTypes();
+
+		public DataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+		public ResolvableType valueType = ResolvableType.forClass(String.class);
+
+		public MimeType mimeType;
+
+		public String value;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.mimeType = new MimeType("text", "plain", Charset.forName(this.charset));
+			String alphabet = ("ascii".equals(this.content) ? "abcdefghijklmnopqrstuvwxyz" : "abcäöü你好");
+			StringBuilder builder = new StringBuilder(this.length);
+			while (builder.length() < this.length) {
+				builder.append(alphabet.charAt(builder.length() % alphabet.length()));
+			}
+			this.value = builder.toString();
+		}
+	}
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.convert.support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.core.convert.TypeDescriptor;
+
+/**
+ * Benchmarks for {@link GenericConversionService#convert} with scalar values
+ * and with collections that require element conversion.
+ *
+ * @author Sen Hu
+ */
+@BenchmarkMode(Mode.Throughput)
+public class GenericConversionServiceBenchmark {
+
+	@Benchmark
+	public void convertStringToInteger(ConversionData data, Blackhole bh) {
+		for (String source : data.source) {
+			bh.consume(data.conversionService.convert(source, Integer.class));
+		}
+	}
+
+	@Benchmark
+	public void convertListOfStringToListOfInteger(ConversionData data, Blackhole bh) {
+		bh.consume(data.conversionService.convert(data.source, data.sourceType, data.targetType));
+	}
+
+	@Benchmark
+	public void convertListOfStringToSetOfInteger(ConversionData data, Blackhole bh) {
+		bh.consume(data.conversionService.convert(data.source, data.sourceType, data.setTargetType));
+	}
+
+	@Benchmark
+	public void convertStringArrayToListOfInteger(ConversionData data, Blackhole bh) {
+		bh.consume(data.conversionService.convert(data.sourceArray, data.arraySourceType, data.targetType));
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class ConversionData {
+
+		@Param({"10", "1000"})
+		public int size;
+
+		public GenericConversionService conversionService = new DefaultConversionService();
+
+		public List<String> source;
+
+		public String[] sourceArray;
+
+		public TypeDescriptor sourceType;
+
+		public TypeDescriptor arraySourceType;
+
+		public TypeDescriptor targetType;
+
+		public TypeDescriptor setTargetType;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.source = new ArrayList<>(this.size);
+			for (int i = 0; i < this.size; i++) {
+				this.source.add(String.valueOf(i));
+			}
+			this.sourceArray = this.source.toArray(new String[0]);
+			this.sourceType = TypeDescriptor.collection(List.class, TypeDescriptor.valueOf(String.class));
+			this.arraySourceType = TypeDescriptor.valueOf(String[].class);
+			this.targetType = TypeDescriptor.collection(List.class, TypeDescriptor.valueOf(Integer.class));
+			this.setTargetType = TypeDescriptor.collection(Set.class, TypeDescriptor.valueOf(Integer.class));
+		}
+	}
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+
+/**
+ * Benchmarks for {@link DataBufferUtils#join} aggregating many small chunks,
+ * as done by decoders for non-streaming payloads.
+ *
+ * @author Sen Hu
+ */
+@BenchmarkMode(Mode.Throughput)
+public class DataBufferUtilsBenchmark {
+
+	@Benchmark
+	public void join(JoinData data, Blackhole bh) {
+		DataBuffer joined = DataBufferUtils.join(Flux.fromIterable(data.createChunks())).block();
+		bh.consume(joined.readableByteCount());
+		DataBufferUtils.release(joined);
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class JoinData {
+
+		@Param({"16", "256"})
+		public int chunkCount;
+
+		@Param({"64", "8192"})
+		public int chunkSize;
+
+		public DataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+		public byte[] chunk;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			StringBuilder builder = new StringBuilder(this.chunkSize);
+			while (builder.length() < this.chunkSize) {
+				builder.append((char) ('a' + builder.length() % 26));
+			}
+			this.chunk = builder.substring(0, this.chunkSize).getBytes(StandardCharsets.US_ASCII);
+		}
+
+		public List<DataBuffer> createChunks() {
+			List<DataBuffer> chunks = new ArrayList<>(this.chunkCount);
+			for (int i = 0; i < this.chunkCount; i++) {
+				chunks.add(this.bufferFactory.wrap(this.chunk));
+			}
+			return chunks;
+		}
+	}
+
+}
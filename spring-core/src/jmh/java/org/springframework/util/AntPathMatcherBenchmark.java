@@ -0,0 +1,81 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for {@link AntPathMatcher}, matching typical request paths
+ * against a set of Ant-style patterns as done by request mappings.
+ *
+ * @author Sen Hu
+ */
+@BenchmarkMode(Mode.Throughput)
+public class AntPathMatcherBenchmark {
+
+	@Benchmark
+	public void matchAllPatterns(PatternsData data, Blackhole bh) {
+		for (String path : data.requestPaths) {
+			for (String pattern : data.patterns) {
+				bh.consume(data.pathMatcher.match(pattern, path));
+			}
+		}
+	}
+
+	@Benchmark
+	public void extractUriTemplateVariables(PatternsData data, Blackhole bh) {
+		for (String path : data.templatePaths) {
+			bh.consume(data.pathMatcher.extractUriTemplateVariables("/api/{version}/users/{id}", path));
+		}
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class PatternsData {
+
+		public AntPathMatcher pathMatcher;
+
+		public List<String> patterns = Arrays.asList(
+				"/", "/spring", "/spring/{project}", "/spring/{project}/docs/**",
+				"/spring/*/docs/{version}/*.html", "/static/**/*.{js,css}",
+				"/api/{version:v[0-9]+}/users/{id}", "/**/favicon.ico");
+
+		public List<String> requestPaths = Arrays.asList(
+				"/", "/spring", "/spring/framework", "/spring/framework/docs/current/index.html",
+				"/static/js/vendor/app.js", "/api/v1/users/42", "/api/latest/users/42",
+				"/images/favicon.ico");
+
+		public List<String> templatePaths = Arrays.asList(
+				"/api/v1/users/42", "/api/v2/users/spring", "/api/latest/users/1");
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.pathMatcher = new AntPathMatcher();
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -94,6 +94,9 @@ public class ResolvableType implements Serializable {
 	private static final ConcurrentReferenceHashMap<ResolvableType, ResolvableType> cache =
 			new ConcurrentReferenceHashMap<>(256);
 
+	private static final ConcurrentReferenceHashMap<Class<?>, ResolvableType> classCache =
+			new ConcurrentReferenceHashMap<>(256);
+
 
 	/**
 	 * The underlying Java type being managed.
@@ -125,13 +128,26 @@ public class ResolvableType implements Serializable {
 	private Class<?> resolved;
 
 	@Nullable
-	private volatile ResolvableType superType;
+	private transient volatile ResolvableType superType;
 
 	@Nullable
-	private volatile ResolvableType[] interfaces;
+	private transient volatile ResolvableType[] interfaces;
 
 	@Nullable
-	private volatile ResolvableType[] generics;
+	private transient volatile ResolvableType[] generics;
+
+	/**
+	 * The canonical cached instance that this type is equal to, if any,
+	 * sharing its lazily resolved supertype, interfaces and generics.
+	 */
+	@Nullable
+	private transient ResolvableType canonicalType;
+
+	/**
+	 * The result of the most recent {@link #as(Class)} lookup that found a match.
+	 */
+	@Nullable
+	private transient volatile ResolvableType asType;
 
 
 	/**
@@ -447,13 +463,22 @@ public class ResolvableType implements Serializable {
 		if (resolved == null || resolved == type) {
 			return this;
 		}
+		ResolvableType asType = this.asType;
+		if (asType != null && asType.resolved == type) {
+			return asType;
+		}
 		for (ResolvableType interfaceType : getInterfaces()) {
 			ResolvableType interfaceAsType = interfaceType.as(type);
 			if (interfaceAsType != NONE) {
+				this.asType = interfaceAsType;
 				return interfaceAsType;
 			}
 		}
-		return getSuperType().as(type);
+		asType = getSuperType().as(type);
+		if (asType != NONE) {
+			this.asType = asType;
+		}
+		return asType;
 	}
 
 	/**
@@ -469,7 +494,8 @@ public class ResolvableType implements Serializable {
 		}
 		ResolvableType superType = this.superType;
 		if (superType == null) {
-			superType = forType(resolved.getGenericSuperclass(), this);
+			superType = (this.canonicalType != null ? this.canonicalType.getSuperType() :
+					forType(resolved.getGenericSuperclass(), this));
 			this.superType = superType;
 		}
 		return superType;
@@ -488,6 +514,10 @@ public class ResolvableType implements Serializable {
 			return EMPTY_TYPES_ARRAY;
 		}
 		ResolvableType[] interfaces = this.interfaces;
+		if (interfaces == null && this.canonicalType != null) {
+			interfaces = this.canonicalType.getInterfaces();
+			this.interfaces = interfaces;
+		}
 		if (interfaces == null) {
 			Type[] genericIfcs = resolved.getGenericInterfaces();
 			interfaces = new ResolvableType[genericIfcs.length];
@@ -692,7 +722,10 @@ public class ResolvableType implements Serializable {
 		}
 		ResolvableType[] generics = this.generics;
 		if (generics == null) {
-			if (this.type instanceof Class) {
+			if (this.canonicalType != null) {
+				generics = this.canonicalType.getGenerics();
+			}
+			else if (this.type instanceof Class) {
 				Type[] typeParams = ((Class<?>) this.type).getTypeParameters();
 				generics = new ResolvableType[typeParams.length];
 				for (int i = 0; i < generics.length; i++) {
@@ -985,6 +1018,8 @@ public class ResolvableType implements Serializable {
 	 * Return a {@link ResolvableType} for the specified {@link Class},
 	 * using the full generic type information for assignability checks.
 	 * For example: {@code ResolvableType.forClass(MyArrayList.class)}.
+	 * <p>As of 5.2.7, the returned instance is shared, so that its supertype,
+	 * interfaces and generics are only resolved once per class.
 	 * @param clazz the class to introspect ({@code null} is semantically
 	 * equivalent to {@code Object.class} for typical use cases here)
 	 * @return a {@link ResolvableType} for the specified class
@@ -992,7 +1027,16 @@ public class ResolvableType implements Serializable {
 	 * @see #forClassWithGenerics(Class, Class...)
 	 */
 	public static ResolvableType forClass(@Nullable Class<?> clazz) {
-		return new ResolvableType(clazz);
+		Class<?> key = (clazz != null ? clazz : Object.class);
+		ResolvableType resolvableType = classCache.get(key);
+		if (resolvableType == null) {
+			resolvableType = new ResolvableType(key);
+			ResolvableType existing = classCache.putIfAbsent(key, resolvableType);
+			if (existing != null) {
+				resolvableType = existing;
+			}
+		}
+		return resolvableType;
 	}
 
 	/**
@@ -1412,20 +1456,29 @@ public class ResolvableType implements Serializable {
 		// For simple Class references, build the wrapper right away -
 		// no expensive resolution necessary, so not worth caching...
 		if (type instanceof Class) {
+			if (typeProvider == null && variableResolver == null) {
+				return forClass((Class<?>) type);
+			}
 			return new ResolvableType(type, typeProvider, variableResolver, (ResolvableType) null);
 		}
 
-		// Purge empty entries on access since we don't have a clean-up thread or the like.
-		cache.purgeUnreferencedEntries();
-
 		// Check the cache - we may have a ResolvableType which has been resolved before...
 		ResolvableType resultType = new ResolvableType(type, typeProvider, variableResolver);
 		ResolvableType cachedType = cache.get(resultType);
 		if (cachedType == null) {
 			cachedType = new ResolvableType(type, typeProvider, variableResolver, resultType.hash);
-			cache.put(cachedType, cachedType);
+			ResolvableType existing = cache.putIfAbsent(cachedType, cachedType);
+			if (existing != null) {
+				cachedType = existing;
+			}
+		}
+		if (typeProvider == null) {
+			// Pure type views (supertypes, interfaces, generics) can be shared as is
+			return cachedType;
 		}
+		// Keep the caller's source but share the resolution state
 		resultType.resolved = cachedType.resolved;
+		resultType.canonicalType = cachedType;
 		return resultType;
 	}
 
@@ -1435,6 +1488,7 @@ public class ResolvableType implements Serializable {
 	 */
 	public static void clearCache() {
 		cache.clear();
+		classCache.clear();
 		SerializableTypeWrapper.cache.clear();
 	}
 
@@ -0,0 +1,320 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.annotation;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Member;
+import java.lang.reflect.Parameter;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.SpringProperties;
+import org.springframework.core.annotation.MergedAnnotations.SearchStrategy;
+import org.springframework.core.io.UrlResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.StringUtils;
+
+/**
+ * Build-time index of the annotation types used by classes, as written to
+ * {@value #INDEX_RESOURCE_LOCATION} by the {@code spring-context-indexer}
+ * annotation processor when invoked with the
+ * {@code -Aspring.index.annotations=true} compiler option.
+ *
+ * <p>For each indexed class, the index holds every annotation type that is
+ * present or meta-present on the class, on its fields, methods, constructors
+ * or parameters, across its entire superclass and interface hierarchy, as well
+ * as annotation types nested as attribute values (e.g. within a repeatable
+ * container). The index is only ever used to rule annotations out: classes
+ * without an entry are introspected reflectively as usual.
+ *
+ * <p>The index is only consulted if the {@value #USE_INDEX} flag is set.
+ * An entry is ignored if the class is not loaded from the same location as
+ * the index that declares it, if several indexes declare it, or if the
+ * meta-annotations of an annotation type from another location differ
+ * from the ones recorded at build time.
+ *
+ * @author Sen Hu
+ * @since 5.2.7
+ */
+final class AnnotationIndex {
+
+	/**
+	 * The location to look for annotation indexes.
+	 * <p>Can be present in multiple JAR files.
+	 */
+	static final String INDEX_RESOURCE_LOCATION = "META-INF/spring.annotations";
+
+	/**
+	 * System property that instructs Spring to consult the annotation index,
+	 * to be set once all indexes on the classpath are known to be up to date.
+	 */
+	static final String USE_INDEX = "spring.index.annotations";
+
+	/**
+	 * Prefix of index keys that record the meta-annotation types of annotation
+	 * types which are not part of the indexed module.
+	 */
+	static final String META_ANNOTATIONS_PREFIX = "@";
+
+
+	private static final Log logger = LogFactory.getLog(AnnotationIndex.class);
+
+	private static final Map<String, Entry> NO_INDEX = Collections.emptyMap();
+
+	private static final Map<ClassLoader, Map<String, Entry>> cache =
+			new ConcurrentReferenceHashMap<>();
+
+	private static final Map<Class<?>, Set<String>> metaAnnotationsCache =
+			new ConcurrentReferenceHashMap<>();
+
+	private static volatile boolean useIndex = SpringProperties.getFlag(USE_INDEX);
+
+
+	private AnnotationIndex() {
+	}
+
+
+	/**
+	 * Determine whether the given element is known from the index to carry
+	 * no annotations at all for the given search strategy.
+	 * @param element the element to check
+	 * @param searchStrategy the search strategy in use
+	 * @return {@code true} if the index rules out any annotations
+	 */
+	static boolean isKnownEmpty(AnnotatedElement element, SearchStrategy searchStrategy) {
+		Set<String> annotationTypes = getAnnotationTypes(element, searchStrategy);
+		return (annotationTypes != null && annotationTypes.isEmpty());
+	}
+
+	/**
+	 * Determine whether the given element is known from the index not to carry
+	 * the given annotation type, directly or as a meta-annotation.
+	 * @param element the element to check
+	 * @param searchStrategy the search strategy in use
+	 * @param annotationName the fully-qualified name of the annotation type
+	 * @return {@code true} if the index rules out the annotation
+	 */
+	static boolean isKnownAbsent(AnnotatedElement element, SearchStrategy searchStrategy, String annotationName) {
+		Set<String> annotationTypes = getAnnotationTypes(element, searchStrategy);
+		return (annotationTypes != null && !annotationTypes.contains(annotationName));
+	}
+
+	/**
+	 * Determine whether the given class is known from the index not to carry
+	 * the given annotation type at any level.
+	 * @param clazz the class to check
+	 * @param annotationName the fully-qualified name of the annotation type
+	 * @return {@code true} if the index rules out the annotation
+	 */
+	static boolean isKnownAbsent(Class<?> clazz, String annotationName) {
+		return isKnownAbsent(clazz, SearchStrategy.TYPE_HIERARCHY, annotationName);
+	}
+
+	@Nullable
+	private static Set<String> getAnnotationTypes(AnnotatedElement element, SearchStrategy searchStrategy) {
+		if (!useIndex || searchStrategy == SearchStrategy.TYPE_HIERARCHY_AND_ENCLOSING_CLASSES) {
+			return null;
+		}
+		Class<?> clazz = getDeclaringClass(element);
+		ClassLoader classLoader = (clazz != null ? clazz.getClassLoader() : null);
+		if (classLoader == null) {
+			return null;
+		}
+		Map<String, Entry> index = cache.get(classLoader);
+		if (index == null) {
+			index = loadIndex(classLoader);
+			cache.put(classLoader, index);
+		}
+		Entry entry = index.get(clazz.getName());
+		return (entry != null && entry.isValidFor(clazz) ? entry.annotationTypes : null);
+	}
+
+	@Nullable
+	private static Class<?> getDeclaringClass(AnnotatedElement element) {
+		if (element instanceof Class) {
+			return (Class<?>) element;
+		}
+		if (element instanceof Member) {
+			return ((Member) element).getDeclaringClass();
+		}
+		if (element instanceof Parameter) {
+			return ((Parameter) element).getDeclaringExecutable().getDeclaringClass();
+		}
+		return null;
+	}
+
+	private static Map<String, Entry> loadIndex(ClassLoader classLoader) {
+		try {
+			Enumeration<URL> urls = classLoader.getResources(INDEX_RESOURCE_LOCATION);
+			if (!urls.hasMoreElements()) {
+				return NO_INDEX;
+			}
+			Map<String, Entry> index = new HashMap<>();
+			Set<String> duplicates = new HashSet<>();
+			Map<String, String> names = new HashMap<>();
+			while (urls.hasMoreElements()) {
+				URL url = urls.nextElement();
+				String location = url.toString();
+				String root = location.substring(0, location.length() - INDEX_RESOURCE_LOCATION.length());
+				Properties properties = PropertiesLoaderUtils.loadProperties(new UrlResource(url));
+				Map<String, Set<String>> metaAnnotations = new HashMap<>();
+				Map<String, Set<String>> entries = new HashMap<>();
+				properties.forEach((key, value) -> {
+					Set<String> annotationTypes = new HashSet<>();
+					for (String name : StringUtils.commaDelimitedListToStringArray((String) value)) {
+						annotationTypes.add(names.computeIfAbsent(name, k -> k));
+					}
+					String type = (String) key;
+					if (type.startsWith(META_ANNOTATIONS_PREFIX)) {
+						metaAnnotations.put(type.substring(META_ANNOTATIONS_PREFIX.length()), annotationTypes);
+					}
+					else {
+						entries.put(type, annotationTypes);
+					}
+				});
+				entries.forEach((type, annotationTypes) -> {
+					if (index.put(type, new Entry(root, annotationTypes, metaAnnotations)) != null) {
+						duplicates.add(type);
+					}
+				});
+			}
+			// Classes declared by several indexes: not reliably indexed
+			index.keySet().removeAll(duplicates);
+			if (logger.isDebugEnabled()) {
+				logger.debug("Loaded annotation index for " + index.size() + " classes");
+			}
+			return index;
+		}
+		catch (IOException ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Unable to load annotation index from location [" +
+						INDEX_RESOURCE_LOCATION + "] - falling back to introspection", ex);
+			}
+			return NO_INDEX;
+		}
+	}
+
+	/**
+	 * Determine the names of all annotation types that are meta-present on
+	 * the given annotation type, as visible through reflection.
+	 */
+	private static Set<String> getMetaAnnotationTypes(Class<?> annotationType) {
+		Set<String> result = metaAnnotationsCache.get(annotationType);
+		if (result == null) {
+			result = new LinkedHashSet<>();
+			collectMetaAnnotationTypes(annotationType, result);
+			metaAnnotationsCache.put(annotationType, result);
+		}
+		return result;
+	}
+
+	private static void collectMetaAnnotationTypes(Class<?> annotationType, Set<String> result) {
+		for (Annotation metaAnnotation : annotationType.getDeclaredAnnotations()) {
+			Class<? extends Annotation> metaAnnotationType = metaAnnotation.annotationType();
+			if (result.add(metaAnnotationType.getName())) {
+				collectMetaAnnotationTypes(metaAnnotationType, result);
+			}
+		}
+	}
+
+	/**
+	 * Set whether to consult the index, overriding the {@value #USE_INDEX} flag.
+	 * <p>Intended for testing purposes only.
+	 */
+	static void setUseIndex(boolean useIndex) {
+		AnnotationIndex.useIndex = useIndex;
+		clearCache();
+	}
+
+	static void clearCache() {
+		cache.clear();
+		metaAnnotationsCache.clear();
+	}
+
+
+	/**
+	 * Index entry for a class, validated against the runtime classpath on
+	 * first use.
+	 */
+	private static final class Entry {
+
+		private final String root;
+
+		private final Set<String> annotationTypes;
+
+		private final Map<String, Set<String>> metaAnnotations;
+
+		@Nullable
+		private volatile Boolean valid;
+
+		Entry(String root, Set<String> annotationTypes, Map<String, Set<String>> metaAnnotations) {
+			this.root = root;
+			this.annotationTypes = annotationTypes;
+			this.metaAnnotations = metaAnnotations;
+		}
+
+		boolean isValidFor(Class<?> clazz) {
+			Boolean valid = this.valid;
+			if (valid == null) {
+				valid = validate(clazz);
+				this.valid = valid;
+				if (!valid && logger.isDebugEnabled()) {
+					logger.debug("Ignoring stale annotation index entry for " + clazz.getName());
+				}
+			}
+			return valid;
+		}
+
+		private boolean validate(Class<?> clazz) {
+			ClassLoader classLoader = clazz.getClassLoader();
+			URL classFile = classLoader.getResource(clazz.getName().replace('.', '/') + ".class");
+			if (classFile == null || !classFile.toString().startsWith(this.root)) {
+				return false;
+			}
+			for (String annotationType : this.annotationTypes) {
+				Set<String> expected = this.metaAnnotations.get(annotationType);
+				if (expected != null) {
+					try {
+						Class<?> type = Class.forName(annotationType, false, classLoader);
+						if (!expected.equals(getMetaAnnotationTypes(type))) {
+							return false;
+						}
+					}
+					catch (Throwable ex) {
+						return false;
+					}
+				}
+			}
+			return true;
+		}
+	}
+
+}
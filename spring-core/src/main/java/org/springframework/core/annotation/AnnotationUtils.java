@@ -170,7 +170,7 @@ public abstract class AnnotationUtils {
 		if (AnnotationsScanner.hasPlainJavaAnnotationsOnly(clazz)) {
 			return false;
 		}
-		return true;
+		return !AnnotationIndex.isKnownAbsent(clazz, annotationName);
 	}
 
 	/**
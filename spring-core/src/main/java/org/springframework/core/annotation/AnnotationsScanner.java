@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -542,7 +542,7 @@ abstract class AnnotationsScanner {
 			}
 			return getDeclaredAnnotations(source, false).length == 0;
 		}
-		return false;
+		return AnnotationIndex.isKnownEmpty(source, searchStrategy);
 	}
 
 	static boolean hasPlainJavaAnnotationsOnly(@Nullable Object annotatedElement) {
@@ -583,6 +583,7 @@ abstract class AnnotationsScanner {
 	static void clearCache() {
 		declaredAnnotationCache.clear();
 		baseTypeMethodsCache.clear();
+		AnnotationIndex.clearCache();
 	}
 
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -239,6 +239,9 @@ final class TypeMappedAnnotations implements MergedAnnotations {
 			return processor.finish(result);
 		}
 		if (this.element != null && this.searchStrategy != null) {
+			if (isKnownAbsent(criteria, this.element, this.searchStrategy)) {
+				return null;
+			}
 			return AnnotationsScanner.scan(criteria, this.element, this.searchStrategy, processor);
 		}
 		return null;
@@ -263,6 +266,12 @@ final class TypeMappedAnnotations implements MergedAnnotations {
 		return new TypeMappedAnnotations(source, annotations, repeatableContainers, annotationFilter);
 	}
 
+	private static boolean isKnownAbsent(Object criteria, AnnotatedElement element, SearchStrategy searchStrategy) {
+		String annotationName = (criteria instanceof Class ? ((Class<?>) criteria).getName() :
+				criteria instanceof String ? (String) criteria : null);
+		return (annotationName != null && AnnotationIndex.isKnownAbsent(element, searchStrategy, annotationName));
+	}
+
 	private static boolean isMappingForType(AnnotationTypeMapping mapping,
 			AnnotationFilter annotationFilter, @Nullable Object requiredType) {
 
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,8 +16,13 @@
 
 package org.springframework.core.codec;
 
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
 import java.nio.charset.CoderMalfunctionError;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -38,6 +43,14 @@ import org.springframework.util.MimeTypeUtils;
 /**
  * Encode from a {@code CharSequence} stream to a bytes stream.
  *
+ * <p>As of 5.2.7, values are encoded into the buffer obtained from the
+ * {@link DataBufferFactory} through a {@link CharsetEncoder} and a small
+ * scratch buffer that are reused per thread, instead of creating an encoder
+ * per value. The buffer is sized from the average number of bytes per char
+ * of the target charset and grows if needed. Leading chars that encode as a
+ * single byte of the same value (ASCII for UTF-8 and US-ASCII, Latin-1 for
+ * ISO-8859-1) are copied without going through the encoder at all.
+ *
  * @author Sebastien Deleuze
  * @author Arjen Poutsma
  * @author Rossen Stoyanchev
@@ -51,7 +64,15 @@ public final class CharSequenceEncoder extends AbstractEncoder<CharSequence> {
 	 */
 	public static final Charset DEFAULT_CHARSET = StandardCharsets.UTF_8;
 
-	private final ConcurrentMap<Charset, Float> charsetToMaxBytesPerChar =
+	private static final int ASCII_LIMIT = 0x7F;
+
+	private static final int LATIN1_LIMIT = 0xFF;
+
+	private static final int SCRATCH_SIZE = 1024;
+
+	private static final ThreadLocal<EncodingState> encodingState = ThreadLocal.withInitial(EncodingState::new);
+
+	private final ConcurrentMap<Charset, Float> charsetToAverageBytesPerChar =
 			new ConcurrentHashMap<>(3);
 
 
@@ -90,7 +111,7 @@ public final class CharSequenceEncoder extends AbstractEncoder<CharSequence> {
 		int capacity = calculateCapacity(charSequence, charset);
 		DataBuffer dataBuffer = bufferFactory.allocateBuffer(capacity);
 		try {
-			dataBuffer.write(charSequence, charset);
+			write(charSequence, charset, dataBuffer);
 			release = false;
 		}
 		catch (CoderMalfunctionError ex) {
@@ -104,11 +125,102 @@ public final class CharSequenceEncoder extends AbstractEncoder<CharSequence> {
 		return dataBuffer;
 	}
 
+	/**
+	 * Encode the given sequence into the given buffer, copying leading
+	 * single-byte chars directly and going through the thread's
+	 * {@code CharsetEncoder} for the rest.
+	 */
+	private static void write(CharSequence sequence, Charset charset, DataBuffer dataBuffer) {
+		EncodingState state = encodingState.get();
+		int length = sequence.length();
+		int index = writeSingleByteChars(sequence, getSingleByteLimit(charset), state.bytes, dataBuffer);
+		if (index == length) {
+			return;
+		}
+		CharsetEncoder encoder = state.getEncoder(charset);
+		CharBuffer input = CharBuffer.wrap(sequence, index, length);
+		ByteBuffer output = state.byteBuffer;
+		output.clear();
+		CoderResult result;
+		do {
+			result = encoder.encode(input, output, true);
+			if (result.isOverflow()) {
+				drain(output, state.bytes, dataBuffer);
+			}
+		}
+		while (result.isOverflow());
+		do {
+			result = encoder.flush(output);
+			if (result.isOverflow()) {
+				drain(output, state.bytes, dataBuffer);
+			}
+		}
+		while (result.isOverflow());
+		drain(output, state.bytes, dataBuffer);
+	}
+
+	/**
+	 * Copy chars up to the given limit into the buffer with one byte per char,
+	 * bypassing the {@code CharsetEncoder}.
+	 * @return the index of the first char that was not copied
+	 */
+	private static int writeSingleByteChars(CharSequence sequence, int limit, byte[] scratch, DataBuffer dataBuffer) {
+		int length = sequence.length();
+		int index = 0;
+		while (index < length) {
+			int end = Math.min(length, index + scratch.length);
+			int count = 0;
+			while (index < end) {
+				char c = sequence.charAt(index);
+				if (c > limit) {
+					break;
+				}
+				scratch[count++] = (byte) c;
+				index++;
+			}
+			if (count > 0) {
+				dataBuffer.write(scratch, 0, count);
+			}
+			if (index < end) {
+				break;
+			}
+		}
+		return index;
+	}
+
+	private static void drain(ByteBuffer output, byte[] scratch, DataBuffer dataBuffer) {
+		if (output.position() > 0) {
+			dataBuffer.write(scratch, 0, output.position());
+			output.clear();
+		}
+	}
+
+	/**
+	 * Return the highest char that encodes as a single byte of the same value
+	 * in the given charset, or -1 if there is none we know of.
+	 */
+	private static int getSingleByteLimit(Charset charset) {
+		if (StandardCharsets.UTF_8.equals(charset) || StandardCharsets.US_ASCII.equals(charset)) {
+			return ASCII_LIMIT;
+		}
+		else if (StandardCharsets.ISO_8859_1.equals(charset)) {
+			return LATIN1_LIMIT;
+		}
+		else {
+			return -1;
+		}
+	}
+
+	/**
+	 * Estimate the encoded length of the given sequence from the average
+	 * number of bytes per char of the given charset. The buffer grows while
+	 * encoding if the estimate turns out to be too small.
+	 */
 	int calculateCapacity(CharSequence sequence, Charset charset) {
-		float maxBytesPerChar = this.charsetToMaxBytesPerChar
-				.computeIfAbsent(charset, cs -> cs.newEncoder().maxBytesPerChar());
-		float maxBytesForSequence = sequence.length() * maxBytesPerChar;
-		return (int) Math.ceil(maxBytesForSequence);
+		float averageBytesPerChar = this.charsetToAverageBytesPerChar
+				.computeIfAbsent(charset, cs -> cs.newEncoder().averageBytesPerChar());
+		float averageBytesForSequence = sequence.length() * averageBytesPerChar;
+		return (int) Math.ceil(averageBytesForSequence);
 	}
 
 	private Charset getCharset(@Nullable MimeType mimeType) {
@@ -135,4 +247,31 @@ public final class CharSequenceEncoder extends AbstractEncoder<CharSequence> {
 		return new CharSequenceEncoder(new MimeType("text", "plain", DEFAULT_CHARSET), MimeTypeUtils.ALL);
 	}
 
+
+	/**
+	 * Per-thread {@code CharsetEncoder} for the last charset used, along with
+	 * a scratch buffer to encode into before copying to the target buffer.
+	 */
+	private static class EncodingState {
+
+		final byte[] bytes = new byte[SCRATCH_SIZE];
+
+		final ByteBuffer byteBuffer = ByteBuffer.wrap(this.bytes);
+
+		@Nullable
+		private CharsetEncoder encoder;
+
+		CharsetEncoder getEncoder(Charset charset) {
+			CharsetEncoder encoder = this.encoder;
+			if (encoder != null && encoder.charset().equals(charset)) {
+				return encoder.reset();
+			}
+			encoder = charset.newEncoder()
+					.onMalformedInput(CodingErrorAction.REPLACE)
+					.onUnmappableCharacter(CodingErrorAction.REPLACE);
+			this.encoder = encoder;
+			return encoder;
+		}
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -46,6 +46,8 @@ public class ResourceEncoder extends AbstractSingleValueEncoder<Resource> {
 
 	private final int bufferSize;
 
+	private boolean memoryMapped;
+
 
 	public ResourceEncoder() {
 		this(DEFAULT_BUFFER_SIZE);
@@ -58,6 +60,27 @@ public class ResourceEncoder extends AbstractSingleValueEncoder<Resource> {
 	}
 
 
+	/**
+	 * Whether to read file-based resources through memory-mapped regions
+	 * instead of copying them chunk by chunk into newly allocated buffers.
+	 * <p>By default this is set to {@code false}.
+	 * @param memoryMapped whether to use memory-mapped reads
+	 * @since 5.2.7
+	 * @see DataBufferUtils#readMapped(Resource, long, long, DataBufferFactory, int)
+	 */
+	public void setMemoryMapped(boolean memoryMapped) {
+		this.memoryMapped = memoryMapped;
+	}
+
+	/**
+	 * Whether file-based resources are read through memory-mapped regions.
+	 * @since 5.2.7
+	 */
+	public boolean isMemoryMapped() {
+		return this.memoryMapped;
+	}
+
+
 	@Override
 	public boolean canEncode(ResolvableType elementType, @Nullable MimeType mimeType) {
 		Class<?> clazz = elementType.toClass();
@@ -72,6 +95,9 @@ public class ResourceEncoder extends AbstractSingleValueEncoder<Resource> {
 			String logPrefix = Hints.getLogPrefix(hints);
 			logger.debug(logPrefix + "Writing [" + resource + "]");
 		}
+		if (this.memoryMapped) {
+			return DataBufferUtils.readMapped(resource, 0, Long.MAX_VALUE, bufferFactory, this.bufferSize);
+		}
 		return DataBufferUtils.read(resource, bufferFactory, this.bufferSize);
 	}
 
@@ -17,7 +17,9 @@
 package org.springframework.core.convert.support;
 
 import java.lang.reflect.Array;
+import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
@@ -27,6 +29,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.springframework.core.DecoratingProxy;
 import org.springframework.core.ResolvableType;
@@ -46,6 +49,7 @@ import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ReflectionUtils;
 import org.springframework.util.StringUtils;
 
 /**
@@ -73,10 +77,17 @@ public class GenericConversionService implements ConfigurableConversionService {
 	 */
 	private static final GenericConverter NO_MATCH = new NoOpConverter("NO_MATCH");
 
+	/**
+	 * Cache of whether a class leaves {@link #convert(Object, TypeDescriptor, TypeDescriptor)}
+	 * as implemented here, per {@code GenericConversionService} class.
+	 */
+	private static final Map<Class<?>, Boolean> standardConvertCache = new ConcurrentReferenceHashMap<>(4);
+
 
 	private final Converters converters = new Converters();
 
-	private final Map<ConverterCacheKey, GenericConverter> converterCache = new ConcurrentReferenceHashMap<>(64);
+	private final Map<TypeDescriptor, Map<TypeDescriptor, GenericConverter>> converterCache =
+			new ConcurrentReferenceHashMap<>(64);
 
 
 	// ConverterRegistry implementation
@@ -186,7 +197,23 @@ public class GenericConversionService implements ConfigurableConversionService {
 			throw new IllegalArgumentException("Source to convert from must be an instance of [" +
 					sourceType + "]; instead it was a [" + source.getClass().getName() + "]");
 		}
-		GenericConverter converter = getConverter(sourceType, targetType);
+		return convert(source, sourceType, targetType, getConverter(sourceType, targetType));
+	}
+
+	/**
+	 * Convert the given source object with a previously resolved converter,
+	 * applying the same result handling as {@link #convert(Object, TypeDescriptor, TypeDescriptor)}.
+	 * @param source the source object
+	 * @param sourceType the source type
+	 * @param targetType the target type
+	 * @param converter the converter as returned by {@link #getConverter}
+	 * @return the converted object
+	 * @since 5.2.7
+	 */
+	@Nullable
+	Object convert(@Nullable Object source, TypeDescriptor sourceType, TypeDescriptor targetType,
+			@Nullable GenericConverter converter) {
+
 		if (converter != null) {
 			Object result = ConversionUtils.invokeConverter(converter, source, sourceType, targetType);
 			return handleResult(sourceType, targetType, result);
@@ -194,6 +221,20 @@ public class GenericConversionService implements ConfigurableConversionService {
 		return handleConverterNotFound(source, sourceType, targetType);
 	}
 
+	/**
+	 * Determine whether {@link #convert(Object, TypeDescriptor, TypeDescriptor, GenericConverter)}
+	 * may be used in place of {@link #convert(Object, TypeDescriptor, TypeDescriptor)}, which
+	 * is not the case if a subclass overrides the latter.
+	 * @since 5.2.7
+	 */
+	boolean isStandardConvert() {
+		return standardConvertCache.computeIfAbsent(getClass(), clazz -> {
+			Method method = ReflectionUtils.findMethod(
+					clazz, "convert", Object.class, TypeDescriptor.class, TypeDescriptor.class);
+			return (method != null && method.getDeclaringClass() == GenericConversionService.class);
+		});
+	}
+
 	/**
 	 * Convenience operation for converting a source object to the specified targetType,
 	 * where the target type is a descriptor that provides additional conversion context.
@@ -212,6 +253,44 @@ public class GenericConversionService implements ConfigurableConversionService {
 		return convert(source, TypeDescriptor.forObject(source), targetType);
 	}
 
+	/**
+	 * Convert all elements of the given collection to the specified target type.
+	 * <p>The converter is resolved once per distinct source element class rather
+	 * than once per element, which makes this considerably cheaper than repeated
+	 * {@link #convert(Object, Class)} calls for large collections.
+	 * @param sources the source elements (may contain {@code null} elements)
+	 * @param targetType the target type to convert each element to
+	 * @return a new mutable List with the converted elements, in iteration order
+	 * @throws ConversionException if a conversion exception occurred
+	 * @since 5.2.7
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> List<T> convertAll(Collection<?> sources, Class<T> targetType) {
+		Assert.notNull(targetType, "Target type to convert to cannot be null");
+		return (List<T>) convertAll(sources, TypeDescriptor.valueOf(targetType));
+	}
+
+	/**
+	 * Convert all elements of the given collection to the specified target type,
+	 * where the target type is a descriptor that provides additional conversion context.
+	 * @param sources the source elements (may contain {@code null} elements)
+	 * @param targetType the target type to convert each element to
+	 * @return a new mutable List with the converted elements, in iteration order
+	 * @throws ConversionException if a conversion exception occurred
+	 * @since 5.2.7
+	 * @see #convertAll(Collection, Class)
+	 */
+	public List<Object> convertAll(Collection<?> sources, TypeDescriptor targetType) {
+		Assert.notNull(sources, "Source collection must not be null");
+		Assert.notNull(targetType, "Target type to convert to cannot be null");
+		ElementConverter elementConverter = ElementConverter.forElementsOf(this, null, targetType);
+		List<Object> result = new ArrayList<>(sources.size());
+		for (Object source : sources) {
+			result.add(elementConverter.convert(source));
+		}
+		return result;
+	}
+
 	@Override
 	public String toString() {
 		return this.converters.toString();
@@ -251,23 +330,29 @@ public class GenericConversionService implements ConfigurableConversionService {
 	 */
 	@Nullable
 	protected GenericConverter getConverter(TypeDescriptor sourceType, TypeDescriptor targetType) {
-		ConverterCacheKey key = new ConverterCacheKey(sourceType, targetType);
-		GenericConverter converter = this.converterCache.get(key);
-		if (converter != null) {
-			return (converter != NO_MATCH ? converter : null);
+		// Two-level lookup by source type and target type, avoiding a key allocation per call
+		Map<TypeDescriptor, GenericConverter> targetCache = this.converterCache.get(sourceType);
+		if (targetCache != null) {
+			GenericConverter converter = targetCache.get(targetType);
+			if (converter != null) {
+				return (converter != NO_MATCH ? converter : null);
+			}
+		}
+		else {
+			targetCache = this.converterCache.computeIfAbsent(sourceType, key -> new ConcurrentHashMap<>(4));
 		}
 
-		converter = this.converters.find(sourceType, targetType);
+		GenericConverter converter = this.converters.find(sourceType, targetType);
 		if (converter == null) {
 			converter = getDefaultConverter(sourceType, targetType);
 		}
 
 		if (converter != null) {
-			this.converterCache.put(key, converter);
+			targetCache.put(targetType, converter);
 			return converter;
 		}
 
-		this.converterCache.put(key, NO_MATCH);
+		targetCache.put(targetType, NO_MATCH);
 		return null;
 	}
 
@@ -443,57 +528,6 @@ public class GenericConversionService implements ConfigurableConversionService {
 	}
 
 
-	/**
-	 * Key for use with the converter cache.
-	 */
-	private static final class ConverterCacheKey implements Comparable<ConverterCacheKey> {
-
-		private final TypeDescriptor sourceType;
-
-		private final TypeDescriptor targetType;
-
-		public ConverterCacheKey(TypeDescriptor sourceType, TypeDescriptor targetType) {
-			this.sourceType = sourceType;
-			this.targetType = targetType;
-		}
-
-		@Override
-		public boolean equals(@Nullable Object other) {
-			if (this == other) {
-				return true;
-			}
-			if (!(other instanceof ConverterCacheKey)) {
-				return false;
-			}
-			ConverterCacheKey otherKey = (ConverterCacheKey) other;
-			return (this.sourceType.equals(otherKey.sourceType)) &&
-					this.targetType.equals(otherKey.targetType);
-		}
-
-		@Override
-		public int hashCode() {
-			return (this.sourceType.hashCode() * 29 + this.targetType.hashCode());
-		}
-
-		@Override
-		public String toString() {
-			return ("ConverterCacheKey [sourceType = " + this.sourceType +
-					", targetType = " + this.targetType + "]");
-		}
-
-		@Override
-		public int compareTo(ConverterCacheKey other) {
-			int result = this.sourceType.getResolvableType().toString().compareTo(
-					other.sourceType.getResolvableType().toString());
-			if (result == 0) {
-				result = this.targetType.getResolvableType().toString().compareTo(
-						other.targetType.getResolvableType().toString());
-			}
-			return result;
-		}
-	}
-
-
 	/**
 	 * Manages all converters registered with the service.
 	 */
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -509,6 +509,22 @@ public abstract class AbstractEnvironment implements ConfigurableEnvironment {
 		this.propertyResolver.setIgnoreUnresolvableNestedPlaceholders(ignoreUnresolvableNestedPlaceholders);
 	}
 
+	/**
+	 * Specify whether to cache resolved property values and placeholder
+	 * resolution results until the {@link #getPropertySources() property sources}
+	 * are modified.
+	 * <p>Default is "false". Only switch this on if the content of the registered
+	 * property sources is stable, since changes within an individual property
+	 * source (e.g. to system properties) are not detected.
+	 * @since 5.2.7
+	 * @see PropertySourcesPropertyResolver#setCacheResolvedProperties
+	 */
+	public void setCacheResolvedProperties(boolean cacheResolvedProperties) {
+		if (this.propertyResolver instanceof PropertySourcesPropertyResolver) {
+			((PropertySourcesPropertyResolver) this.propertyResolver).setCacheResolvedProperties(cacheResolvedProperties);
+		}
+	}
+
 	@Override
 	public void setRequiredProperties(String... requiredProperties) {
 		this.propertyResolver.setRequiredProperties(requiredProperties);
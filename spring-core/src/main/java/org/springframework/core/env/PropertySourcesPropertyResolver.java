@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,9 @@
 
 package org.springframework.core.env;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.springframework.lang.Nullable;
 
 /**
@@ -31,9 +34,17 @@ import org.springframework.lang.Nullable;
  */
 public class PropertySourcesPropertyResolver extends AbstractPropertyResolver {
 
+	private static final Object NO_VALUE = new Object();
+
+
 	@Nullable
 	private final PropertySources propertySources;
 
+	private volatile boolean cacheResolvedProperties;
+
+	@Nullable
+	private volatile Snapshot snapshot;
+
 
 	/**
 	 * Create a new resolver against the given property sources.
@@ -44,6 +55,56 @@ public class PropertySourcesPropertyResolver extends AbstractPropertyResolver {
 	}
 
 
+	/**
+	 * Specify whether to cache resolved property values and placeholder
+	 * resolution results in a snapshot of the underlying property sources.
+	 * <p>Default is "false". The snapshot is discarded automatically whenever
+	 * {@link MutablePropertySources} are structurally modified, or when the
+	 * placeholder configuration of this resolver changes. Changes within an
+	 * individual property source (e.g. to system properties or to a map behind
+	 * a {@link MapPropertySource}) are <i>not</i> detected: only switch this on
+	 * if the content of the property sources is stable once they are registered.
+	 * @since 5.2.7
+	 * @see MutablePropertySources#getModificationCount()
+	 */
+	public void setCacheResolvedProperties(boolean cacheResolvedProperties) {
+		this.cacheResolvedProperties = cacheResolvedProperties;
+		this.snapshot = null;
+	}
+
+	/**
+	 * Return whether resolved property values are cached.
+	 * @since 5.2.7
+	 */
+	public boolean isCacheResolvedProperties() {
+		return this.cacheResolvedProperties;
+	}
+
+	@Override
+	public void setPlaceholderPrefix(String placeholderPrefix) {
+		super.setPlaceholderPrefix(placeholderPrefix);
+		this.snapshot = null;
+	}
+
+	@Override
+	public void setPlaceholderSuffix(String placeholderSuffix) {
+		super.setPlaceholderSuffix(placeholderSuffix);
+		this.snapshot = null;
+	}
+
+	@Override
+	public void setValueSeparator(@Nullable String valueSeparator) {
+		super.setValueSeparator(valueSeparator);
+		this.snapshot = null;
+	}
+
+	@Override
+	public void setIgnoreUnresolvableNestedPlaceholders(boolean ignoreUnresolvableNestedPlaceholders) {
+		super.setIgnoreUnresolvableNestedPlaceholders(ignoreUnresolvableNestedPlaceholders);
+		this.snapshot = null;
+	}
+
+
 	@Override
 	public boolean containsProperty(String key) {
 		if (this.propertySources != null) {
@@ -74,8 +135,57 @@ public class PropertySourcesPropertyResolver extends AbstractPropertyResolver {
 		return getProperty(key, String.class, false);
 	}
 
+	@Override
+	public String resolvePlaceholders(String text) {
+		Snapshot snapshot = getSnapshot();
+		if (snapshot == null) {
+			return super.resolvePlaceholders(text);
+		}
+		String resolved = snapshot.resolvedTexts.get(text);
+		if (resolved == null) {
+			resolved = super.resolvePlaceholders(text);
+			snapshot.put(snapshot.resolvedTexts, text, resolved);
+		}
+		return resolved;
+	}
+
+	@Override
+	public String resolveRequiredPlaceholders(String text) throws IllegalArgumentException {
+		Snapshot snapshot = getSnapshot();
+		if (snapshot == null) {
+			return super.resolveRequiredPlaceholders(text);
+		}
+		String resolved = snapshot.requiredResolvedTexts.get(text);
+		if (resolved == null) {
+			resolved = super.resolveRequiredPlaceholders(text);
+			snapshot.put(snapshot.requiredResolvedTexts, text, resolved);
+		}
+		return resolved;
+	}
+
 	@Nullable
 	protected <T> T getProperty(String key, Class<T> targetValueType, boolean resolveNestedPlaceholders) {
+		Object value;
+		Snapshot snapshot = getSnapshot();
+		if (snapshot != null) {
+			Map<String, Object> values = (resolveNestedPlaceholders ? snapshot.resolvedValues : snapshot.rawValues);
+			value = values.get(key);
+			if (value == null) {
+				value = findPropertyValue(key, resolveNestedPlaceholders);
+				snapshot.put(values, key, (value != null ? value : NO_VALUE));
+			}
+			else if (value == NO_VALUE) {
+				value = null;
+			}
+		}
+		else {
+			value = findPropertyValue(key, resolveNestedPlaceholders);
+		}
+		return (value != null ? convertValueIfNecessary(value, targetValueType) : null);
+	}
+
+	@Nullable
+	private Object findPropertyValue(String key, boolean resolveNestedPlaceholders) {
 		if (this.propertySources != null) {
 			for (PropertySource<?> propertySource : this.propertySources) {
 				if (logger.isTraceEnabled()) {
@@ -88,7 +198,7 @@ public class PropertySourcesPropertyResolver extends AbstractPropertyResolver {
 						value = resolveNestedPlaceholders((String) value);
 					}
 					logKeyFound(key, propertySource, value);
-					return convertValueIfNecessary(value, targetValueType);
+					return value;
 				}
 			}
 		}
@@ -98,6 +208,21 @@ public class PropertySourcesPropertyResolver extends AbstractPropertyResolver {
 		return null;
 	}
 
+	@Nullable
+	private Snapshot getSnapshot() {
+		if (!this.cacheResolvedProperties) {
+			return null;
+		}
+		int modificationCount = (this.propertySources instanceof MutablePropertySources ?
+				((MutablePropertySources) this.propertySources).getModificationCount() : 0);
+		Snapshot snapshot = this.snapshot;
+		if (snapshot == null || snapshot.modificationCount != modificationCount) {
+			snapshot = new Snapshot(modificationCount);
+			this.snapshot = snapshot;
+		}
+		return snapshot;
+	}
+
 	/**
 	 * Log the given key as found in the given {@link PropertySource}, resulting in
 	 * the given value.
@@ -117,4 +242,34 @@ public class PropertySourcesPropertyResolver extends AbstractPropertyResolver {
 		}
 	}
 
+
+	/**
+	 * Resolved property values and placeholder texts for a given state
+	 * of the underlying property sources.
+	 */
+	private static final class Snapshot {
+
+		private static final int CACHE_LIMIT = 4096;
+
+		final int modificationCount;
+
+		final Map<String, Object> resolvedValues = new ConcurrentHashMap<>(64);
+
+		final Map<String, Object> rawValues = new ConcurrentHashMap<>(16);
+
+		final Map<String, String> resolvedTexts = new ConcurrentHashMap<>(16);
+
+		final Map<String, String> requiredResolvedTexts = new ConcurrentHashMap<>(16);
+
+		Snapshot(int modificationCount) {
+			this.modificationCount = modificationCount;
+		}
+
+		<V> void put(Map<String, V> cache, String key, V value) {
+			if (cache.size() < CACHE_LIMIT) {
+				cache.put(key, value);
+			}
+		}
+	}
+
 }
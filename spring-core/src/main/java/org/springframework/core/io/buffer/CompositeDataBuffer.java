@@ -0,0 +1,646 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.IntPredicate;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * {@link DataBuffer} that presents the readable bytes of several buffers as
+ * one buffer without copying them, as returned by
+ * {@link DefaultDataBufferFactory#joinComposite(List)}.
+ *
+ * <p>Index-based access locates the component holding a given index with a
+ * binary search, so joining is O(number of buffers) rather than O(bytes).
+ * Writing beyond the capacity appends a newly allocated component. The only
+ * operation that copies is {@link #asByteBuffer(int, int)} for a range that
+ * spans more than one component, which returns a copy of that range, like
+ * Netty's {@code CompositeByteBuf} does.
+ *
+ * <p>Components of a {@link PooledDataBufferFactory} remain recyclable as
+ * long as the composite is only read from or copied. Handing out a view of
+ * their memory through {@code asByteBuffer} marks all of them as exposed.
+ *
+ * <p>The joined buffers are owned by the composite and released together
+ * with it; slices share the reference count of the composite they were
+ * created from.
+ *
+ * @author Sen Hu
+ * @since 5.2.7
+ */
+class CompositeDataBuffer implements PooledDataBuffer {
+
+	private static final ByteBuffer[] NO_VIEWS = new ByteBuffer[0];
+
+	private static final AtomicIntegerFieldUpdater<CompositeDataBuffer> REF_COUNT_UPDATER =
+			AtomicIntegerFieldUpdater.newUpdater(CompositeDataBuffer.class, "refCount");
+
+
+	private final DefaultDataBufferFactory dataBufferFactory;
+
+	/** The composite that owns the components and the reference count; {@code this} unless a slice. */
+	private final CompositeDataBuffer root;
+
+	/** Buffers to release together with this composite; always empty for slices. */
+	private final List<DataBuffer> components;
+
+	/** Views on the memory of the components, each with a position of 0. */
+	private ByteBuffer[] views = NO_VIEWS;
+
+	/** The index of the first byte of each view, followed by the capacity. */
+	private int[] offsets = {0};
+
+	private int readPosition;
+
+	private int writePosition;
+
+	private volatile int refCount = 1;
+
+
+	CompositeDataBuffer(DefaultDataBufferFactory dataBufferFactory, List<? extends DataBuffer> dataBuffers) {
+		Assert.notNull(dataBufferFactory, "DefaultDataBufferFactory must not be null");
+		Assert.notNull(dataBuffers, "DataBuffer List must not be null");
+		this.dataBufferFactory = dataBufferFactory;
+		this.root = this;
+		this.components = new ArrayList<>(dataBuffers);
+		List<ByteBuffer> views = new ArrayList<>(dataBuffers.size());
+		for (DataBuffer dataBuffer : dataBuffers) {
+			if (dataBuffer instanceof CompositeDataBuffer) {
+				CompositeDataBuffer composite = (CompositeDataBuffer) dataBuffer;
+				composite.collectViews(composite.readPosition, composite.readableByteCount(), views);
+			}
+			else if (dataBuffer.readableByteCount() > 0) {
+				views.add(DefaultDataBuffer.readableView(dataBuffer));
+			}
+		}
+		setViews(views.toArray(NO_VIEWS));
+		this.writePosition = capacity();
+	}
+
+	private CompositeDataBuffer(CompositeDataBuffer root, ByteBuffer[] views, int length) {
+		this.dataBufferFactory = root.dataBufferFactory;
+		this.root = root;
+		this.components = new ArrayList<>(0);
+		setViews(views);
+		this.writePosition = length;
+	}
+
+
+	@Override
+	public DefaultDataBufferFactory factory() {
+		return this.dataBufferFactory;
+	}
+
+	@Override
+	public int indexOf(IntPredicate predicate, int fromIndex) {
+		Assert.notNull(predicate, "IntPredicate must not be null");
+		if (fromIndex < 0) {
+			fromIndex = 0;
+		}
+		else if (fromIndex >= this.writePosition) {
+			return -1;
+		}
+		int index = fromIndex;
+		for (int i = componentIndex(fromIndex); index < this.writePosition; i++) {
+			ByteBuffer view = this.views[i];
+			int offset = this.offsets[i];
+			int end = Math.min(this.offsets[i + 1], this.writePosition);
+			for (; index < end; index++) {
+				if (predicate.test(view.get(index - offset))) {
+					return index;
+				}
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public int lastIndexOf(IntPredicate predicate, int fromIndex) {
+		Assert.notNull(predicate, "IntPredicate must not be null");
+		int index = Math.min(fromIndex, this.writePosition - 1);
+		if (index < 0) {
+			return -1;
+		}
+		for (int i = componentIndex(index); index >= 0; i--) {
+			ByteBuffer view = this.views[i];
+			int offset = this.offsets[i];
+			for (; index >= offset; index--) {
+				if (predicate.test(view.get(index - offset))) {
+					return index;
+				}
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public int readableByteCount() {
+		return this.writePosition - this.readPosition;
+	}
+
+	@Override
+	public int writableByteCount() {
+		return capacity() - this.writePosition;
+	}
+
+	@Override
+	public int readPosition() {
+		return this.readPosition;
+	}
+
+	@Override
+	public CompositeDataBuffer readPosition(int readPosition) {
+		assertIndex(readPosition >= 0, "'readPosition' %d must be >= 0", readPosition);
+		assertIndex(readPosition <= this.writePosition, "'readPosition' %d must be <= %d",
+				readPosition, this.writePosition);
+		this.readPosition = readPosition;
+		return this;
+	}
+
+	@Override
+	public int writePosition() {
+		return this.writePosition;
+	}
+
+	@Override
+	public CompositeDataBuffer writePosition(int writePosition) {
+		assertIndex(writePosition >= this.readPosition, "'writePosition' %d must be >= %d",
+				writePosition, this.readPosition);
+		assertIndex(writePosition <= capacity(), "'writePosition' %d must be <= %d",
+				writePosition, capacity());
+		this.writePosition = writePosition;
+		return this;
+	}
+
+	@Override
+	public int capacity() {
+		return this.offsets[this.views.length];
+	}
+
+	@Override
+	public CompositeDataBuffer capacity(int newCapacity) {
+		if (this.root != this) {
+			throw new UnsupportedOperationException("Changing the capacity of a sliced buffer is not supported");
+		}
+		if (newCapacity <= 0) {
+			throw new IllegalArgumentException(String.format("'newCapacity' %d must be higher than 0", newCapacity));
+		}
+		assertAllocated();
+		int oldCapacity = capacity();
+		if (newCapacity > oldCapacity) {
+			// Drop unused space so that the writable bytes are always in the last component
+			trim(this.writePosition);
+			DefaultDataBuffer component = this.dataBufferFactory.allocateBuffer(newCapacity - this.writePosition);
+			this.components.add(component);
+			ByteBuffer[] views = Arrays.copyOf(this.views, this.views.length + 1);
+			views[views.length - 1] = component.byteBufferView(0, newCapacity - this.writePosition);
+			setViews(views);
+		}
+		else if (newCapacity < oldCapacity) {
+			if (this.readPosition < newCapacity) {
+				if (this.writePosition > newCapacity) {
+					writePosition(newCapacity);
+				}
+			}
+			else {
+				readPosition(newCapacity);
+				writePosition(newCapacity);
+			}
+			trim(newCapacity);
+		}
+		return this;
+	}
+
+	@Override
+	public DataBuffer ensureCapacity(int length) {
+		if (length > writableByteCount()) {
+			capacity(DefaultDataBuffer.calculateCapacity(this.writePosition + length));
+		}
+		return this;
+	}
+
+	@Override
+	public byte getByte(int index) {
+		assertIndex(index >= 0, "index %d must be >= 0", index);
+		assertIndex(index <= this.writePosition - 1, "index %d must be <= %d", index, this.writePosition - 1);
+		int i = componentIndex(index);
+		return this.views[i].get(index - this.offsets[i]);
+	}
+
+	@Override
+	public byte read() {
+		assertIndex(this.readPosition <= this.writePosition - 1, "readPosition %d must be <= %d",
+				this.readPosition, this.writePosition - 1);
+		byte b = getByte(this.readPosition);
+		this.readPosition++;
+		return b;
+	}
+
+	@Override
+	public CompositeDataBuffer read(byte[] destination) {
+		Assert.notNull(destination, "Byte array must not be null");
+		read(destination, 0, destination.length);
+		return this;
+	}
+
+	@Override
+	public CompositeDataBuffer read(byte[] destination, int offset, int length) {
+		Assert.notNull(destination, "Byte array must not be null");
+		assertIndex(this.readPosition <= this.writePosition - length,
+				"readPosition %d and length %d should be smaller than writePosition %d",
+				this.readPosition, length, this.writePosition);
+		copy(this.readPosition, destination, offset, length, false);
+		this.readPosition += length;
+		return this;
+	}
+
+	@Override
+	public CompositeDataBuffer write(byte b) {
+		ensureCapacity(1);
+		int i = componentIndex(this.writePosition);
+		this.views[i].put(this.writePosition - this.offsets[i], b);
+		this.writePosition++;
+		return this;
+	}
+
+	@Override
+	public CompositeDataBuffer write(byte[] source) {
+		Assert.notNull(source, "Byte array must not be null");
+		write(source, 0, source.length);
+		return this;
+	}
+
+	@Override
+	public CompositeDataBuffer write(byte[] source, int offset, int length) {
+		Assert.notNull(source, "Byte array must not be null");
+		ensureCapacity(length);
+		copy(this.writePosition, source, offset, length, true);
+		this.writePosition += length;
+		return this;
+	}
+
+	@Override
+	public CompositeDataBuffer write(DataBuffer... buffers) {
+		if (!ObjectUtils.isEmpty(buffers)) {
+			write(Arrays.stream(buffers).map(DefaultDataBuffer::readableView).toArray(ByteBuffer[]::new));
+		}
+		return this;
+	}
+
+	@Override
+	public CompositeDataBuffer write(ByteBuffer... buffers) {
+		if (!ObjectUtils.isEmpty(buffers)) {
+			int capacity = Arrays.stream(buffers).mapToInt(ByteBuffer::remaining).sum();
+			ensureCapacity(capacity);
+			for (ByteBuffer source : buffers) {
+				write(source);
+			}
+		}
+		return this;
+	}
+
+	private void write(ByteBuffer source) {
+		for (int i = componentIndex(this.writePosition); source.hasRemaining(); i++) {
+			ByteBuffer target = this.views[i].duplicate();
+			target.position(Math.max(this.writePosition - this.offsets[i], 0));
+			int count = Math.min(source.remaining(), target.remaining());
+			ByteBuffer chunk = source.duplicate();
+			chunk.limit(chunk.position() + count);
+			target.put(chunk);
+			source.position(source.position() + count);
+			this.writePosition += count;
+		}
+	}
+
+	@Override
+	public CompositeDataBuffer write(CharSequence charSequence, Charset charset) {
+		Assert.notNull(charSequence, "CharSequence must not be null");
+		Assert.notNull(charset, "Charset must not be null");
+		if (charSequence.length() > 0) {
+			// Encode separately: the writable bytes may span more than one component
+			write(charset.encode(CharBuffer.wrap(charSequence)));
+		}
+		return this;
+	}
+
+	@Override
+	public CompositeDataBuffer slice(int index, int length) {
+		checkIndex(index, length);
+		List<ByteBuffer> views = new ArrayList<>();
+		collectViews(index, length, views);
+		return new CompositeDataBuffer(this.root, views.toArray(NO_VIEWS), length);
+	}
+
+	@Override
+	public ByteBuffer asByteBuffer() {
+		return asByteBuffer(this.readPosition, readableByteCount());
+	}
+
+	@Override
+	public ByteBuffer asByteBuffer(int index, int length) {
+		checkIndex(index, length);
+		if (length > 0 && index + length <= this.offsets[componentIndex(index) + 1]) {
+			// Not a copy: hands out the memory of a component
+			this.root.markExposed();
+		}
+		return byteBufferView(index, length);
+	}
+
+	/**
+	 * Return the given range of this buffer for internal, synchronous access,
+	 * without the memory of the components counting as exposed.
+	 * @see DefaultDataBuffer#byteBufferView(int, int)
+	 */
+	ByteBuffer byteBufferView(int index, int length) {
+		checkIndex(index, length);
+		if (length == 0) {
+			return ByteBuffer.allocate(0);
+		}
+		int i = componentIndex(index);
+		if (index + length <= this.offsets[i + 1]) {
+			ByteBuffer duplicate = this.views[i].duplicate();
+			duplicate.position(index - this.offsets[i]).limit(index - this.offsets[i] + length);
+			return duplicate.slice();
+		}
+		byte[] bytes = new byte[length];
+		copy(index, bytes, 0, length, false);
+		return ByteBuffer.wrap(bytes);
+	}
+
+	@Override
+	public InputStream asInputStream() {
+		return new CompositeDataBufferInputStream();
+	}
+
+	@Override
+	public InputStream asInputStream(boolean releaseOnClose) {
+		InputStream inputStream = asInputStream();
+		return (releaseOnClose ? new PooledDataBufferFactory.ReleasingInputStream(inputStream, this) : inputStream);
+	}
+
+	@Override
+	public OutputStream asOutputStream() {
+		return new CompositeDataBufferOutputStream();
+	}
+
+	@Override
+	public String toString(int index, int length, Charset charset) {
+		checkIndex(index, length);
+		Assert.notNull(charset, "Charset must not be null");
+		ByteBuffer byteBuffer = byteBufferView(index, length);
+		if (byteBuffer.hasArray()) {
+			return new String(byteBuffer.array(), byteBuffer.arrayOffset(), length, charset);
+		}
+		byte[] bytes = new byte[length];
+		byteBuffer.get(bytes);
+		return new String(bytes, charset);
+	}
+
+	@Override
+	public boolean isAllocated() {
+		return (this.root.refCount > 0);
+	}
+
+	@Override
+	public PooledDataBuffer retain() {
+		CompositeDataBuffer root = this.root;
+		int refCount;
+		do {
+			refCount = root.refCount;
+			if (refCount <= 0) {
+				throw new IllegalStateException("DataBuffer has already been released: " + this);
+			}
+		}
+		while (!REF_COUNT_UPDATER.compareAndSet(root, refCount, refCount + 1));
+		return this;
+	}
+
+	@Override
+	public boolean release() {
+		CompositeDataBuffer root = this.root;
+		int refCount;
+		do {
+			refCount = root.refCount;
+			if (refCount <= 0) {
+				throw new IllegalStateException("DataBuffer has already been released: " + this);
+			}
+		}
+		while (!REF_COUNT_UPDATER.compareAndSet(root, refCount, refCount - 1));
+		if (refCount == 1) {
+			root.deallocate();
+			return true;
+		}
+		return false;
+	}
+
+	private void deallocate() {
+		// Make any further access fail instead of reading released memory
+		this.readPosition = 0;
+		this.writePosition = 0;
+		setViews(NO_VIEWS);
+		this.components.forEach(DataBufferUtils::release);
+		this.components.clear();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("CompositeDataBuffer (r: %d, w: %d, c: %d, components: %d, refCnt: %d)",
+				this.readPosition, this.writePosition, capacity(), this.views.length, this.root.refCount);
+	}
+
+
+	/**
+	 * Mark the memory of all components as exposed, since it is not known
+	 * which of them a view handed out refers to.
+	 */
+	private void markExposed() {
+		for (DataBuffer component : this.components) {
+			if (component instanceof DefaultDataBuffer) {
+				((DefaultDataBuffer) component).markExposed();
+			}
+			else if (component instanceof CompositeDataBuffer) {
+				((CompositeDataBuffer) component).root.markExposed();
+			}
+		}
+	}
+
+	private void setViews(ByteBuffer[] views) {
+		int[] offsets = new int[views.length + 1];
+		for (int i = 0; i < views.length; i++) {
+			offsets[i + 1] = offsets[i] + views[i].remaining();
+		}
+		this.views = views;
+		this.offsets = offsets;
+	}
+
+	/**
+	 * Reduce the capacity to the given length by dropping or shortening the
+	 * trailing views.
+	 */
+	private void trim(int length) {
+		int count = 0;
+		while (count < this.views.length && this.offsets[count] < length) {
+			count++;
+		}
+		ByteBuffer[] views = Arrays.copyOf(this.views, count);
+		if (count > 0 && length < this.offsets[count]) {
+			ByteBuffer last = views[count - 1].duplicate();
+			last.limit(length - this.offsets[count - 1]);
+			views[count - 1] = last.slice();
+		}
+		setViews(views);
+	}
+
+	/**
+	 * Add views on the given range of this buffer to the given list.
+	 */
+	private void collectViews(int index, int length, List<ByteBuffer> result) {
+		if (length == 0) {
+			return;
+		}
+		int end = index + length;
+		for (int i = componentIndex(index); i < this.views.length && this.offsets[i] < end; i++) {
+			ByteBuffer view = this.views[i].duplicate();
+			view.position(Math.max(index - this.offsets[i], 0));
+			view.limit(Math.min(end, this.offsets[i + 1]) - this.offsets[i]);
+			result.add(view.slice());
+		}
+	}
+
+	/**
+	 * Copy bytes between the given range of this buffer and the given array.
+	 * @param write whether to copy from the array to this buffer, or from this
+	 * buffer to the array
+	 */
+	private void copy(int index, byte[] bytes, int offset, int length, boolean write) {
+		if (length == 0) {
+			return;
+		}
+		for (int i = componentIndex(index); length > 0; i++) {
+			ByteBuffer view = this.views[i].duplicate();
+			int position = index - this.offsets[i];
+			int count = Math.min(length, view.limit() - position);
+			view.position(position);
+			if (write) {
+				view.put(bytes, offset, count);
+			}
+			else {
+				view.get(bytes, offset, count);
+			}
+			index += count;
+			offset += count;
+			length -= count;
+		}
+	}
+
+	/**
+	 * Return the index of the view that holds the byte at the given index.
+	 */
+	private int componentIndex(int index) {
+		int low = 0;
+		int high = this.views.length - 1;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (this.offsets[mid] <= index) {
+				low = mid;
+			}
+			else {
+				high = mid - 1;
+			}
+		}
+		return low;
+	}
+
+	private void assertAllocated() {
+		Assert.state(isAllocated(), "DataBuffer has already been released");
+	}
+
+	private void checkIndex(int index, int length) {
+		assertIndex(index >= 0, "index %d must be >= 0", index);
+		assertIndex(length >= 0, "length %d must be >= 0", length);
+		assertIndex(index + length <= capacity(), "index %d and length %d must be <= %d",
+				index, length, capacity());
+	}
+
+	private void assertIndex(boolean expression, String format, Object... args) {
+		if (!expression) {
+			String message = String.format(format, args);
+			throw new IndexOutOfBoundsException(message);
+		}
+	}
+
+
+	private class CompositeDataBufferInputStream extends InputStream {
+
+		@Override
+		public int available() {
+			return readableByteCount();
+		}
+
+		@Override
+		public int read() {
+			return available() > 0 ? CompositeDataBuffer.this.read() & 0xFF : -1;
+		}
+
+		@Override
+		public int read(byte[] bytes, int off, int len) {
+			int available = available();
+			if (available > 0) {
+				len = Math.min(len, available);
+				CompositeDataBuffer.this.read(bytes, off, len);
+				return len;
+			}
+			else {
+				return -1;
+			}
+		}
+
+		@Override
+		public long skip(long n) {
+			int skipped = (int) Math.min(Math.max(n, 0), available());
+			readPosition(CompositeDataBuffer.this.readPosition + skipped);
+			return skipped;
+		}
+	}
+
+
+	private class CompositeDataBufferOutputStream extends OutputStream {
+
+		@Override
+		public void write(int b) {
+			CompositeDataBuffer.this.write((byte) b);
+		}
+
+		@Override
+		public void write(byte[] bytes, int off, int len) {
+			CompositeDataBuffer.this.write(bytes, off, len);
+		}
+	}
+
+}
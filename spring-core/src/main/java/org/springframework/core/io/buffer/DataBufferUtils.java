@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -25,6 +25,7 @@ import java.nio.channels.AsynchronousFileChannel;
 import java.nio.channels.Channel;
 import java.nio.channels.Channels;
 import java.nio.channels.CompletionHandler;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
 import java.nio.file.OpenOption;
@@ -32,6 +33,7 @@ import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -229,6 +231,94 @@ public abstract class DataBufferUtils {
 		return position == 0 ? result : skipUntilByteCount(result, position);
 	}
 
+	/**
+	 * Read bytes from the given file {@code Path} into a {@code Flux} of
+	 * {@code DataBuffer}s that wrap memory-mapped regions of the file, so
+	 * that no bytes are copied into user space and no memory is allocated
+	 * per chunk.
+	 * @param path the path to read bytes from
+	 * @param bufferFactory the factory to create data buffers with
+	 * @param bufferSize the maximum size of the data buffers
+	 * @return a Flux of data buffers read from the given file
+	 * @since 5.2.7
+	 * @see #readMapped(Path, long, long, DataBufferFactory, int)
+	 */
+	public static Flux<DataBuffer> readMapped(Path path, DataBufferFactory bufferFactory, int bufferSize) {
+		return readMapped(path, 0, Long.MAX_VALUE, bufferFactory, bufferSize);
+	}
+
+	/**
+	 * Read at most {@code count} bytes from the given file {@code Path},
+	 * starting at the given position, into a {@code Flux} of
+	 * {@code DataBuffer}s that wrap memory-mapped regions of the file.
+	 * <p>The returned buffers are read-only {@link PooledDataBuffer}s that
+	 * must not be accessed anymore once {@linkplain #release(DataBuffer)
+	 * released}. Mapped regions are not unmapped explicitly but freed by the
+	 * garbage collector, so that a {@code ByteBuffer} obtained from a buffer
+	 * remains valid for asynchronous writes that complete after its release.
+	 * The file should not be truncated while it is
+	 * being read. Buffers are created through the given factory if it is a
+	 * {@link DefaultDataBufferFactory}, or through a default one otherwise.
+	 * @param path the path to read bytes from
+	 * @param position the position to start reading from
+	 * @param count the maximum number of bytes to read
+	 * @param bufferFactory the factory to create data buffers with
+	 * @param bufferSize the maximum size of the data buffers
+	 * @return a Flux of data buffers read from the given file
+	 * @since 5.2.7
+	 */
+	public static Flux<DataBuffer> readMapped(
+			Path path, long position, long count, DataBufferFactory bufferFactory, int bufferSize) {
+
+		Assert.notNull(path, "Path must not be null");
+		Assert.notNull(bufferFactory, "BufferFactory must not be null");
+		Assert.isTrue(position >= 0, "'position' must be >= 0");
+		Assert.isTrue(count >= 0, "'count' must be >= 0");
+		Assert.isTrue(bufferSize > 0, "'bufferSize' must be > 0");
+
+		DefaultDataBufferFactory mappedBufferFactory = (bufferFactory instanceof DefaultDataBufferFactory ?
+				(DefaultDataBufferFactory) bufferFactory : new DefaultDataBufferFactory());
+
+		Flux<DataBuffer> flux = Flux.generate(
+				() -> new MappedFileReader(FileChannel.open(path, StandardOpenOption.READ),
+						position, count, mappedBufferFactory, bufferSize),
+				MappedFileReader::read,
+				MappedFileReader::dispose);
+
+		return flux.doOnDiscard(PooledDataBuffer.class, DataBufferUtils::release);
+	}
+
+	/**
+	 * Read at most {@code count} bytes of the given {@code Resource}, starting
+	 * at the given position, into a {@code Flux} of {@code DataBuffer}s.
+	 * <p>If the resource is a file, it is read through
+	 * {@link #readMapped(Path, long, long, DataBufferFactory, int)}, or else
+	 * fall back on {@link #read(Resource, long, DataBufferFactory, int)}.
+	 * This makes the method suitable for streaming
+	 * {@link org.springframework.core.io.support.ResourceRegion ResourceRegions}.
+	 * @param resource the resource to read from
+	 * @param position the position to start reading from
+	 * @param count the maximum number of bytes to read
+	 * @param bufferFactory the factory to create data buffers with
+	 * @param bufferSize the maximum size of the data buffers
+	 * @return a Flux of data buffers read from the given resource
+	 * @since 5.2.7
+	 */
+	public static Flux<DataBuffer> readMapped(
+			Resource resource, long position, long count, DataBufferFactory bufferFactory, int bufferSize) {
+
+		try {
+			if (resource.isFile()) {
+				File file = resource.getFile();
+				return readMapped(file.toPath(), position, count, bufferFactory, bufferSize);
+			}
+		}
+		catch (IOException ignore) {
+			// fallback to read(Resource), below
+		}
+		return takeUntilByteCount(read(resource, position, bufferFactory, bufferSize), count);
+	}
+
 
 	//---------------------------------------------------------------------
 	// Writing
@@ -550,10 +640,21 @@ public abstract class DataBufferUtils {
 		return Flux.from(buffers)
 				.collect(() -> new LimitedDataBufferList(maxByteCount), LimitedDataBufferList::add)
 				.filter(list -> !list.isEmpty())
-				.map(list -> list.get(0).factory().join(list))
+				.map(DataBufferUtils::joinBuffers)
 				.doOnDiscard(PooledDataBuffer.class, DataBufferUtils::release);
 	}
 
+	/**
+	 * Join the given buffers through their factory, presenting them as a
+	 * composite instead of copying them with a {@link DefaultDataBufferFactory}.
+	 */
+	private static DataBuffer joinBuffers(List<? extends DataBuffer> dataBuffers) {
+		DataBufferFactory bufferFactory = dataBuffers.get(0).factory();
+		return (bufferFactory instanceof DefaultDataBufferFactory ?
+				((DefaultDataBufferFactory) bufferFactory).joinComposite(dataBuffers) :
+				bufferFactory.join(dataBuffers));
+	}
+
 	/**
 	 * Return a {@link Matcher} for the given delimiter.
 	 * The matcher can be used to find the delimiters in data buffers.
@@ -563,27 +664,24 @@ public abstract class DataBufferUtils {
 	 */
 	public static Matcher matcher(byte[] delimiter) {
 		Assert.isTrue(delimiter.length > 0, "Delimiter must not be empty");
-		return new KnuthMorrisPrattMatcher(delimiter);
+		return new AhoCorasickMatcher(new byte[][] {delimiter});
 	}
 
 	/** Return a {@link Matcher} for the given delimiters.
 	 * The matcher can be used to find the delimiters in data buffers.
+	 * <p>All delimiters are compiled into a single automaton, so that each byte
+	 * is inspected only once. The first delimiter to end in a buffer wins; if
+	 * several end at the same position, the longest one is reported.
 	 * @param delimiters the delimiters bytes to find
 	 * @return the matcher
 	 * @since 5.2
 	 */
 	public static Matcher matcher(byte[]... delimiters) {
 		Assert.isTrue(delimiters.length > 0, "Delimiters must not be empty");
-		if (delimiters.length == 1) {
-			return matcher(delimiters[0]);
-		}
-		else {
-			Matcher[] matchers = new Matcher[delimiters.length];
-			for (int i = 0; i < delimiters.length; i++) {
-				matchers[i] = matcher(delimiters[i]);
-			}
-			return new CompositeMatcher(matchers);
+		for (byte[] delimiter : delimiters) {
+			Assert.isTrue(delimiter.length > 0, "Delimiter must not be empty");
 		}
+		return new AhoCorasickMatcher(delimiters);
 	}
 
 
@@ -749,6 +847,72 @@ public abstract class DataBufferUtils {
 	}
 
 
+	private static class MappedFileReader {
+
+		/**
+		 * Maximum size of a single mapped region; larger files are mapped in
+		 * several consecutive regions, each one becoming eligible for garbage
+		 * collection once none of its buffers is referenced anymore.
+		 */
+		private static final int MAX_REGION_SIZE = 16 * 1024 * 1024;
+
+		private final FileChannel channel;
+
+		private final DefaultDataBufferFactory dataBufferFactory;
+
+		private final int bufferSize;
+
+		private final int regionSize;
+
+		private final long end;
+
+		private long position;
+
+		@Nullable
+		private MappedDataBuffer.MappedRegion region;
+
+		public MappedFileReader(FileChannel channel, long position, long count,
+				DefaultDataBufferFactory dataBufferFactory, int bufferSize) throws IOException {
+
+			this.channel = channel;
+			this.dataBufferFactory = dataBufferFactory;
+			this.bufferSize = bufferSize;
+			this.regionSize = Math.max(MAX_REGION_SIZE / bufferSize, 1) * bufferSize;
+			this.position = position;
+			long size = channel.size();
+			this.end = (position >= size || count >= size - position ? size : position + count);
+		}
+
+		public MappedFileReader read(SynchronousSink<DataBuffer> sink) {
+			try {
+				MappedDataBuffer.MappedRegion region = this.region;
+				if (region == null || !region.hasRemaining()) {
+					this.region = null;
+					if (this.position >= this.end) {
+						sink.complete();
+						return this;
+					}
+					long size = Math.min(this.end - this.position, this.regionSize);
+					region = new MappedDataBuffer.MappedRegion(
+							this.channel.map(FileChannel.MapMode.READ_ONLY, this.position, size));
+					this.region = region;
+					this.position += size;
+				}
+				sink.next(region.nextChunk(this.dataBufferFactory, this.bufferSize));
+			}
+			catch (IOException ex) {
+				sink.error(ex);
+			}
+			return this;
+		}
+
+		public void dispose() {
+			this.region = null;
+			closeChannel(this.channel);
+		}
+	}
+
+
 	private static class WritableByteChannelSubscriber extends BaseSubscriber<DataBuffer> {
 
 		private final FluxSink<DataBuffer> sink;
@@ -885,121 +1049,176 @@ public abstract class DataBufferUtils {
 
 
 	/**
-	 * Implementation of {@link Matcher} that uses the Knuth-Morris-Pratt algorithm.
-	 * @see <a href="https://www.nayuki.io/page/knuth-morris-pratt-string-matching">Knuth-Morris-Pratt string matching</a>
+	 * Implementation of {@link Matcher} that compiles one or more delimiters into
+	 * a deterministic Aho-Corasick automaton. Bytes that do not occur in any
+	 * delimiter share a single input class, which keeps the transition table small.
+	 * <p>Buffers are scanned in bulk through their backing array or
+	 * {@link ByteBuffer} rather than one {@link DataBuffer#getByte} call per byte.
+	 * @see <a href="https://en.wikipedia.org/wiki/Aho%E2%80%93Corasick_algorithm">Aho-Corasick algorithm</a>
 	 */
-	private static class KnuthMorrisPrattMatcher implements Matcher {
+	private static class AhoCorasickMatcher implements Matcher {
 
-		private final byte[] delimiter;
+		private static final int MIN_CHUNK_SIZE = 256;
 
-		private final int[] table;
+		private static final int MAX_CHUNK_SIZE = 8192;
 
-		private int matches = 0;
+		private final byte[][] delimiters;
 
-		public KnuthMorrisPrattMatcher(byte[] delimiter) {
-			this.delimiter = Arrays.copyOf(delimiter, delimiter.length);
-			this.table = longestSuffixPrefixTable(delimiter);
-		}
+		/** Input class for each unsigned byte value. */
+		private final int[] byteClasses = new int[256];
+
+		private final int classCount;
+
+		/**
+		 * Transitions indexed by the current state's row plus the input class,
+		 * holding the row of the next state. The row is stored inverted if the
+		 * next state completes a delimiter.
+		 */
+		private final int[] transitions;
+
+		/** Index of the longest delimiter completed by each state, or -1. */
+		private final int[] outputs;
+
+		private int state = 0;
 
-		private static int[] longestSuffixPrefixTable(byte[] delimiter) {
-			int[] result = new int[delimiter.length];
-			result[0] = 0;
-			for (int i = 1; i < delimiter.length; i++) {
-				int j = result[i - 1];
-				while (j > 0 && delimiter[i] != delimiter[j]) {
-					j = result[j - 1];
+		@Nullable
+		private byte[] matchedDelimiter;
+
+		public AhoCorasickMatcher(byte[][] delimiters) {
+			this.delimiters = new byte[delimiters.length][];
+			int maxStates = 1;
+			int classCount = 1;
+			for (int i = 0; i < delimiters.length; i++) {
+				this.delimiters[i] = Arrays.copyOf(delimiters[i], delimiters[i].length);
+				maxStates += delimiters[i].length;
+				for (byte b : delimiters[i]) {
+					if (this.byteClasses[b & 0xFF] == 0) {
+						this.byteClasses[b & 0xFF] = classCount++;
+					}
+				}
+			}
+			this.classCount = classCount;
+			this.matchedDelimiter = (delimiters.length == 1 ? this.delimiters[0] : null);
+
+			// Build the trie, with 0 meaning "no child" since the root is never a child
+			int[] trie = new int[maxStates * classCount];
+			int[] outputs = new int[maxStates];
+			Arrays.fill(outputs, -1);
+			int stateCount = 1;
+			for (int i = 0; i < this.delimiters.length; i++) {
+				int current = 0;
+				for (byte b : this.delimiters[i]) {
+					int index = current * classCount + this.byteClasses[b & 0xFF];
+					if (trie[index] == 0) {
+						trie[index] = stateCount++;
+					}
+					current = trie[index];
 				}
-				if (delimiter[i] == delimiter[j]) {
-					j++;
+				if (outputs[current] == -1) {
+					outputs[current] = i;
 				}
-				result[i] = j;
 			}
-			return result;
-		}
-
-		@Override
-		public int match(DataBuffer dataBuffer) {
-			for (int i = dataBuffer.readPosition(); i < dataBuffer.writePosition(); i++) {
-				byte b = dataBuffer.getByte(i);
 
-				while (this.matches > 0 && b != this.delimiter[this.matches]) {
-					this.matches = this.table[this.matches - 1];
+			// Breadth-first completion of the transitions along the failure links
+			int[] failures = new int[stateCount];
+			int[] queue = new int[stateCount];
+			int head = 0;
+			int tail = 0;
+			for (int c = 0; c < classCount; c++) {
+				if (trie[c] != 0) {
+					queue[tail++] = trie[c];
 				}
-
-				if (b == this.delimiter[this.matches]) {
-					this.matches++;
-					if (this.matches == this.delimiter.length) {
-						reset();
-						return i;
+			}
+			while (head < tail) {
+				int current = queue[head++];
+				if (outputs[current] == -1) {
+					outputs[current] = outputs[failures[current]];
+				}
+				for (int c = 0; c < classCount; c++) {
+					int index = current * classCount + c;
+					int fallback = trie[failures[current] * classCount + c];
+					if (trie[index] != 0) {
+						failures[trie[index]] = fallback;
+						queue[tail++] = trie[index];
+					}
+					else {
+						trie[index] = fallback;
 					}
 				}
 			}
-			return -1;
-		}
-
-		@Override
-		public byte[] delimiter() {
-			return Arrays.copyOf(this.delimiter, this.delimiter.length);
-		}
-
-		@Override
-		public void reset() {
-			this.matches = 0;
-		}
-	}
-
-
-	/**
-	 * Implementation of {@link Matcher} that wraps several other matchers.
-	 */
-	private static class CompositeMatcher implements Matcher {
-
-		private static final byte[] NO_DELIMITER = new byte[0];
-
-		private final Matcher[] matchers;
 
-		byte[] longestDelimiter = NO_DELIMITER;
-
-		public CompositeMatcher(Matcher[] matchers) {
-			this.matchers = matchers;
+			this.outputs = Arrays.copyOf(outputs, stateCount);
+			this.transitions = new int[stateCount * classCount];
+			for (int i = 0; i < this.transitions.length; i++) {
+				int next = trie[i];
+				this.transitions[i] = (this.outputs[next] != -1 ? ~(next * classCount) : next * classCount);
+			}
 		}
 
 		@Override
 		public int match(DataBuffer dataBuffer) {
-			this.longestDelimiter = NO_DELIMITER;
-			int bestEndIdx = Integer.MAX_VALUE;
-
-
-			for (Matcher matcher : this.matchers) {
-				int endIdx = matcher.match(dataBuffer);
-				if (endIdx != -1 &&
-						endIdx <= bestEndIdx &&
-						matcher.delimiter().length > this.longestDelimiter.length) {
-					bestEndIdx = endIdx;
-					this.longestDelimiter = matcher.delimiter();
+			int position = dataBuffer.readPosition();
+			int limit = dataBuffer.writePosition();
+			if (dataBuffer instanceof DefaultDataBuffer) {
+				return match(((DefaultDataBuffer) dataBuffer).nativeBuffer(), position, limit);
+			}
+			// Views of other buffers may be copies: grow the chunks to bound the overhead
+			int chunkSize = MIN_CHUNK_SIZE;
+			while (position < limit) {
+				int length = Math.min(chunkSize, limit - position);
+				ByteBuffer byteBuffer = dataBuffer.asByteBuffer(position, length);
+				int start = byteBuffer.position();
+				int endIdx = match(byteBuffer, start, start + length);
+				if (endIdx != -1) {
+					return position + (endIdx - start);
 				}
+				position += length;
+				chunkSize = Math.min(chunkSize << 1, MAX_CHUNK_SIZE);
 			}
-			if (bestEndIdx == Integer.MAX_VALUE) {
-				this.longestDelimiter = NO_DELIMITER;
-				return -1;
+			return -1;
+		}
+
+		private int match(ByteBuffer byteBuffer, int start, int end) {
+			int[] byteClasses = this.byteClasses;
+			int[] transitions = this.transitions;
+			int current = this.state;
+			if (byteBuffer.hasArray()) {
+				byte[] array = byteBuffer.array();
+				int offset = byteBuffer.arrayOffset();
+				for (int i = start; i < end; i++) {
+					current = transitions[current + byteClasses[array[offset + i] & 0xFF]];
+					if (current < 0) {
+						return matched(~current, i);
+					}
+				}
 			}
 			else {
-				reset();
-				return bestEndIdx;
+				for (int i = start; i < end; i++) {
+					current = transitions[current + byteClasses[byteBuffer.get(i) & 0xFF]];
+					if (current < 0) {
+						return matched(~current, i);
+					}
+				}
 			}
+			this.state = current;
+			return -1;
+		}
+
+		private int matched(int row, int index) {
+			this.matchedDelimiter = this.delimiters[this.outputs[row / this.classCount]];
+			reset();
+			return index;
 		}
 
 		@Override
 		public byte[] delimiter() {
-			Assert.state(this.longestDelimiter != NO_DELIMITER, "Illegal state!");
-			return this.longestDelimiter;
+			Assert.state(this.matchedDelimiter != null, "No delimiter matched yet");
+			return this.matchedDelimiter;
 		}
 
 		@Override
 		public void reset() {
-			for (Matcher matcher : this.matchers) {
-				matcher.reset();
-			}
+			this.state = 0;
 		}
 	}
 
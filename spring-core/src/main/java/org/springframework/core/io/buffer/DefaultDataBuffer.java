@@ -61,7 +61,7 @@ public class DefaultDataBuffer implements DataBuffer {
 	private int writePosition;
 
 
-	private DefaultDataBuffer(DefaultDataBufferFactory dataBufferFactory, ByteBuffer byteBuffer) {
+	DefaultDataBuffer(DefaultDataBufferFactory dataBufferFactory, ByteBuffer byteBuffer) {
 		Assert.notNull(dataBufferFactory, "DefaultDataBufferFactory must not be null");
 		Assert.notNull(byteBuffer, "ByteBuffer must not be null");
 		this.dataBufferFactory = dataBufferFactory;
@@ -93,7 +93,15 @@ public class DefaultDataBuffer implements DataBuffer {
 		return this.byteBuffer;
 	}
 
-	private void setNativeBuffer(ByteBuffer byteBuffer) {
+	/**
+	 * Return the native {@code ByteBuffer} as is, for absolute access
+	 * without updating its position and limit.
+	 */
+	ByteBuffer nativeBuffer() {
+		return this.byteBuffer;
+	}
+
+	void setNativeBuffer(ByteBuffer byteBuffer) {
 		this.byteBuffer = byteBuffer;
 		this.capacity = byteBuffer.remaining();
 	}
@@ -228,7 +236,11 @@ public class DefaultDataBuffer implements DataBuffer {
 		return this;
 	}
 
-	private static ByteBuffer allocate(int capacity, boolean direct) {
+	/**
+	 * Allocate the {@code ByteBuffer} to use when the capacity of this buffer
+	 * changes. The returned buffer must have exactly the given capacity.
+	 */
+	ByteBuffer allocate(int capacity, boolean direct) {
 		return (direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity));
 	}
 
@@ -305,7 +317,7 @@ public class DefaultDataBuffer implements DataBuffer {
 	@Override
 	public DefaultDataBuffer write(DataBuffer... buffers) {
 		if (!ObjectUtils.isEmpty(buffers)) {
-			write(Arrays.stream(buffers).map(DataBuffer::asByteBuffer).toArray(ByteBuffer[]::new));
+			write(Arrays.stream(buffers).map(DefaultDataBuffer::readableView).toArray(ByteBuffer[]::new));
 		}
 		return this;
 	}
@@ -341,13 +353,42 @@ public class DefaultDataBuffer implements DataBuffer {
 			ByteBuffer slice = this.byteBuffer.slice();
 			// Explicit cast for compatibility with covariant return type on JDK 9's ByteBuffer
 			slice.limit(length);
-			return new SlicedDefaultDataBuffer(slice, this.dataBufferFactory, length);
+			return createSlice(slice, length);
 		}
 		finally {
 			buffer.position(oldPosition);
 		}
 	}
 
+	/**
+	 * Return a view of the readable bytes of the given buffer, which must be
+	 * consumed before the buffer is released.
+	 */
+	static ByteBuffer readableView(DataBuffer buffer) {
+		if (buffer instanceof DefaultDataBuffer) {
+			return ((DefaultDataBuffer) buffer).byteBufferView(buffer.readPosition(), buffer.readableByteCount());
+		}
+		else if (buffer instanceof CompositeDataBuffer) {
+			return ((CompositeDataBuffer) buffer).byteBufferView(buffer.readPosition(), buffer.readableByteCount());
+		}
+		return buffer.asByteBuffer();
+	}
+
+	/**
+	 * Record that the memory of this buffer has been handed out through a
+	 * view taken with {@link #byteBufferView(int, int)}.
+	 * <p>A no-op by default since the memory is not recycled.
+	 */
+	void markExposed() {
+	}
+
+	/**
+	 * Create a buffer for the given slice of the memory of this buffer.
+	 */
+	DefaultDataBuffer createSlice(ByteBuffer slice, int length) {
+		return new SlicedDefaultDataBuffer(slice, this.dataBufferFactory, length);
+	}
+
 	@Override
 	public ByteBuffer asByteBuffer() {
 		return asByteBuffer(this.readPosition, readableByteCount());
@@ -355,6 +396,16 @@ public class DefaultDataBuffer implements DataBuffer {
 
 	@Override
 	public ByteBuffer asByteBuffer(int index, int length) {
+		return byteBufferView(index, length);
+	}
+
+	/**
+	 * Return a view of the given range of this buffer for internal, synchronous
+	 * access, i.e. without the memory counting as exposed to a consumer that
+	 * might hold on to it.
+	 * @see PooledDataBufferFactory#setRecycleExposedMemory(boolean)
+	 */
+	ByteBuffer byteBufferView(int index, int length) {
 		checkIndex(index, length);
 
 		ByteBuffer duplicate = this.byteBuffer.duplicate();
@@ -408,7 +459,7 @@ public class DefaultDataBuffer implements DataBuffer {
 	 * Calculate the capacity of the buffer.
 	 * @see io.netty.buffer.AbstractByteBufAllocator#calculateNewCapacity(int, int)
 	 */
-	private int calculateCapacity(int neededCapacity) {
+	static int calculateCapacity(int neededCapacity) {
 		Assert.isTrue(neededCapacity >= 0, "'neededCapacity' must >= 0");
 
 		if (neededCapacity == CAPACITY_THRESHOLD) {
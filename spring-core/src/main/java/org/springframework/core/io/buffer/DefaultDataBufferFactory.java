@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -104,6 +104,7 @@ public class DefaultDataBufferFactory implements DataBufferFactory {
 	 * {@inheritDoc}
 	 * <p>This implementation creates a single {@link DefaultDataBuffer}
 	 * to contain the data in {@code dataBuffers}.
+	 * @see #joinComposite(List)
 	 */
 	@Override
 	public DefaultDataBuffer join(List<? extends DataBuffer> dataBuffers) {
@@ -115,6 +116,27 @@ public class DefaultDataBufferFactory implements DataBufferFactory {
 		return result;
 	}
 
+	/**
+	 * Return a buffer that presents the readable bytes of the given buffers
+	 * without copying them, as an alternative to {@link #join(List)}.
+	 * <p>A single buffer is returned as is; several buffers are presented as
+	 * one composite {@link PooledDataBuffer} that references their memory.
+	 * Unlike with {@link #join(List)}, the given buffers are not released
+	 * but owned by the returned buffer, and released when it is released.
+	 * <p>Used for aggregation by {@link DataBufferUtils#join(org.reactivestreams.Publisher)}
+	 * and by {@link org.springframework.core.codec.StringDecoder}.
+	 * @param dataBuffers the data buffers to be composed
+	 * @return a buffer that composes the given buffers
+	 * @since 5.2.7
+	 */
+	public DataBuffer joinComposite(List<? extends DataBuffer> dataBuffers) {
+		Assert.notEmpty(dataBuffers, "DataBuffer List must not be empty");
+		if (dataBuffers.size() == 1) {
+			return dataBuffers.get(0);
+		}
+		return new CompositeDataBuffer(this, dataBuffers);
+	}
+
 
 	@Override
 	public String toString() {
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Read-only {@link PooledDataBuffer} that wraps a chunk of a memory-mapped
+ * file region, as produced by
+ * {@link DataBufferUtils#readMapped(java.nio.file.Path, long, long, DataBufferFactory, int)}.
+ *
+ * <p>All chunks of a {@link MappedRegion} share the mapping. Releasing a
+ * chunk only detaches it from the mapping; the region is never unmapped
+ * explicitly but left to the garbage collector, since a {@code ByteBuffer}
+ * obtained through {@link #asByteBuffer()} may still be read after release,
+ * e.g. by a server completing an asynchronous write.
+ *
+ * @author Sen Hu
+ * @since 5.2.7
+ */
+class MappedDataBuffer extends DefaultDataBuffer implements PooledDataBuffer {
+
+	private static final ByteBuffer EMPTY_BUFFER = ByteBuffer.allocate(0);
+
+	private static final AtomicIntegerFieldUpdater<MappedDataBuffer> REF_COUNT_UPDATER =
+			AtomicIntegerFieldUpdater.newUpdater(MappedDataBuffer.class, "refCount");
+
+	private volatile int refCount = 1;
+
+
+	MappedDataBuffer(DefaultDataBufferFactory dataBufferFactory, ByteBuffer chunk) {
+		super(dataBufferFactory, chunk);
+		writePosition(capacity());
+	}
+
+
+	@Override
+	DefaultDataBuffer createSlice(ByteBuffer slice, int length) {
+		return new MappedSlicedDataBuffer(slice, this, length);
+	}
+
+	@Override
+	public InputStream asInputStream(boolean releaseOnClose) {
+		InputStream inputStream = asInputStream();
+		return (releaseOnClose ? new PooledDataBufferFactory.ReleasingInputStream(inputStream, this) : inputStream);
+	}
+
+	@Override
+	public boolean isAllocated() {
+		return (this.refCount > 0);
+	}
+
+	@Override
+	public PooledDataBuffer retain() {
+		int refCount;
+		do {
+			refCount = this.refCount;
+			if (refCount <= 0) {
+				throw new IllegalStateException("DataBuffer has already been released: " + this);
+			}
+		}
+		while (!REF_COUNT_UPDATER.compareAndSet(this, refCount, refCount + 1));
+		return this;
+	}
+
+	@Override
+	public boolean release() {
+		int refCount;
+		do {
+			refCount = this.refCount;
+			if (refCount <= 0) {
+				throw new IllegalStateException("DataBuffer has already been released: " + this);
+			}
+		}
+		while (!REF_COUNT_UPDATER.compareAndSet(this, refCount, refCount - 1));
+		if (refCount == 1) {
+			// Detach from the mapping: it is unmapped once it is no longer reachable
+			readPosition(0);
+			writePosition(0);
+			setNativeBuffer(EMPTY_BUFFER);
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("MappedDataBuffer (r: %d, w: %d, c: %d, refCnt: %d)",
+				readPosition(), writePosition(), capacity(), this.refCount);
+	}
+
+
+	/**
+	 * A memory-mapped region of a file, shared by the {@link MappedDataBuffer
+	 * chunks} created from it.
+	 * <p>The region is deliberately not unmapped explicitly: buffers handed to
+	 * an asynchronous writer may outlive their release, so the mapping is only
+	 * freed by the garbage collector once no buffer refers to it anymore.
+	 */
+	static final class MappedRegion {
+
+		private final MappedByteBuffer mappedBuffer;
+
+		private int offset;
+
+		MappedRegion(MappedByteBuffer mappedBuffer) {
+			this.mappedBuffer = mappedBuffer;
+		}
+
+		/**
+		 * Whether this region has bytes left that have not been handed out
+		 * by {@link #nextChunk}.
+		 */
+		boolean hasRemaining() {
+			return (this.offset < this.mappedBuffer.capacity());
+		}
+
+		/**
+		 * Create a buffer for the next chunk of at most the given size.
+		 */
+		MappedDataBuffer nextChunk(DefaultDataBufferFactory dataBufferFactory, int maxSize) {
+			int length = Math.min(maxSize, this.mappedBuffer.capacity() - this.offset);
+			ByteBuffer chunk = this.mappedBuffer.duplicate();
+			chunk.position(this.offset).limit(this.offset + length);
+			this.offset += length;
+			return new MappedDataBuffer(dataBufferFactory, chunk);
+		}
+	}
+
+
+	/**
+	 * Slice of a {@link MappedDataBuffer}, sharing its reference count.
+	 */
+	private static class MappedSlicedDataBuffer extends DefaultDataBuffer implements PooledDataBuffer {
+
+		private final MappedDataBuffer parent;
+
+		MappedSlicedDataBuffer(ByteBuffer slice, MappedDataBuffer parent, int length) {
+			super(parent.factory(), slice);
+			this.parent = parent;
+			writePosition(length);
+		}
+
+		@Override
+		public DefaultDataBuffer capacity(int newCapacity) {
+			throw new UnsupportedOperationException("Changing the capacity of a sliced buffer is not supported");
+		}
+
+		@Override
+		DefaultDataBuffer createSlice(ByteBuffer slice, int length) {
+			return new MappedSlicedDataBuffer(slice, this.parent, length);
+		}
+
+		@Override
+		public InputStream asInputStream(boolean releaseOnClose) {
+			InputStream inputStream = asInputStream();
+			return (releaseOnClose ? new PooledDataBufferFactory.ReleasingInputStream(inputStream, this) : inputStream);
+		}
+
+		@Override
+		public boolean isAllocated() {
+			return this.parent.isAllocated();
+		}
+
+		@Override
+		public PooledDataBuffer retain() {
+			this.parent.retain();
+			return this;
+		}
+
+		@Override
+		public boolean release() {
+			return this.parent.release();
+		}
+	}
+
+}
@@ -0,0 +1,691 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Extension of {@link DefaultDataBufferFactory} that recycles the memory of
+ * released buffers instead of allocating a new {@link ByteBuffer} for every
+ * {@link #allocateBuffer(int)} call. Intended for non-Netty runtimes, such as
+ * Servlet containers, Jetty and Undertow, in order to reduce garbage produced
+ * by reading and writing request and response bodies.
+ *
+ * <p>Buffers allocated by this factory implement {@link PooledDataBuffer}:
+ * their memory is returned to the pool once their reference count drops to
+ * zero, e.g. through {@link DataBufferUtils#release(DataBuffer)}. Requested
+ * capacities are rounded up to power-of-two size classes, from 64 bytes to
+ * the {@linkplain #getMaxPooledCapacity() maximum pooled capacity}; larger
+ * buffers are allocated without pooling. Released memory is first kept in a
+ * small cache bound to the releasing thread, and otherwise handed back to
+ * one of several shared arenas in order to limit contention.
+ *
+ * <p>Leak detection can be enabled through {@link #setLeakDetection(boolean)},
+ * in which case buffers that are garbage collected without having been
+ * released are logged along with the stack trace of their allocation.
+ *
+ * <p>Memory that has been exposed through {@link DataBuffer#asByteBuffer()}
+ * or {@link DefaultDataBuffer#getNativeBuffer()} is not recycled by default,
+ * since the consumer of such a {@code ByteBuffer} may still access it after
+ * the buffer has been released. This is the case with servers completing
+ * writes asynchronously, e.g. Jetty, for which a response buffer is released
+ * as soon as its write has been initiated. If all consumers are known to be
+ * done with exposed memory by the time the buffer is released, i.e. they
+ * process it synchronously, such memory can be recycled as well through
+ * {@link #setRecycleExposedMemory(boolean)}.
+ *
+ * <p><b>Note:</b> the Tomcat, Jetty and Undertow adapters of
+ * {@code spring-web} hand response buffers to the server through
+ * {@code asByteBuffer()}, and the Tomcat adapter reads request bodies the
+ * same way. With the default settings, pooling therefore does nothing for
+ * those buffers: their memory is left to the garbage collector just like
+ * with {@link DefaultDataBufferFactory}. Only buffers that are consumed by
+ * copying, e.g. with the generic Servlet adapter or by codecs, are recycled.
+ *
+ * @author Sen Hu
+ * @since 5.2.7
+ * @see DefaultDataBufferFactory
+ */
+public class PooledDataBufferFactory extends DefaultDataBufferFactory {
+
+	/**
+	 * The default maximum capacity of pooled buffers.
+	 * @see #PooledDataBufferFactory(boolean, int, int)
+	 */
+	public static final int DEFAULT_MAX_POOLED_CAPACITY = 64 * 1024;
+
+	private static final int MIN_SIZE_CLASS_SHIFT = 6;
+
+	private static final int MAX_THREAD_CACHED_CAPACITY = 8 * 1024;
+
+	private static final int MAX_THREAD_CACHED_BUFFERS = 8;
+
+	private static final int ARENA_BYTES_PER_SIZE_CLASS = 256 * 1024;
+
+	private static final int MIN_ARENA_BUFFERS_PER_SIZE_CLASS = 4;
+
+	private static final ByteBuffer EMPTY_BUFFER = ByteBuffer.allocate(0);
+
+	private static final Log logger = LogFactory.getLog(PooledDataBufferFactory.class);
+
+
+	private final boolean preferDirect;
+
+	private final int maxPooledCapacity;
+
+	private final int sizeClassCount;
+
+	private final Arena[] arenas;
+
+	private final ThreadLocal<ThreadCache> threadCache = ThreadLocal.withInitial(ThreadCache::new);
+
+	@Nullable
+	private volatile LeakDetector leakDetector;
+
+	private volatile boolean recycleExposedMemory;
+
+
+	/**
+	 * Create a new {@code PooledDataBufferFactory} with default settings,
+	 * pooling heap buffers.
+	 */
+	public PooledDataBufferFactory() {
+		this(false);
+	}
+
+	/**
+	 * Create a new {@code PooledDataBufferFactory}, indicating whether direct
+	 * buffers should be pooled.
+	 * @param preferDirect {@code true} if direct buffers are to be preferred;
+	 * {@code false} otherwise
+	 */
+	public PooledDataBufferFactory(boolean preferDirect) {
+		this(preferDirect, DEFAULT_INITIAL_CAPACITY, DEFAULT_MAX_POOLED_CAPACITY);
+	}
+
+	/**
+	 * Create a new {@code PooledDataBufferFactory}, indicating whether direct
+	 * buffers should be pooled, what capacity is to be used for
+	 * {@link #allocateBuffer()}, and up to what capacity buffers are pooled.
+	 * @param preferDirect {@code true} if direct buffers are to be preferred;
+	 * {@code false} otherwise
+	 * @param defaultInitialCapacity the capacity for {@link #allocateBuffer()}
+	 * @param maxPooledCapacity the capacity up to which buffers are pooled,
+	 * rounded up to the next power of two
+	 */
+	public PooledDataBufferFactory(boolean preferDirect, int defaultInitialCapacity, int maxPooledCapacity) {
+		super(preferDirect, defaultInitialCapacity);
+		Assert.isTrue(maxPooledCapacity > 0, "'maxPooledCapacity' should be larger than 0");
+		Assert.isTrue(maxPooledCapacity <= (1 << 30), "'maxPooledCapacity' should not exceed 1 GB");
+		this.preferDirect = preferDirect;
+		this.sizeClassCount = sizeClassIndex(maxPooledCapacity) + 1;
+		this.maxPooledCapacity = sizeClassCapacity(this.sizeClassCount - 1);
+		this.arenas = new Arena[Runtime.getRuntime().availableProcessors()];
+		for (int i = 0; i < this.arenas.length; i++) {
+			this.arenas[i] = new Arena(this.sizeClassCount);
+		}
+	}
+
+
+	/**
+	 * Return the capacity up to which buffers are pooled.
+	 */
+	public int getMaxPooledCapacity() {
+		return this.maxPooledCapacity;
+	}
+
+	/**
+	 * Specify whether to track buffers allocated by this factory, logging
+	 * those that are garbage collected without having been released.
+	 * <p>Default is "false". Turning this on captures the stack trace of every
+	 * allocation and is therefore meant for development and testing only.
+	 */
+	public void setLeakDetection(boolean leakDetection) {
+		this.leakDetector = (leakDetection ? new LeakDetector() : null);
+	}
+
+	/**
+	 * Return whether leak detection is turned on.
+	 */
+	public boolean isLeakDetection() {
+		return (this.leakDetector != null);
+	}
+
+	/**
+	 * Specify whether to recycle the memory of released buffers that has been
+	 * exposed through {@link DataBuffer#asByteBuffer()} or
+	 * {@link DefaultDataBuffer#getNativeBuffer()}.
+	 * <p>Default is "false", leaving such memory to the garbage collector,
+	 * which includes every buffer written by the Tomcat, Jetty and Undertow
+	 * adapters. Only switch this on if every consumer of an exposed
+	 * {@code ByteBuffer} is done with it before the buffer is released.
+	 * Otherwise the memory may be handed out again and overwritten while it
+	 * is still being read, e.g. by a server completing a write asynchronously.
+	 */
+	public void setRecycleExposedMemory(boolean recycleExposedMemory) {
+		this.recycleExposedMemory = recycleExposedMemory;
+	}
+
+	/**
+	 * Return whether the memory of released buffers is recycled even if it
+	 * has been exposed through {@link DataBuffer#asByteBuffer()}.
+	 */
+	public boolean isRecycleExposedMemory() {
+		return this.recycleExposedMemory;
+	}
+
+	/**
+	 * Return the number of leaked buffers detected so far, i.e. buffers that
+	 * were garbage collected without having been released.
+	 * <p>Always returns 0 if {@linkplain #setLeakDetection leak detection}
+	 * is turned off.
+	 */
+	public long getLeakCount() {
+		LeakDetector leakDetector = this.leakDetector;
+		if (leakDetector == null) {
+			return 0;
+		}
+		leakDetector.reportLeaks();
+		return leakDetector.leakCount.get();
+	}
+
+
+	@Override
+	public DefaultDataBuffer allocateBuffer(int initialCapacity) {
+		Assert.isTrue(initialCapacity >= 0, "'initialCapacity' must be >= 0");
+		ByteBuffer memory = acquire(initialCapacity);
+		PooledDefaultDataBuffer dataBuffer = new PooledDefaultDataBuffer(this, memory, initialCapacity);
+		LeakDetector leakDetector = this.leakDetector;
+		if (leakDetector != null) {
+			dataBuffer.leakRecord = leakDetector.track(dataBuffer);
+		}
+		return dataBuffer;
+	}
+
+	/**
+	 * Obtain memory for a buffer with the given capacity, either from the
+	 * cache of the current thread, from an arena, or by allocating it.
+	 */
+	ByteBuffer acquire(int capacity) {
+		if (capacity > this.maxPooledCapacity) {
+			return allocate(capacity);
+		}
+		int sizeClass = sizeClassIndex(capacity);
+		ByteBuffer memory = null;
+		if (sizeClassCapacity(sizeClass) <= MAX_THREAD_CACHED_CAPACITY) {
+			memory = this.threadCache.get().poll(sizeClass);
+		}
+		if (memory == null) {
+			memory = currentArena().poll(sizeClass);
+		}
+		if (memory == null) {
+			memory = allocate(sizeClassCapacity(sizeClass));
+		}
+		return memory;
+	}
+
+	/**
+	 * Return memory previously obtained through {@link #acquire(int)} to the
+	 * pool, or let it be garbage collected if it is not poolable.
+	 */
+	void recycle(ByteBuffer memory) {
+		int capacity = memory.capacity();
+		if (capacity > this.maxPooledCapacity || Integer.bitCount(capacity) != 1 ||
+				capacity < sizeClassCapacity(0) || memory.isDirect() != this.preferDirect) {
+			return;
+		}
+		int sizeClass = sizeClassIndex(capacity);
+		memory.clear();
+		if (capacity <= MAX_THREAD_CACHED_CAPACITY && this.threadCache.get().offer(sizeClass, memory)) {
+			return;
+		}
+		currentArena().offer(sizeClass, memory);
+	}
+
+	private ByteBuffer allocate(int capacity) {
+		return (this.preferDirect ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity));
+	}
+
+	private Arena currentArena() {
+		return this.arenas[(int) (Thread.currentThread().getId() % this.arenas.length)];
+	}
+
+	private static int sizeClassIndex(int capacity) {
+		int shift = (capacity <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(capacity - 1));
+		return Math.max(0, shift - MIN_SIZE_CLASS_SHIFT);
+	}
+
+	private static int sizeClassCapacity(int sizeClass) {
+		return 1 << (sizeClass + MIN_SIZE_CLASS_SHIFT);
+	}
+
+
+	@Override
+	public String toString() {
+		return "PooledDataBufferFactory (preferDirect=" + this.preferDirect +
+				", maxPooledCapacity=" + this.maxPooledCapacity + ")";
+	}
+
+
+	/**
+	 * Shared pool of released memory, with one bounded stack per size class.
+	 */
+	private static final class Arena {
+
+		private final ByteBuffer[][] stacks;
+
+		private final int[] sizes;
+
+		Arena(int sizeClassCount) {
+			this.stacks = new ByteBuffer[sizeClassCount][];
+			this.sizes = new int[sizeClassCount];
+			for (int i = 0; i < sizeClassCount; i++) {
+				int maxBuffers = Math.max(MIN_ARENA_BUFFERS_PER_SIZE_CLASS,
+						ARENA_BYTES_PER_SIZE_CLASS / sizeClassCapacity(i));
+				this.stacks[i] = new ByteBuffer[maxBuffers];
+			}
+		}
+
+		@Nullable
+		ByteBuffer poll(int sizeClass) {
+			ByteBuffer[] stack = this.stacks[sizeClass];
+			synchronized (stack) {
+				int size = this.sizes[sizeClass];
+				if (size == 0) {
+					return null;
+				}
+				ByteBuffer memory = stack[--size];
+				stack[size] = null;
+				this.sizes[sizeClass] = size;
+				return memory;
+			}
+		}
+
+		void offer(int sizeClass, ByteBuffer memory) {
+			ByteBuffer[] stack = this.stacks[sizeClass];
+			synchronized (stack) {
+				int size = this.sizes[sizeClass];
+				if (size < stack.length) {
+					stack[size] = memory;
+					this.sizes[sizeClass] = size + 1;
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Cache of released memory for the current thread, for small size classes only.
+	 */
+	private static final class ThreadCache {
+
+		private final ByteBuffer[][] stacks = new ByteBuffer[sizeClassIndex(MAX_THREAD_CACHED_CAPACITY) + 1][];
+
+		private final int[] sizes = new int[this.stacks.length];
+
+		@Nullable
+		ByteBuffer poll(int sizeClass) {
+			int size = this.sizes[sizeClass];
+			if (size == 0) {
+				return null;
+			}
+			ByteBuffer[] stack = this.stacks[sizeClass];
+			ByteBuffer memory = stack[--size];
+			stack[size] = null;
+			this.sizes[sizeClass] = size;
+			return memory;
+		}
+
+		boolean offer(int sizeClass, ByteBuffer memory) {
+			ByteBuffer[] stack = this.stacks[sizeClass];
+			if (stack == null) {
+				stack = new ByteBuffer[MAX_THREAD_CACHED_BUFFERS];
+				this.stacks[sizeClass] = stack;
+			}
+			int size = this.sizes[sizeClass];
+			if (size == stack.length) {
+				return false;
+			}
+			stack[size] = memory;
+			this.sizes[sizeClass] = size + 1;
+			return true;
+		}
+	}
+
+
+	/**
+	 * Tracks allocated buffers through weak references, reporting those that
+	 * are garbage collected before being released.
+	 */
+	private static final class LeakDetector {
+
+		private final ReferenceQueue<PooledDefaultDataBuffer> queue = new ReferenceQueue<>();
+
+		private final Map<LeakRecord, Boolean> records = new ConcurrentHashMap<>();
+
+		private final AtomicLong leakCount = new AtomicLong();
+
+		LeakRecord track(PooledDefaultDataBuffer dataBuffer) {
+			reportLeaks();
+			LeakRecord record = new LeakRecord(dataBuffer, this.queue);
+			this.records.put(record, Boolean.TRUE);
+			return record;
+		}
+
+		void close(LeakRecord record) {
+			this.records.remove(record);
+			record.clear();
+		}
+
+		void reportLeaks() {
+			LeakRecord record;
+			while ((record = (LeakRecord) this.queue.poll()) != null) {
+				if (this.records.remove(record) != null) {
+					this.leakCount.incrementAndGet();
+					if (logger.isWarnEnabled()) {
+						logger.warn("LEAK: DataBuffer was garbage collected before being released. " +
+								"Make sure DataBufferUtils.release(DataBuffer) is called once the buffer " +
+								"is no longer needed.", record.allocation);
+					}
+				}
+			}
+		}
+	}
+
+
+	private static final class LeakRecord extends WeakReference<PooledDefaultDataBuffer> {
+
+		private final Throwable allocation = new Throwable("Allocation of leaked DataBuffer");
+
+		LeakRecord(PooledDefaultDataBuffer referent, ReferenceQueue<PooledDefaultDataBuffer> queue) {
+			super(referent, queue);
+		}
+	}
+
+
+	/**
+	 * {@link DefaultDataBuffer} that returns its memory to the factory once
+	 * its reference count drops to zero.
+	 */
+	private static class PooledDefaultDataBuffer extends DefaultDataBuffer implements PooledDataBuffer {
+
+		private static final AtomicIntegerFieldUpdater<PooledDefaultDataBuffer> REF_COUNT_UPDATER =
+				AtomicIntegerFieldUpdater.newUpdater(PooledDefaultDataBuffer.class, "refCount");
+
+		private final PooledDataBufferFactory factory;
+
+		private ByteBuffer memory;
+
+		@Nullable
+		private ByteBuffer pendingMemory;
+
+		@Nullable
+		LeakRecord leakRecord;
+
+		/** Whether the current memory has been exposed through {@code asByteBuffer} or {@code getNativeBuffer}. */
+		private volatile boolean exposed;
+
+		private volatile int refCount = 1;
+
+		PooledDefaultDataBuffer(PooledDataBufferFactory factory, ByteBuffer memory, int capacity) {
+			super(factory, limit(memory, capacity));
+			this.factory = factory;
+			this.memory = memory;
+		}
+
+		private static ByteBuffer limit(ByteBuffer memory, int capacity) {
+			memory.clear().limit(capacity);
+			return memory;
+		}
+
+		@Override
+		ByteBuffer allocate(int capacity, boolean direct) {
+			ByteBuffer memory = this.factory.acquire(capacity);
+			this.pendingMemory = memory;
+			return limit(memory, capacity).slice();
+		}
+
+		@Override
+		public DefaultDataBuffer capacity(int newCapacity) {
+			assertAllocated();
+			super.capacity(newCapacity);
+			ByteBuffer newMemory = this.pendingMemory;
+			if (newMemory != null) {
+				this.pendingMemory = null;
+				recycle(this.memory);
+				this.memory = newMemory;
+				this.exposed = false;
+			}
+			return this;
+		}
+
+		@Override
+		public ByteBuffer asByteBuffer(int index, int length) {
+			this.exposed = true;
+			return super.asByteBuffer(index, length);
+		}
+
+		@Override
+		public ByteBuffer getNativeBuffer() {
+			this.exposed = true;
+			return super.getNativeBuffer();
+		}
+
+		@Override
+		public DataBuffer write(CharSequence charSequence, Charset charset) {
+			// Encoding goes through asByteBuffer but does not expose the memory
+			boolean exposed = this.exposed;
+			super.write(charSequence, charset);
+			this.exposed = exposed;
+			return this;
+		}
+
+		@Override
+		void markExposed() {
+			this.exposed = true;
+		}
+
+		@Override
+		DefaultDataBuffer createSlice(ByteBuffer slice, int length) {
+			return new PooledSlicedDataBuffer(slice, this, length);
+		}
+
+		@Override
+		public InputStream asInputStream(boolean releaseOnClose) {
+			InputStream inputStream = asInputStream();
+			return (releaseOnClose ? new ReleasingInputStream(inputStream, this) : inputStream);
+		}
+
+		@Override
+		public boolean isAllocated() {
+			return (this.refCount > 0);
+		}
+
+		@Override
+		public PooledDataBuffer retain() {
+			int refCount;
+			do {
+				refCount = this.refCount;
+				if (refCount <= 0) {
+					throw new IllegalStateException("DataBuffer has already been released: " + this);
+				}
+			}
+			while (!REF_COUNT_UPDATER.compareAndSet(this, refCount, refCount + 1));
+			return this;
+		}
+
+		@Override
+		public boolean release() {
+			int refCount;
+			do {
+				refCount = this.refCount;
+				if (refCount <= 0) {
+					throw new IllegalStateException("DataBuffer has already been released: " + this);
+				}
+			}
+			while (!REF_COUNT_UPDATER.compareAndSet(this, refCount, refCount - 1));
+			if (refCount == 1) {
+				deallocate();
+				return true;
+			}
+			return false;
+		}
+
+		private void deallocate() {
+			ByteBuffer memory = this.memory;
+			// Make any further access fail instead of reading recycled memory
+			readPosition(0);
+			writePosition(0);
+			setNativeBuffer(EMPTY_BUFFER);
+			this.memory = EMPTY_BUFFER;
+			LeakRecord leakRecord = this.leakRecord;
+			LeakDetector leakDetector = this.factory.leakDetector;
+			if (leakRecord != null && leakDetector != null) {
+				leakDetector.close(leakRecord);
+			}
+			recycle(memory);
+		}
+
+		private void recycle(ByteBuffer memory) {
+			if (!this.exposed || this.factory.recycleExposedMemory) {
+				this.factory.recycle(memory);
+			}
+		}
+
+		private void assertAllocated() {
+			Assert.state(isAllocated(), "DataBuffer has already been released");
+		}
+
+		@Override
+		public String toString() {
+			return String.format("PooledDataBuffer (r: %d, w: %d, c: %d, refCnt: %d)",
+					readPosition(), writePosition(), capacity(), this.refCount);
+		}
+	}
+
+
+	/**
+	 * Slice of a {@link PooledDefaultDataBuffer}, sharing its memory and its
+	 * reference count.
+	 */
+	private static class PooledSlicedDataBuffer extends DefaultDataBuffer implements PooledDataBuffer {
+
+		private final PooledDefaultDataBuffer parent;
+
+		PooledSlicedDataBuffer(ByteBuffer slice, PooledDefaultDataBuffer parent, int length) {
+			super(parent.factory(), slice);
+			this.parent = parent;
+			writePosition(length);
+		}
+
+		@Override
+		public DefaultDataBuffer capacity(int newCapacity) {
+			throw new UnsupportedOperationException("Changing the capacity of a sliced buffer is not supported");
+		}
+
+		@Override
+		DefaultDataBuffer createSlice(ByteBuffer slice, int length) {
+			return new PooledSlicedDataBuffer(slice, this.parent, length);
+		}
+
+		@Override
+		public ByteBuffer asByteBuffer(int index, int length) {
+			this.parent.markExposed();
+			return super.asByteBuffer(index, length);
+		}
+
+		@Override
+		public ByteBuffer getNativeBuffer() {
+			this.parent.markExposed();
+			return super.getNativeBuffer();
+		}
+
+		@Override
+		void markExposed() {
+			this.parent.markExposed();
+		}
+
+		@Override
+		public InputStream asInputStream(boolean releaseOnClose) {
+			InputStream inputStream = asInputStream();
+			return (releaseOnClose ? new ReleasingInputStream(inputStream, this) : inputStream);
+		}
+
+		@Override
+		public boolean isAllocated() {
+			return this.parent.isAllocated();
+		}
+
+		@Override
+		public PooledDataBuffer retain() {
+			this.parent.retain();
+			return this;
+		}
+
+		@Override
+		public boolean release() {
+			return this.parent.release();
+		}
+	}
+
+
+	/**
+	 * {@code InputStream} that releases the given buffer when closed.
+	 */
+	static class ReleasingInputStream extends FilterInputStream {
+
+		private final PooledDataBuffer dataBuffer;
+
+		private boolean closed;
+
+		ReleasingInputStream(InputStream in, PooledDataBuffer dataBuffer) {
+			super(in);
+			this.dataBuffer = dataBuffer;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (this.closed) {
+				return;
+			}
+			this.closed = true;
+			try {
+				super.close();
+			}
+			finally {
+				this.dataBuffer.release();
+			}
+		}
+	}
+
+}
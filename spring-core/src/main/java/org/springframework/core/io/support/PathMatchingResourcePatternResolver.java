@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -27,11 +27,17 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.net.URLConnection;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Enumeration;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
@@ -50,6 +56,7 @@ import org.springframework.lang.Nullable;
 import org.springframework.util.AntPathMatcher;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentLruCache;
 import org.springframework.util.PathMatcher;
 import org.springframework.util.ReflectionUtils;
 import org.springframework.util.ResourceUtils;
@@ -184,6 +191,8 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 
 	private static final Log logger = LogFactory.getLog(PathMatchingResourcePatternResolver.class);
 
+	private static final int DEFAULT_JAR_INDEX_CACHE_LIMIT = 256;
+
 	@Nullable
 	private static Method equinoxResolveMethod;
 
@@ -205,6 +214,13 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 
 	private PathMatcher pathMatcher = new AntPathMatcher();
 
+	/** Cache of jar entry indexes, keyed by jar file URL. */
+	private volatile ConcurrentLruCache<String, JarEntryIndex> jarEntryIndexCache =
+			new ConcurrentLruCache<>(DEFAULT_JAR_INDEX_CACHE_LIMIT, jarFileUrl -> new JarEntryIndex());
+
+	/** Whether directory traversal goes through overridden File-based template methods. */
+	private final boolean customDirectoryTraversal = isCustomDirectoryTraversal(getClass());
+
 
 	/**
 	 * Create a new PathMatchingResourcePatternResolver with a DefaultResourceLoader.
@@ -268,6 +284,38 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 		return this.pathMatcher;
 	}
 
+	/**
+	 * Specify the maximum number of jar files to keep an index of entries for.
+	 * <p>Default is 256. The least recently used index is dropped once the
+	 * limit is exceeded. A limit of 0 turns off indexing, reading the entries
+	 * of each jar file on every pattern match.
+	 * @since 5.2.7
+	 * @see #clearCache()
+	 */
+	public void setJarIndexCacheLimit(int jarIndexCacheLimit) {
+		this.jarEntryIndexCache = new ConcurrentLruCache<>(jarIndexCacheLimit, jarFileUrl -> new JarEntryIndex());
+	}
+
+	/**
+	 * Return the maximum number of jar files to keep an index of entries for.
+	 * @since 5.2.7
+	 */
+	public int getJarIndexCacheLimit() {
+		return this.jarEntryIndexCache.sizeLimit();
+	}
+
+	/**
+	 * Clear the jar entry indexes built so far, e.g. after jar files on the
+	 * class path have been replaced.
+	 * <p>Each jar file is read once on first access and its entries are reused
+	 * for all subsequent pattern matches until this method is called.
+	 * @since 5.2.7
+	 * @see #setJarIndexCacheLimit
+	 */
+	public void clearCache() {
+		this.jarEntryIndexCache.clear();
+	}
+
 
 	@Override
 	public Resource getResource(String location) {
@@ -589,20 +637,28 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 			throws IOException {
 
 		URLConnection con = rootDirURL.openConnection();
-		JarFile jarFile;
+		JarFile jarFile = null;
 		String jarFileUrl;
 		String rootEntryPath;
-		boolean closeJarFile;
+		boolean closeJarFile = false;
+		JarEntryIndex jarEntryIndex;
 
 		if (con instanceof JarURLConnection) {
 			// Should usually be the case for traditional JAR files.
 			JarURLConnection jarCon = (JarURLConnection) con;
-			ResourceUtils.useCachesIfNecessary(jarCon);
-			jarFile = jarCon.getJarFile();
 			jarFileUrl = jarCon.getJarFileURL().toExternalForm();
-			JarEntry jarEntry = jarCon.getJarEntry();
-			rootEntryPath = (jarEntry != null ? jarEntry.getName() : "");
-			closeJarFile = !jarCon.getUseCaches();
+			jarEntryIndex = this.jarEntryIndexCache.get(jarFileUrl);
+			if (!jarEntryIndex.isIndexed()) {
+				ResourceUtils.useCachesIfNecessary(jarCon);
+				jarFile = jarCon.getJarFile();
+				JarEntry jarEntry = jarCon.getJarEntry();
+				rootEntryPath = (jarEntry != null ? jarEntry.getName() : "");
+				closeJarFile = !jarCon.getUseCaches();
+			}
+			else {
+				String entryName = jarCon.getEntryName();
+				rootEntryPath = (entryName != null ? entryName : "");
+			}
 		}
 		else {
 			// No JarURLConnection -> need to resort to URL file parsing.
@@ -618,14 +674,16 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 				if (separatorIndex != -1) {
 					jarFileUrl = urlFile.substring(0, separatorIndex);
 					rootEntryPath = urlFile.substring(separatorIndex + 2);  // both separators are 2 chars
-					jarFile = getJarFile(jarFileUrl);
 				}
 				else {
-					jarFile = new JarFile(urlFile);
 					jarFileUrl = urlFile;
 					rootEntryPath = "";
 				}
-				closeJarFile = true;
+				jarEntryIndex = this.jarEntryIndexCache.get(jarFileUrl);
+				if (!jarEntryIndex.isIndexed()) {
+					jarFile = (separatorIndex != -1 ? getJarFile(jarFileUrl) : new JarFile(urlFile));
+					closeJarFile = true;
+				}
 			}
 			catch (ZipException ex) {
 				if (logger.isDebugEnabled()) {
@@ -636,6 +694,12 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 		}
 
 		try {
+			if (jarFile != null) {
+				if (logger.isTraceEnabled()) {
+					logger.trace("Indexing entries in jar file [" + jarFileUrl + "]");
+				}
+				jarEntryIndex.index(jarFile);
+			}
 			if (logger.isTraceEnabled()) {
 				logger.trace("Looking for matching resources in jar file [" + jarFileUrl + "]");
 			}
@@ -645,20 +709,16 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 				rootEntryPath = rootEntryPath + "/";
 			}
 			Set<Resource> result = new LinkedHashSet<>(8);
-			for (Enumeration<JarEntry> entries = jarFile.entries(); entries.hasMoreElements();) {
-				JarEntry entry = entries.nextElement();
-				String entryPath = entry.getName();
-				if (entryPath.startsWith(rootEntryPath)) {
-					String relativePath = entryPath.substring(rootEntryPath.length());
-					if (getPathMatcher().match(subPattern, relativePath)) {
-						result.add(rootDirResource.createRelative(relativePath));
-					}
+			for (String entryPath : jarEntryIndex.getEntryPaths(rootEntryPath)) {
+				String relativePath = entryPath.substring(rootEntryPath.length());
+				if (getPathMatcher().match(subPattern, relativePath)) {
+					result.add(rootDirResource.createRelative(relativePath));
 				}
 			}
 			return result;
 		}
 		finally {
-			if (closeJarFile) {
+			if (closeJarFile && jarFile != null) {
 				jarFile.close();
 			}
 		}
@@ -788,6 +848,11 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 	 * @throws IOException if directory contents could not be retrieved
 	 */
 	protected void doRetrieveMatchingFiles(String fullPattern, File dir, Set<File> result) throws IOException {
+		if (!this.customDirectoryTraversal) {
+			doRetrieveMatchingFiles(fullPattern, dir.toPath(),
+					StringUtils.replace(dir.getAbsolutePath(), File.separator, "/"), result);
+			return;
+		}
 		if (logger.isTraceEnabled()) {
 			logger.trace("Searching directory [" + dir.getAbsolutePath() +
 					"] for files matching pattern [" + fullPattern + "]");
@@ -813,6 +878,9 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 
 	/**
 	 * Determine a sorted list of files in the given directory.
+	 * <p>By default, directories are traversed through NIO without calling this
+	 * method. Overriding this method or {@link #doRetrieveMatchingFiles} switches
+	 * to a traversal through both of these methods for every directory.
 	 * @param dir the directory to introspect
 	 * @return the sorted list of files (by default in alphabetical order)
 	 * @since 5.1
@@ -830,6 +898,149 @@ public class PathMatchingResourcePatternResolver implements ResourcePatternResol
 		return files;
 	}
 
+	/**
+	 * NIO-based variant of {@link #doRetrieveMatchingFiles(String, File, Set)},
+	 * reading the attributes of each directory entry only once and building child
+	 * paths incrementally. Only used if neither that method nor
+	 * {@link #listDirectory(File)} is overridden, with the same results.
+	 */
+	private void doRetrieveMatchingFiles(String fullPattern, Path dir, String dirPath, Set<File> result) {
+		if (logger.isTraceEnabled()) {
+			logger.trace("Searching directory [" + dirPath + "] for files matching pattern [" + fullPattern + "]");
+		}
+		String pathPrefix = (dirPath.endsWith("/") ? dirPath : dirPath + "/");
+		for (Path content : listDirectory(dir, dirPath)) {
+			String currPath = pathPrefix + content.getFileName();
+			if (isDirectory(content) && getPathMatcher().matchStart(fullPattern, currPath + "/")) {
+				if (!Files.isReadable(content)) {
+					if (logger.isDebugEnabled()) {
+						logger.debug("Skipping subdirectory [" + dirPath +
+								"] because the application is not allowed to read the directory");
+					}
+				}
+				else {
+					doRetrieveMatchingFiles(fullPattern, content, currPath, result);
+				}
+			}
+			if (getPathMatcher().match(fullPattern, currPath)) {
+				result.add(content.toFile());
+			}
+		}
+	}
+
+	private List<Path> listDirectory(Path dir, String dirPath) {
+		List<Path> contents = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+			for (Path content : stream) {
+				contents.add(content);
+			}
+		}
+		catch (IOException | SecurityException ex) {
+			if (logger.isInfoEnabled()) {
+				logger.info("Could not retrieve contents of directory [" + dirPath + "]");
+			}
+			return Collections.emptyList();
+		}
+		contents.sort(Comparator.comparing(content -> content.getFileName().toString()));
+		return contents;
+	}
+
+	private static boolean isDirectory(Path path) {
+		try {
+			return Files.readAttributes(path, BasicFileAttributes.class).isDirectory();
+		}
+		catch (IOException | SecurityException ex) {
+			return false;
+		}
+	}
+
+	/**
+	 * Determine whether the given resolver class overrides any of the File-based
+	 * directory traversal methods, which the NIO-based traversal would bypass.
+	 */
+	private static boolean isCustomDirectoryTraversal(Class<?> resolverClass) {
+		if (resolverClass == PathMatchingResourcePatternResolver.class) {
+			return false;
+		}
+		Method doRetrieveMatchingFiles = ReflectionUtils.findMethod(
+				resolverClass, "doRetrieveMatchingFiles", String.class, File.class, Set.class);
+		Method listDirectory = ReflectionUtils.findMethod(resolverClass, "listDirectory", File.class);
+		return (doRetrieveMatchingFiles == null || listDirectory == null ||
+				doRetrieveMatchingFiles.getDeclaringClass() != PathMatchingResourcePatternResolver.class ||
+				listDirectory.getDeclaringClass() != PathMatchingResourcePatternResolver.class);
+	}
+
+	/**
+	 * Index of the entries in a jar file, allowing for quick lookups of all
+	 * entries below a given root entry path while retaining the jar file order.
+	 * <p>Created empty by the jar index cache and populated from the jar file
+	 * on first use.
+	 */
+	private static final class JarEntryIndex {
+
+		@Nullable
+		private int[] sortedPositions;
+
+		/** Written after {@link #sortedPositions}, publishing both. */
+		@Nullable
+		private volatile String[] entryPaths;
+
+		boolean isIndexed() {
+			return (this.entryPaths != null);
+		}
+
+		void index(JarFile jarFile) {
+			List<String> entryPathList = new ArrayList<>();
+			for (Enumeration<JarEntry> entries = jarFile.entries(); entries.hasMoreElements();) {
+				entryPathList.add(entries.nextElement().getName());
+			}
+			String[] entryPaths = entryPathList.toArray(new String[0]);
+			Integer[] positions = new Integer[entryPaths.length];
+			for (int i = 0; i < positions.length; i++) {
+				positions[i] = i;
+			}
+			Arrays.sort(positions, Comparator.comparing(position -> entryPaths[position]));
+			int[] sortedPositions = new int[positions.length];
+			for (int i = 0; i < positions.length; i++) {
+				sortedPositions[i] = positions[i];
+			}
+			this.sortedPositions = sortedPositions;
+			this.entryPaths = entryPaths;
+		}
+
+		/**
+		 * Return all entry paths that start with the given prefix,
+		 * in jar file order.
+		 */
+		List<String> getEntryPaths(String prefix) {
+			String[] entryPaths = this.entryPaths;
+			int[] sortedPositions = this.sortedPositions;
+			Assert.state(entryPaths != null && sortedPositions != null, "Jar entries not indexed");
+			int low = 0;
+			int high = sortedPositions.length;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (entryPaths[sortedPositions[mid]].compareTo(prefix) < 0) {
+					low = mid + 1;
+				}
+				else {
+					high = mid;
+				}
+			}
+			int end = low;
+			while (end < sortedPositions.length && entryPaths[sortedPositions[end]].startsWith(prefix)) {
+				end++;
+			}
+			int[] positions = Arrays.copyOfRange(sortedPositions, low, end);
+			Arrays.sort(positions);
+			List<String> result = new ArrayList<>(positions.length);
+			for (int position : positions) {
+				result.add(entryPaths[position]);
+			}
+			return result;
+		}
+	}
+
 
 	/**
 	 * Inner delegate class, avoiding a hard JBoss VFS API dependency at runtime.
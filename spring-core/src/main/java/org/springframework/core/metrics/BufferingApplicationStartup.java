@@ -0,0 +1,352 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.metrics;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link ApplicationStartup} implementation that buffers {@link StartupStep steps}
+ * in memory once they have ended, for later inspection or reporting.
+ *
+ * <p>Steps are nested per thread: a step started while another step of the
+ * same thread is active becomes its child. Tasks {@link #decorateTask decorated}
+ * for execution on other threads carry the active step of the submitting
+ * thread over as the parent of their steps. The buffer is bounded by the given
+ * capacity; steps ending once it is full are dropped and only counted.
+ *
+ * <p>{@link #writeFlameGraph(Writer)} exports the buffered steps in the
+ * "collapsed stack" format understood by common flame graph tools, with
+ * the self time of each step (excluding its buffered children) in microseconds.
+ *
+ * @author Sen Hu
+ * @since 5.2.7
+ */
+public class BufferingApplicationStartup implements ApplicationStartup {
+
+	private final int capacity;
+
+	private final AtomicLong idSeq = new AtomicLong();
+
+	private final AtomicInteger droppedCount = new AtomicInteger();
+
+	private final List<BufferedStartupStep> bufferedSteps = new ArrayList<>();
+
+	private final ThreadLocal<BufferedStartupStep> currentStep = new ThreadLocal<>();
+
+
+	/**
+	 * Create a new buffered {@link ApplicationStartup} with a limited capacity.
+	 * @param capacity the maximum number of ended steps to buffer
+	 */
+	public BufferingApplicationStartup(int capacity) {
+		Assert.isTrue(capacity > 0, "Capacity must be greater than 0");
+		this.capacity = capacity;
+	}
+
+
+	@Override
+	public StartupStep start(String name) {
+		Assert.hasText(name, "Step name must not be empty");
+		BufferedStartupStep parent = this.currentStep.get();
+		BufferedStartupStep step = new BufferedStartupStep(this.idSeq.incrementAndGet(), name, parent);
+		this.currentStep.set(step);
+		return step;
+	}
+
+	@Override
+	public Runnable decorateTask(Runnable task) {
+		BufferedStartupStep parent = this.currentStep.get();
+		return () -> {
+			BufferedStartupStep previous = this.currentStep.get();
+			setCurrentStep(parent);
+			try {
+				task.run();
+			}
+			finally {
+				setCurrentStep(previous);
+			}
+		};
+	}
+
+	private void setCurrentStep(@Nullable BufferedStartupStep step) {
+		if (step != null) {
+			this.currentStep.set(step);
+		}
+		else {
+			this.currentStep.remove();
+		}
+	}
+
+	private void record(BufferedStartupStep step) {
+		// Also leave nested steps which have not been ended, e.g. due to an exception.
+		for (BufferedStartupStep current = this.currentStep.get(); current != null; current = current.parent) {
+			if (current == step) {
+				setCurrentStep(step.parent);
+				break;
+			}
+		}
+		synchronized (this.bufferedSteps) {
+			if (this.bufferedSteps.size() < this.capacity) {
+				this.bufferedSteps.add(step);
+				return;
+			}
+		}
+		this.droppedCount.incrementAndGet();
+	}
+
+	/**
+	 * Return the steps buffered so far, in the order they ended.
+	 */
+	public List<BufferedStartupStep> getBufferedSteps() {
+		synchronized (this.bufferedSteps) {
+			return new ArrayList<>(this.bufferedSteps);
+		}
+	}
+
+	/**
+	 * Return the steps buffered so far and clear the buffer.
+	 */
+	public List<BufferedStartupStep> drainBufferedSteps() {
+		synchronized (this.bufferedSteps) {
+			List<BufferedStartupStep> steps = new ArrayList<>(this.bufferedSteps);
+			this.bufferedSteps.clear();
+			return steps;
+		}
+	}
+
+	/**
+	 * Return the number of steps that ended while the buffer was full.
+	 */
+	public int getDroppedCount() {
+		return this.droppedCount.get();
+	}
+
+	/**
+	 * Write the buffered steps in "collapsed stack" format: one line per step,
+	 * consisting of the semicolon-separated names of the step and its buffered
+	 * ancestors (root first) followed by the step's self time in microseconds.
+	 * Tags are appended to the step names in brackets.
+	 * @param writer the Writer to write the report to
+	 * @throws IOException in case of I/O errors
+	 */
+	public void writeFlameGraph(Writer writer) throws IOException {
+		List<BufferedStartupStep> steps = getBufferedSteps();
+		Map<Long, BufferedStartupStep> stepsById = new HashMap<>(steps.size());
+		Map<Long, Long> childNanosById = new HashMap<>(steps.size());
+		for (BufferedStartupStep step : steps) {
+			stepsById.put(step.getId(), step);
+		}
+		for (BufferedStartupStep step : steps) {
+			Long parentId = step.getParentId();
+			if (parentId != null && stepsById.containsKey(parentId)) {
+				childNanosById.merge(parentId, step.getDurationNanos(), Long::sum);
+			}
+		}
+		Map<Long, String> framesById = new HashMap<>(steps.size());
+		for (BufferedStartupStep step : steps) {
+			long selfNanos = step.getDurationNanos() - childNanosById.getOrDefault(step.getId(), 0L);
+			writer.write(getFrames(step, stepsById, framesById));
+			writer.write(' ');
+			writer.write(Long.toString(TimeUnit.NANOSECONDS.toMicros(Math.max(selfNanos, 0))));
+			writer.write('\n');
+		}
+	}
+
+	/**
+	 * Return the buffered steps in "collapsed stack" format.
+	 * @see #writeFlameGraph(Writer)
+	 */
+	public String getFlameGraphReport() {
+		StringWriter writer = new StringWriter();
+		try {
+			writeFlameGraph(writer);
+		}
+		catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+		return writer.toString();
+	}
+
+	private String getFrames(BufferedStartupStep step, Map<Long, BufferedStartupStep> stepsById,
+			Map<Long, String> framesById) {
+
+		String frames = framesById.get(step.getId());
+		if (frames == null) {
+			Long parentId = step.getParentId();
+			BufferedStartupStep parent = (parentId != null ? stepsById.get(parentId) : null);
+			frames = (parent != null ? getFrames(parent, stepsById, framesById) + ";" : "") + getFrame(step);
+			framesById.put(step.getId(), frames);
+		}
+		return frames;
+	}
+
+	private static String getFrame(BufferedStartupStep step) {
+		StringBuilder frame = new StringBuilder(step.getName());
+		Iterator<StartupStep.Tag> tags = step.getTags().iterator();
+		if (tags.hasNext()) {
+			frame.append('[');
+			while (tags.hasNext()) {
+				StartupStep.Tag tag = tags.next();
+				frame.append(tag.getKey()).append('=').append(tag.getValue());
+				if (tags.hasNext()) {
+					frame.append(',');
+				}
+			}
+			frame.append(']');
+		}
+		return frame.toString().replace(';', ',').replace(' ', '_').replace('\n', '_');
+	}
+
+
+	/**
+	 * {@link StartupStep} buffered by a {@link BufferingApplicationStartup}.
+	 */
+	public class BufferedStartupStep implements StartupStep {
+
+		private final long id;
+
+		private final String name;
+
+		@Nullable
+		private final BufferedStartupStep parent;
+
+		private final Map<String, String> tags = new LinkedHashMap<>();
+
+		private final long startNanos;
+
+		private long endNanos;
+
+		private volatile boolean ended;
+
+		BufferedStartupStep(long id, String name, @Nullable BufferedStartupStep parent) {
+			this.id = id;
+			this.name = name;
+			this.parent = parent;
+			this.startNanos = System.nanoTime();
+		}
+
+		@Override
+		public String getName() {
+			return this.name;
+		}
+
+		@Override
+		public long getId() {
+			return this.id;
+		}
+
+		@Override
+		@Nullable
+		public Long getParentId() {
+			return (this.parent != null ? this.parent.id : null);
+		}
+
+		@Override
+		public StartupStep tag(String key, String value) {
+			Assert.state(!this.ended, "StartupStep has already ended");
+			this.tags.put(key, value);
+			return this;
+		}
+
+		@Override
+		public StartupStep tag(String key, Supplier<String> value) {
+			return tag(key, value.get());
+		}
+
+		@Override
+		public Tags getTags() {
+			List<StartupStep.Tag> tags = new ArrayList<>(this.tags.size());
+			this.tags.forEach((key, value) -> tags.add(new BufferedTag(key, value)));
+			List<StartupStep.Tag> result = Collections.unmodifiableList(tags);
+			return result::iterator;
+		}
+
+		@Override
+		public void end() {
+			Assert.state(!this.ended, "StartupStep has already ended");
+			this.endNanos = System.nanoTime();
+			this.ended = true;
+			record(this);
+		}
+
+		/**
+		 * Return the {@link System#nanoTime()} value at which this step started.
+		 */
+		public long getStartNanos() {
+			return this.startNanos;
+		}
+
+		/**
+		 * Return the duration of this step in nanoseconds,
+		 * or {@code -1} if it has not ended yet.
+		 */
+		public long getDurationNanos() {
+			return (this.ended ? this.endNanos - this.startNanos : -1);
+		}
+
+		@Override
+		public String toString() {
+			return "StartupStep '" + this.name + "' [" + this.id + "]";
+		}
+	}
+
+
+	private static class BufferedTag implements StartupStep.Tag {
+
+		private final String key;
+
+		private final String value;
+
+		BufferedTag(String key, String value) {
+			this.key = key;
+			this.value = value;
+		}
+
+		@Override
+		public String getKey() {
+			return this.key;
+		}
+
+		@Override
+		public String getValue() {
+			return this.value;
+		}
+
+		@Override
+		public String toString() {
+			return this.key + "=" + this.value;
+		}
+	}
+
+}
@@ -0,0 +1,340 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.task;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrencyThrottleSupport;
+import org.springframework.util.CustomizableThreadCreator;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.concurrent.ListenableFuture;
+import org.springframework.util.concurrent.ListenableFutureTask;
+
+/**
+ * {@link TaskExecutor} implementation that fires up a new virtual Thread for
+ * each task, executing it asynchronously. Virtual threads are obtained through
+ * {@code Thread.ofVirtual()} on JDKs that support them, detected reflectively;
+ * on older JDKs, this executor falls back to a new platform Thread per task,
+ * analogous to {@link SimpleAsyncTaskExecutor}.
+ *
+ * <p>Supports limiting concurrent tasks through the "concurrencyLimit"
+ * bean property. In contrast to {@link SimpleAsyncTaskExecutor}, the limit
+ * is enforced through a {@link Semaphore} rather than a synchronized monitor,
+ * so that waiting callers do not pin their carrier threads. By default, the
+ * number of concurrent tasks is unlimited.
+ *
+ * <p>This executor is primarily designed for large numbers of blocking tasks,
+ * e.g. fan-out of JDBC or HTTP calls from {@code @Async} methods, where pooled
+ * platform threads would otherwise cap the achievable concurrency.
+ *
+ * @author Sen Hu
+ * @since 5.2.7
+ * @see #isVirtualThreadSupported()
+ * @see #setConcurrencyLimit
+ * @see SimpleAsyncTaskExecutor
+ */
+public class VirtualThreadTaskExecutor implements AsyncListenableTaskExecutor {
+
+	/**
+	 * Permit any number of concurrent invocations: that is, don't throttle concurrency.
+	 * @see ConcurrencyThrottleSupport#UNBOUNDED_CONCURRENCY
+	 */
+	public static final int UNBOUNDED_CONCURRENCY = ConcurrencyThrottleSupport.UNBOUNDED_CONCURRENCY;
+
+	/**
+	 * Switch concurrency 'off': that is, don't allow any concurrent invocations.
+	 * @see ConcurrencyThrottleSupport#NO_CONCURRENCY
+	 */
+	public static final int NO_CONCURRENCY = ConcurrencyThrottleSupport.NO_CONCURRENCY;
+
+	/**
+	 * Default thread name prefix: "virtual-".
+	 */
+	public static final String DEFAULT_THREAD_NAME_PREFIX = "virtual-";
+
+	@Nullable
+	private static final Method ofVirtualMethod;
+
+	@Nullable
+	private static final Method nameMethod;
+
+	@Nullable
+	private static final Method factoryMethod;
+
+	static {
+		Method ofVirtual = null;
+		Method name = null;
+		Method factory = null;
+		try {
+			ofVirtual = Thread.class.getMethod("ofVirtual");
+			Class<?> builderClass = ClassUtils.forName("java.lang.Thread$Builder",
+					VirtualThreadTaskExecutor.class.getClassLoader());
+			name = builderClass.getMethod("name", String.class, long.class);
+			factory = builderClass.getMethod("factory");
+			// Virtual threads may be a preview feature: make sure they can actually be created.
+			ofVirtual.invoke(null);
+		}
+		catch (Throwable ex) {
+			ofVirtual = null;
+		}
+		ofVirtualMethod = ofVirtual;
+		nameMethod = name;
+		factoryMethod = factory;
+	}
+
+
+	private final ThreadFactory threadFactory;
+
+	private final boolean virtual;
+
+	private int concurrencyLimit = UNBOUNDED_CONCURRENCY;
+
+	@Nullable
+	private Semaphore concurrencyPermits;
+
+	@Nullable
+	private TaskDecorator taskDecorator;
+
+
+	/**
+	 * Create a new VirtualThreadTaskExecutor with default thread name prefix.
+	 */
+	public VirtualThreadTaskExecutor() {
+		this(DEFAULT_THREAD_NAME_PREFIX);
+	}
+
+	/**
+	 * Create a new VirtualThreadTaskExecutor with the given thread name prefix.
+	 * @param threadNamePrefix the prefix to use for the names of newly created threads
+	 */
+	public VirtualThreadTaskExecutor(String threadNamePrefix) {
+		Assert.notNull(threadNamePrefix, "Thread name prefix must not be null");
+		ThreadFactory virtualThreadFactory = createVirtualThreadFactory(threadNamePrefix);
+		if (virtualThreadFactory != null) {
+			this.threadFactory = virtualThreadFactory;
+			this.virtual = true;
+		}
+		else {
+			CustomizableThreadCreator threadCreator = new CustomizableThreadCreator(threadNamePrefix);
+			this.threadFactory = threadCreator::createThread;
+			this.virtual = false;
+		}
+	}
+
+
+	/**
+	 * Return whether this executor runs its tasks on virtual threads,
+	 * as opposed to falling back to platform threads.
+	 * @see #isVirtualThreadSupported()
+	 */
+	public final boolean isVirtual() {
+		return this.virtual;
+	}
+
+	/**
+	 * Specify a custom {@link TaskDecorator} to be applied to any {@link Runnable}
+	 * about to be executed.
+	 * @see SimpleAsyncTaskExecutor#setTaskDecorator
+	 */
+	public final void setTaskDecorator(TaskDecorator taskDecorator) {
+		this.taskDecorator = taskDecorator;
+	}
+
+	/**
+	 * Set the maximum number of concurrently running tasks.
+	 * -1 indicates no concurrency limit at all.
+	 * <p>Callers exceeding the limit wait for a permit, either indefinitely or
+	 * up to the start timeout passed into {@link #execute(Runnable, long)}.
+	 * This is designed as a config time setting: tasks running at the time
+	 * of a change still release their permits to the previous limit.
+	 * @see #UNBOUNDED_CONCURRENCY
+	 */
+	public void setConcurrencyLimit(int concurrencyLimit) {
+		this.concurrencyLimit = concurrencyLimit;
+		this.concurrencyPermits = (concurrencyLimit > 0 ? new Semaphore(concurrencyLimit, true) : null);
+	}
+
+	/**
+	 * Return the maximum number of concurrently running tasks.
+	 */
+	public final int getConcurrencyLimit() {
+		return this.concurrencyLimit;
+	}
+
+	/**
+	 * Return whether the concurrency limit is currently active.
+	 * @return {@code true} if the concurrency limit for this instance is active
+	 * @see #getConcurrencyLimit()
+	 * @see #setConcurrencyLimit
+	 */
+	public final boolean isThrottleActive() {
+		return (this.concurrencyLimit >= 0);
+	}
+
+
+	/**
+	 * Executes the given task, within the concurrency limit if configured.
+	 * @see #doExecute(Runnable)
+	 */
+	@Override
+	public void execute(Runnable task) {
+		execute(task, TIMEOUT_INDEFINITE);
+	}
+
+	/**
+	 * Executes the given task, within the concurrency limit if configured.
+	 * <p>Executes urgent tasks (with 'immediate' timeout) directly,
+	 * bypassing the concurrency limit (if active). All other tasks
+	 * wait for a permit, up to the given start timeout.
+	 * @throws TaskTimeoutException if no permit became available in time
+	 * @see #TIMEOUT_IMMEDIATE
+	 * @see #doExecute(Runnable)
+	 */
+	@Override
+	public void execute(Runnable task, long startTimeout) {
+		Assert.notNull(task, "Runnable must not be null");
+		Runnable taskToUse = (this.taskDecorator != null ? this.taskDecorator.decorate(task) : task);
+		if (isThrottleActive() && startTimeout > TIMEOUT_IMMEDIATE) {
+			Semaphore permits = this.concurrencyPermits;
+			if (permits == null) {
+				throw new IllegalStateException(
+						"Currently no invocations allowed - concurrency limit set to NO_CONCURRENCY");
+			}
+			acquirePermit(permits, startTimeout);
+			try {
+				doExecute(new PermitReleasingRunnable(taskToUse, permits));
+			}
+			catch (Throwable ex) {
+				permits.release();
+				throw ex;
+			}
+		}
+		else {
+			doExecute(taskToUse);
+		}
+	}
+
+	private void acquirePermit(Semaphore permits, long startTimeout) {
+		try {
+			if (startTimeout == TIMEOUT_INDEFINITE) {
+				permits.acquire();
+			}
+			else if (!permits.tryAcquire(startTimeout, TimeUnit.MILLISECONDS)) {
+				throw new TaskTimeoutException("Concurrency limit of " + this.concurrencyLimit +
+						" reached: no permit available within start timeout of " + startTimeout + " ms");
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new TaskRejectedException("Interrupted while waiting for concurrency permit", ex);
+		}
+	}
+
+	@Override
+	public Future<?> submit(Runnable task) {
+		FutureTask<Object> future = new FutureTask<>(task, null);
+		execute(future, TIMEOUT_INDEFINITE);
+		return future;
+	}
+
+	@Override
+	public <T> Future<T> submit(Callable<T> task) {
+		FutureTask<T> future = new FutureTask<>(task);
+		execute(future, TIMEOUT_INDEFINITE);
+		return future;
+	}
+
+	@Override
+	public ListenableFuture<?> submitListenable(Runnable task) {
+		ListenableFutureTask<Object> future = new ListenableFutureTask<>(task, null);
+		execute(future, TIMEOUT_INDEFINITE);
+		return future;
+	}
+
+	@Override
+	public <T> ListenableFuture<T> submitListenable(Callable<T> task) {
+		ListenableFutureTask<T> future = new ListenableFutureTask<>(task);
+		execute(future, TIMEOUT_INDEFINITE);
+		return future;
+	}
+
+	/**
+	 * Template method for the actual execution of a task.
+	 * <p>The default implementation creates a new (virtual) Thread and starts it.
+	 * @param task the Runnable to execute
+	 * @see java.lang.Thread#start()
+	 */
+	protected void doExecute(Runnable task) {
+		this.threadFactory.newThread(task).start();
+	}
+
+
+	/**
+	 * Determine whether the current JDK supports virtual threads,
+	 * i.e. whether {@code Thread.ofVirtual()} is available and usable.
+	 */
+	public static boolean isVirtualThreadSupported() {
+		return (ofVirtualMethod != null);
+	}
+
+	@Nullable
+	private static ThreadFactory createVirtualThreadFactory(String threadNamePrefix) {
+		if (ofVirtualMethod == null || nameMethod == null || factoryMethod == null) {
+			return null;
+		}
+		Object builder = ReflectionUtils.invokeMethod(ofVirtualMethod, null);
+		builder = ReflectionUtils.invokeMethod(nameMethod, builder, threadNamePrefix, 1L);
+		return (ThreadFactory) ReflectionUtils.invokeMethod(factoryMethod, builder);
+	}
+
+
+	/**
+	 * This Runnable releases its concurrency permit after the
+	 * target Runnable has finished its execution.
+	 */
+	private static class PermitReleasingRunnable implements Runnable {
+
+		private final Runnable target;
+
+		private final Semaphore permits;
+
+		public PermitReleasingRunnable(Runnable target, Semaphore permits) {
+			this.target = target;
+			this.permits = permits;
+		}
+
+		@Override
+		public void run() {
+			try {
+				this.target.run();
+			}
+			finally {
+				this.permits.release();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,405 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.asm.ClassReader;
+import org.springframework.asm.ClassVisitor;
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.FieldVisitor;
+import org.springframework.asm.SpringAsmInfo;
+import org.springframework.core.SpringProperties;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ResourceUtils;
+import org.springframework.util.StreamUtils;
+
+/**
+ * Persistent cache for the class file content that backs {@link MetadataReader}
+ * instances, allowing class metadata to be reused across JVM restarts.
+ *
+ * <p>For each class file resource, the cache stores a stripped-down copy of the
+ * class file that only retains the structures needed for
+ * {@link org.springframework.core.type.AnnotationMetadata} (no fields, no code,
+ * no debug information), stamped with the CRC-32 checksum of the original
+ * content. An entry is only reused if the checksum still matches, so modified
+ * classes and rebuilt jar files are transparently re-read. For jar entries, the
+ * checksum is taken from the jar file's central directory; for other resources,
+ * it is computed from the content.
+ *
+ * <p>Once new entries have been added, {@link #flush()} writes all entries
+ * accessed during the current run back to disk, replacing the previous file
+ * atomically where possible; entries that were not accessed are dropped at
+ * that point. Every flush releases the entries held in memory, which are read
+ * from disk again on next access. A corrupt or incompatible cache file is
+ * silently ignored.
+ *
+ * <p>A shared instance may be activated through the
+ * {@value #CACHE_FILE_PROPERTY_NAME} system property, in which case it is
+ * picked up by every {@link CachingMetadataReaderFactory} and flushed whenever
+ * such a factory's cache is cleared (e.g. after configuration class processing).
+ *
+ * @author Sen Hu
+ * @since 5.2.7
+ * @see CachingMetadataReaderFactory#setPersistentCache
+ */
+public class PersistentMetadataReaderCache {
+
+	/**
+	 * System property that specifies the file to use for a shared persistent
+	 * metadata cache: {@value}.
+	 * <p>Not set by default, i.e. no persistent caching.
+	 */
+	public static final String CACHE_FILE_PROPERTY_NAME = "spring.metadata.cache.file";
+
+	private static final int MAGIC = 0x5350434d;
+
+	private static final int FORMAT_VERSION = 2;
+
+	private static final int PARSING_OPTIONS = ClassReader.SKIP_DEBUG
+			| ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES;
+
+	private static final Log logger = LogFactory.getLog(PersistentMetadataReaderCache.class);
+
+	@Nullable
+	private static volatile PersistentMetadataReaderCache sharedInstance;
+
+
+	private final File cacheFile;
+
+	@Nullable
+	private volatile Map<String, Entry> persistedEntries;
+
+	private final Map<String, Entry> currentEntries = new ConcurrentHashMap<>(256);
+
+	private final Set<String> accessedKeys = ConcurrentHashMap.newKeySet(256);
+
+	private volatile boolean modified;
+
+
+	/**
+	 * Create a new {@code PersistentMetadataReaderCache} for the given file.
+	 * <p>The file is lazily read on first access and does not need to exist.
+	 * @param cacheFile the file to read the cache from and write it to
+	 */
+	public PersistentMetadataReaderCache(File cacheFile) {
+		Assert.notNull(cacheFile, "Cache file must not be null");
+		this.cacheFile = cacheFile;
+	}
+
+
+	/**
+	 * Return the file that backs this cache.
+	 */
+	public File getCacheFile() {
+		return this.cacheFile;
+	}
+
+	/**
+	 * Return the cached class file content for the given resource, provided
+	 * the resource has not changed since it was cached.
+	 * @param resource the class file resource
+	 * @return the stripped class file content, or {@code null} if not cached
+	 */
+	@Nullable
+	byte[] getClassFile(Resource resource) {
+		String key = getKey(resource);
+		if (key == null) {
+			return null;
+		}
+		Entry entry = this.currentEntries.get(key);
+		if (entry == null) {
+			entry = getPersistedEntries().get(key);
+			if (entry == null) {
+				return null;
+			}
+		}
+		try {
+			if (getChecksum(resource) != entry.checksum) {
+				return null;
+			}
+		}
+		catch (IOException ex) {
+			return null;
+		}
+		this.currentEntries.putIfAbsent(key, entry);
+		this.accessedKeys.add(key);
+		return entry.classFile;
+	}
+
+	/**
+	 * Store the given content of the given class file resource for reuse
+	 * on subsequent runs.
+	 * @param resource the class file resource
+	 * @param content the resource's original content
+	 */
+	void putClassFile(Resource resource, byte[] content) {
+		String key = getKey(resource);
+		if (key == null) {
+			return;
+		}
+		CRC32 crc = new CRC32();
+		crc.update(content, 0, content.length);
+		ClassWriter classWriter = new ClassWriter(0);
+		new ClassReader(content).accept(new StrippingClassVisitor(classWriter), PARSING_OPTIONS);
+		this.currentEntries.put(key, new Entry(crc.getValue(), classWriter.toByteArray()));
+		this.accessedKeys.add(key);
+		this.modified = true;
+	}
+
+	/**
+	 * Write all entries accessed since this cache was created to disk,
+	 * if any new entries have been added in the meantime, and release the
+	 * entries held in memory.
+	 * <p>Failures are logged rather than propagated since the cache is
+	 * purely an optimization.
+	 */
+	public synchronized void flush() {
+		Map<String, Entry> entries = new HashMap<>(this.currentEntries);
+		if (this.modified) {
+			this.modified = false;
+			// Entries accessed before a previous flush are only available on disk by now
+			Map<String, Entry> persistedEntries = getPersistedEntries();
+			for (String key : this.accessedKeys) {
+				Entry entry = persistedEntries.get(key);
+				if (entry != null) {
+					entries.putIfAbsent(key, entry);
+				}
+			}
+			try {
+				writeEntries(entries);
+			}
+			catch (IOException ex) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Failed to write metadata cache file [" + this.cacheFile + "]", ex);
+				}
+				return;
+			}
+		}
+		this.persistedEntries = null;
+		entries.forEach(this.currentEntries::remove);
+	}
+
+	@Nullable
+	private String getKey(Resource resource) {
+		try {
+			return resource.getURL().toExternalForm();
+		}
+		catch (IOException ex) {
+			return null;
+		}
+	}
+
+	/**
+	 * Determine the CRC-32 checksum of the given resource's content, from the
+	 * central directory for jar entries or by reading the content otherwise.
+	 */
+	private static long getChecksum(Resource resource) throws IOException {
+		URL url = resource.getURL();
+		if (ResourceUtils.isJarURL(url)) {
+			URLConnection con = url.openConnection();
+			if (con instanceof JarURLConnection) {
+				JarURLConnection jarCon = (JarURLConnection) con;
+				ResourceUtils.useCachesIfNecessary(jarCon);
+				JarFile jarFile = jarCon.getJarFile();
+				try {
+					JarEntry jarEntry = jarCon.getJarEntry();
+					if (jarEntry != null && jarEntry.getCrc() != -1) {
+						return jarEntry.getCrc();
+					}
+				}
+				finally {
+					if (!jarCon.getUseCaches()) {
+						jarFile.close();
+					}
+				}
+			}
+		}
+		try (CheckedInputStream in = new CheckedInputStream(resource.getInputStream(), new CRC32())) {
+			StreamUtils.drain(in);
+			return in.getChecksum().getValue();
+		}
+	}
+
+	private Map<String, Entry> getPersistedEntries() {
+		Map<String, Entry> entries = this.persistedEntries;
+		if (entries == null) {
+			synchronized (this) {
+				entries = this.persistedEntries;
+				if (entries == null) {
+					entries = readEntries();
+					this.persistedEntries = entries;
+				}
+			}
+		}
+		return entries;
+	}
+
+	private Map<String, Entry> readEntries() {
+		if (!this.cacheFile.isFile()) {
+			return Collections.emptyMap();
+		}
+		try (DataInputStream in = new DataInputStream(
+				new BufferedInputStream(new FileInputStream(this.cacheFile), 65536))) {
+			if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION ||
+					in.readInt() != SpringAsmInfo.ASM_VERSION) {
+				return Collections.emptyMap();
+			}
+			int size = in.readInt();
+			Map<String, Entry> entries = new HashMap<>(size * 4 / 3 + 1);
+			for (int i = 0; i < size; i++) {
+				String key = in.readUTF();
+				long checksum = in.readLong();
+				byte[] classFile = new byte[in.readInt()];
+				in.readFully(classFile);
+				entries.put(key, new Entry(checksum, classFile));
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Loaded " + size + " entries from metadata cache file [" + this.cacheFile + "]");
+			}
+			return entries;
+		}
+		catch (IOException | RuntimeException ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Ignoring unreadable metadata cache file [" + this.cacheFile + "]", ex);
+			}
+			return Collections.emptyMap();
+		}
+	}
+
+	private void writeEntries(Map<String, Entry> entries) throws IOException {
+		File directory = this.cacheFile.getAbsoluteFile().getParentFile();
+		if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Unable to create directory [" + directory + "]");
+		}
+		File tempFile = File.createTempFile(this.cacheFile.getName(), ".tmp", directory);
+		try {
+			try (DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(new FileOutputStream(tempFile), 65536))) {
+				out.writeInt(MAGIC);
+				out.writeInt(FORMAT_VERSION);
+				out.writeInt(SpringAsmInfo.ASM_VERSION);
+				out.writeInt(entries.size());
+				for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+					out.writeUTF(entry.getKey());
+					out.writeLong(entry.getValue().checksum);
+					out.writeInt(entry.getValue().classFile.length);
+					out.write(entry.getValue().classFile);
+				}
+			}
+			try {
+				Files.move(tempFile.toPath(), this.cacheFile.toPath(),
+						StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (AtomicMoveNotSupportedException ex) {
+				Files.move(tempFile.toPath(), this.cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		finally {
+			Files.deleteIfExists(tempFile.toPath());
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Wrote " + entries.size() + " entries to metadata cache file [" + this.cacheFile + "]");
+		}
+	}
+
+
+	/**
+	 * Return the shared {@code PersistentMetadataReaderCache}, if a cache file
+	 * has been specified through the {@value #CACHE_FILE_PROPERTY_NAME} property.
+	 * @return the shared cache, or {@code null} if none is configured
+	 */
+	@Nullable
+	public static PersistentMetadataReaderCache getSharedInstance() {
+		PersistentMetadataReaderCache cache = sharedInstance;
+		if (cache == null) {
+			String location = SpringProperties.getProperty(CACHE_FILE_PROPERTY_NAME);
+			if (location == null || location.isEmpty()) {
+				return null;
+			}
+			synchronized (PersistentMetadataReaderCache.class) {
+				cache = sharedInstance;
+				if (cache == null) {
+					cache = new PersistentMetadataReaderCache(new File(location));
+					sharedInstance = cache;
+				}
+			}
+		}
+		return cache;
+	}
+
+
+	private static final class Entry {
+
+		final long checksum;
+
+		final byte[] classFile;
+
+		Entry(long checksum, byte[] classFile) {
+			this.checksum = checksum;
+			this.classFile = classFile;
+		}
+	}
+
+
+	/**
+	 * {@link ClassVisitor} that drops everything that is irrelevant to
+	 * {@link SimpleAnnotationMetadataReadingVisitor}.
+	 */
+	private static final class StrippingClassVisitor extends ClassVisitor {
+
+		StrippingClassVisitor(ClassVisitor classVisitor) {
+			super(SpringAsmInfo.ASM_VERSION, classVisitor);
+		}
+
+		@Override
+		@Nullable
+		public FieldVisitor visitField(int access, String name, String descriptor,
+				@Nullable String signature, @Nullable Object value) {
+			return null;
+		}
+	}
+
+}
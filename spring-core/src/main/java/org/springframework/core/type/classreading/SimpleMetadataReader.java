@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -25,6 +25,7 @@ import org.springframework.core.io.Resource;
 import org.springframework.core.type.AnnotationMetadata;
 import org.springframework.core.type.ClassMetadata;
 import org.springframework.lang.Nullable;
+import org.springframework.util.StreamUtils;
 
 /**
  * {@link MetadataReader} implementation based on an ASM
@@ -51,18 +52,49 @@ final class SimpleMetadataReader implements MetadataReader {
 		this.annotationMetadata = visitor.getMetadata();
 	}
 
+	SimpleMetadataReader(Resource resource, @Nullable ClassLoader classLoader,
+			PersistentMetadataReaderCache persistentCache) throws IOException {
+
+		byte[] classFile = persistentCache.getClassFile(resource);
+		ClassReader classReader;
+		if (classFile != null) {
+			classReader = new ClassReader(classFile);
+		}
+		else {
+			byte[] content;
+			try (InputStream is = resource.getInputStream()) {
+				content = StreamUtils.copyToByteArray(is);
+			}
+			try {
+				classReader = new ClassReader(content);
+			}
+			catch (IllegalArgumentException ex) {
+				throw parseFailure(resource, ex);
+			}
+			persistentCache.putClassFile(resource, content);
+		}
+		SimpleAnnotationMetadataReadingVisitor visitor = new SimpleAnnotationMetadataReadingVisitor(classLoader);
+		classReader.accept(visitor, PARSING_OPTIONS);
+		this.resource = resource;
+		this.annotationMetadata = visitor.getMetadata();
+	}
+
 	private static ClassReader getClassReader(Resource resource) throws IOException {
 		try (InputStream is = resource.getInputStream()) {
 			try {
 				return new ClassReader(is);
 			}
 			catch (IllegalArgumentException ex) {
-				throw new NestedIOException("ASM ClassReader failed to parse class file - " +
-						"probably due to a new Java class file version that isn't supported yet: " + resource, ex);
+				throw parseFailure(resource, ex);
 			}
 		}
 	}
 
+	private static NestedIOException parseFailure(Resource resource, IllegalArgumentException ex) {
+		return new NestedIOException("ASM ClassReader failed to parse class file - " +
+				"probably due to a new Java class file version that isn't supported yet: " + resource, ex);
+	}
+
 
 	@Override
 	public Resource getResource() {
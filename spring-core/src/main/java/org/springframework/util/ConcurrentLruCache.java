@@ -0,0 +1,468 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Simple LRU (Least Recently Used) cache, bounded by a specified cache limit.
+ *
+ * <p>This implementation is backed by a {@code ConcurrentHashMap} for storing
+ * the cached values. Cache hits never block: the access is recorded in one of
+ * several striped, lossy read buffers, which are drained into the recency
+ * order in batches by whichever thread manages to acquire the eviction lock
+ * without waiting for it. Cache misses and removals update the recency order
+ * directly under that lock, evicting the least recently used entries as soon
+ * as the size limit is exceeded. The design is inspired by
+ * <a href="https://github.com/ben-manes/concurrentlinkedhashmap">ConcurrentLinkedHashMap</a>.
+ *
+ * <p>Hit, miss and eviction counts are tracked for monitoring purposes.
+ *
+ * @author Sen Hu
+ * @since 5.2.7
+ * @param <K> the type of the key used for cache retrieval
+ * @param <V> the type of the cached values
+ */
+public class ConcurrentLruCache<K, V> {
+
+	private final int sizeLimit;
+
+	private final Function<K, V> generator;
+
+	private final ConcurrentHashMap<K, Node<K, V>> cache = new ConcurrentHashMap<>(16, 0.75f, 1);
+
+	private final ReentrantLock evictionLock = new ReentrantLock();
+
+	private final EvictionQueue<K, V> evictionQueue = new EvictionQueue<>();
+
+	private final ReadOperations<K, V> readOperations = new ReadOperations<>(this.evictionQueue);
+
+	private final LongAdder hitCount = new LongAdder();
+
+	private final LongAdder missCount = new LongAdder();
+
+	private final LongAdder evictionCount = new LongAdder();
+
+
+	/**
+	 * Create a new cache instance with the given limit and generator function.
+	 * @param sizeLimit the maximum number of entries in the cache
+	 * (0 indicates no caching, always generating a new value)
+	 * @param generator a function to generate a new value for a given key
+	 */
+	public ConcurrentLruCache(int sizeLimit, Function<K, V> generator) {
+		Assert.isTrue(sizeLimit >= 0, "Cache size limit must not be negative");
+		Assert.notNull(generator, "Generator function must not be null");
+		this.sizeLimit = sizeLimit;
+		this.generator = generator;
+	}
+
+
+	/**
+	 * Retrieve an entry from the cache, potentially triggering generation
+	 * of the value.
+	 * @param key the key to retrieve the entry for
+	 * @return the cached or newly generated value
+	 */
+	public V get(K key) {
+		if (this.sizeLimit == 0) {
+			this.missCount.increment();
+			return this.generator.apply(key);
+		}
+		Node<K, V> node = this.cache.get(key);
+		if (node == null) {
+			this.missCount.increment();
+			V value = this.generator.apply(key);
+			put(key, value);
+			return value;
+		}
+		this.hitCount.increment();
+		afterRead(node);
+		return node.value;
+	}
+
+	private void put(K key, V value) {
+		Node<K, V> node = new Node<>(key, value);
+		Node<K, V> prior = this.cache.putIfAbsent(key, node);
+		if (prior != null) {
+			// Generated concurrently by another thread
+			afterRead(prior);
+			return;
+		}
+		this.evictionLock.lock();
+		try {
+			this.readOperations.drain();
+			// Skip if removed in the meantime, so that the entry does not linger in the queue
+			if (this.cache.get(key) == node) {
+				this.evictionQueue.add(node);
+				evictIfNecessary();
+			}
+		}
+		finally {
+			this.evictionLock.unlock();
+		}
+	}
+
+	private void afterRead(Node<K, V> node) {
+		if (this.readOperations.recordRead(node) && this.evictionLock.tryLock()) {
+			try {
+				this.readOperations.drain();
+			}
+			finally {
+				this.evictionLock.unlock();
+			}
+		}
+	}
+
+	private void evictIfNecessary() {
+		while (this.evictionQueue.size() > this.sizeLimit) {
+			Node<K, V> eldest = this.evictionQueue.poll();
+			if (eldest != null && this.cache.remove(eldest.key, eldest)) {
+				this.evictionCount.increment();
+			}
+		}
+	}
+
+	/**
+	 * Determine whether the given key is present in this cache.
+	 * <p>This does not affect the recency of the entry.
+	 * @param key the key to check for
+	 * @return {@code true} if the key is present, {@code false} if there was no matching key
+	 */
+	public boolean contains(K key) {
+		return this.cache.containsKey(key);
+	}
+
+	/**
+	 * Immediately remove the given key and any associated value.
+	 * @param key the key to evict the entry for
+	 * @return {@code true} if the key was present before,
+	 * {@code false} if there was no matching key
+	 */
+	public boolean remove(K key) {
+		Node<K, V> node = this.cache.remove(key);
+		if (node == null) {
+			return false;
+		}
+		this.evictionLock.lock();
+		try {
+			this.evictionQueue.remove(node);
+		}
+		finally {
+			this.evictionLock.unlock();
+		}
+		return true;
+	}
+
+	/**
+	 * Immediately remove all entries from this cache.
+	 */
+	public void clear() {
+		this.evictionLock.lock();
+		try {
+			this.cache.clear();
+			this.evictionQueue.clear();
+			this.readOperations.clear();
+		}
+		finally {
+			this.evictionLock.unlock();
+		}
+	}
+
+	/**
+	 * Perform the given action for each entry currently in this cache.
+	 * <p>The iteration is weakly consistent, like that of a
+	 * {@code ConcurrentHashMap}, and does not affect the recency of entries.
+	 * @param action the action to perform for each key and value
+	 */
+	public void forEach(BiConsumer<? super K, ? super V> action) {
+		Assert.notNull(action, "Action must not be null");
+		this.cache.forEach((key, node) -> action.accept(key, node.value));
+	}
+
+	/**
+	 * Return the current size of the cache.
+	 * @see #sizeLimit()
+	 */
+	public int size() {
+		return this.cache.size();
+	}
+
+	/**
+	 * Return the maximum number of entries in the cache
+	 * (0 indicates no caching, always generating a new value).
+	 * @see #size()
+	 */
+	public int sizeLimit() {
+		return this.sizeLimit;
+	}
+
+	/**
+	 * Return the number of times {@link #get} returned a cached value.
+	 */
+	public long hitCount() {
+		return this.hitCount.sum();
+	}
+
+	/**
+	 * Return the number of times {@link #get} had to generate a value.
+	 */
+	public long missCount() {
+		return this.missCount.sum();
+	}
+
+	/**
+	 * Return the number of entries that have been evicted because the
+	 * cache exceeded its size limit.
+	 */
+	public long evictionCount() {
+		return this.evictionCount.sum();
+	}
+
+	@Override
+	public String toString() {
+		return getClass().getSimpleName() + "[size=" + size() + ", sizeLimit=" + this.sizeLimit +
+				", hits=" + hitCount() + ", misses=" + missCount() + ", evictions=" + evictionCount() + "]";
+	}
+
+
+	/**
+	 * A cache entry, linked into the {@link EvictionQueue} while it is cached.
+	 */
+	private static final class Node<K, V> {
+
+		final K key;
+
+		final V value;
+
+		@Nullable
+		Node<K, V> prev;
+
+		@Nullable
+		Node<K, V> next;
+
+		Node(K key, V value) {
+			this.key = key;
+			this.value = value;
+		}
+	}
+
+
+	/**
+	 * Doubly linked list of cache entries, from least to most recently used.
+	 * Guarded by the eviction lock.
+	 */
+	private static final class EvictionQueue<K, V> {
+
+		@Nullable
+		private Node<K, V> first;
+
+		@Nullable
+		private Node<K, V> last;
+
+		private int size;
+
+		int size() {
+			return this.size;
+		}
+
+		void add(Node<K, V> node) {
+			Node<K, V> last = this.last;
+			node.prev = last;
+			node.next = null;
+			this.last = node;
+			if (last == null) {
+				this.first = node;
+			}
+			else {
+				last.next = node;
+			}
+			this.size++;
+		}
+
+		@Nullable
+		Node<K, V> poll() {
+			Node<K, V> first = this.first;
+			if (first != null) {
+				unlink(first);
+			}
+			return first;
+		}
+
+		void remove(Node<K, V> node) {
+			if (contains(node)) {
+				unlink(node);
+			}
+		}
+
+		void moveToBack(Node<K, V> node) {
+			if (node != this.last && contains(node)) {
+				unlink(node);
+				add(node);
+			}
+		}
+
+		void clear() {
+			Node<K, V> node = this.first;
+			while (node != null) {
+				Node<K, V> next = node.next;
+				node.prev = null;
+				node.next = null;
+				node = next;
+			}
+			this.first = null;
+			this.last = null;
+			this.size = 0;
+		}
+
+		private boolean contains(Node<K, V> node) {
+			return (node.prev != null || node.next != null || node == this.first);
+		}
+
+		private void unlink(Node<K, V> node) {
+			Node<K, V> prev = node.prev;
+			Node<K, V> next = node.next;
+			if (prev == null) {
+				this.first = next;
+			}
+			else {
+				prev.next = next;
+				node.prev = null;
+			}
+			if (next == null) {
+				this.last = prev;
+			}
+			else {
+				next.prev = prev;
+				node.next = null;
+			}
+			this.size--;
+		}
+	}
+
+
+	/**
+	 * Striped, lossy buffers recording cache hits, so that the recency order
+	 * can be updated in batches instead of under a lock for every read.
+	 */
+	private static final class ReadOperations<K, V> {
+
+		private static final int BUFFER_COUNT = detectNumberOfBuffers();
+
+		private static final int BUFFERS_MASK = BUFFER_COUNT - 1;
+
+		private static final int MAX_PENDING_OPERATIONS = 32;
+
+		private static final int MAX_DRAIN_COUNT = 2 * MAX_PENDING_OPERATIONS;
+
+		private static final int BUFFER_SIZE = 2 * MAX_DRAIN_COUNT;
+
+		private static final int BUFFER_INDEX_MASK = BUFFER_SIZE - 1;
+
+		private final EvictionQueue<K, V> evictionQueue;
+
+		private final AtomicLongArray recordedCount = new AtomicLongArray(BUFFER_COUNT);
+
+		private final AtomicLongArray processedCount = new AtomicLongArray(BUFFER_COUNT);
+
+		/** Guarded by the eviction lock. */
+		private final long[] readCount = new long[BUFFER_COUNT];
+
+		@SuppressWarnings({"rawtypes", "unchecked"})
+		private final AtomicReferenceArray<Node<K, V>>[] buffers = new AtomicReferenceArray[BUFFER_COUNT];
+
+		ReadOperations(EvictionQueue<K, V> evictionQueue) {
+			this.evictionQueue = evictionQueue;
+			for (int i = 0; i < BUFFER_COUNT; i++) {
+				this.buffers[i] = new AtomicReferenceArray<>(BUFFER_SIZE);
+			}
+		}
+
+		private static int detectNumberOfBuffers() {
+			int availableProcessors = Runtime.getRuntime().availableProcessors();
+			int nextPowerOfTwo = 1 << (Integer.SIZE - Integer.numberOfLeadingZeros(availableProcessors - 1));
+			return Math.min(4, nextPowerOfTwo);
+		}
+
+		private static int getBufferIndex() {
+			return ((int) Thread.currentThread().getId()) & BUFFERS_MASK;
+		}
+
+		/**
+		 * Record a read of the given entry.
+		 * @return {@code true} if enough reads are pending to warrant a drain
+		 */
+		boolean recordRead(Node<K, V> node) {
+			int bufferIndex = getBufferIndex();
+			long writeCount = this.recordedCount.getAndIncrement(bufferIndex);
+			this.buffers[bufferIndex].lazySet((int) (writeCount & BUFFER_INDEX_MASK), node);
+			long pending = writeCount - this.processedCount.get(bufferIndex);
+			return (pending >= MAX_PENDING_OPERATIONS);
+		}
+
+		/**
+		 * Apply the recorded reads to the recency order; called under the eviction lock.
+		 */
+		void drain() {
+			int start = (int) Thread.currentThread().getId();
+			int end = start + BUFFER_COUNT;
+			for (int i = start; i < end; i++) {
+				drainReadBuffer(i & BUFFERS_MASK);
+			}
+		}
+
+		/**
+		 * Discard all recorded reads; called under the eviction lock.
+		 */
+		void clear() {
+			for (int i = 0; i < BUFFER_COUNT; i++) {
+				AtomicReferenceArray<Node<K, V>> buffer = this.buffers[i];
+				for (int j = 0; j < BUFFER_SIZE; j++) {
+					buffer.lazySet(j, null);
+				}
+				long writeCount = this.recordedCount.get(i);
+				this.readCount[i] = writeCount;
+				this.processedCount.lazySet(i, writeCount);
+			}
+		}
+
+		private void drainReadBuffer(int bufferIndex) {
+			long writeCount = this.recordedCount.get(bufferIndex);
+			AtomicReferenceArray<Node<K, V>> buffer = this.buffers[bufferIndex];
+			for (int i = 0; i < MAX_DRAIN_COUNT; i++) {
+				int index = (int) (this.readCount[bufferIndex] & BUFFER_INDEX_MASK);
+				Node<K, V> node = buffer.get(index);
+				if (node == null) {
+					break;
+				}
+				buffer.lazySet(index, null);
+				this.evictionQueue.moveToBack(node);
+				this.readCount[bufferIndex]++;
+			}
+			this.processedCount.lazySet(bufferIndex, writeCount);
+		}
+	}
+
+}
@@ -28,8 +28,10 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
@@ -54,6 +56,11 @@ import org.springframework.lang.Nullable;
  * <p>If not explicitly specified, this implementation will use
  * {@linkplain SoftReference soft entry references}.
  *
+ * <p>Lookups never block: garbage collected references are purged by whichever
+ * thread manages to acquire the segment lock, with other readers proceeding
+ * against the current table. Purging may also be moved off the caller's thread
+ * entirely through {@link #setPurgeInBackground(boolean)}.
+ *
  * @author Phillip Webb
  * @author Juergen Hoeller
  * @since 3.2
@@ -95,6 +102,12 @@ public class ConcurrentReferenceHashMap<K, V> extends AbstractMap<K, V> implemen
 	 */
 	private final int shift;
 
+	/**
+	 * Whether garbage collected references are purged by a background thread
+	 * rather than during lookups.
+	 */
+	private volatile boolean purgeInBackground;
+
 	/**
 	 * Late binding entry set.
 	 */
@@ -202,6 +215,31 @@ public class ConcurrentReferenceHashMap<K, V> extends AbstractMap<K, V> implemen
 		return this.segments[index];
 	}
 
+	/**
+	 * Specify whether garbage collected references should be purged by a shared
+	 * background daemon thread instead of by the threads performing lookups.
+	 * <p>Default is "false". Switching this on is recommended for large, read-mostly
+	 * caches where a burst of lookups following a full garbage collection should
+	 * not have to restructure the map. Updates still purge cooperatively.
+	 * @since 5.2.7
+	 * @see #purgeUnreferencedEntries()
+	 */
+	public void setPurgeInBackground(boolean purgeInBackground) {
+		boolean register = (purgeInBackground && !this.purgeInBackground);
+		this.purgeInBackground = purgeInBackground;
+		if (register) {
+			BackgroundPurger.register(this);
+		}
+	}
+
+	/**
+	 * Return whether garbage collected references are purged in the background.
+	 * @since 5.2.7
+	 */
+	public boolean isPurgeInBackground() {
+		return this.purgeInBackground;
+	}
+
 	/**
 	 * Factory method that returns the {@link ReferenceManager}.
 	 * This method will be called once for each {@link Segment}.
@@ -384,6 +422,32 @@ public class ConcurrentReferenceHashMap<K, V> extends AbstractMap<K, V> implemen
 	}
 
 
+	/**
+	 * Return the total number of references purged from this map so far,
+	 * either because they were garbage collected or because their entry
+	 * was removed.
+	 * @since 5.2.7
+	 */
+	public long getPurgeCount() {
+		long purgeCount = 0;
+		for (Segment segment : this.segments) {
+			purgeCount += segment.purgeCount;
+		}
+		return purgeCount;
+	}
+
+	/**
+	 * Return the number of times a segment of this map had to be resized.
+	 * @since 5.2.7
+	 */
+	public long getResizeCount() {
+		long resizeCount = 0;
+		for (Segment segment : this.segments) {
+			resizeCount += segment.resizeCount;
+		}
+		return resizeCount;
+	}
+
 	@Override
 	public int size() {
 		int size = 0;
@@ -476,6 +540,16 @@ public class ConcurrentReferenceHashMap<K, V> extends AbstractMap<K, V> implemen
 		 */
 		private final AtomicInteger count = new AtomicInteger(0);
 
+		/**
+		 * References polled for purging by a reader that could not acquire the lock,
+		 * to be purged by the next restructure.
+		 */
+		private final Queue<Reference<K, V>> deferredPurges = new ConcurrentLinkedQueue<>();
+
+		private volatile long purgeCount;
+
+		private volatile long resizeCount;
+
 		/**
 		 * The threshold when resizing of the references should occur. When {@code count}
 		 * exceeds this value references will be resized.
@@ -491,8 +565,8 @@ public class ConcurrentReferenceHashMap<K, V> extends AbstractMap<K, V> implemen
 
 		@Nullable
 		public Reference<K, V> getReference(@Nullable Object key, int hash, Restructure restructure) {
-			if (restructure == Restructure.WHEN_NECESSARY) {
-				restructureIfNecessary(false);
+			if (restructure == Restructure.WHEN_NECESSARY && !isPurgeInBackground()) {
+				purgeIfPossible();
 			}
 			if (this.count.get() == 0) {
 				return null;
@@ -572,69 +646,127 @@ public class ConcurrentReferenceHashMap<K, V> extends AbstractMap<K, V> implemen
 			int currCount = this.count.get();
 			boolean needsResize = allowResize && (currCount > 0 && currCount >= this.resizeThreshold);
 			Reference<K, V> ref = this.referenceManager.pollForPurge();
-			if (ref != null || (needsResize)) {
-				restructure(allowResize, ref);
+			if (ref != null || needsResize || !this.deferredPurges.isEmpty()) {
+				lock();
+				try {
+					restructure(allowResize, ref);
+				}
+				finally {
+					unlock();
+				}
+			}
+		}
+
+		/**
+		 * Purge garbage collected references without ever blocking the caller:
+		 * if the lock is currently held, a polled reference is deferred to the
+		 * thread holding it or to the next restructure.
+		 */
+		private void purgeIfPossible() {
+			Reference<K, V> ref = this.referenceManager.pollForPurge();
+			if (ref == null && this.deferredPurges.isEmpty()) {
+				return;
+			}
+			if (tryLock()) {
+				try {
+					restructure(false, ref);
+				}
+				finally {
+					unlock();
+				}
+			}
+			else if (ref != null) {
+				this.deferredPurges.add(ref);
 			}
 		}
 
 		private void restructure(boolean allowResize, @Nullable Reference<K, V> ref) {
-			boolean needsResize;
-			lock();
-			try {
-				int countAfterRestructure = this.count.get();
-				Set<Reference<K, V>> toPurge = Collections.emptySet();
-				if (ref != null) {
-					toPurge = new HashSet<>();
-					while (ref != null) {
-						toPurge.add(ref);
-						ref = this.referenceManager.pollForPurge();
-					}
+			Set<Reference<K, V>> toPurge = Collections.emptySet();
+			if (ref != null || !this.deferredPurges.isEmpty()) {
+				toPurge = new HashSet<>();
+				while (ref != null) {
+					toPurge.add(ref);
+					ref = this.referenceManager.pollForPurge();
 				}
-				countAfterRestructure -= toPurge.size();
-
-				// Recalculate taking into account count inside lock and items that
-				// will be purged
-				needsResize = (countAfterRestructure > 0 && countAfterRestructure >= this.resizeThreshold);
-				boolean resizing = false;
-				int restructureSize = this.references.length;
-				if (allowResize && needsResize && restructureSize < MAXIMUM_SEGMENT_SIZE) {
-					restructureSize <<= 1;
-					resizing = true;
+				while ((ref = this.deferredPurges.poll()) != null) {
+					toPurge.add(ref);
 				}
+			}
 
-				// Either create a new table or reuse the existing one
-				Reference<K, V>[] restructured =
-						(resizing ? createReferenceArray(restructureSize) : this.references);
+			// Recalculate taking into account count inside lock and items that
+			// will be purged
+			int countAfterRestructure = this.count.get() - toPurge.size();
+			boolean needsResize = (countAfterRestructure > 0 && countAfterRestructure >= this.resizeThreshold);
+			if (allowResize && needsResize && this.references.length < MAXIMUM_SEGMENT_SIZE) {
+				resize(toPurge);
+			}
+			else if (!toPurge.isEmpty()) {
+				purge(toPurge);
+			}
+		}
 
-				// Restructure
-				for (int i = 0; i < this.references.length; i++) {
-					ref = this.references[i];
-					if (!resizing) {
-						restructured[i] = null;
-					}
-					while (ref != null) {
-						if (!toPurge.contains(ref)) {
-							Entry<K, V> entry = ref.get();
-							if (entry != null) {
-								int index = getIndex(ref.getHash(), restructured);
-								restructured[index] = this.referenceManager.createReference(
-										entry, ref.getHash(), restructured[index]);
-							}
-						}
-						ref = ref.getNext();
+		/**
+		 * Double the size of the references table, dropping any purged references.
+		 * Readers keep using the previous table until the new one is published.
+		 */
+		private void resize(Set<Reference<K, V>> toPurge) {
+			Reference<K, V>[] restructured = createReferenceArray(this.references.length << 1);
+			int survivors = 0;
+			for (Reference<K, V> head : this.references) {
+				for (Reference<K, V> ref = head; ref != null; ref = ref.getNext()) {
+					Entry<K, V> entry = (toPurge.contains(ref) ? null : ref.get());
+					if (entry != null) {
+						int index = getIndex(ref.getHash(), restructured);
+						restructured[index] = this.referenceManager.createReference(
+								entry, ref.getHash(), restructured[index]);
+						survivors++;
 					}
 				}
+			}
 
-				// Replace volatile members
-				if (resizing) {
-					this.references = restructured;
-					this.resizeThreshold = (int) (this.references.length * getLoadFactor());
+			// Replace volatile members
+			this.references = restructured;
+			this.resizeThreshold = (int) (restructured.length * getLoadFactor());
+			this.purgeCount += this.count.get() - survivors;
+			this.resizeCount++;
+			this.count.set(survivors);
+		}
+
+		/**
+		 * Purge the given references by rebuilding only the chains that hold them,
+		 * rather than the entire table.
+		 */
+		private void purge(Set<Reference<K, V>> toPurge) {
+			Reference<K, V>[] references = this.references;
+			int purged = 0;
+			for (Reference<K, V> ref : toPurge) {
+				purged += purgeChain(references, getIndex(ref.getHash(), references), toPurge);
+			}
+			if (purged > 0) {
+				this.purgeCount += purged;
+				this.count.addAndGet(-purged);
+			}
+		}
+
+		private int purgeChain(Reference<K, V>[] references, int index, Set<Reference<K, V>> toPurge) {
+			Reference<K, V> head = references[index];
+			int purged = 0;
+			for (Reference<K, V> ref = head; ref != null; ref = ref.getNext()) {
+				if (toPurge.contains(ref) || ref.get() == null) {
+					purged++;
 				}
-				this.count.set(Math.max(countAfterRestructure, 0));
 			}
-			finally {
-				unlock();
+			if (purged > 0) {
+				Reference<K, V> restructured = null;
+				for (Reference<K, V> ref = head; ref != null; ref = ref.getNext()) {
+					Entry<K, V> entry = (toPurge.contains(ref) ? null : ref.get());
+					if (entry != null) {
+						restructured = this.referenceManager.createReference(entry, ref.getHash(), restructured);
+					}
+				}
+				references[index] = restructured;
 			}
+			return purged;
 		}
 
 		@Nullable
@@ -1089,4 +1221,70 @@ public class ConcurrentReferenceHashMap<K, V> extends AbstractMap<K, V> implemen
 		}
 	}
 
+
+	/**
+	 * Shared daemon that periodically purges the maps registered for
+	 * {@linkplain #setPurgeInBackground background purging}. Maps are held weakly,
+	 * and the thread terminates once no map remains registered.
+	 */
+	private static final class BackgroundPurger implements Runnable {
+
+		private static final long PURGE_INTERVAL = 250;
+
+		private static final Queue<WeakReference<ConcurrentReferenceHashMap<?, ?>>> maps =
+				new ConcurrentLinkedQueue<>();
+
+		@Nullable
+		private static Thread thread;
+
+		static synchronized void register(ConcurrentReferenceHashMap<?, ?> map) {
+			maps.add(new WeakReference<>(map));
+			if (thread == null) {
+				Thread purger = new Thread(new BackgroundPurger(), "ConcurrentReferenceHashMap-purger");
+				purger.setDaemon(true);
+				purger.setContextClassLoader(null);
+				purger.start();
+				thread = purger;
+			}
+		}
+
+		private static synchronized boolean terminateIfIdle() {
+			if (maps.isEmpty()) {
+				thread = null;
+				return true;
+			}
+			return false;
+		}
+
+		@Override
+		public void run() {
+			do {
+				try {
+					Thread.sleep(PURGE_INTERVAL);
+				}
+				catch (InterruptedException ex) {
+					// Fall back to purging on the callers' threads
+					for (WeakReference<ConcurrentReferenceHashMap<?, ?>> ref : maps) {
+						ConcurrentReferenceHashMap<?, ?> map = ref.get();
+						if (map != null) {
+							map.purgeInBackground = false;
+						}
+					}
+					maps.clear();
+					Thread.currentThread().interrupt();
+				}
+				for (Iterator<WeakReference<ConcurrentReferenceHashMap<?, ?>>> it = maps.iterator(); it.hasNext();) {
+					ConcurrentReferenceHashMap<?, ?> map = it.next().get();
+					if (map == null || !map.isPurgeInBackground()) {
+						it.remove();
+					}
+					else {
+						map.purgeUnreferencedEntries();
+					}
+				}
+			}
+			while (!terminateIfIdle());
+		}
+	}
+
 }
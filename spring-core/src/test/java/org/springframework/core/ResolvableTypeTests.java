@@ -107,6 +107,28 @@ class ResolvableTypeTests {
 		assertThat(type.isAssignableFrom(ArrayList.class)).isFalse();
 	}
 
+	@Test
+	void forClassIsShared() throws Exception {
+		ResolvableType type = ResolvableType.forClass(ExtendsList.class);
+		assertThat(ResolvableType.forClass(ExtendsList.class)).isSameAs(type);
+		assertThat(ResolvableType.forType(ExtendsList.class)).isSameAs(type);
+		assertThat(type.getSuperType()).isSameAs(ResolvableType.forClass(ExtendsList.class).getSuperType());
+		assertThat(type.asCollection()).isSameAs(type.asCollection());
+		assertThat(type.asCollection().getGeneric()).isSameAs(type.asCollection().getGeneric());
+		assertThat(type.asCollection().resolveGeneric()).isEqualTo(CharSequence.class);
+	}
+
+	@Test
+	void forFieldSharesResolutionButKeepsSource() throws Exception {
+		Field field = Fields.class.getField("stringList");
+		ResolvableType type = ResolvableType.forField(field);
+		ResolvableType other = ResolvableType.forField(field);
+		assertThat(other).isNotSameAs(type).isEqualTo(type);
+		assertThat(other.getSource()).isEqualTo(field);
+		assertThat(other.getGeneric()).isSameAs(type.getGeneric());
+		assertThat(other.getGeneric().resolve()).isEqualTo(String.class);
+	}
+
 	@Test
 	void forClassWithNull() throws Exception {
 		ResolvableType type = ResolvableType.forClass(null);
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.annotation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.core.annotation.MergedAnnotations.SearchStrategy;
+import org.springframework.util.FileCopyUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link AnnotationIndex} and its use by {@link MergedAnnotations}.
+ *
+ * @author Sen Hu
+ * @since 5.2.7
+ */
+class AnnotationIndexTests {
+
+	private static final String MARKER_META_ANNOTATIONS = String.join(",", Documented.class.getName(),
+			Retention.class.getName(), Target.class.getName());
+
+	@TempDir
+	Path root;
+
+	@TempDir
+	Path otherRoot;
+
+
+	@AfterEach
+	void reset() {
+		AnnotationIndex.setUseIndex(false);
+		AnnotationsScanner.clearCache();
+	}
+
+
+	@Test
+	void indexIsNotConsultedByDefault() throws Exception {
+		writeIndex(this.root, Plain.class.getName() + "=");
+		Class<?> plain = loadClass(Plain.class, this.root);
+
+		assertThat(AnnotationIndex.isKnownEmpty(plain, SearchStrategy.TYPE_HIERARCHY)).isFalse();
+		assertThat(AnnotationIndex.isKnownAbsent(plain, Marker.class.getName())).isFalse();
+	}
+
+	@Test
+	void indexRulesOutAnnotations() throws Exception {
+		AnnotationIndex.setUseIndex(true);
+		writeIndex(this.root, Plain.class.getName() + "=",
+				Annotated.class.getName() + "=" + Marker.class.getName() + "," + MARKER_META_ANNOTATIONS,
+				"@" + Marker.class.getName() + "=" + MARKER_META_ANNOTATIONS);
+		Class<?> plain = loadClass(Plain.class, this.root);
+		Class<?> annotated = loadClass(Annotated.class, this.root);
+
+		assertThat(AnnotationIndex.isKnownEmpty(plain, SearchStrategy.TYPE_HIERARCHY)).isTrue();
+		assertThat(AnnotationIndex.isKnownEmpty(annotated, SearchStrategy.TYPE_HIERARCHY)).isFalse();
+		assertThat(AnnotationIndex.isKnownAbsent(annotated, Marker.class.getName())).isFalse();
+		assertThat(AnnotationIndex.isKnownAbsent(annotated, Deprecated.class.getName())).isTrue();
+		assertThat(MergedAnnotations.from(annotated, SearchStrategy.TYPE_HIERARCHY).isPresent(Marker.class)).isTrue();
+		assertThat(AnnotationIndex.isKnownEmpty(plain, SearchStrategy.TYPE_HIERARCHY_AND_ENCLOSING_CLASSES)).isFalse();
+	}
+
+	@Test
+	void indexIsConsultedByMergedAnnotations() throws Exception {
+		AnnotationIndex.setUseIndex(true);
+		// Deliberately wrong entry, in order to verify that the index is consulted
+		writeIndex(this.root, Annotated.class.getName() + "=");
+		Class<?> annotated = loadClass(Annotated.class, this.root);
+
+		assertThat(MergedAnnotations.from(annotated, SearchStrategy.TYPE_HIERARCHY).isPresent(Marker.class)).isFalse();
+		assertThat(AnnotationUtils.isCandidateClass(annotated, Marker.class)).isFalse();
+	}
+
+	@Test
+	void entryForClassFromOtherLocationIsIgnored() throws Exception {
+		AnnotationIndex.setUseIndex(true);
+		writeIndex(this.otherRoot, Annotated.class.getName() + "=");
+		Class<?> annotated = loadClass(Annotated.class, this.root, this.otherRoot);
+
+		assertThat(AnnotationIndex.isKnownEmpty(annotated, SearchStrategy.TYPE_HIERARCHY)).isFalse();
+		assertThat(MergedAnnotations.from(annotated, SearchStrategy.TYPE_HIERARCHY).isPresent(Marker.class)).isTrue();
+	}
+
+	@Test
+	void entryDeclaredBySeveralIndexesIsIgnored() throws Exception {
+		AnnotationIndex.setUseIndex(true);
+		writeIndex(this.root, Plain.class.getName() + "=");
+		writeIndex(this.otherRoot, Plain.class.getName() + "=");
+		Class<?> plain = loadClass(Plain.class, this.root, this.otherRoot);
+
+		assertThat(AnnotationIndex.isKnownEmpty(plain, SearchStrategy.TYPE_HIERARCHY)).isFalse();
+	}
+
+	@Test
+	void entryWithChangedMetaAnnotationsIsIgnored() throws Exception {
+		AnnotationIndex.setUseIndex(true);
+		writeIndex(this.root, Annotated.class.getName() + "=" + Marker.class.getName(),
+				"@" + Marker.class.getName() + "=" + Retention.class.getName());
+		Class<?> annotated = loadClass(Annotated.class, this.root);
+
+		assertThat(AnnotationIndex.isKnownAbsent(annotated, Deprecated.class.getName())).isFalse();
+	}
+
+
+	private static void writeIndex(Path root, String... entries) throws IOException {
+		Path index = root.resolve(AnnotationIndex.INDEX_RESOURCE_LOCATION);
+		Files.createDirectories(index.getParent());
+		Files.write(index, String.join("\n", entries).getBytes(StandardCharsets.ISO_8859_1));
+	}
+
+	/**
+	 * Load a fresh copy of the given class from the first of the given roots,
+	 * through a class loader that also exposes indexes in all of the roots.
+	 */
+	private static Class<?> loadClass(Class<?> type, Path... roots) throws Exception {
+		String resourceName = type.getName().replace('.', '/') + ".class";
+		Path classFile = roots[0].resolve(resourceName);
+		Files.createDirectories(classFile.getParent());
+		try (InputStream in = type.getClassLoader().getResourceAsStream(resourceName)) {
+			Files.write(classFile, FileCopyUtils.copyToByteArray(in));
+		}
+		URL[] urls = new URL[roots.length];
+		for (int i = 0; i < roots.length; i++) {
+			urls[i] = roots[i].toUri().toURL();
+		}
+		return Class.forName(type.getName(), false, new ChildFirstClassLoader(urls, type.getName()));
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@interface Marker {
+	}
+
+
+	static class Plain {
+	}
+
+
+	@Marker
+	static class Annotated {
+	}
+
+
+	private static class ChildFirstClassLoader extends URLClassLoader {
+
+		private final String className;
+
+		ChildFirstClassLoader(URL[] urls, String className) {
+			super(urls, AnnotationIndexTests.class.getClassLoader());
+			this.className = className;
+		}
+
+		@Override
+		protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+			if (this.className.equals(name)) {
+				synchronized (getClassLoadingLock(name)) {
+					Class<?> loaded = findLoadedClass(name);
+					return (loaded != null ? loaded : findClass(name));
+				}
+			}
+			return super.loadClass(name, resolve);
+		}
+
+		@Override
+		public URL getResource(String name) {
+			URL url = findResource(name);
+			return (url != null ? url : super.getResource(name));
+		}
+	}
+
+}
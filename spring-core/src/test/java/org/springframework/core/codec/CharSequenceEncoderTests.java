@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 
 package org.springframework.core.codec;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.stream.Stream;
 
@@ -23,7 +24,12 @@ import org.junit.jupiter.api.Test;
 import reactor.core.publisher.Flux;
 
 import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.core.io.buffer.PooledDataBufferFactory;
 import org.springframework.core.testfixture.codec.AbstractEncoderTests;
+import org.springframework.util.MimeType;
 import org.springframework.util.MimeTypeUtils;
 
 import static java.nio.charset.StandardCharsets.ISO_8859_1;
@@ -86,4 +92,57 @@ class CharSequenceEncoderTests extends AbstractEncoderTests<CharSequenceEncoder>
 				});
 	}
 
+	@Test
+	void encodeValueDirectlyIntoDefaultDataBuffers() {
+		String ascii = "Hello World!";
+		String latin1 = "Gr\u00fc\u00dfe";
+		String unicode = "\u4f60\u597d \ud83d\ude00 Gr\u00fc\u00dfe";
+		for (DefaultDataBufferFactory factory : new DefaultDataBufferFactory[] {
+				new DefaultDataBufferFactory(), new DefaultDataBufferFactory(true)}) {
+			Stream.of(UTF_8, ISO_8859_1, US_ASCII, UTF_16).forEach(charset -> {
+				for (String value : new String[] {"", ascii, latin1, unicode}) {
+					DataBuffer buffer = this.encoder.encodeValue(new StringBuilder(value), factory,
+							ResolvableType.forClass(StringBuilder.class), new MimeType("text", "plain", charset), null);
+					byte[] expected = value.getBytes(charset);
+					assertThat(buffer.readableByteCount()).as(charset + ": " + value).isEqualTo(expected.length);
+					byte[] actual = new byte[buffer.readableByteCount()];
+					buffer.read(actual);
+					assertThat(actual).as(charset + ": " + value).isEqualTo(expected);
+				}
+			});
+		}
+	}
+
+	@Test
+	void encodeValueLargerThanScratchBuffer() {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < 500; i++) {
+			builder.append("Gr\u00fc\u00dfe \u4f60\u597d ");
+		}
+		String value = builder.toString();
+		Stream.of(UTF_8, ISO_8859_1, UTF_16).forEach(charset -> {
+			DataBuffer buffer = this.encoder.encodeValue(value, new DefaultDataBufferFactory(),
+					ResolvableType.forClass(String.class), new MimeType("text", "plain", charset), null);
+			byte[] actual = new byte[buffer.readableByteCount()];
+			buffer.read(actual);
+			assertThat(actual).as(charset.name()).isEqualTo(value.getBytes(charset));
+		});
+	}
+
+	@Test
+	void encodeValueKeepsPooledBuffersRecyclable() {
+		PooledDataBufferFactory factory = new PooledDataBufferFactory();
+		MimeType mimeType = new MimeType("text", "plain", UTF_8);
+		DataBuffer buffer = this.encoder.encodeValue("Hello World!", factory,
+				ResolvableType.forClass(String.class), mimeType, null);
+		DataBufferUtils.release(buffer);
+
+		DataBuffer other = factory.allocateBuffer(12);
+		ByteBuffer memory = other.asByteBuffer(0, 12);
+		byte[] recycled = new byte[12];
+		memory.get(recycled);
+		assertThat(recycled).isEqualTo("Hello World!".getBytes(UTF_8));
+		DataBufferUtils.release(other);
+	}
+
 }
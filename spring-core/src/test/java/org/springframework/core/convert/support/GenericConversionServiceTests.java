@@ -31,6 +31,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.Test;
 
@@ -629,6 +630,50 @@ class GenericConversionServiceTests {
 	}
 
 
+	@Test
+	void convertAllResolvesConverterOncePerElementClass() {
+		AtomicInteger lookups = new AtomicInteger();
+		GenericConversionService service = new CountingConversionService(lookups);
+		service.addConverterFactory(new StringToNumberConverterFactory());
+		service.addConverterFactory(new NumberToNumberConverterFactory());
+		List<Integer> result = service.convertAll(Arrays.asList("1", "2", 3L, null, "4"), Integer.class);
+		assertThat(result).containsExactly(1, 2, 3, null, 4);
+		assertThat(lookups.get()).isEqualTo(3);
+	}
+
+	@Test
+	void collectionConversionResolvesElementConverterOncePerElementClass() throws Exception {
+		AtomicInteger lookups = new AtomicInteger();
+		GenericConversionService service = new CountingConversionService(lookups);
+		service.addConverterFactory(new StringToNumberConverterFactory());
+		service.addConverter(new CollectionToCollectionConverter(service));
+		List<String> source = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			source.add(Integer.toString(i));
+		}
+		TypeDescriptor targetType = new TypeDescriptor(getClass().getField("list"));
+		List<?> result = (List<?>) service.convert(source, TypeDescriptor.forObject(source), targetType);
+		assertThat(result).hasSize(1000).startsWith(0, 1, 2).endsWith(999);
+		assertThat(lookups.get()).isLessThan(5);
+	}
+
+	@Test
+	void elementConversionGoesThroughOverriddenConvertMethod() throws Exception {
+		List<Object> convertedSources = new ArrayList<>();
+		GenericConversionService service = new RecordingConversionService(convertedSources);
+		service.addConverterFactory(new StringToNumberConverterFactory());
+		service.addConverter(new CollectionToCollectionConverter(service));
+		List<String> source = Arrays.asList("1", "2");
+		TypeDescriptor targetType = new TypeDescriptor(getClass().getField("list"));
+		Object result = service.convert(source, TypeDescriptor.forObject(source), targetType);
+		assertThat(result).isEqualTo(Arrays.asList(1, 2));
+		assertThat(convertedSources).containsExactly(source, "1", "2");
+		convertedSources.clear();
+		assertThat(service.convertAll(source, Integer.class)).containsExactly(1, 2);
+		assertThat(convertedSources).containsExactly("1", "2");
+	}
+
+
 	@ExampleAnnotation(active = true)
 	public String annotatedString;
 
@@ -654,6 +699,39 @@ class GenericConversionServiceTests {
 	public Collection<Integer> integerCollection;
 
 
+	private static class RecordingConversionService extends GenericConversionService {
+
+		private final List<Object> convertedSources;
+
+		RecordingConversionService(List<Object> convertedSources) {
+			this.convertedSources = convertedSources;
+		}
+
+		@Override
+		@Nullable
+		public Object convert(@Nullable Object source, @Nullable TypeDescriptor sourceType, TypeDescriptor targetType) {
+			this.convertedSources.add(source);
+			return super.convert(source, sourceType, targetType);
+		}
+	}
+
+
+	private static class CountingConversionService extends GenericConversionService {
+
+		private final AtomicInteger lookups;
+
+		CountingConversionService(AtomicInteger lookups) {
+			this.lookups = lookups;
+		}
+
+		@Override
+		protected GenericConverter getConverter(TypeDescriptor sourceType, TypeDescriptor targetType) {
+			this.lookups.incrementAndGet();
+			return super.getConverter(sourceType, targetType);
+		}
+	}
+
+
 	@Retention(RetentionPolicy.RUNTIME)
 	private @interface ExampleAnnotation {
 
@@ -332,4 +332,42 @@ class PropertySourcesPropertyResolverTests {
 			.withMessageContaining("Could not resolve placeholder 'bogus' in value \"${p1}:${p2}:${bogus}\"");
 	}
 
+	@Test
+	void cachedPropertiesAreInvalidatedOnPropertySourcesModification() {
+		PropertySourcesPropertyResolver resolver = new PropertySourcesPropertyResolver(propertySources);
+		resolver.setCacheResolvedProperties(true);
+		testProperties.put("foo", "bar");
+		testProperties.put("greeting", "hello ${foo}");
+		assertThat(resolver.getProperty("greeting")).isEqualTo("hello bar");
+		assertThat(resolver.getProperty("missing")).isNull();
+		assertThat(resolver.resolvePlaceholders("${foo}!")).isEqualTo("bar!");
+
+		// changes within a property source are not visible through the snapshot
+		testProperties.put("foo", "baz");
+		testProperties.put("missing", "found");
+		assertThat(resolver.getProperty("greeting")).isEqualTo("hello bar");
+		assertThat(resolver.getProperty("missing")).isNull();
+		assertThat(resolver.resolvePlaceholders("${foo}!")).isEqualTo("bar!");
+
+		propertySources.addFirst(new MockPropertySource().withProperty("foo", "qux"));
+		assertThat(resolver.getProperty("greeting")).isEqualTo("hello qux");
+		assertThat(resolver.getProperty("missing")).isEqualTo("found");
+		assertThat(resolver.resolvePlaceholders("${foo}!")).isEqualTo("qux!");
+
+		propertySources.remove(MockPropertySource.MOCK_PROPERTIES_PROPERTY_SOURCE_NAME);
+		assertThat(resolver.getProperty("greeting")).isEqualTo("hello baz");
+	}
+
+	@Test
+	void cachedPropertiesAreInvalidatedOnPlaceholderConfigurationChange() {
+		PropertySourcesPropertyResolver resolver = new PropertySourcesPropertyResolver(propertySources);
+		resolver.setCacheResolvedProperties(true);
+		testProperties.put("greeting", "hello ${bogus}");
+		assertThatIllegalArgumentException().isThrownBy(() -> resolver.getProperty("greeting"));
+		resolver.setIgnoreUnresolvableNestedPlaceholders(true);
+		assertThat(resolver.getProperty("greeting")).isEqualTo("hello ${bogus}");
+		resolver.setIgnoreUnresolvableNestedPlaceholders(false);
+		assertThatIllegalArgumentException().isThrownBy(() -> resolver.getProperty("greeting"));
+	}
+
 }
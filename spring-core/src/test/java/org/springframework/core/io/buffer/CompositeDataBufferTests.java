@@ -0,0 +1,194 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.util.StreamUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Unit tests for {@link CompositeDataBuffer}.
+ *
+ * @author Sen Hu
+ */
+class CompositeDataBufferTests {
+
+	private final DefaultDataBufferFactory bufferFactory = new DefaultDataBufferFactory();
+
+
+	@Test
+	void joinDoesNotCopy() {
+		byte[] foo = bytes("foo");
+		DataBuffer result = join(this.bufferFactory.wrap(foo), buffer("bar"));
+		assertThat(result).isInstanceOf(CompositeDataBuffer.class);
+
+		foo[0] = 'b';
+		assertThat(result.toString(StandardCharsets.UTF_8)).isEqualTo("boobar");
+	}
+
+	@Test
+	void joinSingleBufferReturnsBuffer() {
+		DataBuffer buffer = buffer("foo");
+		assertThat(this.bufferFactory.joinComposite(Arrays.asList(buffer))).isSameAs(buffer);
+	}
+
+	@Test
+	void joinOnlyIncludesReadableBytes() {
+		DataBuffer foo = buffer("xfoo");
+		foo.read();
+		DataBuffer result = join(foo, buffer(""), buffer("bar"));
+		assertThat(result.readableByteCount()).isEqualTo(6);
+		assertThat(result.capacity()).isEqualTo(6);
+		assertThat(result.toString(StandardCharsets.UTF_8)).isEqualTo("foobar");
+	}
+
+	@Test
+	void joinFlattensComposites() {
+		DataBuffer result = join(join(buffer("foo"), buffer("bar")), buffer("baz"));
+		assertThat(result.toString(StandardCharsets.UTF_8)).isEqualTo("foobarbaz");
+		assertThat(result.toString()).contains("components: 3");
+	}
+
+	@Test
+	void indexBasedAccess() {
+		DataBuffer result = join(buffer("foo"), buffer("bar"), buffer("baz"));
+
+		assertThat(result.getByte(0)).isEqualTo((byte) 'f');
+		assertThat(result.getByte(3)).isEqualTo((byte) 'b');
+		assertThat(result.getByte(8)).isEqualTo((byte) 'z');
+		assertThatExceptionOfType(IndexOutOfBoundsException.class).isThrownBy(() -> result.getByte(9));
+
+		assertThat(result.indexOf(b -> b == 'a', 0)).isEqualTo(4);
+		assertThat(result.indexOf(b -> b == 'a', 5)).isEqualTo(7);
+		assertThat(result.lastIndexOf(b -> b == 'a', 8)).isEqualTo(7);
+		assertThat(result.lastIndexOf(b -> b == 'o', 6)).isEqualTo(2);
+		assertThat(result.indexOf(b -> b == 'x', 0)).isEqualTo(-1);
+	}
+
+	@Test
+	void readAcrossComponents() {
+		DataBuffer result = join(buffer("foo"), buffer("bar"), buffer("baz"));
+
+		byte[] bytes = new byte[5];
+		result.read(bytes);
+		assertThat(bytes).isEqualTo(bytes("fooba"));
+		assertThat(result.read()).isEqualTo((byte) 'r');
+		assertThat(result.readableByteCount()).isEqualTo(3);
+	}
+
+	@Test
+	void asByteBuffer() {
+		DataBuffer result = join(buffer("foo"), buffer("bar"));
+
+		ByteBuffer view = result.asByteBuffer(3, 3);
+		view.put(0, (byte) 'c');
+		assertThat(result.toString(StandardCharsets.UTF_8)).isEqualTo("foocar");
+
+		ByteBuffer copy = result.asByteBuffer(2, 2);
+		assertThat(copy.get(0)).isEqualTo((byte) 'o');
+		assertThat(copy.get(1)).isEqualTo((byte) 'c');
+	}
+
+	@Test
+	void asInputStream() throws Exception {
+		DataBuffer result = join(buffer("foo"), buffer("bar"), buffer("baz"));
+
+		try (InputStream inputStream = result.asInputStream()) {
+			assertThat(inputStream.skip(1)).isEqualTo(1);
+			assertThat(StreamUtils.copyToString(inputStream, StandardCharsets.UTF_8)).isEqualTo("oobarbaz");
+		}
+		assertThat(result.readableByteCount()).isEqualTo(0);
+	}
+
+	@Test
+	void writeAppendsComponent() {
+		DataBuffer result = join(buffer("foo"), buffer("bar"));
+
+		result.write(bytes("baz"));
+		result.write((byte) '!');
+		result.write("qux", StandardCharsets.UTF_8);
+		assertThat(result.capacity()).isGreaterThanOrEqualTo(13);
+		assertThat(result.toString(StandardCharsets.UTF_8)).isEqualTo("foobarbaz!qux");
+	}
+
+	@Test
+	void writeAcrossComponents() {
+		DataBuffer result = join(buffer("foo"), buffer("bar"));
+
+		result.writePosition(2);
+		result.write(ByteBuffer.wrap(bytes("OBA")));
+		result.writePosition(6);
+		assertThat(result.toString(StandardCharsets.UTF_8)).isEqualTo("foOBAr");
+	}
+
+	@Test
+	void decreaseCapacity() {
+		DataBuffer result = join(buffer("foo"), buffer("bar"));
+
+		result.capacity(4);
+		assertThat(result.capacity()).isEqualTo(4);
+		assertThat(result.toString(StandardCharsets.UTF_8)).isEqualTo("foob");
+	}
+
+	@Test
+	void sliceAcrossComponents() {
+		DataBuffer result = join(buffer("foo"), buffer("bar"), buffer("baz"));
+
+		DataBuffer slice = result.slice(2, 5);
+		assertThat(slice.toString(StandardCharsets.UTF_8)).isEqualTo("obarb");
+		assertThat(slice.getByte(4)).isEqualTo((byte) 'b');
+		assertThatExceptionOfType(UnsupportedOperationException.class).isThrownBy(() -> slice.capacity(10));
+	}
+
+	@Test
+	void releaseReleasesComponents() {
+		PooledDataBufferFactory pooledBufferFactory = new PooledDataBufferFactory();
+		PooledDataBuffer foo = (PooledDataBuffer) pooledBufferFactory.allocateBuffer(3).write(bytes("foo"));
+		PooledDataBuffer bar = (PooledDataBuffer) pooledBufferFactory.allocateBuffer(3).write(bytes("bar"));
+		DataBuffer result = this.bufferFactory.joinComposite(Arrays.asList(foo, bar));
+		DataBuffer slice = result.retainedSlice(0, 4);
+
+		assertThat(DataBufferUtils.release(result)).isFalse();
+		assertThat(foo.isAllocated()).isTrue();
+		assertThat(DataBufferUtils.release(slice)).isTrue();
+		assertThat(foo.isAllocated()).isFalse();
+		assertThat(bar.isAllocated()).isFalse();
+		assertThat(result.readableByteCount()).isEqualTo(0);
+	}
+
+
+	private DataBuffer join(DataBuffer... buffers) {
+		return this.bufferFactory.joinComposite(Arrays.asList(buffers));
+	}
+
+	private DataBuffer buffer(String value) {
+		return this.bufferFactory.wrap(bytes(value));
+	}
+
+	private static byte[] bytes(String value) {
+		return value.getBytes(StandardCharsets.UTF_8);
+	}
+
+}
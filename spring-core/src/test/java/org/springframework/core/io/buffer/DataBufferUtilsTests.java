@@ -35,6 +35,7 @@ import java.util.List;
 import java.util.concurrent.CountDownLatch;
 
 import io.netty.buffer.ByteBuf;
+import org.junit.jupiter.api.Test;
 import org.mockito.stubbing.Answer;
 import org.reactivestreams.Subscription;
 import reactor.core.publisher.BaseSubscriber;
@@ -293,6 +294,124 @@ class DataBufferUtilsTests extends AbstractDataBufferAllocatingTests {
 				.verify(Duration.ofSeconds(5));
 	}
 
+	@ParameterizedDataBufferAllocatingTest
+	void readMappedPath(String displayName, DataBufferFactory bufferFactory) throws Exception {
+		super.bufferFactory = bufferFactory;
+
+		Flux<DataBuffer> flux = DataBufferUtils.readMapped(this.resource.getFile().toPath(), super.bufferFactory, 3);
+
+		verifyReadData(flux);
+	}
+
+	@ParameterizedDataBufferAllocatingTest
+	void readMappedPathPositionAndCount(String displayName, DataBufferFactory bufferFactory) throws Exception {
+		super.bufferFactory = bufferFactory;
+
+		Path path = this.resource.getFile().toPath();
+		Flux<DataBuffer> flux = DataBufferUtils.readMapped(path, 3, 5, super.bufferFactory, 3);
+
+		StepVerifier.create(flux)
+				.consumeNextWith(stringConsumer("bar"))
+				.consumeNextWith(stringConsumer("ba"))
+				.expectComplete()
+				.verify(Duration.ofSeconds(5));
+	}
+
+	@ParameterizedDataBufferAllocatingTest
+	void readMappedPathPositionBeyondEnd(String displayName, DataBufferFactory bufferFactory) throws Exception {
+		super.bufferFactory = bufferFactory;
+
+		Path path = this.resource.getFile().toPath();
+		Flux<DataBuffer> flux = DataBufferUtils.readMapped(path, 100, 5, super.bufferFactory, 3);
+
+		StepVerifier.create(flux)
+				.expectComplete()
+				.verify(Duration.ofSeconds(5));
+	}
+
+	@ParameterizedDataBufferAllocatingTest
+	void readMappedBuffersAreReleasable(String displayName, DataBufferFactory bufferFactory) throws Exception {
+		super.bufferFactory = bufferFactory;
+
+		Flux<DataBuffer> flux = DataBufferUtils.readMapped(this.resource.getFile().toPath(), super.bufferFactory, 6);
+
+		StepVerifier.create(flux)
+				.consumeNextWith(buffer -> {
+					assertThat(buffer).isInstanceOf(PooledDataBuffer.class);
+					DataBuffer slice = buffer.slice(3, 3);
+					DataBufferUtils.retain(slice);
+					assertThat(DataBufferUtils.release(buffer)).isFalse();
+					assertThat(slice.toString(StandardCharsets.UTF_8)).isEqualTo("bar");
+					assertThat(DataBufferUtils.release(slice)).isTrue();
+					assertThat(((PooledDataBuffer) buffer).isAllocated()).isFalse();
+					assertThat(buffer.readableByteCount()).isEqualTo(0);
+				})
+				.consumeNextWith(stringConsumer("bazqux"))
+				.expectComplete()
+				.verify(Duration.ofSeconds(5));
+	}
+
+	@ParameterizedDataBufferAllocatingTest
+	void readMappedByteBufferRemainsReadableAfterRelease(String displayName, DataBufferFactory bufferFactory)
+			throws Exception {
+
+		super.bufferFactory = bufferFactory;
+
+		Flux<DataBuffer> flux = DataBufferUtils.readMapped(this.resource.getFile().toPath(), super.bufferFactory, 6);
+
+		StepVerifier.create(flux)
+				.consumeNextWith(buffer -> {
+					ByteBuffer byteBuffer = buffer.asByteBuffer();
+					assertThat(DataBufferUtils.release(buffer)).isTrue();
+					// e.g. an asynchronous server write completing after release
+					byte[] bytes = new byte[byteBuffer.remaining()];
+					byteBuffer.get(bytes);
+					assertThat(new String(bytes, StandardCharsets.UTF_8)).isEqualTo("foobar");
+				})
+				.consumeNextWith(stringConsumer("bazqux"))
+				.expectComplete()
+				.verify(Duration.ofSeconds(5));
+	}
+
+	@ParameterizedDataBufferAllocatingTest
+	void readMappedCancel(String displayName, DataBufferFactory bufferFactory) throws Exception {
+		super.bufferFactory = bufferFactory;
+
+		Flux<DataBuffer> flux = DataBufferUtils.readMapped(this.resource.getFile().toPath(), super.bufferFactory, 3);
+
+		StepVerifier.create(flux)
+				.consumeNextWith(stringConsumer("foo"))
+				.thenCancel()
+				.verify();
+	}
+
+	@ParameterizedDataBufferAllocatingTest
+	void readMappedResourcePositionAndCount(String displayName, DataBufferFactory bufferFactory) throws Exception {
+		super.bufferFactory = bufferFactory;
+
+		Flux<DataBuffer> flux = DataBufferUtils.readMapped(this.resource, 3, 5, super.bufferFactory, 3);
+
+		StepVerifier.create(flux)
+				.consumeNextWith(stringConsumer("bar"))
+				.consumeNextWith(stringConsumer("ba"))
+				.expectComplete()
+				.verify(Duration.ofSeconds(5));
+	}
+
+	@ParameterizedDataBufferAllocatingTest
+	void readMappedByteArrayResourcePositionAndCount(String displayName, DataBufferFactory bufferFactory) throws Exception {
+		super.bufferFactory = bufferFactory;
+
+		Resource resource = new ByteArrayResource("foobarbazqux" .getBytes());
+		Flux<DataBuffer> flux = DataBufferUtils.readMapped(resource, 3, 5, super.bufferFactory, 3);
+
+		StepVerifier.create(flux)
+				.consumeNextWith(stringConsumer("bar"))
+				.consumeNextWith(stringConsumer("ba"))
+				.expectComplete()
+				.verify(Duration.ofSeconds(5));
+	}
+
 	@ParameterizedDataBufferAllocatingTest
 	void writeOutputStream(String displayName, DataBufferFactory bufferFactory) throws Exception {
 		super.bufferFactory = bufferFactory;
@@ -864,6 +983,21 @@ class DataBufferUtilsTests extends AbstractDataBufferAllocatingTests {
 				.verify();
 	}
 
+	@Test
+	void joinDefaultDataBuffersWithoutCopying() {
+		DefaultDataBufferFactory factory = new DefaultDataBufferFactory();
+		byte[] foo = "foo".getBytes(StandardCharsets.UTF_8);
+		byte[] bar = "bar".getBytes(StandardCharsets.UTF_8);
+		Mono<DataBuffer> result = DataBufferUtils.join(Flux.just(factory.wrap(foo), factory.wrap(bar)));
+
+		StepVerifier.create(result)
+				.consumeNextWith(buf -> {
+					assertThat(buf.toString(StandardCharsets.UTF_8)).isEqualTo("foobar");
+					assertThat(buf.asByteBuffer(0, 3).array()).isSameAs(foo);
+				})
+				.verifyComplete();
+	}
+
 	@ParameterizedDataBufferAllocatingTest
 	void matcher(String displayName, DataBufferFactory bufferFactory) {
 		super.bufferFactory = bufferFactory;
@@ -902,6 +1036,46 @@ class DataBufferUtilsTests extends AbstractDataBufferAllocatingTests {
 		release(foo);
 	}
 
+	@ParameterizedDataBufferAllocatingTest
+	void matcherWithMultipleDelimiters(String displayName, DataBufferFactory bufferFactory) {
+		super.bufferFactory = bufferFactory;
+
+		DataBuffer buffer = stringBuffer("a\nb\r\nc");
+
+		byte[][] delims = {"\r\n".getBytes(StandardCharsets.UTF_8), "\n".getBytes(StandardCharsets.UTF_8)};
+		DataBufferUtils.Matcher matcher = DataBufferUtils.matcher(delims);
+		int result = matcher.match(buffer);
+		assertThat(result).isEqualTo(1);
+		assertThat(matcher.delimiter()).isEqualTo("\n".getBytes(StandardCharsets.UTF_8));
+		buffer.readPosition(2);
+		result = matcher.match(buffer);
+		assertThat(result).isEqualTo(4);
+		assertThat(matcher.delimiter()).isEqualTo("\r\n".getBytes(StandardCharsets.UTF_8));
+		buffer.readPosition(5);
+		result = matcher.match(buffer);
+		assertThat(result).isEqualTo(-1);
+
+		release(buffer);
+	}
+
+	@ParameterizedDataBufferAllocatingTest
+	void matcherWithDelimiterAcrossBuffers(String displayName, DataBufferFactory bufferFactory) {
+		super.bufferFactory = bufferFactory;
+
+		DataBuffer foo = stringBuffer("foo\r");
+		DataBuffer bar = stringBuffer("\nbar");
+
+		byte[][] delims = {"\r\n".getBytes(StandardCharsets.UTF_8), "\n".getBytes(StandardCharsets.UTF_8)};
+		DataBufferUtils.Matcher matcher = DataBufferUtils.matcher(delims);
+		int result = matcher.match(foo);
+		assertThat(result).isEqualTo(-1);
+		result = matcher.match(bar);
+		assertThat(result).isEqualTo(0);
+		assertThat(matcher.delimiter()).isEqualTo("\r\n".getBytes(StandardCharsets.UTF_8));
+
+		release(foo, bar);
+	}
+
 
 	private static class ZeroDemandSubscriber extends BaseSubscriber<DataBuffer> {
 
@@ -0,0 +1,311 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.io.buffer;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Unit tests for {@link PooledDataBufferFactory}.
+ *
+ * @author Sen Hu
+ */
+class PooledDataBufferFactoryTests {
+
+	private final PooledDataBufferFactory bufferFactory = new PooledDataBufferFactory();
+
+
+	@Test
+	void allocateBufferIsPooled() {
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(100);
+		assertThat(buffer).isInstanceOf(PooledDataBuffer.class);
+		assertThat(buffer.capacity()).isEqualTo(100);
+		assertThat(buffer.factory()).isSameAs(this.bufferFactory);
+		assertThat(((PooledDataBuffer) buffer).isAllocated()).isTrue();
+		release(buffer);
+	}
+
+	@Test
+	void releasedMemoryIsReused() {
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(100);
+		ByteBuffer memory = nativeBuffer(buffer);
+		buffer.write(bytes("foo"));
+		release(buffer);
+
+		DataBuffer other = this.bufferFactory.allocateBuffer(128);
+		assertThat(nativeBuffer(other).array()).isSameAs(memory.array());
+		assertThat(other.readableByteCount()).isEqualTo(0);
+		assertThat(other.capacity()).isEqualTo(128);
+		release(other);
+	}
+
+	@Test
+	void exposedMemoryIsNotReusedWhilePending() {
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(100);
+		buffer.write(bytes("foo"));
+		// e.g. handed to a server that completes the write asynchronously
+		ByteBuffer pending = buffer.asByteBuffer();
+		release(buffer);
+
+		DataBuffer other = this.bufferFactory.allocateBuffer(100);
+		other.write(bytes("bar"));
+		assertThat(nativeBuffer(other).array()).isNotSameAs(pending.array());
+		byte[] result = new byte[pending.remaining()];
+		pending.get(result);
+		assertThat(result).isEqualTo(bytes("foo"));
+		release(other);
+	}
+
+	@Test
+	void exposedMemoryIsReusedIfEnabled() {
+		this.bufferFactory.setRecycleExposedMemory(true);
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(100);
+		ByteBuffer memory = buffer.asByteBuffer();
+		release(buffer);
+
+		DataBuffer other = this.bufferFactory.allocateBuffer(100);
+		assertThat(nativeBuffer(other).array()).isSameAs(memory.array());
+		release(other);
+	}
+
+	@Test
+	void nativeBufferExposesMemory() {
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(100);
+		ByteBuffer memory = ((DefaultDataBuffer) buffer).getNativeBuffer();
+		release(buffer);
+
+		DataBuffer other = this.bufferFactory.allocateBuffer(100);
+		assertThat(nativeBuffer(other).array()).isNotSameAs(memory.array());
+		release(other);
+	}
+
+	@Test
+	void writingFromOtherBufferDoesNotExposeIt() {
+		DataBuffer source = this.bufferFactory.allocateBuffer(100);
+		source.write(bytes("foo"));
+		ByteBuffer memory = nativeBuffer(source);
+		DataBuffer target = this.bufferFactory.allocateBuffer(1000);
+		target.write(source);
+		release(source);
+
+		DataBuffer other = this.bufferFactory.allocateBuffer(100);
+		assertThat(nativeBuffer(other).array()).isSameAs(memory.array());
+		release(target, other);
+	}
+
+	@Test
+	void differentSizeClassesAreNotShared() {
+		DataBuffer small = this.bufferFactory.allocateBuffer(100);
+		ByteBuffer memory = nativeBuffer(small);
+		release(small);
+
+		DataBuffer large = this.bufferFactory.allocateBuffer(1000);
+		assertThat(nativeBuffer(large).array()).isNotSameAs(memory.array());
+		release(large);
+	}
+
+	@Test
+	void buffersAboveMaxPooledCapacityAreNotPooled() {
+		PooledDataBufferFactory bufferFactory = new PooledDataBufferFactory(false, 256, 1000);
+		assertThat(bufferFactory.getMaxPooledCapacity()).isEqualTo(1024);
+
+		DataBuffer buffer = bufferFactory.allocateBuffer(2000);
+		ByteBuffer memory = nativeBuffer(buffer);
+		release(buffer);
+
+		DataBuffer other = bufferFactory.allocateBuffer(2000);
+		assertThat(nativeBuffer(other).array()).isNotSameAs(memory.array());
+		release(other);
+	}
+
+	@Test
+	void directMemoryIsPooled() {
+		PooledDataBufferFactory bufferFactory = new PooledDataBufferFactory(true);
+		DataBuffer buffer = bufferFactory.allocateBuffer(100);
+		assertThat(buffer.asByteBuffer().isDirect()).isTrue();
+		buffer.write(bytes("foo"));
+		assertThat(buffer.toString(StandardCharsets.UTF_8)).isEqualTo("foo");
+		release(buffer);
+	}
+
+	@Test
+	void memoryReleasedOnOtherThreadIsReused() throws Exception {
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(100);
+		Thread thread = new Thread(() -> release(buffer));
+		thread.start();
+		thread.join();
+
+		DataBuffer other = this.bufferFactory.allocateBuffer(100);
+		assertThat(other.capacity()).isEqualTo(100);
+		release(other);
+	}
+
+	@Test
+	void growingBufferRecyclesPreviousMemory() {
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(64);
+		ByteBuffer memory = nativeBuffer(buffer);
+		byte[] source = new byte[1000];
+		Arrays.fill(source, (byte) 'a');
+		buffer.write(source);
+		assertThat(buffer.capacity()).isGreaterThanOrEqualTo(1000);
+		assertThat(buffer.readableByteCount()).isEqualTo(1000);
+
+		DataBuffer other = this.bufferFactory.allocateBuffer(64);
+		assertThat(nativeBuffer(other).array()).isSameAs(memory.array());
+		release(buffer, other);
+	}
+
+	@Test
+	void releasedBufferCannotBeUsed() {
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(100);
+		buffer.write(bytes("foo"));
+		release(buffer);
+
+		assertThat(((PooledDataBuffer) buffer).isAllocated()).isFalse();
+		assertThat(buffer.readableByteCount()).isEqualTo(0);
+		assertThatExceptionOfType(IndexOutOfBoundsException.class).isThrownBy(buffer::read);
+		assertThatIllegalStateException().isThrownBy(() -> buffer.write(bytes("bar")));
+		assertThatIllegalStateException().isThrownBy(((PooledDataBuffer) buffer)::retain);
+	}
+
+	@Test
+	void sliceSharesReferenceCount() {
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(100);
+		buffer.write(bytes("foobar"));
+		DataBuffer slice = buffer.slice(3, 3);
+		assertThat(slice).isInstanceOf(PooledDataBuffer.class);
+		assertThat(slice.toString(StandardCharsets.UTF_8)).isEqualTo("bar");
+
+		DataBufferUtils.retain(slice);
+		assertThat(DataBufferUtils.release(buffer)).isFalse();
+		assertThat(((PooledDataBuffer) slice).isAllocated()).isTrue();
+		assertThat(DataBufferUtils.release(slice)).isTrue();
+		assertThat(((PooledDataBuffer) buffer).isAllocated()).isFalse();
+	}
+
+	@Test
+	void inputStreamReleasesOnClose() throws Exception {
+		DataBuffer buffer = this.bufferFactory.allocateBuffer(100);
+		buffer.write(bytes("foo"));
+		try (InputStream inputStream = buffer.asInputStream(true)) {
+			byte[] result = new byte[3];
+			assertThat(inputStream.read(result)).isEqualTo(3);
+			assertThat(result).isEqualTo(bytes("foo"));
+		}
+		assertThat(((PooledDataBuffer) buffer).isAllocated()).isFalse();
+	}
+
+	@Test
+	void joinIsPooled() {
+		DataBuffer foo = this.bufferFactory.allocateBuffer(3).write(bytes("foo"));
+		DataBuffer bar = this.bufferFactory.allocateBuffer(3).write(bytes("bar"));
+
+		DataBuffer result = this.bufferFactory.join(Arrays.asList(foo, bar));
+		assertThat(result).isInstanceOf(PooledDataBuffer.class);
+		assertThat(result.toString(StandardCharsets.UTF_8)).isEqualTo("foobar");
+		assertThat(((PooledDataBuffer) foo).isAllocated()).isFalse();
+		assertThat(((PooledDataBuffer) bar).isAllocated()).isFalse();
+		release(result);
+	}
+
+	@Test
+	void joinCompositeReleasesPooledBuffers() {
+		DataBuffer foo = this.bufferFactory.allocateBuffer(3).write(bytes("foo"));
+		DataBuffer bar = this.bufferFactory.allocateBuffer(3).write(bytes("bar"));
+
+		DataBuffer result = this.bufferFactory.joinComposite(Arrays.asList(foo, bar));
+		assertThat(result).isInstanceOf(PooledDataBuffer.class);
+		assertThat(result.toString(StandardCharsets.UTF_8)).isEqualTo("foobar");
+		assertThat(((PooledDataBuffer) foo).isAllocated()).isTrue();
+		release(result);
+		assertThat(((PooledDataBuffer) foo).isAllocated()).isFalse();
+		assertThat(((PooledDataBuffer) bar).isAllocated()).isFalse();
+	}
+
+	@Test
+	void joinCompositeKeepsPooledBuffersRecyclable() {
+		DataBuffer foo = this.bufferFactory.allocateBuffer(100).write(bytes("foo"));
+		DataBuffer bar = this.bufferFactory.allocateBuffer(100).write(bytes("bar"));
+		byte[][] memory = {nativeBuffer(foo).array(), nativeBuffer(bar).array()};
+
+		DataBuffer result = this.bufferFactory.joinComposite(Arrays.asList(foo, bar));
+		assertThat(result.toString(StandardCharsets.UTF_8)).isEqualTo("foobar");
+		// Spans both components, hence a copy
+		assertThat(result.asByteBuffer().remaining()).isEqualTo(6);
+		release(result);
+
+		DataBuffer other1 = this.bufferFactory.allocateBuffer(100);
+		DataBuffer other2 = this.bufferFactory.allocateBuffer(100);
+		assertThat(Arrays.asList(nativeBuffer(other1).array(), nativeBuffer(other2).array()))
+				.containsExactlyInAnyOrder(memory);
+		release(other1, other2);
+	}
+
+	@Test
+	void joinCompositeExposesPooledBuffersThroughByteBufferView() {
+		DataBuffer foo = this.bufferFactory.allocateBuffer(100).write(bytes("foo"));
+		DataBuffer bar = this.bufferFactory.allocateBuffer(100).write(bytes("bar"));
+		ByteBuffer memory = nativeBuffer(foo);
+
+		DataBuffer result = this.bufferFactory.joinComposite(Arrays.asList(foo, bar));
+		ByteBuffer pending = result.asByteBuffer(0, 3);
+		release(result);
+
+		DataBuffer other = this.bufferFactory.allocateBuffer(100);
+		assertThat(nativeBuffer(other).array()).isNotSameAs(memory.array());
+		assertThat(pending.get(0)).isEqualTo((byte) 'f');
+		release(other);
+	}
+
+	@Test
+	void leakDetection() throws Exception {
+		this.bufferFactory.setLeakDetection(true);
+		assertThat(this.bufferFactory.isLeakDetection()).isTrue();
+
+		DataBuffer released = this.bufferFactory.allocateBuffer(100);
+		release(released);
+		this.bufferFactory.allocateBuffer(100);
+
+		for (int i = 0; i < 50 && this.bufferFactory.getLeakCount() == 0; i++) {
+			System.gc();
+			Thread.sleep(20);
+		}
+		assertThat(this.bufferFactory.getLeakCount()).isEqualTo(1);
+	}
+
+
+	private static byte[] bytes(String value) {
+		return value.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static ByteBuffer nativeBuffer(DataBuffer buffer) {
+		return ((DefaultDataBuffer) buffer).nativeBuffer();
+	}
+
+	private static void release(DataBuffer... buffers) {
+		Arrays.stream(buffers).forEach(DataBufferUtils::release);
+	}
+
+}
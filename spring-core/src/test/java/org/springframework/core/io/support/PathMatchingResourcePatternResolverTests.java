@@ -19,12 +19,16 @@ package org.springframework.core.io.support;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import org.springframework.core.io.Resource;
 import org.springframework.util.StringUtils;
@@ -116,6 +120,75 @@ class PathMatchingResourcePatternResolverTests {
 		assertProtocolAndFilenames(resources, "jar", CLASSES_IN_REACTOR_UTIL_ANNOTATIONS);
 	}
 
+	@Test
+	void jarEntryIndexIsReusedAcrossPatterns() throws IOException {
+		Resource[] first = resolver.getResources("classpath*:reactor/util/annotation/*.class");
+		Resource[] second = resolver.getResources("classpath*:reactor/util/annotation/Non*.class");
+		assertProtocolAndFilenames(first, "jar", CLASSES_IN_REACTOR_UTIL_ANNOTATIONS);
+		assertProtocolAndFilenames(second, "jar", "NonNull.class", "NonNullApi.class");
+		assertThat(second).containsExactly(
+				new PathMatchingResourcePatternResolver().getResources("classpath*:reactor/util/annotation/Non*.class"));
+		resolver.clearCache();
+		assertThat(resolver.getResources("classpath*:reactor/util/annotation/*.class")).containsExactly(first);
+	}
+
+	@Test
+	void jarEntryIndexCanBeTurnedOff() throws IOException {
+		resolver.setJarIndexCacheLimit(0);
+		Resource[] resources = resolver.getResources("classpath*:reactor/util/annotation/*.class");
+		assertProtocolAndFilenames(resources, "jar", CLASSES_IN_REACTOR_UTIL_ANNOTATIONS);
+		assertThat(resolver.getResources("classpath*:reactor/util/annotation/*.class")).containsExactly(resources);
+	}
+
+	@Test
+	void fileSystemTraversalIsDepthFirstInAlphabeticalOrder(@TempDir Path tempDir) throws IOException {
+		Files.createDirectories(tempDir.resolve("b/c"));
+		Files.createDirectories(tempDir.resolve("a"));
+		Files.createFile(tempDir.resolve("b/c/3.txt"));
+		Files.createFile(tempDir.resolve("b/2.txt"));
+		Files.createFile(tempDir.resolve("a/1.txt"));
+		Files.createFile(tempDir.resolve("4.txt"));
+		Files.createFile(tempDir.resolve("5.xml"));
+		Resource[] resources = resolver.getResources(tempDir.toUri() + "**/*.txt");
+		assertThat(resources).extracting(Resource::getFile).containsExactly(
+				tempDir.resolve("4.txt").toFile(), tempDir.resolve("a/1.txt").toFile(),
+				tempDir.resolve("b/2.txt").toFile(), tempDir.resolve("b/c/3.txt").toFile());
+	}
+
+	@Test
+	void fileSystemTraversalGoesThroughListDirectory(@TempDir Path tempDir) throws IOException {
+		Files.createDirectories(tempDir.resolve("excluded"));
+		Files.createFile(tempDir.resolve("excluded/1.txt"));
+		Files.createFile(tempDir.resolve("2.txt"));
+		PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver() {
+			@Override
+			protected File[] listDirectory(File dir) {
+				return Arrays.stream(super.listDirectory(dir))
+						.filter(file -> !file.getName().equals("excluded")).toArray(File[]::new);
+			}
+		};
+		Resource[] resources = resolver.getResources(tempDir.toUri() + "**/*.txt");
+		assertThat(resources).extracting(Resource::getFile).containsExactly(tempDir.resolve("2.txt").toFile());
+	}
+
+	@Test
+	void fileSystemTraversalGoesThroughDoRetrieveMatchingFiles(@TempDir Path tempDir) throws IOException {
+		Files.createDirectories(tempDir.resolve("a/b"));
+		Files.createFile(tempDir.resolve("a/b/1.txt"));
+		List<File> searchedDirs = new ArrayList<>();
+		PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver() {
+			@Override
+			protected void doRetrieveMatchingFiles(String fullPattern, File dir, Set<File> result) throws IOException {
+				searchedDirs.add(dir);
+				super.doRetrieveMatchingFiles(fullPattern, dir, result);
+			}
+		};
+		Resource[] resources = resolver.getResources(tempDir.toUri() + "**/*.txt");
+		assertThat(resources).extracting(Resource::getFile).containsExactly(tempDir.resolve("a/b/1.txt").toFile());
+		assertThat(searchedDirs).containsExactly(tempDir.toFile(), tempDir.resolve("a").toFile(),
+				tempDir.resolve("a/b").toFile());
+	}
+
 	@Test
 	void rootPatternRetrievalInJarFiles() throws IOException {
 		Resource[] resources = resolver.getResources("classpath*:*.dtd");
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.metrics;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.core.metrics.BufferingApplicationStartup.BufferedStartupStep;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Tests for {@link BufferingApplicationStartup}.
+ *
+ * @author Sen Hu
+ */
+class BufferingApplicationStartupTests {
+
+	@Test
+	void defaultStartupDoesNotRecord() {
+		StartupStep step = ApplicationStartup.DEFAULT.start("test.step").tag("key", "value");
+		step.end();
+		assertThat(step.getTags()).isEmpty();
+	}
+
+	@Test
+	void stepsAreNestedPerThread() {
+		BufferingApplicationStartup startup = new BufferingApplicationStartup(10);
+		StartupStep outer = startup.start("test.outer");
+		StartupStep inner = startup.start("test.inner").tag("beanName", "first");
+		inner.end();
+		StartupStep sibling = startup.start("test.inner").tag("beanName", "second");
+		sibling.end();
+		outer.end();
+		StartupStep next = startup.start("test.next");
+		next.end();
+
+		assertThat(outer.getParentId()).isNull();
+		assertThat(inner.getParentId()).isEqualTo(outer.getId());
+		assertThat(sibling.getParentId()).isEqualTo(outer.getId());
+		assertThat(next.getParentId()).isNull();
+		List<BufferedStartupStep> steps = startup.getBufferedSteps();
+		assertThat(steps).containsExactly(inner, sibling, outer, next);
+		assertThat(steps).allSatisfy(step -> assertThat(step.getDurationNanos()).isNotNegative());
+	}
+
+	@Test
+	void endingOuterStepLeavesUnendedNestedSteps() {
+		BufferingApplicationStartup startup = new BufferingApplicationStartup(10);
+		StartupStep outer = startup.start("test.outer");
+		StartupStep abandoned = startup.start("test.abandoned");
+		outer.end();
+		StartupStep next = startup.start("test.next");
+
+		assertThat(abandoned.getParentId()).isEqualTo(outer.getId());
+		assertThat(next.getParentId()).isNull();
+	}
+
+	@Test
+	void decoratedTaskNestsStepsOnOtherThread() throws Exception {
+		BufferingApplicationStartup startup = new BufferingApplicationStartup(10);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			AtomicReference<StartupStep> workerStep = new AtomicReference<>();
+			AtomicReference<StartupStep> laterStep = new AtomicReference<>();
+			StartupStep outer = startup.start("test.outer");
+			CompletableFuture.runAsync(startup.decorateTask(() ->
+					workerStep.set(startup.start("test.worker"))), executor).get();
+			CompletableFuture.runAsync(() -> laterStep.set(startup.start("test.later")), executor).get();
+			outer.end();
+
+			assertThat(workerStep.get().getParentId()).isEqualTo(outer.getId());
+			assertThat(laterStep.get().getParentId()).isNull();
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void stepCannotBeEndedTwice() {
+		BufferingApplicationStartup startup = new BufferingApplicationStartup(10);
+		BufferedStartupStep step = (BufferedStartupStep) startup.start("test.step");
+		assertThat(step.getDurationNanos()).isEqualTo(-1);
+		step.end();
+		assertThat(step.getDurationNanos()).isNotNegative();
+		assertThatIllegalStateException().isThrownBy(step::end);
+		assertThatIllegalStateException().isThrownBy(() -> step.tag("key", "value"));
+	}
+
+	@Test
+	void stepsBeyondCapacityAreDropped() {
+		BufferingApplicationStartup startup = new BufferingApplicationStartup(2);
+		for (int i = 0; i < 5; i++) {
+			startup.start("test.step").end();
+		}
+		assertThat(startup.getBufferedSteps()).hasSize(2);
+		assertThat(startup.getDroppedCount()).isEqualTo(3);
+		assertThat(startup.drainBufferedSteps()).hasSize(2);
+		assertThat(startup.getBufferedSteps()).isEmpty();
+	}
+
+	@Test
+	void flameGraphReport() {
+		BufferingApplicationStartup startup = new BufferingApplicationStartup(10);
+		StartupStep outer = startup.start("test.outer");
+		startup.start("test.inner").tag("beanName", "my bean;1").end();
+		outer.end();
+
+		String[] lines = startup.getFlameGraphReport().split("\n");
+		assertThat(lines).hasSize(2);
+		assertThat(lines[0]).matches("test\\.outer;test\\.inner\\[beanName=my_bean,1\\] \\d+");
+		assertThat(lines[1]).matches("test\\.outer \\d+");
+	}
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.task;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Unit tests for {@link VirtualThreadTaskExecutor}.
+ *
+ * @author Sen Hu
+ */
+class VirtualThreadTaskExecutorTests {
+
+	@Test
+	void virtualThreadsAreUsedIfSupported() {
+		VirtualThreadTaskExecutor executor = new VirtualThreadTaskExecutor();
+		assertThat(executor.isVirtual()).isEqualTo(VirtualThreadTaskExecutor.isVirtualThreadSupported());
+	}
+
+	@Test
+	void threadNameGetsSetCorrectly() throws Exception {
+		VirtualThreadTaskExecutor executor = new VirtualThreadTaskExecutor("chankPop#");
+		String threadName = executor.submit(() -> Thread.currentThread().getName()).get(5, TimeUnit.SECONDS);
+		assertThat(threadName).startsWith("chankPop#");
+	}
+
+	@Test
+	void throttleIsNotActiveByDefault() {
+		VirtualThreadTaskExecutor executor = new VirtualThreadTaskExecutor();
+		assertThat(executor.isThrottleActive()).isFalse();
+	}
+
+	@Test
+	void cannotExecuteWhenConcurrencyIsSwitchedOff() {
+		VirtualThreadTaskExecutor executor = new VirtualThreadTaskExecutor();
+		executor.setConcurrencyLimit(VirtualThreadTaskExecutor.NO_CONCURRENCY);
+		assertThat(executor.isThrottleActive()).isTrue();
+		assertThatIllegalStateException().isThrownBy(() -> executor.execute(() -> {}));
+	}
+
+	@Test
+	void concurrencyLimitAppliesStartTimeout() throws Exception {
+		VirtualThreadTaskExecutor executor = new VirtualThreadTaskExecutor();
+		executor.setConcurrencyLimit(1);
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		executor.execute(() -> {
+			started.countDown();
+			awaitQuietly(release);
+		});
+		assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThatExceptionOfType(TaskTimeoutException.class).isThrownBy(() ->
+				executor.execute(() -> {}, 50));
+
+		// urgent tasks bypass the concurrency limit
+		CountDownLatch urgent = new CountDownLatch(1);
+		executor.execute(urgent::countDown, AsyncTaskExecutor.TIMEOUT_IMMEDIATE);
+		assertThat(urgent.await(5, TimeUnit.SECONDS)).isTrue();
+
+		release.countDown();
+		assertThat(executor.submit(() -> "done").get(5, TimeUnit.SECONDS)).isEqualTo("done");
+	}
+
+	@Test
+	void throwsExceptionWhenSuppliedWithNullRunnable() {
+		assertThatIllegalArgumentException().isThrownBy(() ->
+				new VirtualThreadTaskExecutor().execute(null));
+	}
+
+	private static void awaitQuietly(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.UrlResource;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StreamUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link PersistentMetadataReaderCache}.
+ *
+ * @author Sen Hu
+ */
+class PersistentMetadataReaderCacheTests {
+
+	private File cacheFile;
+
+	private Resource resource;
+
+
+	private Path tempDir;
+
+
+	@BeforeEach
+	void setup(@TempDir Path tempDir) throws Exception {
+		this.tempDir = tempDir;
+		this.cacheFile = tempDir.resolve("metadata.cache").toFile();
+		Path classFile = tempDir.resolve("Sample.class");
+		try (InputStream inputStream = getClassFile(Sample.class)) {
+			Files.copy(inputStream, classFile);
+		}
+		this.resource = new FileSystemResource(classFile);
+	}
+
+
+	@Test
+	void metadataIsReusedAfterRestart() throws Exception {
+		PersistentMetadataReaderCache cache = new PersistentMetadataReaderCache(this.cacheFile);
+		AnnotationMetadata original = getMetadata(cache);
+		cache.flush();
+		assertThat(this.cacheFile).exists();
+
+		PersistentMetadataReaderCache restarted = new PersistentMetadataReaderCache(this.cacheFile);
+		assertThat(restarted.getClassFile(this.resource)).isNotNull();
+		AnnotationMetadata cached = getMetadata(restarted);
+		assertThat(cached.getClassName()).isEqualTo(original.getClassName());
+		assertThat(cached.getInterfaceNames()).containsExactly(original.getInterfaceNames());
+		assertThat(cached.getAnnotationTypes()).containsExactly(Order.class.getName());
+		assertThat(cached.getAnnotations().get(Order.class).getInt("value")).isEqualTo(5);
+		assertThat(cached.getAnnotatedMethods(Order.class.getName()))
+				.extracting(MethodMetadata::getMethodName).containsExactly("ordered");
+	}
+
+	@Test
+	void modifiedResourceIsNotReused() throws Exception {
+		PersistentMetadataReaderCache cache = new PersistentMetadataReaderCache(this.cacheFile);
+		getMetadata(cache);
+		cache.flush();
+
+		try (InputStream inputStream = getClassFile(Other.class)) {
+			Files.copy(inputStream, this.resource.getFile().toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		PersistentMetadataReaderCache restarted = new PersistentMetadataReaderCache(this.cacheFile);
+		assertThat(restarted.getClassFile(this.resource)).isNull();
+		assertThat(getMetadata(restarted).getClassName()).isEqualTo(Other.class.getName());
+	}
+
+	@Test
+	void touchedResourceIsReused() throws Exception {
+		PersistentMetadataReaderCache cache = new PersistentMetadataReaderCache(this.cacheFile);
+		getMetadata(cache);
+		cache.flush();
+
+		File file = this.resource.getFile();
+		assertThat(file.setLastModified(file.lastModified() - 10000)).isTrue();
+		assertThat(new PersistentMetadataReaderCache(this.cacheFile).getClassFile(this.resource)).isNotNull();
+	}
+
+	@Test
+	void jarEntryIsValidatedByEntryChecksum() throws Exception {
+		Path jarFile = this.tempDir.resolve("sample.jar");
+		writeJar(jarFile, Sample.class);
+		Resource jarResource = new UrlResource("jar:" + jarFile.toUri() + "!/Sample.class");
+		PersistentMetadataReaderCache cache = new PersistentMetadataReaderCache(this.cacheFile);
+		getMetadata(cache, jarResource);
+		cache.flush();
+		assertThat(new PersistentMetadataReaderCache(this.cacheFile).getClassFile(jarResource)).isNotNull();
+
+		Path rebuiltJarFile = this.tempDir.resolve("rebuilt.jar");
+		writeJar(rebuiltJarFile, Other.class);
+		Resource rebuiltJarResource = new UrlResource("jar:" + rebuiltJarFile.toUri() + "!/Sample.class");
+		PersistentMetadataReaderCache restarted = new PersistentMetadataReaderCache(this.cacheFile);
+		restarted.putClassFile(rebuiltJarResource, StreamUtils.copyToByteArray(getClassFile(Sample.class)));
+		assertThat(restarted.getClassFile(rebuiltJarResource)).isNull();
+	}
+
+	@Test
+	void entriesAccessedBeforePreviousFlushAreRetained() throws Exception {
+		Path otherClassFile = this.tempDir.resolve("Other.class");
+		try (InputStream inputStream = getClassFile(Other.class)) {
+			Files.copy(inputStream, otherClassFile);
+		}
+		Resource otherResource = new FileSystemResource(otherClassFile);
+		PersistentMetadataReaderCache cache = new PersistentMetadataReaderCache(this.cacheFile);
+		getMetadata(cache);
+		cache.flush();
+		getMetadata(cache, otherResource);
+		cache.flush();
+
+		PersistentMetadataReaderCache restarted = new PersistentMetadataReaderCache(this.cacheFile);
+		assertThat(restarted.getClassFile(this.resource)).isNotNull();
+		assertThat(restarted.getClassFile(otherResource)).isNotNull();
+	}
+
+	@Test
+	void unreadableCacheFileIsIgnored() throws Exception {
+		Files.write(this.cacheFile.toPath(), new byte[] {1, 2, 3});
+		PersistentMetadataReaderCache cache = new PersistentMetadataReaderCache(this.cacheFile);
+		assertThat(cache.getClassFile(this.resource)).isNull();
+		assertThat(getMetadata(cache).getAnnotationTypes()).containsExactly(Order.class.getName());
+		cache.flush();
+		assertThat(new PersistentMetadataReaderCache(this.cacheFile).getClassFile(this.resource)).isNotNull();
+	}
+
+	private AnnotationMetadata getMetadata(PersistentMetadataReaderCache cache) throws Exception {
+		return getMetadata(cache, this.resource);
+	}
+
+	private static AnnotationMetadata getMetadata(PersistentMetadataReaderCache cache, Resource resource)
+			throws Exception {
+
+		CachingMetadataReaderFactory factory = new CachingMetadataReaderFactory();
+		factory.setPersistentCache(cache);
+		return factory.getMetadataReader(resource).getAnnotationMetadata();
+	}
+
+	private static InputStream getClassFile(Class<?> clazz) {
+		return clazz.getResourceAsStream(ClassUtils.getClassFileName(clazz));
+	}
+
+	private static void writeJar(Path jarFile, Class<?> clazz) throws Exception {
+		try (OutputStream out = Files.newOutputStream(jarFile);
+				JarOutputStream jarOut = new JarOutputStream(out);
+				InputStream in = getClassFile(clazz)) {
+			jarOut.putNextEntry(new JarEntry("Sample.class"));
+			StreamUtils.copy(in, jarOut);
+		}
+	}
+
+
+	@Order(5)
+	static class Sample implements Runnable {
+
+		private String field;
+
+		@Override
+		public void run() {
+			this.field = "run";
+		}
+
+		@Order(1)
+		public String ordered() {
+			return this.field;
+		}
+	}
+
+
+	static class Other {
+	}
+
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link ConcurrentLruCache}.
+ *
+ * @author Sen Hu
+ */
+class ConcurrentLruCacheTests {
+
+	private final AtomicInteger generated = new AtomicInteger();
+
+	private final ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<>(2, key -> {
+		this.generated.incrementAndGet();
+		return key + "value";
+	});
+
+
+	@Test
+	void zeroCapacity() {
+		ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<>(0, key -> key + "value");
+
+		assertThat(cache.sizeLimit()).isZero();
+		assertThat(cache.size()).isZero();
+
+		assertThat(cache.get("k1")).isEqualTo("k1value");
+		assertThat(cache.size()).isZero();
+		assertThat(cache.contains("k1")).isFalse();
+		assertThat(cache.missCount()).isEqualTo(1);
+	}
+
+	@Test
+	void getAndSize() {
+		assertThat(this.cache.sizeLimit()).isEqualTo(2);
+		assertThat(this.cache.size()).isZero();
+
+		assertThat(this.cache.get("k1")).isEqualTo("k1value");
+		assertThat(this.cache.size()).isEqualTo(1);
+		assertThat(this.cache.contains("k1")).isTrue();
+
+		assertThat(this.cache.get("k2")).isEqualTo("k2value");
+		assertThat(this.cache.size()).isEqualTo(2);
+
+		assertThat(this.cache.get("k3")).isEqualTo("k3value");
+		assertThat(this.cache.size()).isEqualTo(2);
+		assertThat(this.cache.contains("k1")).isFalse();
+		assertThat(this.cache.contains("k2")).isTrue();
+		assertThat(this.cache.contains("k3")).isTrue();
+	}
+
+	@Test
+	void evictsLeastRecentlyUsed() {
+		this.cache.get("k1");
+		this.cache.get("k2");
+		this.cache.get("k1");
+		this.cache.get("k3");
+
+		assertThat(this.cache.contains("k1")).isTrue();
+		assertThat(this.cache.contains("k2")).isFalse();
+		assertThat(this.cache.contains("k3")).isTrue();
+	}
+
+	@Test
+	void statistics() {
+		this.cache.get("k1");
+		this.cache.get("k1");
+		this.cache.get("k2");
+		this.cache.get("k3");
+		this.cache.get("k3");
+
+		assertThat(this.cache.hitCount()).isEqualTo(2);
+		assertThat(this.cache.missCount()).isEqualTo(3);
+		assertThat(this.cache.evictionCount()).isEqualTo(1);
+		assertThat(this.generated.get()).isEqualTo(3);
+		assertThat(this.cache.toString()).contains("hits=2", "misses=3", "evictions=1");
+	}
+
+	@Test
+	void removeAndClear() {
+		this.cache.get("k1");
+		this.cache.get("k2");
+
+		assertThat(this.cache.remove("k1")).isTrue();
+		assertThat(this.cache.remove("k1")).isFalse();
+		assertThat(this.cache.size()).isEqualTo(1);
+
+		this.cache.get("k3");
+		this.cache.get("k4");
+		assertThat(this.cache.contains("k3")).isTrue();
+		assertThat(this.cache.contains("k4")).isTrue();
+
+		this.cache.clear();
+		assertThat(this.cache.size()).isZero();
+		assertThat(this.cache.get("k3")).isEqualTo("k3value");
+		assertThat(this.cache.size()).isEqualTo(1);
+	}
+
+	@Test
+	void forEach() {
+		this.cache.get("k1");
+		this.cache.get("k2");
+
+		Map<String, String> entries = new HashMap<>();
+		this.cache.forEach(entries::put);
+		assertThat(entries).containsOnlyKeys("k1", "k2").containsValues("k1value", "k2value");
+	}
+
+	@Test
+	void concurrentAccessStaysBounded() throws Exception {
+		ConcurrentLruCache<Integer, Integer> cache = new ConcurrentLruCache<>(64, key -> key * 2);
+		int threadCount = 8;
+		CountDownLatch latch = new CountDownLatch(threadCount);
+		List<Thread> threads = new ArrayList<>();
+		for (int i = 0; i < threadCount; i++) {
+			int seed = i;
+			Thread thread = new Thread(() -> {
+				try {
+					for (int j = 0; j < 10_000; j++) {
+						int key = (j * 31 + seed) % 128;
+						assertThat(cache.get(key)).isEqualTo(key * 2);
+					}
+				}
+				finally {
+					latch.countDown();
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		latch.await();
+
+		assertThat(cache.size()).isLessThanOrEqualTo(64);
+		assertThat(cache.hitCount() + cache.missCount()).isEqualTo(threadCount * 10_000L);
+	}
+
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.expression.spel;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+/**
+ * Benchmarks for SpEL expression evaluation, comparing the interpreted
+ * ({@link SpelCompilerMode#OFF}) and compiled ({@link SpelCompilerMode#IMMEDIATE})
+ * modes for property access, method invocation and arithmetic.
+ *
+ * @author Sen Hu
+ */
+@BenchmarkMode(Mode.Throughput)
+public class SpelEvaluationBenchmark {
+
+	@Benchmark
+	public void propertyAccess(EvaluationData data, Blackhole bh) {
+		bh.consume(data.propertyAccess.getValue(data.context));
+	}
+
+	@Benchmark
+	public void methodInvocation(EvaluationData data, Blackhole bh) {
+		bh.consume(data.methodInvocation.getValue(data.context));
+	}
+
+	@Benchmark
+	public void arithmetic(EvaluationData data, Blackhole bh) {
+		bh.consume(data.arithmetic.getValue(data.context));
+	}
+
+	@Benchmark
+	public void mapLookup(EvaluationData data, Blackhole bh) {
+		bh.consume(data.mapLookup.getValue(data.context));
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class EvaluationData {
+
+		@Param({"OFF", "IMMEDIATE"})
+		public SpelCompilerMode compilerMode;
+
+		public EvaluationContext context;
+
+		public Expression propertyAccess;
+
+		public Expression methodInvocation;
+
+		public Expression arithmetic;
+
+		public Expression mapLookup;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			SpelParserConfiguration configuration =
+					new SpelParserConfiguration(this.compilerMode, getClass().getClassLoader());
+			SpelExpressionParser parser = new SpelExpressionParser(configuration);
+			this.context = new StandardEvaluationContext(new Order());
+			this.propertyAccess = parseAndWarmUp(parser, "customer.name");
+			this.methodInvocation = parseAndWarmUp(parser, "customer.name.toUpperCase()");
+			this.arithmetic = parseAndWarmUp(parser, "quantity * price + 10");
+			this.mapLookup = parseAndWarmUp(parser, "attributes['channel']");
+		}
+
+		private Expression parseAndWarmUp(SpelExpressionParser parser, String expression) {
+			Expression parsed = parser.parseExpression(expression);
+			// Compiled expressions are only generated after a first interpreted evaluation
+			parsed.getValue(this.context);
+			parsed.getValue(this.context);
+			return parsed;
+		}
+	}
+
+
+	public static class Order {
+
+		private final Customer customer = new Customer();
+
+		private final Map<String, String> attributes = new HashMap<>();
+
+		public Order() {
+			this.attributes.put("channel", "web");
+		}
+
+		public Customer getCustomer() {
+			return this.customer;
+		}
+
+		public int getQuantity() {
+			return 3;
+		}
+
+		public int getPrice() {
+			return 42;
+		}
+
+		public Map<String, String> getAttributes() {
+			return this.attributes;
+		}
+	}
+
+
+	public static class Customer {
+
+		public String getName() {
+			return "spring";
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,8 +17,6 @@
 package org.springframework.messaging.simp.broker;
 
 import java.util.Collection;
-import java.util.HashSet;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -41,6 +39,7 @@ import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.support.MessageHeaderAccessor;
 import org.springframework.util.AntPathMatcher;
 import org.springframework.util.Assert;
+import org.springframework.util.ConcurrentLruCache;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.util.PathMatcher;
@@ -106,6 +105,7 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 	 */
 	public void setCacheLimit(int cacheLimit) {
 		this.cacheLimit = cacheLimit;
+		this.destinationCache.setCacheLimit(cacheLimit);
 	}
 
 	/**
@@ -249,47 +249,59 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 	/**
 	 * A cache for destinations previously resolved via
 	 * {@link DefaultSubscriptionRegistry#findSubscriptionsInternal(String, Message)}.
+	 * <p>Look-ups go through a {@link ConcurrentLruCache} without locking;
+	 * resolving a destination and applying subscription changes to the cached
+	 * destinations are serialized through the update monitor.
+	 * <p>Destinations without subscriptions are cached as well, so that messages
+	 * sent to them do not require a scan of all subscriptions every time.
+	 * Subscriptions registered later on are added to such entries like to any
+	 * other cached destination.
 	 */
 	private class DestinationCache {
 
+		private final Object updateMonitor = new Object();
+
+		/** Incremented on every subscription change, to detect entries that were resolved concurrently. */
+		private volatile int updateVersion;
+
 		/** Map from destination to {@code <sessionId, subscriptionId>} for fast look-ups. */
-		private final Map<String, LinkedMultiValueMap<String, String>> accessCache =
-				new ConcurrentHashMap<>(DEFAULT_CACHE_LIMIT);
-
-		/** Map from destination to {@code <sessionId, subscriptionId>} with locking. */
-		@SuppressWarnings("serial")
-		private final Map<String, LinkedMultiValueMap<String, String>> updateCache =
-				new LinkedHashMap<String, LinkedMultiValueMap<String, String>>(DEFAULT_CACHE_LIMIT, 0.75f, true) {
-					@Override
-					protected boolean removeEldestEntry(Map.Entry<String, LinkedMultiValueMap<String, String>> eldest) {
-						if (size() > getCacheLimit()) {
-							accessCache.remove(eldest.getKey());
-							return true;
-						}
-						else {
-							return false;
-						}
-					}
-				};
+		private volatile ConcurrentLruCache<String, DestinationSubscriptions> accessCache =
+				new ConcurrentLruCache<>(DEFAULT_CACHE_LIMIT, this::resolveSubscriptions);
 
 
+		public void setCacheLimit(int cacheLimit) {
+			synchronized (this.updateMonitor) {
+				this.accessCache = new ConcurrentLruCache<>(cacheLimit, this::resolveSubscriptions);
+			}
+		}
+
 		public LinkedMultiValueMap<String, String> getSubscriptions(String destination, Message<?> message) {
-			LinkedMultiValueMap<String, String> result = this.accessCache.get(destination);
-			if (result == null) {
-				synchronized (this.updateCache) {
-					result = new LinkedMultiValueMap<>();
-					for (SessionSubscriptionInfo info : subscriptionRegistry.getAllSubscriptions()) {
-						for (String destinationPattern : info.getDestinations()) {
-							if (getPathMatcher().match(destinationPattern, destination)) {
-								for (Subscription sub : info.getSubscriptions(destinationPattern)) {
-									result.add(info.sessionId, sub.getId());
-								}
-							}
-						}
+			DestinationSubscriptions subscriptions = this.accessCache.get(destination);
+			if (subscriptions.version != this.updateVersion) {
+				// Resolved before a concurrent subscription change, but only cached after it
+				synchronized (this.updateMonitor) {
+					if (subscriptions.version != this.updateVersion) {
+						subscriptions.reset(findSubscriptions(destination), this.updateVersion);
 					}
-					if (!result.isEmpty()) {
-						this.updateCache.put(destination, result.deepCopy());
-						this.accessCache.put(destination, result);
+				}
+			}
+			return subscriptions.accessCopy;
+		}
+
+		private DestinationSubscriptions resolveSubscriptions(String destination) {
+			synchronized (this.updateMonitor) {
+				return new DestinationSubscriptions(findSubscriptions(destination), this.updateVersion);
+			}
+		}
+
+		private LinkedMultiValueMap<String, String> findSubscriptions(String destination) {
+			LinkedMultiValueMap<String, String> result = new LinkedMultiValueMap<>();
+			for (SessionSubscriptionInfo info : subscriptionRegistry.getAllSubscriptions()) {
+				for (String destinationPattern : info.getDestinations()) {
+					if (getPathMatcher().match(destinationPattern, destination)) {
+						for (Subscription sub : info.getSubscriptions(destinationPattern)) {
+							result.add(info.sessionId, sub.getId());
+						}
 					}
 				}
 			}
@@ -297,62 +309,34 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 		}
 
 		public void updateAfterNewSubscription(String destination, String sessionId, String subsId) {
-			synchronized (this.updateCache) {
-				this.updateCache.forEach((cachedDestination, subscriptions) -> {
+			synchronized (this.updateMonitor) {
+				int version = ++this.updateVersion;
+				this.accessCache.forEach((cachedDestination, subscriptions) -> {
 					if (getPathMatcher().match(destination, cachedDestination)) {
-						// Subscription id's may also be populated via getSubscriptions()
-						List<String> subsForSession = subscriptions.get(sessionId);
-						if (subsForSession == null || !subsForSession.contains(subsId)) {
-							subscriptions.add(sessionId, subsId);
-							this.accessCache.put(cachedDestination, subscriptions.deepCopy());
-						}
+						subscriptions.addSubscription(sessionId, subsId);
 					}
+					subscriptions.version = version;
 				});
 			}
 		}
 
 		public void updateAfterRemovedSubscription(String sessionId, String subsId) {
-			synchronized (this.updateCache) {
-				Set<String> destinationsToRemove = new HashSet<>();
-				this.updateCache.forEach((destination, sessionMap) -> {
-					List<String> subscriptions = sessionMap.get(sessionId);
-					if (subscriptions != null) {
-						subscriptions.remove(subsId);
-						if (subscriptions.isEmpty()) {
-							sessionMap.remove(sessionId);
-						}
-						if (sessionMap.isEmpty()) {
-							destinationsToRemove.add(destination);
-						}
-						else {
-							this.accessCache.put(destination, sessionMap.deepCopy());
-						}
-					}
+			synchronized (this.updateMonitor) {
+				int version = ++this.updateVersion;
+				this.accessCache.forEach((destination, subscriptions) -> {
+					subscriptions.removeSubscription(sessionId, subsId);
+					subscriptions.version = version;
 				});
-				for (String destination : destinationsToRemove) {
-					this.updateCache.remove(destination);
-					this.accessCache.remove(destination);
-				}
 			}
 		}
 
 		public void updateAfterRemovedSession(SessionSubscriptionInfo info) {
-			synchronized (this.updateCache) {
-				Set<String> destinationsToRemove = new HashSet<>();
-				this.updateCache.forEach((destination, sessionMap) -> {
-					if (sessionMap.remove(info.getSessionId()) != null) {
-						if (sessionMap.isEmpty()) {
-							destinationsToRemove.add(destination);
-						}
-						else {
-							this.accessCache.put(destination, sessionMap.deepCopy());
-						}
-					}
+			synchronized (this.updateMonitor) {
+				int version = ++this.updateVersion;
+				this.accessCache.forEach((destination, subscriptions) -> {
+					subscriptions.removeSession(info.getSessionId());
+					subscriptions.version = version;
 				});
-				for (String destination : destinationsToRemove) {
-					this.updateCache.remove(destination);
-					this.accessCache.remove(destination);
-				}
 			}
 		}
 
@@ -363,6 +347,58 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 	}
 
 
+	/**
+	 * The subscriptions for a cached destination: a copy that is modified
+	 * under the update monitor, and a copy that is exposed for look-ups.
+	 */
+	private static final class DestinationSubscriptions {
+
+		/** Map from sessionId to subscription ids, guarded by the update monitor. */
+		private LinkedMultiValueMap<String, String> updateCopy;
+
+		volatile LinkedMultiValueMap<String, String> accessCopy;
+
+		volatile int version;
+
+		DestinationSubscriptions(LinkedMultiValueMap<String, String> subscriptions, int version) {
+			this.updateCopy = subscriptions;
+			this.accessCopy = subscriptions.deepCopy();
+			this.version = version;
+		}
+
+		void reset(LinkedMultiValueMap<String, String> subscriptions, int version) {
+			this.updateCopy = subscriptions;
+			this.accessCopy = subscriptions.deepCopy();
+			this.version = version;
+		}
+
+		void addSubscription(String sessionId, String subsId) {
+			// Subscription id's may also be populated via getSubscriptions()
+			List<String> subsForSession = this.updateCopy.get(sessionId);
+			if (subsForSession == null || !subsForSession.contains(subsId)) {
+				this.updateCopy.add(sessionId, subsId);
+				this.accessCopy = this.updateCopy.deepCopy();
+			}
+		}
+
+		void removeSubscription(String sessionId, String subsId) {
+			List<String> subscriptions = this.updateCopy.get(sessionId);
+			if (subscriptions != null && subscriptions.remove(subsId)) {
+				if (subscriptions.isEmpty()) {
+					this.updateCopy.remove(sessionId);
+				}
+				this.accessCopy = this.updateCopy.deepCopy();
+			}
+		}
+
+		void removeSession(String sessionId) {
+			if (this.updateCopy.remove(sessionId) != null) {
+				this.accessCopy = this.updateCopy.deepCopy();
+			}
+		}
+	}
+
+
 	/**
 	 * Provide access to session subscriptions by sessionId.
 	 */
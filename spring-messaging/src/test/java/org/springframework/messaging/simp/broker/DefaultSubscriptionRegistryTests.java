@@ -438,6 +438,50 @@ public class DefaultSubscriptionRegistryTests {
 		assertThat(this.registry.findSubscriptions(createMessage("/bar")).size()).isEqualTo(2);
 	}
 
+	@Test
+	public void findSubscriptionsWithoutMatchesBeforeSubscription() {
+		assertThat(this.registry.findSubscriptions(createMessage("/foo")).size()).isEqualTo(0);
+		assertThat(this.registry.findSubscriptions(createMessage("/foo/bar")).size()).isEqualTo(0);
+
+		this.registry.registerSubscription(subscribeMessage("sess1", "1", "/foo"));
+		this.registry.registerSubscription(subscribeMessage("sess2", "1", "/foo/**"));
+
+		MultiValueMap<String, String> actual = this.registry.findSubscriptions(createMessage("/foo"));
+		assertThat(actual.size()).isEqualTo(2);
+		assertThat(actual.get("sess1")).isEqualTo(Collections.singletonList("1"));
+		assertThat(actual.get("sess2")).isEqualTo(Collections.singletonList("1"));
+		actual = this.registry.findSubscriptions(createMessage("/foo/bar"));
+		assertThat(actual.size()).isEqualTo(1);
+		assertThat(actual.get("sess2")).isEqualTo(Collections.singletonList("1"));
+	}
+
+	@Test
+	public void findSubscriptionsAfterAllSubscriptionsRemovedAndSubscribedAgain() {
+		this.registry.registerSubscription(subscribeMessage("sess1", "1", "/foo"));
+		assertThat(this.registry.findSubscriptions(createMessage("/foo")).size()).isEqualTo(1);
+
+		this.registry.unregisterSubscription(unsubscribeMessage("sess1", "1"));
+		assertThat(this.registry.findSubscriptions(createMessage("/foo")).size()).isEqualTo(0);
+
+		this.registry.registerSubscription(subscribeMessage("sess2", "1", "/foo"));
+		MultiValueMap<String, String> actual = this.registry.findSubscriptions(createMessage("/foo"));
+		assertThat(actual.size()).isEqualTo(1);
+		assertThat(actual.get("sess2")).isEqualTo(Collections.singletonList("1"));
+
+		this.registry.unregisterAllSubscriptions("sess2");
+		assertThat(this.registry.findSubscriptions(createMessage("/foo")).size()).isEqualTo(0);
+	}
+
+	@Test
+	public void cacheLimitChangedAfterLookups() {
+		this.registry.registerSubscription(subscribeMessage("sess1", "1", "/foo"));
+		assertThat(this.registry.findSubscriptions(createMessage("/foo")).size()).isEqualTo(1);
+
+		this.registry.setCacheLimit(1);
+		this.registry.registerSubscription(subscribeMessage("sess2", "1", "/foo"));
+		assertThat(this.registry.findSubscriptions(createMessage("/foo")).size()).isEqualTo(2);
+	}
+
 	private Message<?> createMessage(String destination) {
 		SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create();
 		accessor.setDestination(destination);
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.util.pattern;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.http.server.PathContainer;
+
+/**
+ * Benchmarks for {@link PathPattern} matching, using the same patterns and
+ * request paths as the {@code AntPathMatcherBenchmark} in spring-core.
+ *
+ * @author Sen Hu
+ */
+@BenchmarkMode(Mode.Throughput)
+public class PathPatternBenchmark {
+
+	@Benchmark
+	public void matchAllPatterns(PatternsData data, Blackhole bh) {
+		for (PathContainer path : data.requestPaths) {
+			for (PathPattern pattern : data.patterns) {
+				bh.consume(pattern.matches(path));
+			}
+		}
+	}
+
+	@Benchmark
+	public void matchAndExtract(PatternsData data, Blackhole bh) {
+		for (PathContainer path : data.requestPaths) {
+			bh.consume(data.extractingPattern.matchAndExtract(path));
+		}
+	}
+
+	@Benchmark
+	public void parsePatterns(PatternsData data, Blackhole bh) {
+		for (String pattern : data.rawPatterns) {
+			bh.consume(data.parser.parse(pattern));
+		}
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class PatternsData {
+
+		public PathPatternParser parser;
+
+		public List<String> rawPatterns = Arrays.asList(
+				"/", "/spring", "/spring/{project}", "/spring/{project}/docs/**",
+				"/spring/*/docs/{version}/*.html", "/static/**",
+				"/api/{version:v[0-9]+}/users/{id}", "/images/{*path}");
+
+		public List<PathPattern> patterns;
+
+		public PathPattern extractingPattern;
+
+		public List<PathContainer> requestPaths;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.parser = new PathPatternParser();
+			this.patterns = new ArrayList<>(this.rawPatterns.size());
+			for (String pattern : this.rawPatterns) {
+				this.patterns.add(this.parser.parse(pattern));
+			}
+			this.extractingPattern = this.parser.parse("/spring/{project}/docs/**");
+			this.requestPaths = new ArrayList<>();
+			for (String path : Arrays.asList("/", "/spring", "/spring/framework",
+					"/spring/framework/docs/current/index.html", "/static/js/vendor/app.js",
+					"/api/v1/users/42", "/api/latest/users/42", "/images/favicon.ico")) {
+				this.requestPaths.add(PathContainer.parsePath(path));
+			}
+		}
+	}
+
+}
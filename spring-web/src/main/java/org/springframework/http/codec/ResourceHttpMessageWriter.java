@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -92,6 +92,30 @@ public class ResourceHttpMessageWriter implements HttpMessageWriter<Resource> {
 	}
 
 
+	/**
+	 * Whether to read file-based resources and resource regions through
+	 * memory-mapped regions when they cannot be written with zero-copy
+	 * file transfer.
+	 * <p>By default this is set to {@code false}.
+	 * @param memoryMapped whether to use memory-mapped reads
+	 * @since 5.2.7
+	 * @see ResourceEncoder#setMemoryMapped(boolean)
+	 * @see ResourceRegionEncoder#setMemoryMapped(boolean)
+	 */
+	public void setMemoryMapped(boolean memoryMapped) {
+		this.encoder.setMemoryMapped(memoryMapped);
+		this.regionEncoder.setMemoryMapped(memoryMapped);
+	}
+
+	/**
+	 * Whether file-based resources are read through memory-mapped regions.
+	 * @since 5.2.7
+	 */
+	public boolean isMemoryMapped() {
+		return this.encoder.isMemoryMapped();
+	}
+
+
 	@Override
 	public boolean canWrite(ResolvableType elementType, @Nullable MediaType mediaType) {
 		return this.encoder.canEncode(elementType, mediaType);